@@ -0,0 +1,95 @@
+package com.carbonsensors.benchmarks;
+
+import com.carbonsensors.dto.AlertDto;
+import com.carbonsensors.model.Alert;
+import com.carbonsensors.model.Measurement;
+import com.carbonsensors.model.projection.AlertMeasurementValue;
+import com.carbonsensors.model.projection.AlertSummary;
+import com.carbonsensors.service.AlertPage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the mapping of alerts to their DTOs, both from an alert entity and from a page of alert projections as
+ * the alerts endpoint renders it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@org.openjdk.jmh.annotations.Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AlertDtoBenchmark {
+
+  private static final Instant NOW = Instant.parse("2021-01-01T00:00:00Z");
+
+  @Param({"3", "30"})
+  private int measurementsPerAlert;
+
+  /**
+   * Number of alerts of the page, which is the default page size of the alerts endpoint.
+   */
+  @Param({"50"})
+  private int alertsPerPage;
+
+  private Alert alert;
+  private AlertPage alertPage;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    List<Measurement> measurements = new ArrayList<>();
+    for (int i = 0; i < measurementsPerAlert; i++) {
+      measurements.add(Measurement.builder()
+          .created(NOW.minus(Duration.ofMinutes(i)))
+          .co2Quantity(2100d + i)
+          .build());
+    }
+    alert = Alert.builder()
+        .id(UUID.randomUUID())
+        .created(NOW)
+        .measurements(measurements)
+        .build();
+
+    List<AlertSummary> alerts = new ArrayList<>();
+    Map<UUID, List<AlertMeasurementValue>> measurementValuesByAlert = new HashMap<>();
+    for (int i = 0; i < alertsPerPage; i++) {
+      AlertSummary alertSummary = new AlertSummary(UUID.randomUUID(), NOW.minus(Duration.ofHours(i)));
+      List<AlertMeasurementValue> measurementValues = new ArrayList<>();
+      for (int j = 0; j < measurementsPerAlert; j++) {
+        measurementValues.add(new AlertMeasurementValue(alertSummary.getId(),
+            alertSummary.getCreated().minus(Duration.ofMinutes(j)), 2100d + j));
+      }
+      alerts.add(alertSummary);
+      measurementValuesByAlert.put(alertSummary.getId(), measurementValues);
+    }
+    alertPage = new AlertPage(alerts, measurementValuesByAlert, null);
+  }
+
+  @Benchmark
+  public AlertDto fromAlert() {
+    return AlertDto.fromAlert(alert);
+  }
+
+  @Benchmark
+  public List<AlertDto> fromAlertPage() {
+    return AlertDto.fromAlertPage(alertPage);
+  }
+}
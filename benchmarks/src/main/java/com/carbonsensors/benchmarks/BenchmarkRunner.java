@@ -0,0 +1,46 @@
+package com.carbonsensors.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+
+/**
+ * Runs the benchmarks selected on the command line, which accepts every JMH option.
+ * <br>
+ * Unless another format is requested with {@code -rf}, results are written as JSON to {@value #DEFAULT_RESULT_FILE},
+ * so that they can be compared between releases.
+ */
+public class BenchmarkRunner {
+
+  static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+  public static void main(String[] args) throws CommandLineOptionException, IOException, RunnerException {
+    CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+    if (commandLineOptions.shouldHelp()) {
+      commandLineOptions.showHelp();
+      return;
+    }
+    if (commandLineOptions.shouldList()) {
+      new Runner(commandLineOptions).list();
+      return;
+    }
+
+    OptionsBuilder optionsBuilder = new OptionsBuilder();
+    optionsBuilder.parent(commandLineOptions);
+    if (!commandLineOptions.getResultFormat().hasValue()) {
+      optionsBuilder.resultFormat(ResultFormatType.JSON);
+      if (!commandLineOptions.getResult().hasValue()) {
+        optionsBuilder.result(DEFAULT_RESULT_FILE);
+      }
+    }
+
+    Options options = optionsBuilder.build();
+    new Runner(options).run();
+  }
+}
@@ -0,0 +1,88 @@
+package com.carbonsensors.benchmarks;
+
+import com.carbonsensors.CarbonsensorsApplication;
+import com.carbonsensors.service.MeasurementService;
+import com.carbonsensors.service.SensorService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of measurement creation when every thread sends the readings of its own sensor, with
+ * sensor locks striped as configured and with a single stripe, which makes them a global lock.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class ConcurrentIngestionBenchmark {
+
+  /**
+   * 1 is the global lock baseline.
+   */
+  @Param({"1", "1024"})
+  private int lockStripes;
+
+  private ConfigurableApplicationContext context;
+  private MeasurementService measurementService;
+  private SensorService sensorService;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    context = new SpringApplicationBuilder(CarbonsensorsApplication.class)
+        .web(WebApplicationType.NONE)
+        .properties("spring.datasource.url=jdbc:h2:mem:benchmarks", "logging.level.root=WARN",
+            "measurement.sensor.lock.stripes=" + lockStripes)
+        .run();
+    measurementService = context.getBean(MeasurementService.class);
+    sensorService = context.getBean(SensorService.class);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  /**
+   * Sensor of a benchmark thread, receiving a reading every second.
+   */
+  @State(Scope.Thread)
+  public static class SensorState {
+
+    private UUID sensorId;
+    private Instant created;
+
+    @Setup(Level.Trial)
+    public void setup(ConcurrentIngestionBenchmark benchmark) {
+      sensorId = benchmark.sensorService.createSensor().getId();
+      created = Instant.parse("2021-01-01T00:00:00Z");
+    }
+  }
+
+  @Benchmark
+  public void createMeasurement(SensorState sensor) {
+    sensor.created = sensor.created.plusSeconds(1);
+    measurementService.createMeasurement(sensor.sensorId, 1500d, sensor.created);
+  }
+}
@@ -0,0 +1,100 @@
+package com.carbonsensors.benchmarks;
+
+import com.carbonsensors.CarbonsensorsApplication;
+import com.carbonsensors.controller.SensorController;
+import com.carbonsensors.dto.CreateMeasurementDto;
+import com.carbonsensors.service.SensorService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the creation of a measurement end to end, against the application running on the embedded H2 database:
+ * once as a REST request, as {@code ApiEndToEndITCase} sends it, and once calling the controller in process, which
+ * leaves out the HTTP round trip and the JSON deserialization.
+ * <br>
+ * Every measurement is created one second after the previous one, as a sensor would send them.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CreateMeasurementBenchmark {
+
+  private static final double CO2_QUANTITY = 1500d;
+
+  private ConfigurableApplicationContext context;
+  private SensorController sensorController;
+  private HttpClient httpClient;
+  private URI measurementsUri;
+  private UUID sensorId;
+  private AtomicLong createdEpochSeconds;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    context = new SpringApplicationBuilder(CarbonsensorsApplication.class)
+        .properties("server.port=0", "spring.datasource.url=jdbc:h2:mem:benchmarks", "logging.level.root=WARN")
+        .run();
+    sensorController = context.getBean(SensorController.class);
+    sensorId = context.getBean(SensorService.class).createSensor().getId();
+
+    httpClient = HttpClient.newHttpClient();
+    measurementsUri = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port")
+        + "/api/v1/sensors/" + sensorId + "/measurements");
+    createdEpochSeconds = new AtomicLong(ZonedDateTime.of(2021, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC).toEpochSecond());
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public int createMeasurementOverHttp() throws IOException, InterruptedException {
+    String body = "{\"co2Quantity\":" + CO2_QUANTITY + ",\"time\":\"" + nextCreated() + "\"}";
+    HttpRequest request = HttpRequest.newBuilder(measurementsUri)
+        .header("Content-Type", "application/json")
+        .POST(HttpRequest.BodyPublishers.ofString(body))
+        .build();
+
+    HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+    if (response.statusCode() != 200) {
+      throw new IllegalStateException("Measurement was not created. Status: " + response.statusCode());
+    }
+    return response.statusCode();
+  }
+
+  @Benchmark
+  public void createMeasurementInProcess() {
+    sensorController.createMeasurement(sensorId, new CreateMeasurementDto(CO2_QUANTITY, nextCreated()));
+  }
+
+  private ZonedDateTime nextCreated() {
+    return Instant.ofEpochSecond(createdEpochSeconds.incrementAndGet()).atZone(ZoneOffset.UTC);
+  }
+}
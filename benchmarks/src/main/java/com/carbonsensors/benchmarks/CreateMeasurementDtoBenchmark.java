@@ -0,0 +1,50 @@
+package com.carbonsensors.benchmarks;
+
+import com.carbonsensors.dto.CreateMeasurementDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the deserialization of the body of a measurement creation request, with an object mapper built the way
+ * Spring MVC builds the one of its message converters.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CreateMeasurementDtoBenchmark {
+
+  private static final byte[] BODY =
+      "{\"co2Quantity\":2100.0,\"time\":\"2020-12-28T18:55:47+00:00\"}".getBytes(StandardCharsets.UTF_8);
+
+  private ObjectReader objectReader;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    objectReader = objectMapper.readerFor(CreateMeasurementDto.class);
+  }
+
+  @Benchmark
+  public CreateMeasurementDto deserialize() throws IOException {
+    return objectReader.readValue(BODY);
+  }
+}
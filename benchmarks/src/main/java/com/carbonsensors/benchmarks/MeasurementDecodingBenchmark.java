@@ -0,0 +1,81 @@
+package com.carbonsensors.benchmarks;
+
+import com.carbonsensors.dto.BatchMeasurementsDto;
+import com.carbonsensors.dto.CreateMeasurementDto;
+import com.carbonsensors.dto.MeasurementRecords;
+import com.carbonsensors.dto.SensorMeasurementsDto;
+import com.carbonsensors.service.MeasurementReading;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the decoding of a body of measurements into readings, from JSON with an object mapper built the way
+ * Spring MVC builds the one of its message converters, and from the binary records of {@link MeasurementRecords}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MeasurementDecodingBenchmark {
+
+  @Param({"1", "500"})
+  private int readings;
+
+  private ObjectReader objectReader;
+  private byte[] json;
+  private byte[] records;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    UUID sensorId = UUID.randomUUID();
+    ZonedDateTime time = ZonedDateTime.of(2020, 12, 28, 18, 55, 47, 0, ZoneOffset.UTC);
+    List<CreateMeasurementDto> measurements = new ArrayList<>();
+    List<MeasurementReading> measurementReadings = new ArrayList<>();
+    for (int i = 0; i < readings; i++) {
+      measurements.add(new CreateMeasurementDto(2100d + i, time.plusSeconds(i)));
+      measurementReadings.add(new MeasurementReading(sensorId, 2100d + i, time.plusSeconds(i).toInstant()));
+    }
+
+    ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    objectReader = objectMapper.readerFor(BatchMeasurementsDto.class);
+    json = objectMapper.writeValueAsBytes(
+        new BatchMeasurementsDto(Collections.singletonList(new SensorMeasurementsDto(sensorId, measurements))));
+    records = MeasurementRecords.write(measurementReadings);
+  }
+
+  @Benchmark
+  public List<MeasurementReading> json() throws IOException {
+    BatchMeasurementsDto batch = objectReader.readValue(json);
+    return batch.toMeasurementReadings();
+  }
+
+  @Benchmark
+  public List<MeasurementReading> records() throws IOException {
+    return MeasurementRecords.read(new ByteArrayInputStream(records), readings);
+  }
+}
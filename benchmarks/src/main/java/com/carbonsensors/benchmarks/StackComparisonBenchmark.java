@@ -0,0 +1,131 @@
+package com.carbonsensors.benchmarks;
+
+import com.carbonsensors.CarbonsensorsApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the servlet stack with the {@code reactive} profile under a growing number of concurrent connections, each
+ * benchmark thread holding its own HTTP/1.1 connection and sending the readings of its own sensor.
+ * <br>
+ * Throughput and the latency distribution are reported for 16, 64 and 256 connections. The servlet stack holds a
+ * request thread for each request being served and waits for one of its 10 JDBC connections beyond 10 concurrent
+ * writes, and for one of its 200 request threads beyond 200 connections, while the reactive stack serves every
+ * connection from a few event loop threads. Both stacks share the embedded H2 database, whose R2DBC driver runs the
+ * statements on the calling thread, so the database remains a common bottleneck.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StackComparisonBenchmark {
+
+  private static final Pattern SENSOR_ID = Pattern.compile("\"id\"\\s*:\\s*\"([0-9a-f-]+)\"");
+
+  @Param({"servlet", "reactive"})
+  private String stack;
+
+  private ConfigurableApplicationContext context;
+  private String sensorsUri;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    context = new SpringApplicationBuilder(CarbonsensorsApplication.class)
+        .profiles("reactive".equals(stack) ? new String[] {"reactive"} : new String[0])
+        .properties("server.port=0", "spring.datasource.url=jdbc:h2:mem:benchmarks",
+            "spring.r2dbc.url=r2dbc:h2:mem:///benchmarks", "logging.level.root=WARN")
+        .run();
+    sensorsUri = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api/v1/sensors";
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  /**
+   * Connection and sensor of a benchmark thread, receiving a reading every second.
+   */
+  @State(Scope.Thread)
+  public static class Connection {
+
+    private HttpClient httpClient;
+    private URI measurementsUri;
+    private ZonedDateTime created;
+
+    @Setup(Level.Trial)
+    public void setup(StackComparisonBenchmark benchmark) throws IOException, InterruptedException {
+      httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+      HttpResponse<String> response = httpClient.send(
+          HttpRequest.newBuilder(URI.create(benchmark.sensorsUri)).POST(HttpRequest.BodyPublishers.noBody()).build(),
+          HttpResponse.BodyHandlers.ofString());
+      Matcher sensorId = SENSOR_ID.matcher(response.body());
+      if (!sensorId.find()) {
+        throw new IllegalStateException("Sensor was not created. Response: " + response.body());
+      }
+
+      measurementsUri = URI.create(benchmark.sensorsUri + "/" + UUID.fromString(sensorId.group(1)) + "/measurements");
+      created = ZonedDateTime.of(2021, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    }
+
+    private int createMeasurement() throws IOException, InterruptedException {
+      created = created.plusSeconds(1);
+      String body = "{\"co2Quantity\":1500.0,\"time\":\"" + created + "\"}";
+      HttpResponse<Void> response = httpClient.send(HttpRequest.newBuilder(measurementsUri)
+              .header("Content-Type", "application/json")
+              .POST(HttpRequest.BodyPublishers.ofString(body))
+              .build(),
+          HttpResponse.BodyHandlers.discarding());
+      if (response.statusCode() != 200) {
+        throw new IllegalStateException("Measurement was not created. Status: " + response.statusCode());
+      }
+      return response.statusCode();
+    }
+  }
+
+  @Benchmark
+  @Threads(16)
+  public int createMeasurementWith16Connections(Connection connection) throws IOException, InterruptedException {
+    return connection.createMeasurement();
+  }
+
+  @Benchmark
+  @Threads(64)
+  public int createMeasurementWith64Connections(Connection connection) throws IOException, InterruptedException {
+    return connection.createMeasurement();
+  }
+
+  @Benchmark
+  @Threads(256)
+  public int createMeasurementWith256Connections(Connection connection) throws IOException, InterruptedException {
+    return connection.createMeasurement();
+  }
+}
@@ -0,0 +1,110 @@
+package com.carbonsensors.service;
+
+import com.carbonsensors.config.ConfigurationProperties;
+import com.carbonsensors.model.Measurement;
+import com.carbonsensors.model.Sensor;
+import com.carbonsensors.repository.MeasurementRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a sustained ingest of readings into the last hour of readings of a fleet, held either by the
+ * {@link RecentMeasurementStore} or, as a baseline, as {@link Measurement} entities in a bounded queue per sensor.
+ * Run it with {@code -prof gc} to compare the allocation rate and the time spent in garbage collection.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@org.openjdk.jmh.annotations.Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx1g", "-Xms1g"})
+@State(Scope.Thread)
+public class RecentMeasurementsBenchmark {
+
+  private static final int READINGS_PER_SENSOR = 720;
+
+  @Param({"1000"})
+  private int sensors;
+
+  private UUID[] sensorIds;
+  private RecentMeasurementStore store;
+  private Map<UUID, Deque<Measurement>> entitiesBySensor;
+  private Sensor sensor;
+  private long created;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    ConfigurationProperties configurationProperties = new ConfigurationProperties();
+    configurationProperties.setMeasurementRecentHours(1);
+    configurationProperties.setMeasurementRecentReadingsPerSensor(READINGS_PER_SENSOR);
+    configurationProperties.setMeasurementRecentBudgetMb(
+        (int) Math.ceil(sensors * READINGS_PER_SENSOR * RecentMeasurementStore.BYTES_PER_READING / 1048576d));
+    store = new RecentMeasurementStore(emptyRepository(), new OperationalMetrics(new SimpleMeterRegistry()),
+        configurationProperties);
+
+    sensorIds = new UUID[sensors];
+    entitiesBySensor = new HashMap<>();
+    for (int i = 0; i < sensors; i++) {
+      sensorIds[i] = UUID.randomUUID();
+      store.track(sensorIds[i]);
+      entitiesBySensor.put(sensorIds[i], new ArrayDeque<>(READINGS_PER_SENSOR));
+    }
+    sensor = Sensor.builder().id(UUID.randomUUID()).build();
+    created = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(30);
+  }
+
+  @Benchmark
+  public void offHeapStore() {
+    UUID sensorId = sensorIds[next];
+    next = (next + 1) % sensors;
+    store.add(sensorId, ++created, 400 + (created & 1023));
+  }
+
+  @Benchmark
+  public void entities() {
+    UUID sensorId = sensorIds[next];
+    next = (next + 1) % sensors;
+    Deque<Measurement> measurements = entitiesBySensor.get(sensorId);
+    if (measurements.size() == READINGS_PER_SENSOR) {
+      measurements.pollFirst();
+    }
+    measurements.addLast(Measurement.builder()
+        .sensor(sensor)
+        .created(Instant.ofEpochMilli(++created))
+        .co2Quantity((double) (400 + (created & 1023)))
+        .build());
+  }
+
+  /**
+   * Stub of the measurement repository of a fleet without any stored measurement.
+   */
+  private static MeasurementRepository emptyRepository() {
+    return (MeasurementRepository) Proxy.newProxyInstance(MeasurementRepository.class.getClassLoader(),
+        new Class<?>[] {MeasurementRepository.class}, (proxy, method, args) -> {
+          if (method.getName().equals("findBySensorIdOrderByCreatedDesc")) {
+            return Collections.emptyList();
+          }
+          throw new UnsupportedOperationException(method.getName() + " is not stubbed");
+        });
+  }
+}
@@ -0,0 +1,125 @@
+package com.carbonsensors.service;
+
+import com.carbonsensors.config.ConfigurationProperties;
+import com.carbonsensors.model.Measurement;
+import com.carbonsensors.model.Sensor;
+import com.carbonsensors.model.Status;
+import com.carbonsensors.repository.AlertRepository;
+import com.carbonsensors.repository.SensorRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the decision of the sensor status once new measurements are in the sensor window, for each outcome of
+ * the decision. Repositories are replaced by stubs, so only the decision and the changes of the entities are measured.
+ * <br>
+ * It lives in the service package because {@link MeasurementService#updateSensorStatus} is package-private.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@org.openjdk.jmh.annotations.Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UpdateSensorStatusBenchmark {
+
+  private static final int CO2_THRESHOLD = 2000;
+  private static final int CONSECUTIVE_MEASUREMENTS = 3;
+  private static final Instant NOW = Instant.parse("2021-01-01T00:00:00Z");
+
+  /**
+   * OK: the last readings are at or below the threshold.
+   * WARM: the last reading is above the threshold, the ones before it are not.
+   * ALERT: the sensor is already in alert and a new reading above the threshold extends its alert.
+   */
+  @Param({"OK", "WARM", "ALERT"})
+  private Status outcome;
+
+  private MeasurementService measurementService;
+  private Sensor sensor;
+  private MeasurementWindow window;
+  private List<Measurement> newMeasurements;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    ConfigurationProperties configurationProperties = new ConfigurationProperties();
+    configurationProperties.setCo2LevelThreshold(CO2_THRESHOLD);
+    configurationProperties.setConsecutiveMeasurementsForAlert(CONSECUTIVE_MEASUREMENTS);
+    configurationProperties.setConsecutiveMeasurementsForOk(CONSECUTIVE_MEASUREMENTS);
+    configurationProperties.setSensorStatusCacheMaxSize(10);
+    configurationProperties.setSensorEventsBufferSize(1);
+    configurationProperties.setSensorEventsDispatcherThreads(1);
+
+    sensor = Sensor.builder()
+        .id(UUID.randomUUID())
+        .status(outcome)
+        .alerts(new HashSet<>())
+        .currentAlertId(outcome == Status.ALERT ? UUID.randomUUID() : null)
+        .build();
+
+    OperationalMetrics operationalMetrics = new OperationalMetrics(new SimpleMeterRegistry());
+    measurementService = new MeasurementService(null, stub(SensorRepository.class), stub(AlertRepository.class),
+        configurationProperties, null, null, null, new SensorStatusCache(configurationProperties),
+        operationalMetrics, null, new SensorStatusMachine(configurationProperties),
+        new SensorEventHub(configurationProperties, operationalMetrics));
+
+    double latest = outcome == Status.OK ? CO2_THRESHOLD - 100 : CO2_THRESHOLD + 100;
+    double previous = outcome == Status.ALERT ? CO2_THRESHOLD + 100 : CO2_THRESHOLD - 100;
+    window = new MeasurementWindow(CONSECUTIVE_MEASUREMENTS);
+    for (int i = CONSECUTIVE_MEASUREMENTS - 1; i > 0; i--) {
+      window.add(NOW.minus(Duration.ofMinutes(i)).toEpochMilli(), previous);
+    }
+    window.add(NOW.toEpochMilli(), latest);
+
+    newMeasurements = Collections.singletonList(Measurement.builder()
+        .id(UUID.randomUUID())
+        .sensor(sensor)
+        .created(NOW)
+        .co2Quantity(latest)
+        .build());
+  }
+
+  @Benchmark
+  public Status updateSensorStatus() {
+    measurementService.updateSensorStatus(sensor, window, newMeasurements);
+    return sensor.getStatus();
+  }
+
+  /**
+   * Stub of a repository which returns the entity it is given on save and updates a single row on bulk updates.
+   */
+  @SuppressWarnings("unchecked")
+  private <T> T stub(Class<T> repositoryType) {
+    return (T) Proxy.newProxyInstance(repositoryType.getClassLoader(), new Class<?>[] {repositoryType},
+        (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "save":
+              return args[0];
+            case "addMeasurement":
+            case "addToSummary":
+              return 1;
+            default:
+              throw new UnsupportedOperationException(method.getName() + " is not stubbed");
+          }
+        });
+  }
+}
@@ -22,4 +22,91 @@ public class ConfigurationProperties {
 
   @Value("${metrics.co2.days}")
   private Integer metricsCo2Days;
+
+  @Value("${measurement.batch.max.size}")
+  private Integer measurementBatchMaxSize;
+
+  @Value("${measurement.window.max.sensors}")
+  private Integer measurementWindowMaxSensors;
+
+  @Value("${measurement.window.idle.minutes}")
+  private Integer measurementWindowIdleMinutes;
+
+  @Value("${measurement.lateness.horizon.ms}")
+  private Long measurementLatenessHorizonMs;
+
+  @Value("${measurement.reorder.buffer.size}")
+  private Integer measurementReorderBufferSize;
+
+  @Value("${measurement.recent.hours}")
+  private Integer measurementRecentHours;
+
+  @Value("${measurement.recent.readings.per.sensor}")
+  private Integer measurementRecentReadingsPerSensor;
+
+  @Value("${measurement.recent.budget.mb}")
+  private Integer measurementRecentBudgetMb;
+
+  @Value("${measurement.sensor.lock.stripes}")
+  private Integer measurementSensorLockStripes;
+
+  @Value("${measurement.ingestion.async.enabled}")
+  private Boolean measurementIngestionAsyncEnabled;
+
+  @Value("${measurement.ingestion.shards}")
+  private Integer measurementIngestionShards;
+
+  @Value("${measurement.ingestion.queue.capacity}")
+  private Integer measurementIngestionQueueCapacity;
+
+  @Value("${measurement.ingestion.batch.max.size}")
+  private Integer measurementIngestionBatchMaxSize;
+
+  @Value("${measurement.ingestion.shutdown.timeout.ms}")
+  private Long measurementIngestionShutdownTimeoutMs;
+
+  @Value("${measurement.retention.days}")
+  private Integer measurementRetentionDays;
+
+  @Value("${measurement.purge.chunk.size}")
+  private Integer measurementPurgeChunkSize;
+
+  @Value("${measurement.series.max.points}")
+  private Integer measurementSeriesMaxPoints;
+
+  @Value("${sensor.status.cache.max.size}")
+  private Integer sensorStatusCacheMaxSize;
+
+  @Value("${sensor.status.bulk.max.size}")
+  private Integer sensorStatusBulkMaxSize;
+
+  @Value("${sensor.status.bulk.chunk.size}")
+  private Integer sensorStatusBulkChunkSize;
+
+  @Value("${sensor.provisioning.max.size}")
+  private Integer sensorProvisioningMaxSize;
+
+  @Value("${sensor.provisioning.batch.size}")
+  private Integer sensorProvisioningBatchSize;
+
+  @Value("${sensor.events.buffer.size}")
+  private Integer sensorEventsBufferSize;
+
+  @Value("${sensor.events.dispatcher.threads}")
+  private Integer sensorEventsDispatcherThreads;
+
+  @Value("${fleet.ranking.partitions}")
+  private Integer fleetRankingPartitions;
+
+  @Value("${fleet.ranking.default.size}")
+  private Integer fleetRankingDefaultSize;
+
+  @Value("${fleet.ranking.max.size}")
+  private Integer fleetRankingMaxSize;
+
+  @Value("${alert.page.default.size}")
+  private Integer alertPageDefaultSize;
+
+  @Value("${alert.page.max.size}")
+  private Integer alertPageMaxSize;
 }
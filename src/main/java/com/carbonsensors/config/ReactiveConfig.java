@@ -0,0 +1,57 @@
+package com.carbonsensors.config;
+
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.r2dbc.connectionfactory.R2dbcTransactionManager;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+/**
+ * Non-blocking variant of the API, enabled by the {@code reactive} profile. It is served by Netty and reaches the
+ * database through R2DBC, while Flyway and the JPA entities keep using the JDBC data source.
+ * <br>
+ * The data source and both transaction managers are declared, since Spring Boot backs off from the JDBC ones when it
+ * finds an R2DBC connection factory. The JPA transaction manager stays the default of {@code @Transactional}.
+ */
+@Profile("reactive")
+@Configuration
+@EnableConfigurationProperties(DataSourceProperties.class)
+public class ReactiveConfig {
+
+  @Bean
+  public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+    return new NettyReactiveWebServerFactory();
+  }
+
+  @Bean
+  public DataSource dataSource(DataSourceProperties dataSourceProperties) {
+    return dataSourceProperties.initializeDataSourceBuilder().build();
+  }
+
+  @Bean
+  @Primary
+  public PlatformTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+    return new JpaTransactionManager(entityManagerFactory);
+  }
+
+  @Bean
+  public ReactiveTransactionManager reactiveTransactionManager(ConnectionFactory connectionFactory) {
+    return new R2dbcTransactionManager(connectionFactory);
+  }
+
+  @Bean
+  public TransactionalOperator transactionalOperator(ReactiveTransactionManager reactiveTransactionManager) {
+    return TransactionalOperator.create(reactiveTransactionManager);
+  }
+}
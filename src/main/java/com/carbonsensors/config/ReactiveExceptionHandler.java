@@ -0,0 +1,22 @@
+package com.carbonsensors.config;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Maps exceptions to HTTP codes on the {@code reactive} profile, as {@link RestResponseEntityExceptionHandler} does
+ * on the servlet stack.
+ */
+@Profile("reactive")
+@RestControllerAdvice
+public class ReactiveExceptionHandler {
+
+  @ExceptionHandler(value
+      = { IllegalArgumentException.class, IllegalStateException.class })
+  protected ResponseEntity<String> handleConflict(RuntimeException ex) {
+    return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
+  }
+}
@@ -2,6 +2,9 @@ package com.carbonsensors.config;
 
 import static java.util.Collections.singletonList;
 
+import com.carbonsensors.service.DuplicateMeasurementException;
+import com.carbonsensors.service.IngestionRejectedException;
+import org.springframework.context.annotation.Profile;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -21,9 +24,12 @@ import java.util.stream.Collectors;
 /**
  * Flexible manner to map exceptions and HTTP code errors.
  */
+@Profile("!reactive")
 @ControllerAdvice
 public class RestResponseEntityExceptionHandler extends ResponseEntityExceptionHandler {
 
+  private static final String RETRY_AFTER_SECONDS = "1";
+
   @ExceptionHandler(value
       = { IllegalArgumentException.class, IllegalStateException.class })
   protected ResponseEntity<Object> handleConflict(
@@ -33,6 +39,26 @@ public class RestResponseEntityExceptionHandler extends ResponseEntityExceptionH
         new HttpHeaders(), HttpStatus.BAD_REQUEST, request);
   }
 
+  /**
+   * Asks the client to retry when the asynchronous ingestion pipeline cannot take more measurements.
+   */
+  @ExceptionHandler(value = IngestionRejectedException.class)
+  protected ResponseEntity<Object> handleIngestionRejected(
+      IngestionRejectedException ex, WebRequest request) {
+    HttpHeaders headers = new HttpHeaders();
+    headers.set(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+    return handleExceptionInternal(ex, ex.getMessage(), headers, HttpStatus.SERVICE_UNAVAILABLE, request);
+  }
+
+  /**
+   * Tells the client that a reading it sent again was already stored.
+   */
+  @ExceptionHandler(value = DuplicateMeasurementException.class)
+  protected ResponseEntity<Object> handleDuplicateMeasurement(
+      DuplicateMeasurementException ex, WebRequest request) {
+    return handleExceptionInternal(ex, ex.getMessage(), new HttpHeaders(), HttpStatus.CONFLICT, request);
+  }
+
   /**
    * Customize error message when the http request has invalid parameters
    * handled by javax validation.
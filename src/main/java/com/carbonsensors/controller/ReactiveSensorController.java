@@ -0,0 +1,292 @@
+package com.carbonsensors.controller;
+
+import com.carbonsensors.config.ConfigurationProperties;
+import com.carbonsensors.dto.AlertDto;
+import com.carbonsensors.dto.BatchMeasurementsDto;
+import com.carbonsensors.dto.BatchMeasurementsResultDto;
+import com.carbonsensors.dto.CreateMeasurementDto;
+import com.carbonsensors.dto.CreateSensorsDto;
+import com.carbonsensors.dto.MeasurementRecords;
+import com.carbonsensors.dto.SensorCreatedDto;
+import com.carbonsensors.dto.SensorEventDto;
+import com.carbonsensors.dto.SensorMetricsDto;
+import com.carbonsensors.dto.SensorRankingDto;
+import com.carbonsensors.dto.SensorSeriesDto;
+import com.carbonsensors.dto.SensorStatusCacheStatisticsDto;
+import com.carbonsensors.dto.SensorStatusDto;
+import com.carbonsensors.dto.SensorStatusesDto;
+import com.carbonsensors.service.FleetRankingService;
+import com.carbonsensors.service.MeasurementReading;
+import com.carbonsensors.service.ReactiveAlertService;
+import com.carbonsensors.service.ReactiveMeasurementSeriesService;
+import com.carbonsensors.service.ReactiveMeasurementService;
+import com.carbonsensors.service.ReactiveSensorService;
+import com.carbonsensors.service.SensorEvent;
+import com.carbonsensors.service.SensorEventFilter;
+import com.carbonsensors.service.SensorEventHub;
+import com.carbonsensors.service.SensorEventSink;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Same endpoints as {@link SensorController}, served by WebFlux when the {@code reactive} profile is active. Requests
+ * and responses are identical, except that measurements are always created synchronously, since request threads are
+ * not held while they are stored. The API is documented by Swagger on the servlet stack only.
+ */
+@Profile("reactive")
+@RestController
+@RequestMapping(path = "/api/v1/sensors")
+public class ReactiveSensorController {
+
+  private final ReactiveSensorService sensorService;
+  private final ReactiveMeasurementService measurementService;
+  private final ReactiveAlertService alertService;
+  private final ReactiveMeasurementSeriesService measurementSeriesService;
+  private final FleetRankingService fleetRankingService;
+  private final ConfigurationProperties configurationProperties;
+  private final SensorEventHub sensorEventHub;
+  private final ObjectMapper objectMapper;
+
+  public ReactiveSensorController(ReactiveSensorService sensorService,
+                                  ReactiveMeasurementService measurementService,
+                                  ReactiveAlertService alertService,
+                                  ReactiveMeasurementSeriesService measurementSeriesService,
+                                  FleetRankingService fleetRankingService,
+                                  ConfigurationProperties configurationProperties,
+                                  SensorEventHub sensorEventHub,
+                                  ObjectMapper objectMapper) {
+    this.sensorService = sensorService;
+    this.measurementService = measurementService;
+    this.alertService = alertService;
+    this.measurementSeriesService = measurementSeriesService;
+    this.fleetRankingService = fleetRankingService;
+    this.configurationProperties = configurationProperties;
+    this.sensorEventHub = sensorEventHub;
+    this.objectMapper = objectMapper;
+  }
+
+  @PostMapping
+  public Mono<SensorCreatedDto> createSensor() {
+    return sensorService.createSensor().map(SensorCreatedDto::fromSensor);
+  }
+
+  @PostMapping(path = "/bulk", produces = CreateSensorsDto.CREATED_MEDIA_TYPE)
+  public Flux<String> createSensors(@RequestBody CreateSensorsDto createSensorsDto) {
+    return sensorService.createSensors(createSensorsDto.getCount(), createSensorsDto.getIds())
+        .flatMapMany(Flux::fromIterable)
+        .map(sensorId -> toJsonLine(new SensorCreatedDto(sensorId)));
+  }
+
+  @GetMapping(path = "/{uuid}")
+  public Mono<SensorStatusDto> findSensorStatus(@PathVariable(value = "uuid") UUID sensorId) {
+    return sensorService.findSensorStatusById(sensorId).map(SensorStatusDto::fromStatus);
+  }
+
+  @PostMapping(path = "/statuses")
+  public Mono<SensorStatusesDto> findSensorStatuses(@RequestBody List<UUID> sensorIds) {
+    return sensorService.findSensorStatusesByIds(sensorIds).map(SensorStatusesDto::fromSensorStatuses);
+  }
+
+  @GetMapping(path = "/status-cache/statistics")
+  public SensorStatusCacheStatisticsDto findSensorStatusCacheStatistics() {
+    return SensorStatusCacheStatisticsDto.fromSensorStatusCacheStatistics(
+        sensorService.findSensorStatusCacheStatistics());
+  }
+
+  /**
+   * The ranking is read through JPA on the threads of the {@link FleetRankingService}, so the event loop is not held
+   * while the partitions are queried.
+   */
+  @GetMapping(path = "/ranking")
+  public Flux<SensorRankingDto> findTopSensors(
+      @RequestParam(value = "metric", defaultValue = "max") String metric,
+      @RequestParam(value = "days", required = false) Integer days,
+      @RequestParam(value = "size", required = false) Integer size) {
+    return Mono.defer(() -> Mono.fromFuture(fleetRankingService.findTopSensors(metric, days, size)))
+        .flatMapIterable(ranking -> ranking)
+        .map(SensorRankingDto::fromSensorRanking);
+  }
+
+  @PostMapping(path = "/{uuid}/measurements")
+  public Mono<ResponseEntity<Void>> createMeasurement(@PathVariable(value = "uuid") UUID sensorId,
+                                                      @RequestBody CreateMeasurementDto createMeasurementDto) {
+    MeasurementReading reading = createMeasurementDto.toMeasurementReading(sensorId);
+    return measurementService.createMeasurement(sensorId, reading.getCo2Quantity(), reading.getCreated())
+        .thenReturn(ResponseEntity.ok().build());
+  }
+
+  @PostMapping(path = "/{uuid}/measurements", consumes = MeasurementRecords.MEDIA_TYPE)
+  public Mono<ResponseEntity<Void>> createMeasurementRecord(@PathVariable(value = "uuid") UUID sensorId,
+                                                            @RequestBody Flux<DataBuffer> body) {
+    return readBody(body, in -> MeasurementRecords.readOne(in, sensorId))
+        .flatMap(reading -> measurementService
+            .createMeasurement(reading.getSensorId(), reading.getCo2Quantity(), reading.getCreated()))
+        .thenReturn(ResponseEntity.ok().build());
+  }
+
+  @PostMapping(path = "/measurements")
+  public Mono<BatchMeasurementsResultDto> createMeasurements(@RequestBody BatchMeasurementsDto batchMeasurementsDto) {
+    return measurementService.createMeasurements(batchMeasurementsDto.toMeasurementReadings())
+        .map(result -> BatchMeasurementsResultDto.fromBatchMeasurementResult(result, batchMeasurementsDto));
+  }
+
+  @PostMapping(path = "/measurements", consumes = MeasurementRecords.MEDIA_TYPE)
+  public Mono<BatchMeasurementsResultDto> createMeasurementRecords(@RequestBody Flux<DataBuffer> body) {
+    return readBody(body, in -> MeasurementRecords.read(in, configurationProperties.getMeasurementBatchMaxSize()))
+        .flatMap(measurementService::createMeasurements)
+        .map(result -> BatchMeasurementsResultDto.fromBatchMeasurementResult(result, null));
+  }
+
+  @GetMapping(path = "/{uuid}/metrics")
+  public Mono<SensorMetricsDto> computeMetrics(@PathVariable(value = "uuid") UUID sensorId) {
+    return sensorService.findMetricsBySensorId(sensorId).map(SensorMetricsDto::fromSensorMetrics);
+  }
+
+  @GetMapping(path = "/{uuid}/series")
+  public Mono<SensorSeriesDto> findSeries(
+      @PathVariable(value = "uuid") UUID sensorId,
+      @RequestParam(value = "from", required = false) @DateTimeFormat(iso = ISO.DATE_TIME) ZonedDateTime from,
+      @RequestParam(value = "to", required = false) @DateTimeFormat(iso = ISO.DATE_TIME) ZonedDateTime to,
+      @RequestParam(value = "resolution", required = false) String resolution) {
+    return measurementSeriesService.findSeries(sensorId, toInstant(from), toInstant(to), resolution)
+        .map(SensorSeriesDto::fromMeasurementSeries);
+  }
+
+  @GetMapping(path = "/{uuid}/alerts")
+  public Mono<ResponseEntity<List<AlertDto>>> findAlerts(
+      @PathVariable(value = "uuid") UUID sensorId,
+      @RequestParam(value = "from", required = false) @DateTimeFormat(iso = ISO.DATE_TIME) ZonedDateTime from,
+      @RequestParam(value = "to", required = false) @DateTimeFormat(iso = ISO.DATE_TIME) ZonedDateTime to,
+      @RequestParam(value = "cursor", required = false) String cursor,
+      @RequestParam(value = "limit", required = false) Integer limit) {
+    return alertService.findAlertsBySensorId(sensorId, toInstant(from), toInstant(to), cursor, limit).map(page -> {
+      ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+      if (page.getNextCursor() != null) {
+        response.header(SensorController.NEXT_CURSOR_HEADER, page.getNextCursor().encode());
+      }
+      return response.body(AlertDto.fromAlertPage(page));
+    });
+  }
+
+  @GetMapping(path = "/{uuid}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public Flux<ServerSentEvent<SensorEventDto>> streamSensorEvents(
+      @PathVariable(value = "uuid") UUID sensorId,
+      @RequestParam(value = "types", required = false) List<String> types) {
+    SensorEventFilter filter = SensorEventFilter.of(sensorId, types, null);
+    return sensorService.findSensorStatusById(sensorId).thenMany(subscribe(filter));
+  }
+
+  @GetMapping(path = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public Flux<ServerSentEvent<SensorEventDto>> streamFleetEvents(
+      @RequestParam(value = "types", required = false) List<String> types,
+      @RequestParam(value = "statuses", required = false) List<String> statuses) {
+    return subscribe(SensorEventFilter.of(null, types, statuses));
+  }
+
+  /**
+   * Subscribes to the hub once the response is subscribed to. Events are only emitted as they are requested, so that
+   * the events of a slow client stay in the bounded buffer of its subscription.
+   */
+  private Flux<ServerSentEvent<SensorEventDto>> subscribe(SensorEventFilter filter) {
+    return Flux.create(sink -> {
+      SensorEventHub.Subscription subscription = sensorEventHub.subscribe(filter, new FluxEventSink(sink));
+      sink.onRequest(requested -> subscription.resume());
+      sink.onDispose(subscription::cancel);
+    });
+  }
+
+  /**
+   * Request parameters are received with their offset, which is dropped as soon as they reach the services.
+   */
+  private static Instant toInstant(ZonedDateTime dateTime) {
+    return dateTime != null ? dateTime.toInstant() : null;
+  }
+
+  /**
+   * Writes a DTO as a line of newline delimited JSON, which the JSON encoder of WebFlux cannot stream.
+   */
+  private String toJsonLine(Object dto) {
+    try {
+      return objectMapper.writeValueAsString(dto) + "\n";
+    } catch (JsonProcessingException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Reads a binary body as a stream, once all of its buffers have been received.
+   */
+  private static <T> Mono<T> readBody(Flux<DataBuffer> body, BodyReader<T> reader) {
+    return DataBufferUtils.join(body)
+        .map(buffer -> buffer.asInputStream(true))
+        .defaultIfEmpty(InputStream.nullInputStream())
+        .flatMap(in -> Mono.fromCallable(() -> {
+          try (in) {
+            return reader.read(in);
+          }
+        }));
+  }
+
+  @FunctionalInterface
+  private interface BodyReader<T> {
+
+    T read(InputStream in) throws IOException;
+  }
+
+  private static class FluxEventSink implements SensorEventSink {
+
+    private final FluxSink<ServerSentEvent<SensorEventDto>> sink;
+
+    FluxEventSink(FluxSink<ServerSentEvent<SensorEventDto>> sink) {
+      this.sink = sink;
+    }
+
+    @Override
+    public void send(SensorEvent event) {
+      sink.next(ServerSentEvent.builder(SensorEventDto.fromSensorEvent(event))
+          .event(event.getType().getParameter())
+          .build());
+    }
+
+    @Override
+    public void heartbeat() {
+      sink.next(ServerSentEvent.<SensorEventDto>builder().comment("heartbeat").build());
+    }
+
+    @Override
+    public boolean isReady() {
+      return sink.requestedFromDownstream() > 0;
+    }
+
+    @Override
+    public void close() {
+      sink.complete();
+    }
+  }
+}
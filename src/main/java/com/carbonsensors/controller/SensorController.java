@@ -1,43 +1,113 @@
 package com.carbonsensors.controller;
 
+import com.carbonsensors.config.ConfigurationProperties;
 import com.carbonsensors.dto.AlertDto;
+import com.carbonsensors.dto.BatchMeasurementsDto;
+import com.carbonsensors.dto.BatchMeasurementsResultDto;
 import com.carbonsensors.dto.CreateMeasurementDto;
+import com.carbonsensors.dto.CreateSensorsDto;
+import com.carbonsensors.dto.MeasurementRecords;
 import com.carbonsensors.dto.SensorCreatedDto;
+import com.carbonsensors.dto.SensorEventDto;
 import com.carbonsensors.dto.SensorMetricsDto;
+import com.carbonsensors.dto.SensorRankingDto;
+import com.carbonsensors.dto.SensorSeriesDto;
+import com.carbonsensors.dto.SensorStatusCacheStatisticsDto;
 import com.carbonsensors.dto.SensorStatusDto;
+import com.carbonsensors.dto.SensorStatusesDto;
+import com.carbonsensors.service.AlertPage;
 import com.carbonsensors.service.AlertService;
+import com.carbonsensors.service.FleetRankingService;
+import com.carbonsensors.service.MeasurementIngestionPipeline;
+import com.carbonsensors.service.MeasurementReading;
+import com.carbonsensors.service.MeasurementSeriesService;
 import com.carbonsensors.service.MeasurementService;
+import com.carbonsensors.service.SensorEvent;
+import com.carbonsensors.service.SensorEventFilter;
+import com.carbonsensors.service.SensorEventHub;
+import com.carbonsensors.service.SensorEventSink;
 import com.carbonsensors.service.SensorService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
+import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import javax.annotation.PreDestroy;
 
 @Api(value = "sensorController", description = "Provide services for sensor management")
+@Profile("!reactive")
 @RestController
 @RequestMapping(path = "/api/v1/sensors")
 public class SensorController {
 
+  public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+  private static final long NO_TIMEOUT = 0L;
+
   private final SensorService sensorService;
   private final MeasurementService measurementService;
   private final AlertService alertService;
+  private final MeasurementIngestionPipeline measurementIngestionPipeline;
+  private final MeasurementSeriesService measurementSeriesService;
+  private final FleetRankingService fleetRankingService;
+  private final ConfigurationProperties configurationProperties;
+  private final SensorEventHub sensorEventHub;
+  private final ObjectMapper objectMapper;
+
+  /**
+   * Writes the sensor events to the responses of their subscribers. A client which does not read its stream blocks
+   * the write to its response, which then holds one of these threads instead of a dispatcher thread of the
+   * {@link SensorEventHub}, shared by every subscriber.
+   */
+  private final ExecutorService eventWriter = newEventWriter();
 
   public SensorController(SensorService sensorService,
                           MeasurementService measurementService,
-                          AlertService alertService) {
+                          AlertService alertService,
+                          MeasurementIngestionPipeline measurementIngestionPipeline,
+                          MeasurementSeriesService measurementSeriesService,
+                          FleetRankingService fleetRankingService,
+                          ConfigurationProperties configurationProperties,
+                          SensorEventHub sensorEventHub,
+                          ObjectMapper objectMapper) {
     this.sensorService = sensorService;
     this.measurementService = measurementService;
     this.alertService = alertService;
+    this.measurementIngestionPipeline = measurementIngestionPipeline;
+    this.measurementSeriesService = measurementSeriesService;
+    this.fleetRankingService = fleetRankingService;
+    this.configurationProperties = configurationProperties;
+    this.sensorEventHub = sensorEventHub;
+    this.objectMapper = objectMapper;
   }
 
   @ApiOperation(value = "Create a Sensor", response = SensorCreatedDto.class)
@@ -50,6 +120,29 @@ public class SensorController {
     return SensorCreatedDto.fromSensor(sensorService.createSensor());
   }
 
+  @ApiOperation(value = "Create several Sensors in a single transaction, given either their number or their ids. "
+      + "The ids of the Sensors are streamed back as newline delimited JSON, one Sensor per line, in the order they "
+      + "were given.", response = SensorCreatedDto.class, responseContainer = "List")
+  @ApiResponses(value = {
+      @ApiResponse(code = 200, message = "Sensors were created successfully, or already existed"),
+      @ApiResponse(code = 400, message = "Neither or both of count and ids are given, or more than "
+          + "sensor.provisioning.max.size Sensors are asked for")
+  }
+  )
+  @PostMapping(path = "/bulk", produces = CreateSensorsDto.CREATED_MEDIA_TYPE)
+  public ResponseEntity<StreamingResponseBody> createSensors(@RequestBody CreateSensorsDto createSensorsDto) {
+    List<UUID> sensorIds = sensorService.createSensors(createSensorsDto.getCount(), createSensorsDto.getIds());
+
+    return ResponseEntity.ok()
+        .contentType(MediaType.parseMediaType(CreateSensorsDto.CREATED_MEDIA_TYPE))
+        .body(out -> {
+          for (UUID sensorId : sensorIds) {
+            out.write(objectMapper.writeValueAsBytes(new SensorCreatedDto(sensorId)));
+            out.write('\n');
+          }
+        });
+  }
+
   @ApiOperation(value = "Get a Sensor status based on its Id", response = SensorStatusDto.class)
   @ApiResponses(value = {
       @ApiResponse(code = 200, message = "Successful retrieval of a Sensor status by its id"),
@@ -59,20 +152,107 @@ public class SensorController {
   @GetMapping(path = "/{uuid}")
   public @ResponseBody
   SensorStatusDto findSensorStatus(@PathVariable(value = "uuid") UUID sensorId) {
-    return SensorStatusDto.fromSensor(sensorService.findSensorById(sensorId));
+    return SensorStatusDto.fromStatus(sensorService.findSensorStatusById(sensorId));
+  }
+
+  @ApiOperation(value = "Get the statuses of several Sensors at once, reporting the ids which match no Sensor",
+      response = SensorStatusesDto.class)
+  @ApiResponses(value = {
+      @ApiResponse(code = 200, message = "Successful retrieval of the Sensor statuses"),
+      @ApiResponse(code = 400, message = "Sensor ids are null, or more than sensor.status.bulk.max.size")
+  }
+  )
+  @PostMapping(path = "/statuses")
+  public @ResponseBody
+  SensorStatusesDto findSensorStatuses(@RequestBody List<UUID> sensorIds) {
+    return SensorStatusesDto.fromSensorStatuses(sensorService.findSensorStatusesByIds(sensorIds));
+  }
+
+  @ApiOperation(value = "Get the size and hit/miss statistics of the Sensor status cache",
+      response = SensorStatusCacheStatisticsDto.class)
+  @ApiResponses(value = {
+      @ApiResponse(code = 200, message = "Successful retrieval of the Sensor status cache statistics")
+  }
+  )
+  @GetMapping(path = "/status-cache/statistics")
+  public @ResponseBody
+  SensorStatusCacheStatisticsDto findSensorStatusCacheStatistics() {
+    return SensorStatusCacheStatisticsDto.fromSensorStatusCacheStatistics(
+        sensorService.findSensorStatusCacheStatistics());
+  }
+
+  @ApiOperation(value = "Get the Sensors with the highest max or average CO2 measurements over the last days, "
+      + "highest first. The request is served asynchronously once every partition of the fleet has been ranked.",
+      response = SensorRankingDto.class, responseContainer = "List")
+  @ApiResponses(value = {
+      @ApiResponse(code = 200, message = "Successful retrieval of the ranking of the fleet"),
+      @ApiResponse(code = 400, message = "Metric is not max or avg, or the window or size are out of bounds")
+  }
+  )
+  @GetMapping(path = "/ranking")
+  public CompletableFuture<List<SensorRankingDto>> findTopSensors(
+      @RequestParam(value = "metric", defaultValue = "max") String metric,
+      @RequestParam(value = "days", required = false) Integer days,
+      @RequestParam(value = "size", required = false) Integer size) {
+    return fleetRankingService.findTopSensors(metric, days, size)
+        .thenApply(ranking -> ranking.stream().map(SensorRankingDto::fromSensorRanking).collect(Collectors.toList()));
   }
 
   @ApiOperation(value = "Create a Measurement associated with a sensor")
   @ApiResponses(value = {
       @ApiResponse(code = 200, message = "Measurement was created successfully."),
-      @ApiResponse(code = 400, message = "Parameters are not correctly entered, and associated with non existing entities")
+      @ApiResponse(code = 202, message = "Measurement was accepted and will be created asynchronously."),
+      @ApiResponse(code = 400, message = "Parameters are not correctly entered, and associated with non existing entities"),
+      @ApiResponse(code = 503, message = "Too many measurements are waiting to be created. Retry later.")
   }
   )
   @PostMapping(path = "/{uuid}/measurements")
-  public void createMeasurement(@PathVariable(value = "uuid") UUID sensorId,
-                                @RequestBody CreateMeasurementDto createMeasurementDto) {
-    measurementService
-        .createMeasurement(sensorId, createMeasurementDto.getCo2Quantity(), createMeasurementDto.getTime());
+  public ResponseEntity<Void> createMeasurement(@PathVariable(value = "uuid") UUID sensorId,
+                                                @RequestBody CreateMeasurementDto createMeasurementDto) {
+    return createMeasurement(createMeasurementDto.toMeasurementReading(sensorId));
+  }
+
+  @ApiOperation(value = "Create a Measurement associated with a sensor, sent as a single binary record of "
+      + MeasurementRecords.MEDIA_TYPE)
+  @ApiResponses(value = {
+      @ApiResponse(code = 200, message = "Measurement was created successfully."),
+      @ApiResponse(code = 202, message = "Measurement was accepted and will be created asynchronously."),
+      @ApiResponse(code = 400, message = "Record is malformed, of another sensor, or its values are not valid"),
+      @ApiResponse(code = 503, message = "Too many measurements are waiting to be created. Retry later.")
+  }
+  )
+  @PostMapping(path = "/{uuid}/measurements", consumes = MeasurementRecords.MEDIA_TYPE)
+  public ResponseEntity<Void> createMeasurementRecord(@PathVariable(value = "uuid") UUID sensorId,
+                                                      InputStream body) throws IOException {
+    return createMeasurement(MeasurementRecords.readOne(body, sensorId));
+  }
+
+  @ApiOperation(value = "Create Measurements of several Sensors at once", response = BatchMeasurementsResultDto.class)
+  @ApiResponses(value = {
+      @ApiResponse(code = 200, message = "Batch was processed. Measurements which could not be created are listed."),
+      @ApiResponse(code = 400, message = "Batch is empty or exceeds the maximum size")
+  }
+  )
+  @PostMapping(path = "/measurements")
+  public @ResponseBody
+  BatchMeasurementsResultDto createMeasurements(@RequestBody BatchMeasurementsDto batchMeasurementsDto) {
+    return BatchMeasurementsResultDto.fromBatchMeasurementResult(
+        measurementService.createMeasurements(batchMeasurementsDto.toMeasurementReadings()), batchMeasurementsDto);
+  }
+
+  @ApiOperation(value = "Create Measurements of several Sensors at once, sent as binary records of "
+      + MeasurementRecords.MEDIA_TYPE + ". Failures are indexed by the position of their record in the body.",
+      response = BatchMeasurementsResultDto.class)
+  @ApiResponses(value = {
+      @ApiResponse(code = 200, message = "Batch was processed. Measurements which could not be created are listed."),
+      @ApiResponse(code = 400, message = "Records are malformed, or their number is zero or exceeds the maximum size")
+  }
+  )
+  @PostMapping(path = "/measurements", consumes = MeasurementRecords.MEDIA_TYPE)
+  public @ResponseBody
+  BatchMeasurementsResultDto createMeasurementRecords(InputStream body) throws IOException {
+    return BatchMeasurementsResultDto.fromBatchMeasurementResult(measurementService.createMeasurements(
+        MeasurementRecords.read(body, configurationProperties.getMeasurementBatchMaxSize())), null);
   }
 
   @ApiOperation(value = "Get a Sensor metrics based on its Id", response = SensorMetricsDto.class)
@@ -87,15 +267,209 @@ public class SensorController {
     return SensorMetricsDto.fromSensorMetrics(sensorService.findMetricsBySensorId(sensorId));
   }
 
-  @ApiOperation(value = "Get a list of alerts associated with a Sensor")
+  @ApiOperation(value = "Get the CO2 measurements of a Sensor over a time range, bucketed by a resolution given as an "
+      + "ISO-8601 duration (e.g. PT15M) or as minute, hour or day. Buckets are read from the coarsest rollup dividing "
+      + "the resolution. Without a resolution, the finest rollup keeping the series within the maximum number of "
+      + "points is used.", response = SensorSeriesDto.class)
+  @ApiResponses(value = {
+      @ApiResponse(code = 200, message = "Successful retrieval of the series of a Sensor"),
+      @ApiResponse(code = 400, message = "Sensor Id, time range or resolution are not valid, or the series is too long")
+  }
+  )
+  @GetMapping(path = "/{uuid}/series")
+  public @ResponseBody
+  SensorSeriesDto findSeries(
+      @PathVariable(value = "uuid") UUID sensorId,
+      @RequestParam(value = "from", required = false) @DateTimeFormat(iso = ISO.DATE_TIME) ZonedDateTime from,
+      @RequestParam(value = "to", required = false) @DateTimeFormat(iso = ISO.DATE_TIME) ZonedDateTime to,
+      @RequestParam(value = "resolution", required = false) String resolution) {
+    return SensorSeriesDto.fromMeasurementSeries(
+        measurementSeriesService.findSeries(sensorId, toInstant(from), toInstant(to), resolution));
+  }
+
+  @ApiOperation(value = "Get a page of the alerts associated with a Sensor, newest first. The cursor of the next page "
+      + "is returned in the " + NEXT_CURSOR_HEADER + " header, which is absent on the last page.")
   @ApiResponses(value = {
       @ApiResponse(code = 200, message = "Successful retrieval of Alerts associated with a sensor"),
-      @ApiResponse(code = 400, message = "Sensor Id is not valid or null")
+      @ApiResponse(code = 400, message = "Sensor Id, time range, cursor or limit are not valid")
   }
   )
   @GetMapping(path = "/{uuid}/alerts")
-  public @ResponseBody
-  List<AlertDto> findAlerts(@PathVariable(value = "uuid") UUID sensorId) {
-    return AlertDto.fromAlerts(alertService.findAlertsBySensorId(sensorId));
+  public ResponseEntity<List<AlertDto>> findAlerts(
+      @PathVariable(value = "uuid") UUID sensorId,
+      @RequestParam(value = "from", required = false) @DateTimeFormat(iso = ISO.DATE_TIME) ZonedDateTime from,
+      @RequestParam(value = "to", required = false) @DateTimeFormat(iso = ISO.DATE_TIME) ZonedDateTime to,
+      @RequestParam(value = "cursor", required = false) String cursor,
+      @RequestParam(value = "limit", required = false) Integer limit) {
+    AlertPage page =
+        alertService.findAlertsBySensorId(sensorId, toInstant(from), toInstant(to), cursor, limit);
+
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+    if (page.getNextCursor() != null) {
+      response.header(NEXT_CURSOR_HEADER, page.getNextCursor().encode());
+    }
+    return response.body(AlertDto.fromAlertPage(page));
+  }
+
+  @ApiOperation(value = "Stream the status transitions and new alerts of a Sensor as Server-Sent Events named status "
+      + "and alert, as soon as they are committed. A comment is sent as heartbeat when nothing happens, and the "
+      + "stream is ended when the client does not keep up with its events.", response = SensorEventDto.class)
+  @ApiResponses(value = {
+      @ApiResponse(code = 200, message = "Successful subscription to the events of a Sensor"),
+      @ApiResponse(code = 400, message = "Sensor Id or event types are not valid")
+  }
+  )
+  @GetMapping(path = "/{uuid}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter streamSensorEvents(
+      @PathVariable(value = "uuid") UUID sensorId,
+      @RequestParam(value = "types", required = false) List<String> types) {
+    SensorEventFilter filter = SensorEventFilter.of(sensorId, types, null);
+    sensorService.findSensorStatusById(sensorId);
+    return subscribe(filter);
+  }
+
+  @ApiOperation(value = "Stream the status transitions and new alerts of every Sensor as Server-Sent Events, "
+      + "optionally restricted to some event types and to some statuses reached by the Sensors.",
+      response = SensorEventDto.class)
+  @ApiResponses(value = {
+      @ApiResponse(code = 200, message = "Successful subscription to the events of the fleet"),
+      @ApiResponse(code = 400, message = "Event types or statuses are not valid")
+  }
+  )
+  @GetMapping(path = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter streamFleetEvents(
+      @RequestParam(value = "types", required = false) List<String> types,
+      @RequestParam(value = "statuses", required = false) List<String> statuses) {
+    return subscribe(SensorEventFilter.of(null, types, statuses));
+  }
+
+  @PreDestroy
+  public void stop() {
+    eventWriter.shutdownNow();
+  }
+
+  private SseEmitter subscribe(SensorEventFilter filter) {
+    SseEmitter emitter = new SseEmitter(NO_TIMEOUT);
+    EmitterSink sink = new EmitterSink(emitter, eventWriter);
+    SensorEventHub.Subscription subscription = sensorEventHub.subscribe(filter, sink);
+    sink.attach(subscription);
+    emitter.onCompletion(subscription::cancel);
+    emitter.onTimeout(subscription::cancel);
+    emitter.onError(error -> subscription.cancel());
+    return emitter;
+  }
+
+  private ResponseEntity<Void> createMeasurement(MeasurementReading reading) {
+    if (measurementIngestionPipeline.isEnabled()) {
+      measurementIngestionPipeline.submit(reading);
+      return ResponseEntity.accepted().build();
+    }
+
+    measurementService.createMeasurement(reading.getSensorId(), reading.getCo2Quantity(), reading.getCreated());
+    return ResponseEntity.ok().build();
+  }
+
+  /**
+   * Request parameters are received with their offset, which is dropped as soon as they reach the services.
+   */
+  private static Instant toInstant(ZonedDateTime dateTime) {
+    return dateTime != null ? dateTime.toInstant() : null;
+  }
+
+  private static ExecutorService newEventWriter() {
+    AtomicInteger threads = new AtomicInteger();
+    return Executors.newCachedThreadPool(runnable -> {
+      Thread thread = new Thread(runnable, "sensor-events-writer-" + threads.getAndIncrement());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Writes the sensor events to the response of a subscriber, which is kept open until the stream ends.
+   * <br>
+   * Writing to the response blocks while the client does not read it, so each write is handed to the event writer, one
+   * at a time, and the sink is not ready until it completes. The events published meanwhile wait in the buffer of the
+   * subscription, which evicts the subscriber once it is full.
+   */
+  static class EmitterSink implements SensorEventSink {
+
+    private final SseEmitter emitter;
+    private final Executor writer;
+    private final AtomicBoolean writing = new AtomicBoolean();
+    private volatile SensorEventHub.Subscription subscription;
+    private volatile IOException failure;
+
+    EmitterSink(SseEmitter emitter, Executor writer) {
+      this.emitter = emitter;
+      this.writer = writer;
+    }
+
+    /**
+     * @param subscription subscription of the sink, resumed whenever a write completes
+     */
+    void attach(SensorEventHub.Subscription subscription) {
+      this.subscription = subscription;
+      // the first heartbeat may have been written before the subscription was known
+      subscription.resume();
+    }
+
+    @Override
+    public void send(SensorEvent event) throws IOException {
+      write(SseEmitter.event()
+          .name(event.getType().getParameter())
+          .data(SensorEventDto.fromSensorEvent(event), MediaType.APPLICATION_JSON));
+    }
+
+    @Override
+    public void heartbeat() throws IOException {
+      write(SseEmitter.event().comment("heartbeat"));
+    }
+
+    @Override
+    public boolean isReady() {
+      return !writing.get();
+    }
+
+    /**
+     * Completes the response once the pending write is done, since completing it waits for that write.
+     */
+    @Override
+    public void close() {
+      try {
+        writer.execute(emitter::complete);
+      } catch (RejectedExecutionException e) {
+        // the application is shutting down, and the responses are closed along with the server
+      }
+    }
+
+    private void write(SseEmitter.SseEventBuilder event) throws IOException {
+      if (failure != null) {
+        throw failure;
+      }
+
+      writing.set(true);
+      try {
+        writer.execute(() -> {
+          try {
+            emitter.send(event);
+          } catch (IOException e) {
+            // the client went away, which the next write reports to the hub
+            failure = e;
+          } catch (RuntimeException e) {
+            failure = new IOException(e);
+          } finally {
+            writing.set(false);
+            SensorEventHub.Subscription current = subscription;
+            if (current != null) {
+              current.resume();
+            }
+          }
+        });
+      } catch (RejectedExecutionException e) {
+        writing.set(false);
+        throw e;
+      }
+    }
   }
 }
@@ -4,10 +4,14 @@ import static java.util.Collections.emptyList;
 
 import com.carbonsensors.model.Alert;
 import com.carbonsensors.model.Measurement;
+import com.carbonsensors.model.projection.AlertMeasurementValue;
+import com.carbonsensors.model.projection.AlertSummary;
+import com.carbonsensors.service.AlertPage;
 import io.swagger.annotations.ApiModel;
 import io.swagger.annotations.ApiModelProperty;
 import org.apache.commons.collections4.CollectionUtils;
 
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -30,12 +34,31 @@ public class AlertDto {
   @ApiModelProperty(notes = "List of measurements above CO2 limit", example = "[2100, 2200, 2100]")
   private List<Double> mesurements;
 
-  public static List<AlertDto> fromAlerts(List<Alert> alerts) {
-    if (CollectionUtils.isEmpty(alerts)) {
-      return emptyList();
+  /**
+   * Builds the DTOs of a page of alerts out of the projections read for it, so that no entity is loaded.
+   *
+   * @param alertPage page of alerts along with their measurement values
+   *
+   * @return DTOs in the order of the page
+   */
+  public static List<AlertDto> fromAlertPage(AlertPage alertPage) {
+    return alertPage.getAlerts().stream()
+        .map(alert -> fromAlertMeasurementValues(alert,
+            alertPage.getMeasurementValuesByAlert().getOrDefault(alert.getId(), emptyList())))
+        .collect(Collectors.toList());
+  }
+
+  public static AlertDto fromAlertMeasurementValues(AlertSummary alert, List<AlertMeasurementValue> measurements) {
+    if (CollectionUtils.isEmpty(measurements)) {
+      throw new IllegalArgumentException("Alert has no measurements. Alert Id: " + alert.getId());
     }
 
-    return alerts.stream().map(AlertDto::fromAlert).collect(Collectors.toList());
+    AlertDto dto = new AlertDto();
+    dto.setMesurements(
+        measurements.stream().map(AlertMeasurementValue::getCo2Quantity).collect(Collectors.toList()));
+    dto.setStartTime(measurements.get(0).getCreated().atZone(ZoneOffset.UTC));
+    dto.setEndTime(measurements.get(measurements.size() - 1).getCreated().atZone(ZoneOffset.UTC));
+    return dto;
   }
 
   public static AlertDto fromAlert(Alert alert) {
@@ -53,11 +76,11 @@ public class AlertDto {
       dto.setStartTime(
           measurements.stream().findFirst().orElseThrow(
               () -> new IllegalArgumentException("Alert does not have a measurement value. Alert Id: " + alert.getId()))
-              .getCreated());
+              .getCreated().atZone(ZoneOffset.UTC));
 
       dto.setEndTime(measurements.stream().reduce((first, second) -> second).orElseThrow(
           () -> new IllegalArgumentException("Alert does not have a measurement value. Alert Id: " + alert.getId()))
-          .getCreated());
+          .getCreated().atZone(ZoneOffset.UTC));
     }
     return dto;
   }
@@ -0,0 +1,46 @@
+package com.carbonsensors.dto;
+
+import static java.util.Collections.emptyList;
+
+import com.carbonsensors.service.MeasurementReading;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import org.apache.commons.collections4.CollectionUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@ApiModel(description = "Holds measurements of several sensors to be created at once")
+public class BatchMeasurementsDto {
+
+  @ApiModelProperty(notes = "Measurements grouped by sensor")
+  private List<SensorMeasurementsDto> sensors;
+
+  /**
+   * Flattens the batch into readings, keeping the order in which sensors and measurements were sent.
+   *
+   * @return readings of all sensors of the batch
+   */
+  public List<MeasurementReading> toMeasurementReadings() {
+    if (CollectionUtils.isEmpty(sensors)) {
+      return emptyList();
+    }
+
+    List<MeasurementReading> readings = new ArrayList<>();
+    for (SensorMeasurementsDto sensor : sensors) {
+      if (sensor == null || sensor.getMeasurements() == null) {
+        continue;
+      }
+      for (CreateMeasurementDto measurement : sensor.getMeasurements()) {
+        readings.add(measurement == null ? null : measurement.toMeasurementReading(sensor.getSensorId()));
+      }
+    }
+    return readings;
+  }
+}
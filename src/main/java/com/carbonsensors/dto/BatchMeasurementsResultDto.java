@@ -0,0 +1,102 @@
+package com.carbonsensors.dto;
+
+import static java.util.Collections.emptyList;
+
+import com.carbonsensors.service.BatchMeasurementResult;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@ApiModel(description = "Outcome of a batch of measurements")
+public class BatchMeasurementsResultDto {
+
+  @ApiModelProperty(notes = "Number of measurements created", example = "120")
+  private int accepted;
+
+  @ApiModelProperty(notes = "Number of measurements rejected", example = "1")
+  private int rejected;
+
+  @ApiModelProperty(notes = "Number of measurements created past the lateness horizon, which did not change the "
+      + "status of their Sensor", example = "0")
+  private int pastHorizon;
+
+  @ApiModelProperty(notes = "Number of measurements skipped because their Sensor already had them", example = "0")
+  private int duplicates;
+
+  @ApiModelProperty(notes = "Measurements which could not be created")
+  private List<FailureDto> failures;
+
+  /**
+   * Builds the response of a batch, translating the position of each failure in the flattened batch back
+   * to the position of its sensor entry within the batch and of the measurement within that entry, since a batch may
+   * list the same sensor in several entries. Without the batch, e.g. for binary records, the flattened batch is taken
+   * as a single entry.
+   *
+   * @param result outcome of the batch
+   * @param batch the batch as it was sent by the client
+   *
+   * @return response DTO
+   */
+  public static BatchMeasurementsResultDto fromBatchMeasurementResult(BatchMeasurementResult result,
+                                                                      BatchMeasurementsDto batch) {
+    if (result == null) {
+      return null;
+    }
+
+    List<Integer> entryIndexes = new ArrayList<>();
+    List<Integer> measurementIndexes = new ArrayList<>();
+    if (batch != null && batch.getSensors() != null) {
+      for (int entry = 0; entry < batch.getSensors().size(); entry++) {
+        SensorMeasurementsDto sensor = batch.getSensors().get(entry);
+        if (sensor != null && sensor.getMeasurements() != null) {
+          for (int i = 0; i < sensor.getMeasurements().size(); i++) {
+            entryIndexes.add(entry);
+            measurementIndexes.add(i);
+          }
+        }
+      }
+    }
+
+    List<FailureDto> failures = new ArrayList<>();
+    List<BatchMeasurementResult.Failure> resultFailures = result.getFailures() != null ? result.getFailures()
+        : emptyList();
+    for (BatchMeasurementResult.Failure failure : resultFailures) {
+      boolean known = failure.getIndex() < measurementIndexes.size();
+      int entryIndex = known ? entryIndexes.get(failure.getIndex()) : 0;
+      int index = known ? measurementIndexes.get(failure.getIndex()) : failure.getIndex();
+      failures.add(new FailureDto(failure.getSensorId(), entryIndex, index, failure.getMessage()));
+    }
+
+    return new BatchMeasurementsResultDto(result.getAccepted(), failures.size(), result.getPastHorizon(),
+        result.getDuplicates(), failures);
+  }
+
+  @AllArgsConstructor
+  @NoArgsConstructor
+  @Getter
+  @ApiModel(description = "A measurement of the batch which could not be created")
+  public static class FailureDto {
+
+    @ApiModelProperty(notes = "Sensor of the rejected measurement", example = "3fa85f64-5717-4562-b3fc-2c963f66afa6")
+    private UUID sensorId;
+
+    @ApiModelProperty(notes = "Position of the sensor entry of the rejected measurement within the batch, 0 for "
+        + "binary records", example = "0")
+    private int entryIndex;
+
+    @ApiModelProperty(notes = "Position of the measurement within the measurements of its sensor entry", example = "0")
+    private int index;
+
+    @ApiModelProperty(notes = "Reason of the rejection", example = "Creation date cannot be null")
+    private String message;
+  }
+}
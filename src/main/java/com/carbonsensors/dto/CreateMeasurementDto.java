@@ -1,9 +1,11 @@
 package com.carbonsensors.dto;
 
+import com.carbonsensors.service.MeasurementReading;
 import io.swagger.annotations.ApiModel;
 import io.swagger.annotations.ApiModelProperty;
 
 import java.time.ZonedDateTime;
+import java.util.UUID;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -19,4 +21,13 @@ public class CreateMeasurementDto {
 
   @ApiModelProperty(notes = "time of the measurement", example = "2020-12-28T18:55:47+00:00")
   private ZonedDateTime time;
+
+  /**
+   * @param sensorId sensor the measurement is sent for
+   *
+   * @return reading of the measurement, its time being kept as a moment only
+   */
+  public MeasurementReading toMeasurementReading(UUID sensorId) {
+    return new MeasurementReading(sensorId, co2Quantity, time != null ? time.toInstant() : null);
+  }
 }
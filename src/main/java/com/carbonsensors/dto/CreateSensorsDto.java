@@ -0,0 +1,29 @@
+package com.carbonsensors.dto;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+
+import java.util.List;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@ApiModel(description = "Sensors to provision at once, given either by their number or by their ids")
+public class CreateSensorsDto {
+
+  /**
+   * Media type of the response, one created sensor per line.
+   */
+  public static final String CREATED_MEDIA_TYPE = "application/x-ndjson";
+
+  @ApiModelProperty(notes = "Number of sensors to create with new ids", example = "500")
+  private Integer count;
+
+  @ApiModelProperty(notes = "Ids of the sensors to create. Ids which are already taken are left untouched, so that a "
+      + "provisioning can be retried")
+  private List<UUID> ids;
+}
@@ -0,0 +1,118 @@
+package com.carbonsensors.dto;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.carbonsensors.service.MeasurementReading;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Compact binary format of measurements, accepted by the measurement creation endpoints along with JSON.
+ * <br>
+ * A stream starts with the number of records as a 4 bytes integer, followed by the records. Each record takes
+ * {@value #RECORD_BYTES} bytes: the sensor id as its most and least significant 8 bytes, the time of the measurement
+ * in milliseconds since the epoch as an 8 bytes integer, and the CO2 quantity as an 8 bytes IEEE 754 double. Every
+ * value is big-endian.
+ */
+public final class MeasurementRecords {
+
+  public static final String MEDIA_TYPE = "application/vnd.carbonsensors.measurements";
+  public static final int HEADER_BYTES = Integer.BYTES;
+  public static final int RECORD_BYTES = 2 * Long.BYTES + Long.BYTES + Double.BYTES;
+
+  private MeasurementRecords() {
+  }
+
+  /**
+   * Reads the readings of a stream, record by record, without buffering the stream as a whole. The number of records
+   * is checked before any record is read, so that an oversized stream is refused right away.
+   *
+   * @param in stream of records
+   * @param maxRecords maximum number of records accepted
+   *
+   * @return readings of the stream, in the order of the records
+   *
+   * @throws IllegalArgumentException when the number of records is out of bounds, or the stream is truncated or
+   *     holds more bytes than its records
+   * @throws IOException when the stream cannot be read
+   */
+  public static List<MeasurementReading> read(InputStream in, int maxRecords) throws IOException {
+    byte[] record = new byte[RECORD_BYTES];
+    ByteBuffer buffer = ByteBuffer.wrap(record);
+
+    readFully(in, record, HEADER_BYTES, "Measurement records must start with their number");
+    int count = buffer.getInt(0);
+    checkArgument(count >= 0 && count <= maxRecords,
+        "Number of measurement records must be between 0 and " + maxRecords + ". Entered value: " + count);
+
+    List<MeasurementReading> readings = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      readFully(in, record, RECORD_BYTES, "Measurement record " + i + " is truncated");
+      readings.add(new MeasurementReading(
+          new UUID(buffer.getLong(0), buffer.getLong(8)),
+          buffer.getDouble(24),
+          Instant.ofEpochMilli(buffer.getLong(16))));
+    }
+    checkArgument(in.read() == -1, "Measurement records are followed by unexpected bytes");
+    return readings;
+  }
+
+  /**
+   * Reads the single reading of a stream sent for a given sensor.
+   *
+   * @param in stream of records
+   * @param sensorId sensor the reading is sent for
+   *
+   * @return reading of the stream
+   *
+   * @throws IllegalArgumentException when the stream does not hold exactly one record of the sensor
+   * @throws IOException when the stream cannot be read
+   */
+  public static MeasurementReading readOne(InputStream in, UUID sensorId) throws IOException {
+    List<MeasurementReading> readings = read(in, 1);
+    checkArgument(readings.size() == 1, "A single measurement record is expected");
+    MeasurementReading reading = readings.get(0);
+    checkArgument(reading.getSensorId().equals(sensorId),
+        "Sensor Id of the measurement record does not match the requested one. Entered value: "
+            + reading.getSensorId());
+    return reading;
+  }
+
+  /**
+   * Writes readings in the binary format, as a client would send them.
+   *
+   * @param readings readings to be written, none of them null
+   *
+   * @return the records of the readings, preceded by their number
+   */
+  public static byte[] write(List<MeasurementReading> readings) {
+    ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + readings.size() * RECORD_BYTES);
+    buffer.putInt(readings.size());
+    for (MeasurementReading reading : readings) {
+      buffer.putLong(reading.getSensorId().getMostSignificantBits())
+          .putLong(reading.getSensorId().getLeastSignificantBits())
+          .putLong(reading.getCreated().toEpochMilli())
+          .putDouble(reading.getCo2Quantity());
+    }
+    return buffer.array();
+  }
+
+  private static void readFully(InputStream in, byte[] bytes, int length, String truncatedMessage)
+      throws IOException {
+    int offset = 0;
+    while (offset < length) {
+      int read = in.read(bytes, offset, length - offset);
+      if (read < 0) {
+        throw new IllegalArgumentException(truncatedMessage, new EOFException());
+      }
+      offset += read;
+    }
+  }
+}
@@ -0,0 +1,40 @@
+package com.carbonsensors.dto;
+
+import com.carbonsensors.service.SensorEvent;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@ApiModel(description = "Status transition or new alert of a Sensor, pushed as a Server-Sent Event")
+public class SensorEventDto {
+
+  @ApiModelProperty(notes = "Kind of change, also the name of the event", example = "status")
+  private String type;
+
+  @ApiModelProperty(notes = "Sensor unique identifier", example = "85a17ae3-40e3-4a0d-94a1-5ae19d1d0e3c")
+  private UUID sensorId;
+
+  @ApiModelProperty(notes = "Carbon consumption status before the change", example = "WARM")
+  private String previousStatus;
+
+  @ApiModelProperty(notes = "Carbon consumption status after the change", example = "ALERT")
+  private String status;
+
+  @ApiModelProperty(notes = "Time of the measurement which caused the change", example = "2020-12-28T18:55:47Z")
+  private ZonedDateTime time;
+
+  public static SensorEventDto fromSensorEvent(SensorEvent event) {
+    return new SensorEventDto(event.getType().getParameter(), event.getSensorId(),
+        event.getPreviousStatus() != null ? event.getPreviousStatus().name() : null, event.getStatus().name(),
+        event.getTime().atZone(ZoneOffset.UTC));
+  }
+}
@@ -0,0 +1,23 @@
+package com.carbonsensors.dto;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+
+import java.util.List;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@ApiModel(description = "Holds the measurements of a single sensor within a batch")
+public class SensorMeasurementsDto {
+
+  @ApiModelProperty(notes = "Sensor unique id", example = "3fa85f64-5717-4562-b3fc-2c963f66afa6")
+  private UUID sensorId;
+
+  @ApiModelProperty(notes = "Measurements of the sensor")
+  private List<CreateMeasurementDto> measurements;
+}
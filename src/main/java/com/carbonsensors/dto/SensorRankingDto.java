@@ -0,0 +1,36 @@
+package com.carbonsensors.dto;
+
+import com.carbonsensors.model.projection.MeasurementStatistics;
+import com.carbonsensors.service.SensorRanking;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@ApiModel(description = "CO2 measurements of a Sensor within the window of a fleet ranking")
+public class SensorRankingDto {
+
+  @ApiModelProperty(notes = "Sensor unique identifier", example = "85a17ae3-40e3-4a0d-94a1-5ae19d1d0e3c")
+  private UUID sensorId;
+
+  @ApiModelProperty(notes = "Number of measurements in the window", example = "4320")
+  private Long count;
+
+  @ApiModelProperty(notes = "Max CO2 quantity measurement in the window", example = "2100.0")
+  private Double max;
+
+  @ApiModelProperty(notes = "CO2 quantity measurement average in the window", example = "1950.5")
+  private Double avg;
+
+  public static SensorRankingDto fromSensorRanking(SensorRanking ranking) {
+    MeasurementStatistics statistics = ranking.getStatistics();
+    return new SensorRankingDto(ranking.getSensorId(), statistics.getCount(), statistics.getMax(),
+        statistics.getAverage());
+  }
+}
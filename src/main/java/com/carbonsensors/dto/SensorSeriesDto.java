@@ -0,0 +1,32 @@
+package com.carbonsensors.dto;
+
+import com.carbonsensors.service.MeasurementSeries;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@ApiModel(description = "CO2 measurements of a Sensor over time, bucketed by the resolution")
+public class SensorSeriesDto {
+
+  @ApiModelProperty(notes = "Width of the buckets, as an ISO-8601 duration", example = "PT15M")
+  private String resolution;
+
+  @ApiModelProperty(notes = "Rollup the buckets were read from: MINUTE, HOUR or DAY", example = "MINUTE")
+  private String rollup;
+
+  @ApiModelProperty(notes = "Buckets holding measurements, oldest first")
+  private List<SeriesPointDto> points;
+
+  public static SensorSeriesDto fromMeasurementSeries(MeasurementSeries series) {
+    return new SensorSeriesDto(series.getResolution().toString(), series.getRollup().name(),
+        series.getPoints().stream().map(SeriesPointDto::fromSeriesPoint).collect(Collectors.toList()));
+  }
+}
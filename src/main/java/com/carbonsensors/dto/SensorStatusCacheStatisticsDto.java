@@ -0,0 +1,41 @@
+package com.carbonsensors.dto;
+
+import com.carbonsensors.service.SensorStatusCacheStatistics;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@ApiModel(description = "Size and hit/miss statistics of the Sensor status cache since the application started")
+public class SensorStatusCacheStatisticsDto {
+
+  @ApiModelProperty(notes = "Approximate number of cached Sensor statuses", example = "1500")
+  private long size;
+
+  @ApiModelProperty(notes = "Number of Sensor status reads served from the cache", example = "98000")
+  private long hitCount;
+
+  @ApiModelProperty(notes = "Number of Sensor status reads loaded from the database", example = "2000")
+  private long missCount;
+
+  @ApiModelProperty(notes = "Ratio of reads served from the cache, 1.0 when there were no reads", example = "0.98")
+  private double hitRate;
+
+  @ApiModelProperty(notes = "Number of Sensor statuses evicted because the cache was full", example = "0")
+  private long evictionCount;
+
+  public static SensorStatusCacheStatisticsDto fromSensorStatusCacheStatistics(
+      SensorStatusCacheStatistics statistics) {
+    SensorStatusCacheStatisticsDto dto = null;
+    if (statistics != null) {
+      dto = new SensorStatusCacheStatisticsDto(statistics.getSize(), statistics.getHitCount(),
+          statistics.getMissCount(), statistics.getHitRate(), statistics.getEvictionCount());
+    }
+    return dto;
+  }
+}
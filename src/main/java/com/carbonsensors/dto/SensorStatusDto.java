@@ -1,6 +1,7 @@
 package com.carbonsensors.dto;
 
 import com.carbonsensors.model.Sensor;
+import com.carbonsensors.model.Status;
 import io.swagger.annotations.ApiModel;
 import io.swagger.annotations.ApiModelProperty;
 
@@ -24,4 +25,8 @@ public class SensorStatusDto {
     }
     return dto;
   }
+
+  public static SensorStatusDto fromStatus(Status status) {
+    return status != null ? new SensorStatusDto(status.name()) : null;
+  }
 }
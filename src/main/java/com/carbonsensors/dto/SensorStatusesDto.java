@@ -0,0 +1,36 @@
+package com.carbonsensors.dto;
+
+import com.carbonsensors.service.SensorStatuses;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@ApiModel(description = "Carbon consumption statuses of several Sensors")
+public class SensorStatusesDto {
+
+  @ApiModelProperty(notes = "Carbon consumption status of each known Sensor, by Sensor id")
+  private Map<UUID, String> statuses;
+
+  @ApiModelProperty(notes = "Sensor ids which match no Sensor")
+  private List<UUID> unknown;
+
+  public static SensorStatusesDto fromSensorStatuses(SensorStatuses sensorStatuses) {
+    if (sensorStatuses == null) {
+      return null;
+    }
+
+    Map<UUID, String> statuses = new LinkedHashMap<>();
+    sensorStatuses.getStatuses().forEach((sensorId, status) -> statuses.put(sensorId, status.name()));
+    return new SensorStatusesDto(statuses, sensorStatuses.getUnknown());
+  }
+}
@@ -0,0 +1,40 @@
+package com.carbonsensors.dto;
+
+import com.carbonsensors.model.projection.MeasurementStatistics;
+import com.carbonsensors.service.SeriesPoint;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@ApiModel(description = "CO2 measurements of a Sensor within a bucket of a series")
+public class SeriesPointDto {
+
+  @ApiModelProperty(notes = "Start of the bucket (UTC)", example = "2019-02-02T18:45:00Z")
+  private ZonedDateTime start;
+
+  @ApiModelProperty(notes = "Number of measurements in the bucket", example = "15")
+  private Long count;
+
+  @ApiModelProperty(notes = "Min CO2 quantity measurement in the bucket", example = "1800.0")
+  private Double min;
+
+  @ApiModelProperty(notes = "Max CO2 quantity measurement in the bucket", example = "2100.0")
+  private Double max;
+
+  @ApiModelProperty(notes = "CO2 quantity measurement average in the bucket", example = "1950.5")
+  private Double avg;
+
+  public static SeriesPointDto fromSeriesPoint(SeriesPoint point) {
+    MeasurementStatistics statistics = point.getStatistics();
+    return new SeriesPointDto(point.getStart().atZone(ZoneOffset.UTC), statistics.getCount(), statistics.getMin(),
+        statistics.getMax(), statistics.getAverage());
+  }
+}
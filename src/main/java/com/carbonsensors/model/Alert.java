@@ -1,14 +1,14 @@
 package com.carbonsensors.model;
 
-import java.time.ZonedDateTime;
+import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
+import javax.persistence.Convert;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
@@ -19,6 +19,7 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
+import org.hibernate.annotations.GenericGenerator;
 
 @Builder
 @Data
@@ -28,11 +29,13 @@ import lombok.ToString;
 public class Alert {
 
   @Id
-  @GeneratedValue(strategy = GenerationType.AUTO)
+  @GeneratedValue(generator = TimeOrderedUuidGenerator.NAME)
+  @GenericGenerator(name = TimeOrderedUuidGenerator.NAME, strategy = "com.carbonsensors.model.TimeOrderedUuidGenerator")
   private UUID id;
 
   @Column(nullable = false)
-  private ZonedDateTime created;
+  @Convert(converter = EpochMillisConverter.class)
+  private Instant created;
 
   @ManyToOne(fetch = FetchType.LAZY)
   private Sensor sensor;
@@ -45,4 +48,15 @@ public class Alert {
   @ToString.Exclude
   @OrderBy(value = "created desc")
   private List<Measurement> measurements;
+
+  /**
+   * Summary of the measurements of the alert, kept up to date as they are added, so that extending the alert does not
+   * load them.
+   */
+  private long measurementCount;
+
+  private Double co2QuantityMax;
+
+  @Convert(converter = EpochMillisConverter.class)
+  private Instant lastMeasurementCreated;
 }
@@ -0,0 +1,25 @@
+package com.carbonsensors.model;
+
+import java.time.Instant;
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * Stores a moment as the number of milliseconds since the epoch in a {@code bigint} column. Moments are compared and
+ * indexed as plain numbers, without any time zone, and converting them costs no calendar computation.
+ * <br>
+ * Moments are truncated to the millisecond, which is the precision of the readings of the sensors.
+ */
+@Converter
+public class EpochMillisConverter implements AttributeConverter<Instant, Long> {
+
+  @Override
+  public Long convertToDatabaseColumn(Instant instant) {
+    return instant != null ? instant.toEpochMilli() : null;
+  }
+
+  @Override
+  public Instant convertToEntityAttribute(Long epochMillis) {
+    return epochMillis != null ? Instant.ofEpochMilli(epochMillis) : null;
+  }
+}
@@ -1,18 +1,19 @@
 package com.carbonsensors.model;
 
-import java.time.ZonedDateTime;
+import java.time.Instant;
 import java.util.UUID;
 import javax.persistence.Column;
+import javax.persistence.Convert;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.ManyToOne;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.GenericGenerator;
 
 @Builder
 @Data
@@ -22,11 +23,13 @@ import lombok.NoArgsConstructor;
 public class Measurement {
 
   @Id
-  @GeneratedValue(strategy = GenerationType.AUTO)
+  @GeneratedValue(generator = TimeOrderedUuidGenerator.NAME)
+  @GenericGenerator(name = TimeOrderedUuidGenerator.NAME, strategy = "com.carbonsensors.model.TimeOrderedUuidGenerator")
   private UUID id;
 
   @Column(nullable = false)
-  private ZonedDateTime created;
+  @Convert(converter = EpochMillisConverter.class)
+  private Instant created;
 
   @ManyToOne(fetch = FetchType.LAZY)
   private Sensor sensor;
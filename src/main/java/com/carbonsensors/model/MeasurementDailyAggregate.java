@@ -0,0 +1,51 @@
+package com.carbonsensors.model;
+
+import java.time.LocalDate;
+import java.util.UUID;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Count, sum, maximum and minimum of the CO2 measurements of a sensor within a day (UTC).
+ */
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"sensor_id", "measurementDay"}))
+public class MeasurementDailyAggregate {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.AUTO)
+  private UUID id;
+
+  @ManyToOne(fetch = FetchType.LAZY)
+  private Sensor sensor;
+
+  @Column(nullable = false)
+  private LocalDate measurementDay;
+
+  @Column(nullable = false)
+  private Long measurementCount;
+
+  @Column(nullable = false)
+  private Double co2QuantitySum;
+
+  @Column(nullable = false)
+  private Double co2QuantityMax;
+
+  @Column(nullable = false)
+  private Double co2QuantityMin;
+}
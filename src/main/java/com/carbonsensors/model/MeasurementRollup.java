@@ -0,0 +1,60 @@
+package com.carbonsensors.model;
+
+import java.time.Instant;
+import java.util.UUID;
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.FetchType;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Count, sum, maximum and minimum of the CO2 measurements of a sensor within a minute or an hour (UTC). Day rollups
+ * are the {@link MeasurementDailyAggregate}s.
+ */
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"sensor_id", "resolution", "bucketStart"}))
+public class MeasurementRollup {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.AUTO)
+  private UUID id;
+
+  @ManyToOne(fetch = FetchType.LAZY)
+  private Sensor sensor;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false, length = 16)
+  private RollupResolution resolution;
+
+  @Column(nullable = false)
+  @Convert(converter = EpochMillisConverter.class)
+  private Instant bucketStart;
+
+  @Column(nullable = false)
+  private Long measurementCount;
+
+  @Column(nullable = false)
+  private Double co2QuantitySum;
+
+  @Column(nullable = false)
+  private Double co2QuantityMax;
+
+  @Column(nullable = false)
+  private Double co2QuantityMin;
+}
@@ -0,0 +1,44 @@
+package com.carbonsensors.model;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Width of the buckets the measurements of a sensor are rolled up into. Buckets are aligned on UTC, like the daily
+ * aggregates which hold the {@link #DAY} rollups.
+ */
+public enum RollupResolution {
+  MINUTE(Duration.ofMinutes(1)),
+  HOUR(Duration.ofHours(1)),
+  DAY(Duration.ofDays(1));
+
+  private final Duration duration;
+
+  RollupResolution(Duration duration) {
+    this.duration = duration;
+  }
+
+  public Duration getDuration() {
+    return duration;
+  }
+
+  /**
+   * @param instant any moment
+   *
+   * @return start of the bucket holding the moment
+   */
+  public Instant truncate(Instant instant) {
+    return truncate(instant, duration);
+  }
+
+  /**
+   * @param instant any moment
+   * @param width width of the buckets, a whole number of milliseconds
+   *
+   * @return start of the bucket of the given width holding the moment, buckets being aligned on the epoch
+   */
+  public static Instant truncate(Instant instant, Duration width) {
+    long millis = width.toMillis();
+    return Instant.ofEpochMilli(Math.floorDiv(instant.toEpochMilli(), millis) * millis);
+  }
+}
@@ -42,4 +42,9 @@ public class Sensor {
   @EqualsAndHashCode.Exclude
   @ToString.Exclude
   private Set<Alert> alerts;
+
+  /**
+   * Alert the sensor is in, null when its status is not {@code ALERT}.
+   */
+  private UUID currentAlertId;
 }
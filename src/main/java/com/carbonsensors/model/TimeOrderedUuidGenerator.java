@@ -0,0 +1,63 @@
+package com.carbonsensors.model;
+
+import java.io.Serializable;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+
+/**
+ * Generates UUIDv7-style identifiers, so that new rows are appended to the end of the primary key index instead of
+ * being inserted at random positions of it.
+ * <br>
+ * The 48 most significant bits hold the Unix timestamp in milliseconds and the following 12 bits, after the version,
+ * a counter which orders the identifiers generated within the same millisecond. The remaining bits, after the
+ * variant, are random. Identifiers are strictly increasing for each generator, that is for each entity, even if the
+ * clock goes backwards or more than 4096 identifiers are generated in the same millisecond, in which case the
+ * timestamp runs slightly ahead.
+ * <br>
+ * H2 compares the most significant half of a UUID as a signed number, which does not change the order, since the
+ * timestamp leaves the sign bit unset for many centuries to come.
+ */
+public class TimeOrderedUuidGenerator implements IdentifierGenerator {
+
+  public static final String NAME = "time-ordered-uuid";
+
+  private static final int COUNTER_BITS = 12;
+  private static final long VERSION_7 = 0x7000L;
+  private static final long VARIANT_MASK = 0x3FFFFFFFFFFFFFFFL;
+  private static final long VARIANT_RFC_4122 = 0x8000000000000000L;
+
+  /**
+   * Timestamp of the last generated identifier, followed by its counter.
+   */
+  private final AtomicLong lastTimestampAndCounter = new AtomicLong();
+
+  @Override
+  public Serializable generate(SharedSessionContractImplementor session, Object object) {
+    return nextUuid();
+  }
+
+  /**
+   * Generates an identifier outside Hibernate, for rows inserted with plain SQL.
+   *
+   * @return new identifier, greater than every identifier previously generated by this generator
+   */
+  public UUID nextUuid() {
+    return nextUuid(System.currentTimeMillis());
+  }
+
+  UUID nextUuid(long currentTimeMillis) {
+    long timestampAndCounter = lastTimestampAndCounter.updateAndGet(
+        last -> Math.max(last + 1, currentTimeMillis << COUNTER_BITS));
+
+    long timestamp = timestampAndCounter >>> COUNTER_BITS;
+    long counter = timestampAndCounter & ((1L << COUNTER_BITS) - 1);
+
+    long mostSignificantBits = (timestamp << 16) | VERSION_7 | counter;
+    long leastSignificantBits = (ThreadLocalRandom.current().nextLong() & VARIANT_MASK) | VARIANT_RFC_4122;
+
+    return new UUID(mostSignificantBits, leastSignificantBits);
+  }
+}
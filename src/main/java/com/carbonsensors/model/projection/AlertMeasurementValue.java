@@ -0,0 +1,22 @@
+package com.carbonsensors.model.projection;
+
+import java.time.Instant;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Creation time and CO2 quantity of a measurement belonging to an alert, read without loading the entities.
+ */
+@Getter
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class AlertMeasurementValue {
+
+  private final UUID alertId;
+  private final Instant created;
+  private final Double co2Quantity;
+}
@@ -0,0 +1,21 @@
+package com.carbonsensors.model.projection;
+
+import java.time.Instant;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Id and creation time of a measurement, read without loading the measurement entity.
+ */
+@Getter
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class MeasurementKey {
+
+  private final UUID id;
+  private final Instant created;
+}
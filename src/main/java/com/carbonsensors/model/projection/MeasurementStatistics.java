@@ -0,0 +1,52 @@
+package com.carbonsensors.model.projection;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Count, sum, maximum and minimum of a set of CO2 measurements. All values are null when the set is empty.
+ */
+@Getter
+@AllArgsConstructor
+public class MeasurementStatistics {
+
+  private final Long count;
+  private final Double sum;
+  private final Double max;
+  private final Double min;
+
+  public static MeasurementStatistics empty() {
+    return new MeasurementStatistics(null, null, null, null);
+  }
+
+  public boolean isEmpty() {
+    return count == null || count == 0;
+  }
+
+  /**
+   * Combines the statistics of two disjoint sets of measurements.
+   *
+   * @param other statistics of the other set of measurements
+   *
+   * @return statistics of both sets together
+   */
+  public MeasurementStatistics plus(MeasurementStatistics other) {
+    if (other == null || other.isEmpty()) {
+      return this;
+    }
+    if (isEmpty()) {
+      return other;
+    }
+
+    return new MeasurementStatistics(count + other.count, sum + other.sum, Math.max(max, other.max),
+        Math.min(min, other.min));
+  }
+
+  public Double getAverage() {
+    return isEmpty() ? null : sum / count;
+  }
+
+  public SensorMetrics toSensorMetrics() {
+    return new SensorMetrics(max, getAverage());
+  }
+}
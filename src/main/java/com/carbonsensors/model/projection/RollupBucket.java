@@ -0,0 +1,29 @@
+package com.carbonsensors.model.projection;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import lombok.Getter;
+
+/**
+ * Start and statistics of a bucket of a rollup, read without loading the rollup entity.
+ */
+@Getter
+public class RollupBucket {
+
+  private final Instant start;
+  private final MeasurementStatistics statistics;
+
+  public RollupBucket(Instant start, MeasurementStatistics statistics) {
+    this.start = start;
+    this.statistics = statistics;
+  }
+
+  public RollupBucket(Instant start, Long count, Double sum, Double max, Double min) {
+    this(start, new MeasurementStatistics(count, sum, max, min));
+  }
+
+  public RollupBucket(LocalDate day, Long count, Double sum, Double max, Double min) {
+    this(day.atStartOfDay(ZoneOffset.UTC).toInstant(), count, sum, max, min);
+  }
+}
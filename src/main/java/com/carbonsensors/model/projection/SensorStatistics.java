@@ -0,0 +1,19 @@
+package com.carbonsensors.model.projection;
+
+import java.util.UUID;
+import lombok.Getter;
+
+/**
+ * Statistics of the CO2 measurements of one sensor, read by queries grouping the measurements of many sensors.
+ */
+@Getter
+public class SensorStatistics {
+
+  private final UUID sensorId;
+  private final MeasurementStatistics statistics;
+
+  public SensorStatistics(UUID sensorId, Long count, Double sum, Double max, Double min) {
+    this.sensorId = sensorId;
+    this.statistics = new MeasurementStatistics(count, sum, max, min);
+  }
+}
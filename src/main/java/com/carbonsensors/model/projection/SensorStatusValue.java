@@ -0,0 +1,22 @@
+package com.carbonsensors.model.projection;
+
+import com.carbonsensors.model.Status;
+
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Id and status of a sensor, read without loading the sensor entity.
+ */
+@Getter
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class SensorStatusValue {
+
+  private final UUID id;
+  private final Status status;
+}
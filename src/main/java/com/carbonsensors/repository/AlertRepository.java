@@ -1,14 +1,105 @@
 package com.carbonsensors.repository;
 
 import com.carbonsensors.model.Alert;
+import com.carbonsensors.model.projection.AlertMeasurementValue;
+import com.carbonsensors.model.projection.AlertSummary;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+/**
+ * Queries listing alerts order them by sensor too, although it is fixed by the filter, so that the order matches the
+ * index on (sensor_id, created desc, id desc) and H2 stops reading it as soon as the page is complete.
+ */
 public interface AlertRepository extends JpaRepository<Alert, UUID> {
-  List<Alert> findBySensorIdOrderByCreatedDesc(UUID sensorId);
 
-  Optional<Alert> findTop1BySensorIdOrderByCreatedDesc(UUID sensorId);
+  /**
+   * Finds the alerts of a sensor created from a time on, newest first.
+   */
+  @Query("select a from Alert a where a.sensor.id = :sensorId and a.created >= :from "
+      + "order by a.sensor.id, a.created desc, a.id desc")
+  List<Alert> findBySensorIdCreatedFrom(UUID sensorId, Instant from);
+
+  @Query("select a from Alert a where a.sensor.id = :sensorId and a.created < :before "
+      + "order by a.sensor.id, a.created desc, a.id desc")
+  List<Alert> findBySensorIdCreatedBefore(UUID sensorId, Instant before, Pageable pageable);
+
+  default Optional<Alert> findTop1BySensorIdCreatedBefore(UUID sensorId, Instant before) {
+    return findBySensorIdCreatedBefore(sensorId, before, PageRequest.of(0, 1)).stream().findFirst();
+  }
+
+  /**
+   * Finds which of the given measurements are referenced by an alert.
+   */
+  @Query("select m.id from Alert a join a.measurements m where m.id in :measurementIds")
+  List<UUID> findReferencedMeasurementIds(Collection<UUID> measurementIds);
+
+  /**
+   * Finds the alert a measurement belongs to.
+   */
+  @Query("select a.id from Alert a join a.measurements m where m.id = :measurementId")
+  Optional<UUID> findIdByMeasurementId(UUID measurementId);
+
+  /**
+   * Finds the first page of the alerts of a sensor created in a time range, newest first.
+   */
+  @Query("select new com.carbonsensors.model.projection.AlertSummary(a.id, a.created) from Alert a "
+      + "where a.sensor.id = :sensorId and a.created >= :from and a.created < :to "
+      + "order by a.sensor.id, a.created desc, a.id desc")
+  List<AlertSummary> findPageBySensorId(UUID sensorId, Instant from, Instant to, Pageable pageable);
+
+  /**
+   * Finds the page of the alerts of a sensor created in a time range which follows the alert identified by its
+   * creation time and id, newest first. The redundant condition on the creation time bounds the index range read.
+   */
+  @Query("select new com.carbonsensors.model.projection.AlertSummary(a.id, a.created) from Alert a "
+      + "where a.sensor.id = :sensorId and a.created >= :from and a.created < :to "
+      + "and a.created <= :lastCreated and (a.created < :lastCreated or a.id < :lastId) "
+      + "order by a.sensor.id, a.created desc, a.id desc")
+  List<AlertSummary> findPageBySensorIdAfter(UUID sensorId, Instant from, Instant to,
+                                             Instant lastCreated, UUID lastId, Pageable pageable);
+
+  /**
+   * Finds the measurement values of several alerts at once, each alert's values ordered as
+   * {@link Alert#getMeasurements()}.
+   */
+  @Query("select new com.carbonsensors.model.projection.AlertMeasurementValue(a.id, m.created, m.co2Quantity) "
+      + "from Alert a join a.measurements m "
+      + "where a.id in :alertIds "
+      + "order by m.created desc")
+  List<AlertMeasurementValue> findMeasurementValuesByAlertIds(Collection<UUID> alertIds);
+
+  /**
+   * Adds a measurement to an alert by inserting its membership row, without loading the measurements the alert
+   * already has.
+   */
+  @Modifying(flushAutomatically = true)
+  @Query(value = "insert into alert_measurements (alert_id, measurements_id) values (:alertId, :measurementId)",
+      nativeQuery = true)
+  int addMeasurement(UUID alertId, UUID measurementId);
+
+  /**
+   * Adds measurements to the summary of an alert.
+   *
+   * @param count number of added measurements
+   * @param max highest CO2 quantity of the added measurements
+   * @param lastCreated creation time of the most recent added measurement
+   */
+  @Modifying(flushAutomatically = true)
+  @Query("update Alert a set "
+      + "a.measurementCount = a.measurementCount + :count, "
+      + "a.co2QuantityMax = case when a.co2QuantityMax is null or a.co2QuantityMax < :max "
+      + "then :max else a.co2QuantityMax end, "
+      + "a.lastMeasurementCreated = case when a.lastMeasurementCreated is null "
+      + "or a.lastMeasurementCreated < :lastCreated then :lastCreated else a.lastMeasurementCreated end "
+      + "where a.id = :alertId")
+  int addToSummary(UUID alertId, long count, double max, Instant lastCreated);
 }
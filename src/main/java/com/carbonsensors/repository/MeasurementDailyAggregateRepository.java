@@ -0,0 +1,52 @@
+package com.carbonsensors.repository;
+
+import com.carbonsensors.model.MeasurementDailyAggregate;
+import com.carbonsensors.model.projection.MeasurementStatistics;
+import com.carbonsensors.model.projection.RollupBucket;
+import com.carbonsensors.model.projection.SensorStatistics;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+public interface MeasurementDailyAggregateRepository extends JpaRepository<MeasurementDailyAggregate, UUID> {
+
+  @Modifying(flushAutomatically = true)
+  @Query("update MeasurementDailyAggregate a set "
+      + "a.measurementCount = a.measurementCount + :count, "
+      + "a.co2QuantitySum = a.co2QuantitySum + :sum, "
+      + "a.co2QuantityMax = case when a.co2QuantityMax < :max then :max else a.co2QuantityMax end, "
+      + "a.co2QuantityMin = case when a.co2QuantityMin > :min then :min else a.co2QuantityMin end "
+      + "where a.sensor.id = :sensorId and a.measurementDay = :measurementDay")
+  int addToAggregate(UUID sensorId, LocalDate measurementDay, long count, double sum, double max, double min);
+
+  @Query("select new com.carbonsensors.model.projection.MeasurementStatistics(sum(a.measurementCount), "
+      + "sum(a.co2QuantitySum), max(a.co2QuantityMax), min(a.co2QuantityMin)) "
+      + "from MeasurementDailyAggregate a "
+      + "where a.sensor.id = :sensorId and a.measurementDay > :measurementDay ")
+  MeasurementStatistics sumAggregatesAfter(UUID sensorId, LocalDate measurementDay);
+
+  /**
+   * Sums the aggregates of the days after a given one of every sensor whose id is within {@code [fromSensorId,
+   * toSensorId]}, one row per sensor. The range of ids lets H2 read a slice of the (sensor, day) unique index.
+   */
+  @Query("select new com.carbonsensors.model.projection.SensorStatistics(a.sensor.id, sum(a.measurementCount), "
+      + "sum(a.co2QuantitySum), max(a.co2QuantityMax), min(a.co2QuantityMin)) "
+      + "from MeasurementDailyAggregate a "
+      + "where a.sensor.id >= :fromSensorId and a.sensor.id <= :toSensorId and a.measurementDay > :measurementDay "
+      + "group by a.sensor.id")
+  List<SensorStatistics> sumAggregatesAfterBySensor(UUID fromSensorId, UUID toSensorId, LocalDate measurementDay);
+
+  /**
+   * Finds the aggregates of a sensor of the days in a range, oldest first, as the buckets of the day rollup.
+   */
+  @Query("select new com.carbonsensors.model.projection.RollupBucket(a.measurementDay, a.measurementCount, "
+      + "a.co2QuantitySum, a.co2QuantityMax, a.co2QuantityMin) "
+      + "from MeasurementDailyAggregate a "
+      + "where a.sensor.id = :sensorId and a.measurementDay >= :fromDay and a.measurementDay < :toDay "
+      + "order by a.sensor.id, a.measurementDay")
+  List<RollupBucket> findBuckets(UUID sensorId, LocalDate fromDay, LocalDate toDay);
+}
@@ -1,21 +1,78 @@
 package com.carbonsensors.repository;
 
 import com.carbonsensors.model.Measurement;
-import com.carbonsensors.model.projection.SensorMetrics;
+import com.carbonsensors.model.projection.MeasurementKey;
+import com.carbonsensors.model.projection.MeasurementStatistics;
+import com.carbonsensors.model.projection.SensorStatistics;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
-import java.time.ZonedDateTime;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
-public interface MeasurementRepository extends JpaRepository<Measurement, Long> {
+public interface MeasurementRepository extends JpaRepository<Measurement, UUID> {
 
-  @Query("select new com.carbonsensors.model.projection.SensorMetrics(max (m.co2Quantity), avg(m.co2Quantity)) "
-      + "from Measurement m join m.sensor s "
-      + "where s.id = :sensorId and m.created >= :measurementDate ")
-  public SensorMetrics computeMetricsById(UUID sensorId, ZonedDateTime measurementDate);
+  @Query("select new com.carbonsensors.model.projection.MeasurementStatistics(count(m), sum(m.co2Quantity), "
+      + "max(m.co2Quantity), min(m.co2Quantity)) "
+      + "from Measurement m "
+      + "where m.sensor.id = :sensorId and m.created >= :from and m.created < :to ")
+  MeasurementStatistics computeStatisticsById(UUID sensorId, Instant from, Instant to);
 
+  /**
+   * Computes the statistics of the measurements created in a time range of every sensor, one row per sensor. The
+   * range is read from the creation time index, which also holds the sensor and the CO2 quantity.
+   */
+  @Query("select new com.carbonsensors.model.projection.SensorStatistics(m.sensor.id, count(m), "
+      + "sum(m.co2Quantity), max(m.co2Quantity), min(m.co2Quantity)) "
+      + "from Measurement m where m.created >= :from and m.created < :to "
+      + "group by m.sensor.id")
+  List<SensorStatistics> computeStatisticsBySensor(Instant from, Instant to);
+
+  @Query("select m from Measurement m where m.sensor.id = :sensorId order by m.created desc")
   List<Measurement> findBySensorIdOrderByCreatedDesc(UUID sensorId, Pageable pageable);
+
+  /**
+   * Finds the stored reading of a sensor created at a time with a CO2 quantity, with a single seek in the sensor
+   * index, which starts with those columns.
+   */
+  @Query("select m from Measurement m where m.sensor.id = :sensorId and m.created = :created "
+      + "and m.co2Quantity = :co2Quantity")
+  Optional<Measurement> findReading(UUID sensorId, Instant created, Double co2Quantity);
+
+  /**
+   * Finds the first chunk of the measurements created before a time which no alert references, oldest first.
+   */
+  @Query("select new com.carbonsensors.model.projection.MeasurementKey(m.id, m.created) from Measurement m "
+      + "where m.created < :before "
+      + "and not exists (select a.id from Alert a join a.measurements am where am = m) "
+      + "order by m.created, m.id")
+  List<MeasurementKey> findUnreferencedCreatedBefore(Instant before, Pageable pageable);
+
+  /**
+   * Finds the chunk of the measurements created before a time which no alert references, following the measurement
+   * identified by its creation time and id, oldest first. The redundant condition on the creation time bounds the
+   * index range read.
+   */
+  @Query("select new com.carbonsensors.model.projection.MeasurementKey(m.id, m.created) from Measurement m "
+      + "where m.created < :before "
+      + "and m.created >= :lastCreated and (m.created > :lastCreated or m.id > :lastId) "
+      + "and not exists (select a.id from Alert a join a.measurements am where am = m) "
+      + "order by m.created, m.id")
+  List<MeasurementKey> findUnreferencedCreatedBeforeAfter(Instant before, Instant lastCreated,
+                                                         UUID lastId, Pageable pageable);
+
+  /**
+   * Deletes measurements by id, skipping the ones an alert references.
+   *
+   * @return number of deleted measurements
+   */
+  @Modifying
+  @Query("delete from Measurement m where m.id in :ids "
+      + "and not exists (select a.id from Alert a join a.measurements am where am = m)")
+  int deleteUnreferencedByIdIn(Collection<UUID> ids);
 }
@@ -0,0 +1,36 @@
+package com.carbonsensors.repository;
+
+import com.carbonsensors.model.MeasurementRollup;
+import com.carbonsensors.model.RollupResolution;
+import com.carbonsensors.model.projection.RollupBucket;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+public interface MeasurementRollupRepository extends JpaRepository<MeasurementRollup, UUID> {
+
+  @Modifying(flushAutomatically = true)
+  @Query("update MeasurementRollup r set "
+      + "r.measurementCount = r.measurementCount + :count, "
+      + "r.co2QuantitySum = r.co2QuantitySum + :sum, "
+      + "r.co2QuantityMax = case when r.co2QuantityMax < :max then :max else r.co2QuantityMax end, "
+      + "r.co2QuantityMin = case when r.co2QuantityMin > :min then :min else r.co2QuantityMin end "
+      + "where r.sensor.id = :sensorId and r.resolution = :resolution and r.bucketStart = :bucketStart")
+  int addToRollup(UUID sensorId, RollupResolution resolution, Instant bucketStart, long count, double sum,
+                  double max, double min);
+
+  /**
+   * Finds the buckets of a rollup of a sensor starting in a time range, oldest first.
+   */
+  @Query("select new com.carbonsensors.model.projection.RollupBucket(r.bucketStart, r.measurementCount, "
+      + "r.co2QuantitySum, r.co2QuantityMax, r.co2QuantityMin) "
+      + "from MeasurementRollup r "
+      + "where r.sensor.id = :sensorId and r.resolution = :resolution "
+      + "and r.bucketStart >= :from and r.bucketStart < :to "
+      + "order by r.sensor.id, r.resolution, r.bucketStart")
+  List<RollupBucket> findBuckets(UUID sensorId, RollupResolution resolution, Instant from, Instant to);
+}
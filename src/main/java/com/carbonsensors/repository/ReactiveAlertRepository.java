@@ -0,0 +1,112 @@
+package com.carbonsensors.repository;
+
+import com.carbonsensors.model.projection.AlertMeasurementValue;
+import com.carbonsensors.model.projection.AlertSummary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Non-blocking access to the alerts, used by the {@code reactive} profile. Queries match the ones of
+ * {@link AlertRepository}, including the order by sensor which lets H2 read the alert keyset index.
+ */
+@Profile("reactive")
+@Repository
+public class ReactiveAlertRepository {
+
+  private final DatabaseClient databaseClient;
+
+  public ReactiveAlertRepository(DatabaseClient databaseClient) {
+    this.databaseClient = databaseClient;
+  }
+
+  public Mono<Void> insert(UUID id, UUID sensorId, Instant created) {
+    return databaseClient.execute("insert into alert (id, created, sensor_id) values (:id, :created, :sensorId)")
+        .bind("id", id)
+        .bind("created", SqlTimestamps.toColumn(created))
+        .bind("sensorId", sensorId)
+        .then();
+  }
+
+  public Mono<Void> addMeasurement(UUID alertId, UUID measurementId) {
+    return databaseClient.execute("insert into alert_measurements (alert_id, measurements_id) "
+        + "values (:alertId, :measurementId)")
+        .bind("alertId", alertId)
+        .bind("measurementId", measurementId)
+        .then();
+  }
+
+  /**
+   * Adds measurements to the summary of an alert, as {@link AlertRepository#addToSummary} does.
+   */
+  public Mono<Void> addToSummary(UUID alertId, long count, double max, Instant lastCreated) {
+    return databaseClient.execute("update alert set measurement_count = measurement_count + :count, "
+        + "co2quantity_max = case when co2quantity_max is null or co2quantity_max < :max "
+        + "then :max else co2quantity_max end, "
+        + "last_measurement_created = case when last_measurement_created is null "
+        + "or last_measurement_created < :lastCreated then :lastCreated else last_measurement_created end "
+        + "where id = :alertId")
+        .bind("count", count)
+        .bind("max", max)
+        .bind("lastCreated", SqlTimestamps.toColumn(lastCreated))
+        .bind("alertId", alertId)
+        .then();
+  }
+
+  /**
+   * Finds the first page of the alerts of a sensor created in a time range, newest first.
+   */
+  public Flux<AlertSummary> findPageBySensorId(UUID sensorId, Instant from, Instant to, int limit) {
+    return databaseClient.execute("select id, created from alert "
+        + "where sensor_id = :sensorId and created >= :from and created < :to "
+        + "order by sensor_id, created desc, id desc limit :limit")
+        .bind("sensorId", sensorId)
+        .bind("from", SqlTimestamps.toColumn(from))
+        .bind("to", SqlTimestamps.toColumn(to))
+        .bind("limit", limit)
+        .map((row, metadata) -> new AlertSummary(row.get(0, UUID.class),
+            SqlTimestamps.fromColumn(row.get(1, Long.class))))
+        .all();
+  }
+
+  /**
+   * Finds the page of the alerts of a sensor created in a time range which follows the alert identified by its
+   * creation time and id, newest first.
+   */
+  public Flux<AlertSummary> findPageBySensorIdAfter(UUID sensorId, Instant from, Instant to,
+                                                    Instant lastCreated, UUID lastId, int limit) {
+    return databaseClient.execute("select id, created from alert "
+        + "where sensor_id = :sensorId and created >= :from and created < :to "
+        + "and created <= :lastCreated and (created < :lastCreated or id < :lastId) "
+        + "order by sensor_id, created desc, id desc limit :limit")
+        .bind("sensorId", sensorId)
+        .bind("from", SqlTimestamps.toColumn(from))
+        .bind("to", SqlTimestamps.toColumn(to))
+        .bind("lastCreated", SqlTimestamps.toColumn(lastCreated))
+        .bind("lastId", lastId)
+        .bind("limit", limit)
+        .map((row, metadata) -> new AlertSummary(row.get(0, UUID.class),
+            SqlTimestamps.fromColumn(row.get(1, Long.class))))
+        .all();
+  }
+
+  /**
+   * Finds the measurement values of several alerts at once, newest first.
+   */
+  public Flux<AlertMeasurementValue> findMeasurementValuesByAlertIds(Collection<UUID> alertIds) {
+    return databaseClient.execute("select am.alert_id, m.created, m.co2quantity "
+        + "from alert_measurements am join measurement m on m.id = am.measurements_id "
+        + "where am.alert_id in (:alertIds) "
+        + "order by m.created desc")
+        .bind("alertIds", alertIds)
+        .map((row, metadata) -> new AlertMeasurementValue(row.get(0, UUID.class),
+            SqlTimestamps.fromColumn(row.get(1, Long.class)), row.get(2, Double.class)))
+        .all();
+  }
+}
@@ -0,0 +1,92 @@
+package com.carbonsensors.repository;
+
+import com.carbonsensors.model.projection.MeasurementStatistics;
+import com.carbonsensors.model.projection.RollupBucket;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Non-blocking access to the daily aggregates of the measurements, used by the {@code reactive} profile. Statements
+ * match the ones of {@link MeasurementDailyAggregateRepository}.
+ */
+@Profile("reactive")
+@Repository
+public class ReactiveMeasurementDailyAggregateRepository {
+
+  private final DatabaseClient databaseClient;
+
+  public ReactiveMeasurementDailyAggregateRepository(DatabaseClient databaseClient) {
+    this.databaseClient = databaseClient;
+  }
+
+  public Mono<Integer> addToAggregate(UUID sensorId, LocalDate measurementDay, MeasurementStatistics statistics) {
+    return databaseClient.execute("update measurement_daily_aggregate set "
+        + "measurement_count = measurement_count + :count, "
+        + "co2quantity_sum = co2quantity_sum + :sum, "
+        + "co2quantity_max = case when co2quantity_max < :max then :max else co2quantity_max end, "
+        + "co2quantity_min = case when co2quantity_min > :min then :min else co2quantity_min end "
+        + "where sensor_id = :sensorId and measurement_day = :measurementDay")
+        .bind("count", statistics.getCount())
+        .bind("sum", statistics.getSum())
+        .bind("max", statistics.getMax())
+        .bind("min", statistics.getMin())
+        .bind("sensorId", sensorId)
+        .bind("measurementDay", measurementDay)
+        .fetch()
+        .rowsUpdated();
+  }
+
+  public Mono<Void> insert(UUID id, UUID sensorId, LocalDate measurementDay, MeasurementStatistics statistics) {
+    return databaseClient.execute("insert into measurement_daily_aggregate (id, co2quantity_max, co2quantity_min, "
+        + "co2quantity_sum, measurement_count, measurement_day, sensor_id) "
+        + "values (:id, :max, :min, :sum, :count, :measurementDay, :sensorId)")
+        .bind("id", id)
+        .bind("max", statistics.getMax())
+        .bind("min", statistics.getMin())
+        .bind("sum", statistics.getSum())
+        .bind("count", statistics.getCount())
+        .bind("measurementDay", measurementDay)
+        .bind("sensorId", sensorId)
+        .then();
+  }
+
+  public Mono<MeasurementStatistics> sumAggregatesAfter(UUID sensorId, LocalDate measurementDay) {
+    return databaseClient.execute("select sum(measurement_count), sum(co2quantity_sum), max(co2quantity_max), "
+        + "min(co2quantity_min) from measurement_daily_aggregate "
+        + "where sensor_id = :sensorId and measurement_day > :measurementDay")
+        .bind("sensorId", sensorId)
+        .bind("measurementDay", measurementDay)
+        .map((row, metadata) -> new MeasurementStatistics(toLong(row.get(0)), row.get(1, Double.class),
+            row.get(2, Double.class), row.get(3, Double.class)))
+        .one();
+  }
+
+  /**
+   * Finds the aggregates of a sensor of the days in a range, oldest first, as the buckets of the day rollup.
+   */
+  public Flux<RollupBucket> findBuckets(UUID sensorId, LocalDate fromDay, LocalDate toDay) {
+    return databaseClient.execute("select measurement_day, measurement_count, co2quantity_sum, co2quantity_max, "
+        + "co2quantity_min from measurement_daily_aggregate "
+        + "where sensor_id = :sensorId and measurement_day >= :fromDay and measurement_day < :toDay "
+        + "order by sensor_id, measurement_day")
+        .bind("sensorId", sensorId)
+        .bind("fromDay", fromDay)
+        .bind("toDay", toDay)
+        .map((row, metadata) -> new RollupBucket(row.get(0, LocalDate.class), row.get(1, Long.class),
+            row.get(2, Double.class), row.get(3, Double.class), row.get(4, Double.class)))
+        .all();
+  }
+
+  /**
+   * H2 sums big integers as decimals.
+   */
+  private static Long toLong(Object sum) {
+    return sum != null ? ((Number) sum).longValue() : null;
+  }
+}
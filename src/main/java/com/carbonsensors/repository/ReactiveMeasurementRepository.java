@@ -0,0 +1,74 @@
+package com.carbonsensors.repository;
+
+import com.carbonsensors.model.Measurement;
+import com.carbonsensors.model.projection.MeasurementStatistics;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Non-blocking access to the measurements, used by the {@code reactive} profile. Measurements are read as detached
+ * entities without their sensor.
+ */
+@Profile("reactive")
+@Repository
+public class ReactiveMeasurementRepository {
+
+  private final DatabaseClient databaseClient;
+
+  public ReactiveMeasurementRepository(DatabaseClient databaseClient) {
+    this.databaseClient = databaseClient;
+  }
+
+  /**
+   * Inserts a measurement, unless its sensor already has one created at the same time with the same CO2 quantity. The
+   * check is a single seek in the sensor index, which starts with those columns.
+   *
+   * @return true when the measurement was inserted, false when it is a duplicate
+   */
+  public Mono<Boolean> insertIfAbsent(UUID id, UUID sensorId, Instant created, double co2Quantity) {
+    return databaseClient.execute("insert into measurement (id, co2quantity, created, sensor_id) "
+        + "select :id, :co2Quantity, :created, :sensorId where not exists (select 1 from measurement "
+        + "where sensor_id = :sensorId and created = :created and co2quantity = :co2Quantity)")
+        .bind("id", id)
+        .bind("co2Quantity", co2Quantity)
+        .bind("created", SqlTimestamps.toColumn(created))
+        .bind("sensorId", sensorId)
+        .fetch()
+        .rowsUpdated()
+        .map(rows -> rows > 0);
+  }
+
+  /**
+   * Finds the most recent measurements of a sensor, newest first. Ordering by sensor as well lets H2 read them from
+   * the sensor index in order, instead of sorting every measurement of the sensor.
+   */
+  public Flux<Measurement> findBySensorIdOrderByCreatedDesc(UUID sensorId, int limit) {
+    return databaseClient.execute("select id, created, co2quantity from measurement where sensor_id = :sensorId "
+        + "order by sensor_id, created desc limit :limit")
+        .bind("sensorId", sensorId)
+        .bind("limit", limit)
+        .map((row, metadata) -> Measurement.builder()
+            .id(row.get(0, UUID.class))
+            .created(SqlTimestamps.fromColumn(row.get(1, Long.class)))
+            .co2Quantity(row.get(2, Double.class))
+            .build())
+        .all();
+  }
+
+  public Mono<MeasurementStatistics> computeStatisticsById(UUID sensorId, Instant from, Instant to) {
+    return databaseClient.execute("select count(*), sum(co2quantity), max(co2quantity), min(co2quantity) "
+        + "from measurement where sensor_id = :sensorId and created >= :from and created < :to")
+        .bind("sensorId", sensorId)
+        .bind("from", SqlTimestamps.toColumn(from))
+        .bind("to", SqlTimestamps.toColumn(to))
+        .map((row, metadata) -> new MeasurementStatistics(row.get(0, Long.class), row.get(1, Double.class),
+            row.get(2, Double.class), row.get(3, Double.class)))
+        .one();
+  }
+}
@@ -0,0 +1,81 @@
+package com.carbonsensors.repository;
+
+import com.carbonsensors.model.RollupResolution;
+import com.carbonsensors.model.projection.MeasurementStatistics;
+import com.carbonsensors.model.projection.RollupBucket;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Non-blocking access to the minute and hour rollups of the measurements, used by the {@code reactive} profile.
+ * Statements match the ones of {@link MeasurementRollupRepository}.
+ */
+@Profile("reactive")
+@Repository
+public class ReactiveMeasurementRollupRepository {
+
+  private final DatabaseClient databaseClient;
+
+  public ReactiveMeasurementRollupRepository(DatabaseClient databaseClient) {
+    this.databaseClient = databaseClient;
+  }
+
+  public Mono<Integer> addToRollup(UUID sensorId, RollupResolution resolution, Instant bucketStart,
+                                   MeasurementStatistics statistics) {
+    return databaseClient.execute("update measurement_rollup set "
+        + "measurement_count = measurement_count + :count, "
+        + "co2quantity_sum = co2quantity_sum + :sum, "
+        + "co2quantity_max = case when co2quantity_max < :max then :max else co2quantity_max end, "
+        + "co2quantity_min = case when co2quantity_min > :min then :min else co2quantity_min end "
+        + "where sensor_id = :sensorId and resolution = :resolution and bucket_start = :bucketStart")
+        .bind("count", statistics.getCount())
+        .bind("sum", statistics.getSum())
+        .bind("max", statistics.getMax())
+        .bind("min", statistics.getMin())
+        .bind("sensorId", sensorId)
+        .bind("resolution", resolution.name())
+        .bind("bucketStart", SqlTimestamps.toColumn(bucketStart))
+        .fetch()
+        .rowsUpdated();
+  }
+
+  public Mono<Void> insert(UUID id, UUID sensorId, RollupResolution resolution, Instant bucketStart,
+                           MeasurementStatistics statistics) {
+    return databaseClient.execute("insert into measurement_rollup (id, resolution, bucket_start, co2quantity_max, "
+        + "co2quantity_min, co2quantity_sum, measurement_count, sensor_id) "
+        + "values (:id, :resolution, :bucketStart, :max, :min, :sum, :count, :sensorId)")
+        .bind("id", id)
+        .bind("resolution", resolution.name())
+        .bind("bucketStart", SqlTimestamps.toColumn(bucketStart))
+        .bind("max", statistics.getMax())
+        .bind("min", statistics.getMin())
+        .bind("sum", statistics.getSum())
+        .bind("count", statistics.getCount())
+        .bind("sensorId", sensorId)
+        .then();
+  }
+
+  /**
+   * Finds the buckets of a rollup of a sensor starting in a time range, oldest first.
+   */
+  public Flux<RollupBucket> findBuckets(UUID sensorId, RollupResolution resolution, Instant from,
+                                        Instant to) {
+    return databaseClient.execute("select bucket_start, measurement_count, co2quantity_sum, co2quantity_max, "
+        + "co2quantity_min from measurement_rollup "
+        + "where sensor_id = :sensorId and resolution = :resolution and bucket_start >= :from and bucket_start < :to "
+        + "order by sensor_id, resolution, bucket_start")
+        .bind("sensorId", sensorId)
+        .bind("resolution", resolution.name())
+        .bind("from", SqlTimestamps.toColumn(from))
+        .bind("to", SqlTimestamps.toColumn(to))
+        .map((row, metadata) -> new RollupBucket(SqlTimestamps.fromColumn(row.get(0, Long.class)),
+            row.get(1, Long.class), row.get(2, Double.class), row.get(3, Double.class), row.get(4, Double.class)))
+        .all();
+  }
+}
@@ -0,0 +1,119 @@
+package com.carbonsensors.repository;
+
+import com.carbonsensors.model.Status;
+import com.carbonsensors.model.projection.SensorStatusValue;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.r2dbc.core.ConnectionAccessor;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Non-blocking access to the sensors, used by the {@code reactive} profile.
+ */
+@Profile("reactive")
+@Repository
+public class ReactiveSensorRepository {
+
+  private final DatabaseClient databaseClient;
+
+  public ReactiveSensorRepository(DatabaseClient databaseClient) {
+    this.databaseClient = databaseClient;
+  }
+
+  public Mono<Void> insert(UUID id, Status status) {
+    return databaseClient.execute("insert into sensor (id, status) values (:id, :status)")
+        .bind("id", id)
+        .bind("status", status.name())
+        .then();
+  }
+
+  /**
+   * Inserts the sensors whose id is not taken yet in a single batch, leaving the existing ones untouched.
+   *
+   * @return number of sensors inserted
+   */
+  public Mono<Integer> insertIfAbsent(List<UUID> ids, Status status) {
+    // DatabaseClient cannot bind a batch, which is built on the connection of the current transaction instead
+    return ((ConnectionAccessor) databaseClient).inConnectionMany(connection -> {
+      Statement statement = connection.createStatement("insert into sensor (id, status) select $1, $2 "
+          + "where not exists (select 1 from sensor where id = $1)");
+      for (int i = 0; i < ids.size(); i++) {
+        if (i > 0) {
+          statement.add();
+        }
+        statement.bind(0, ids.get(i)).bind(1, status.name());
+      }
+      return Flux.from(statement.execute()).flatMap(Result::getRowsUpdated);
+    }).reduce(0, Integer::sum);
+  }
+
+  public Mono<Status> findStatusById(UUID id) {
+    return databaseClient.execute("select status from sensor where id = :id")
+        .bind("id", id)
+        .map((row, metadata) -> Status.valueOf(row.get(0, String.class)))
+        .one();
+  }
+
+  /**
+   * Finds the statuses of several sensors at once. Unknown ids are left out.
+   */
+  public Flux<SensorStatusValue> findStatusesByIds(Collection<UUID> ids) {
+    return databaseClient.execute("select id, status from sensor where id in (:ids)")
+        .bind("ids", ids)
+        .map((row, metadata) -> new SensorStatusValue(row.get(0, UUID.class),
+            Status.valueOf(row.get(1, String.class))))
+        .all();
+  }
+
+  /**
+   * Finds the status of a sensor and locks its row until the current transaction completes, so that the readings of
+   * a sensor are evaluated one after the other.
+   */
+  public Mono<Status> findStatusByIdForUpdate(UUID id) {
+    return databaseClient.execute("select status from sensor where id = :id for update")
+        .bind("id", id)
+        .map((row, metadata) -> Status.valueOf(row.get(0, String.class)))
+        .one();
+  }
+
+  /**
+   * Finds the alert a sensor is in, empty when it is in none.
+   */
+  public Mono<UUID> findCurrentAlertIdById(UUID id) {
+    return databaseClient.execute("select current_alert_id from sensor where id = :id and current_alert_id is not null")
+        .bind("id", id)
+        .map((row, metadata) -> row.get(0, UUID.class))
+        .one();
+  }
+
+  /**
+   * Updates the status of a sensor which is leaving the alert status, or not in it, so that it points to no alert.
+   */
+  public Mono<Integer> updateStatus(UUID id, Status status) {
+    return databaseClient.execute("update sensor set status = :status, current_alert_id = null where id = :id")
+        .bind("id", id)
+        .bind("status", status.name())
+        .fetch()
+        .rowsUpdated();
+  }
+
+  /**
+   * Puts a sensor in the alert status, pointing to the alert it opened.
+   */
+  public Mono<Integer> openAlert(UUID id, UUID alertId) {
+    return databaseClient.execute("update sensor set status = :status, current_alert_id = :alertId where id = :id")
+        .bind("id", id)
+        .bind("status", Status.ALERT.name())
+        .bind("alertId", alertId)
+        .fetch()
+        .rowsUpdated();
+  }
+}
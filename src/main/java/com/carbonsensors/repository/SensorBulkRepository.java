@@ -0,0 +1,44 @@
+package com.carbonsensors.repository;
+
+import com.carbonsensors.model.Status;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Inserts sensors in JDBC batches. {@link SensorRepository} cannot batch sensors whose ids are given by the client,
+ * since Hibernate looks up an entity with a generated id which is already set before inserting it.
+ */
+@Repository
+public class SensorBulkRepository {
+
+  private static final String INSERT_IF_ABSENT = "insert into sensor (id, status) select ?, ? "
+      + "where not exists (select 1 from sensor where id = ?)";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public SensorBulkRepository(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  /**
+   * Inserts the sensors whose id is not taken yet, leaving the existing ones untouched.
+   *
+   * @param ids ids of the sensors
+   * @param status status of the new sensors
+   * @param batchSize number of sensors sent to the database in a single batch
+   *
+   * @return number of sensors inserted
+   */
+  public int insertIfAbsent(List<UUID> ids, Status status, int batchSize) {
+    int[][] counts = jdbcTemplate.batchUpdate(INSERT_IF_ABSENT, ids, batchSize, (statement, id) -> {
+      statement.setObject(1, id);
+      statement.setString(2, status.name());
+      statement.setObject(3, id);
+    });
+    return Arrays.stream(counts).flatMapToInt(Arrays::stream).sum();
+  }
+}
@@ -1,9 +1,20 @@
 package com.carbonsensors.repository;
 
 import com.carbonsensors.model.Sensor;
+import com.carbonsensors.model.projection.SensorStatusValue;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 public interface SensorRepository extends JpaRepository<Sensor, UUID> {
+
+  /**
+   * Finds the statuses of several sensors at once. Unknown ids are left out.
+   */
+  @Query("select new com.carbonsensors.model.projection.SensorStatusValue(s.id, s.status) from Sensor s "
+      + "where s.id in :ids")
+  List<SensorStatusValue> findStatusesByIds(Collection<UUID> ids);
 }
@@ -0,0 +1,27 @@
+package com.carbonsensors.repository;
+
+import com.carbonsensors.model.EpochMillisConverter;
+
+import java.time.Instant;
+
+/**
+ * Converts moments to and from their columns when they are read or written with plain SQL.
+ * <br>
+ * Moments are stored as milliseconds since the epoch, as {@link EpochMillisConverter} does for the entities, so that
+ * the rows written by the reactive repositories are read back alike by both stacks.
+ */
+final class SqlTimestamps {
+
+  private static final EpochMillisConverter CONVERTER = new EpochMillisConverter();
+
+  private SqlTimestamps() {
+  }
+
+  static Long toColumn(Instant instant) {
+    return CONVERTER.convertToDatabaseColumn(instant);
+  }
+
+  static Instant fromColumn(Long epochMillis) {
+    return CONVERTER.convertToEntityAttribute(epochMillis);
+  }
+}
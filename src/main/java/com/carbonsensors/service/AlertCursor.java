@@ -0,0 +1,64 @@
+package com.carbonsensors.service;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.carbonsensors.model.projection.AlertSummary;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Position of the last alert of a page, from which the next page is read. Clients handle it as an opaque string.
+ */
+@Getter
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class AlertCursor {
+
+  private static final String SEPARATOR = "_";
+
+  private final Instant created;
+  private final UUID id;
+
+  public static AlertCursor fromAlertSummary(AlertSummary alert) {
+    return new AlertCursor(alert.getCreated(), alert.getId());
+  }
+
+  /**
+   * Decodes a cursor previously returned by {@link #encode()}.
+   *
+   * @param cursor encoded cursor
+   *
+   * @return decoded cursor
+   *
+   * @throws IllegalArgumentException if the cursor was not created by this class
+   */
+  public static AlertCursor decode(String cursor) {
+    String[] parts;
+    try {
+      parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(SEPARATOR);
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Cursor is not valid. Entered value: " + cursor, e);
+    }
+    checkArgument(parts.length == 2, "Cursor is not valid. Entered value: " + cursor);
+
+    try {
+      return new AlertCursor(Instant.parse(parts[0]), UUID.fromString(parts[1]));
+    } catch (DateTimeParseException | IllegalArgumentException e) {
+      throw new IllegalArgumentException("Cursor is not valid. Entered value: " + cursor, e);
+    }
+  }
+
+  public String encode() {
+    String decoded = created + SEPARATOR + id;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(decoded.getBytes(StandardCharsets.UTF_8));
+  }
+}
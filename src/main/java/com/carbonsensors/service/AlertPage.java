@@ -0,0 +1,23 @@
+package com.carbonsensors.service;
+
+import com.carbonsensors.model.projection.AlertMeasurementValue;
+import com.carbonsensors.model.projection.AlertSummary;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Page of alerts, newest first, along with the measurement values of each alert. The cursor of the next page is null
+ * when there are no more alerts.
+ */
+@Getter
+@AllArgsConstructor
+public class AlertPage {
+
+  private final List<AlertSummary> alerts;
+  private final Map<UUID, List<AlertMeasurementValue>> measurementValuesByAlert;
+  private final AlertCursor nextCursor;
+}
@@ -1,22 +1,102 @@
 package com.carbonsensors.service;
 
-import com.carbonsensors.model.Alert;
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.carbonsensors.config.ConfigurationProperties;
+import com.carbonsensors.model.projection.AlertMeasurementValue;
+import com.carbonsensors.model.projection.AlertSummary;
 import com.carbonsensors.repository.AlertRepository;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Service
 public class AlertService {
 
+  static final Instant DEFAULT_FROM = Instant.EPOCH;
+  static final Instant DEFAULT_TO = Instant.parse("9999-12-31T00:00:00Z");
+
   private final AlertRepository alertRepository;
+  private final ConfigurationProperties configurationProperties;
 
-  public AlertService(AlertRepository alertRepository) {
+  public AlertService(AlertRepository alertRepository,
+                      ConfigurationProperties configurationProperties) {
     this.alertRepository = alertRepository;
+    this.configurationProperties = configurationProperties;
+  }
+
+  /**
+   * Finds a page of the alerts of a sensor, newest first, along with their measurement values.
+   * <br>
+   * Pages are read by keyset on the creation time and id of the last alert of the previous page, so that reading a
+   * page costs the same whatever its position. The alerts and then the measurement values of all of them are read
+   * as projections, so a page takes two queries whatever its size, and no entity is loaded.
+   *
+   * @param sensorId sensor whose alerts are read
+   * @param from inclusive lower bound of the alert creation time, or null for no bound
+   * @param to exclusive upper bound of the alert creation time, or null for no bound
+   * @param cursor cursor returned with the previous page, or null for the first page
+   * @param limit maximum number of alerts of the page, or null for the configured default
+   *
+   * @return page of alerts, their measurement values and the cursor of the next page
+   */
+  public AlertPage findAlertsBySensorId(UUID sensorId, Instant from, Instant to, String cursor,
+                                        Integer limit) {
+    int pageSize = checkPageRequest(sensorId, from, to, limit);
+    Instant fromOrDefault = from != null ? from : DEFAULT_FROM;
+    Instant toOrDefault = to != null ? to : DEFAULT_TO;
+
+    // one more alert is read to know whether there is a next page
+    PageRequest pageRequest = PageRequest.of(0, pageSize + 1);
+    List<AlertSummary> alerts;
+    if (cursor == null) {
+      alerts = alertRepository.findPageBySensorId(sensorId, fromOrDefault, toOrDefault, pageRequest);
+    } else {
+      AlertCursor lastAlert = AlertCursor.decode(cursor);
+      alerts = alertRepository.findPageBySensorIdAfter(sensorId, fromOrDefault, toOrDefault,
+          lastAlert.getCreated(), lastAlert.getId(), pageRequest);
+    }
+
+    AlertCursor nextCursor = null;
+    if (alerts.size() > pageSize) {
+      alerts = alerts.subList(0, pageSize);
+      nextCursor = AlertCursor.fromAlertSummary(alerts.get(pageSize - 1));
+    }
+    return new AlertPage(alerts, findMeasurementValues(alerts), nextCursor);
   }
 
-  public List<Alert> findAlertsBySensorId(UUID sensorId) {
-    return alertRepository.findBySensorIdOrderByCreatedDesc(sensorId);
+  /**
+   * Validates the parameters of a page of alerts.
+   *
+   * @return number of alerts of the page
+   */
+  int checkPageRequest(UUID sensorId, Instant from, Instant to, Integer limit) {
+    checkArgument(sensorId != null, "Sensor Id cannot be null");
+    Instant fromOrDefault = from != null ? from : DEFAULT_FROM;
+    Instant toOrDefault = to != null ? to : DEFAULT_TO;
+    checkArgument(fromOrDefault.isBefore(toOrDefault),
+        "The start of the time range must be before its end. Entered range: " + from + " - " + to);
+
+    int pageSize = limit != null ? limit : configurationProperties.getAlertPageDefaultSize();
+    Integer pageMaxSize = configurationProperties.getAlertPageMaxSize();
+    checkArgument(pageSize > 0 && pageSize <= pageMaxSize,
+        "Limit must be between 1 and " + pageMaxSize + ". Entered value: " + limit);
+    return pageSize;
+  }
+
+  private Map<UUID, List<AlertMeasurementValue>> findMeasurementValues(List<AlertSummary> alerts) {
+    if (alerts.isEmpty()) {
+      return Collections.emptyMap();
+    }
+
+    List<UUID> alertIds = alerts.stream().map(AlertSummary::getId).collect(Collectors.toList());
+    return alertRepository.findMeasurementValuesByAlertIds(alertIds).stream()
+        .collect(Collectors.groupingBy(AlertMeasurementValue::getAlertId));
   }
 }
@@ -0,0 +1,35 @@
+package com.carbonsensors.service;
+
+import java.util.List;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Outcome of a batch ingestion. Failures reference the position of the reading in the submitted batch.
+ * <br>
+ * Accepted readings past the lateness horizon are stored, but did not change the status of their sensor. Duplicate
+ * readings, which their sensor already had, are neither stored nor counted as accepted.
+ */
+@Getter
+@AllArgsConstructor
+public class BatchMeasurementResult {
+
+  private final int accepted;
+  private final int pastHorizon;
+  private final int duplicates;
+  private final List<Failure> failures;
+
+  public BatchMeasurementResult(int accepted, List<Failure> failures) {
+    this(accepted, 0, 0, failures);
+  }
+
+  @Getter
+  @AllArgsConstructor
+  public static class Failure {
+
+    private final int index;
+    private final UUID sensorId;
+    private final String message;
+  }
+}
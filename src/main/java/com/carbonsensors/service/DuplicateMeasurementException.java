@@ -0,0 +1,13 @@
+package com.carbonsensors.service;
+
+/**
+ * Thrown when the database rejects a reading which is already stored, but which the service could not tell apart from
+ * a new reading, because another instance stored it in the meantime. Nothing is stored, and the client is expected to
+ * consider the reading as accepted.
+ */
+public class DuplicateMeasurementException extends RuntimeException {
+
+  public DuplicateMeasurementException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
@@ -0,0 +1,181 @@
+package com.carbonsensors.service;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.carbonsensors.config.ConfigurationProperties;
+import com.carbonsensors.model.RollupResolution;
+import com.carbonsensors.model.projection.MeasurementStatistics;
+import com.carbonsensors.model.projection.SensorStatistics;
+import com.carbonsensors.repository.MeasurementDailyAggregateRepository;
+import com.carbonsensors.repository.MeasurementRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import javax.annotation.PreDestroy;
+
+/**
+ * Ranks the sensors of the whole fleet by the maximum or average of their CO2 measurements over the last days.
+ * <br>
+ * The whole days of the window are read from the daily aggregates, with one grouped query per range of the sensor id
+ * space, {@code fleet.ranking.partitions} ranges being read in parallel. The partial first day is read from the raw
+ * measurements with a single grouped query over the fleet, alongside the partitions, since it only spans one day of
+ * the creation time index. Each partition only keeps its top sensors in a bounded heap, and the heaps are merged into
+ * the ranking, so that the memory and the merge stay proportional to the number of partitions times the size of the
+ * ranking, whatever the size of the fleet.
+ */
+@Service
+public class FleetRankingService {
+
+  private final MeasurementDailyAggregateRepository measurementDailyAggregateRepository;
+  private final MeasurementRepository measurementRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final List<SensorIdRange> partitions;
+  private final ExecutorService executor;
+  private final int defaultDays;
+  private final int maxDays;
+  private final int defaultSize;
+  private final int maxSize;
+
+  public FleetRankingService(MeasurementDailyAggregateRepository measurementDailyAggregateRepository,
+                             MeasurementRepository measurementRepository,
+                             PlatformTransactionManager transactionManager,
+                             ConfigurationProperties configurationProperties) {
+    this.measurementDailyAggregateRepository = measurementDailyAggregateRepository;
+    this.measurementRepository = measurementRepository;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.transactionTemplate.setReadOnly(true);
+    this.partitions = SensorIdRange.partition(configurationProperties.getFleetRankingPartitions());
+    this.defaultDays = configurationProperties.getMetricsCo2Days();
+    this.maxDays = configurationProperties.getMeasurementRetentionDays() - 1;
+    this.defaultSize = configurationProperties.getFleetRankingDefaultSize();
+    this.maxSize = configurationProperties.getFleetRankingMaxSize();
+
+    checkArgument(defaultSize > 0 && defaultSize <= maxSize,
+        "Default ranking size must be between 1 and the maximum ranking size. Entered value: " + defaultSize);
+
+    AtomicInteger threads = new AtomicInteger();
+    this.executor = Executors.newFixedThreadPool(partitions.size() + 1, runnable -> {
+      Thread thread = new Thread(runnable, "fleet-ranking-" + threads.getAndIncrement());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Finds the sensors with the highest CO2 measurements over the last days, highest first. Sensors without
+   * measurements within the window are not ranked, and ties are broken by sensor id.
+   *
+   * @param metric {@code max} or {@code avg}
+   * @param days number of days of the window, {@code metrics.co2.days} when null
+   * @param size maximum number of sensors, {@code fleet.ranking.default.size} when null
+   *
+   * @return ranking, completed once every partition has been ranked
+   *
+   * @throws IllegalArgumentException when the metric is not valid, or the window or size are out of bounds
+   */
+  public CompletableFuture<List<SensorRanking>> findTopSensors(String metric, Integer days, Integer size) {
+    RankingMetric rankingMetric = RankingMetric.fromParameter(metric);
+    int windowDays = days != null ? days : defaultDays;
+    checkArgument(windowDays > 0 && windowDays <= maxDays,
+        "Ranking window must be between 1 and " + maxDays + " days. Entered value: " + windowDays);
+    int rankingSize = size != null ? size : defaultSize;
+    checkArgument(rankingSize > 0 && rankingSize <= maxSize,
+        "Ranking size must be between 1 and " + maxSize + ". Entered value: " + rankingSize);
+
+    Instant from = Instant.now().minus(Duration.ofDays(windowDays));
+    LocalDate firstDay = MeasurementAggregateService.toDay(from);
+    Instant secondDayStart = RollupResolution.DAY.truncate(from).plus(RollupResolution.DAY.getDuration());
+    Comparator<SensorRanking> order = ascendingOrder(rankingMetric);
+
+    CompletableFuture<Map<UUID, MeasurementStatistics>> partialDay = read(
+        () -> toMap(measurementRepository.computeStatisticsBySensor(from, secondDayStart)));
+    List<CompletableFuture<PriorityQueue<SensorRanking>>> partitionRankings = partitions.stream()
+        .map(range -> read(() -> measurementDailyAggregateRepository.sumAggregatesAfterBySensor(range.getFrom(),
+            range.getTo(), firstDay))
+            .thenCombine(partialDay, (wholeDays, partialDays) -> rankPartition(range, wholeDays, partialDays, order,
+                rankingSize)))
+        .collect(Collectors.toList());
+
+    return CompletableFuture.allOf(partitionRankings.toArray(new CompletableFuture[0]))
+        .thenApply(done -> {
+          PriorityQueue<SensorRanking> top = new PriorityQueue<>(rankingSize + 1, order);
+          partitionRankings.forEach(partitionRanking -> offerAll(top, partitionRanking.join(), rankingSize));
+          List<SensorRanking> ranking = new ArrayList<>(top);
+          ranking.sort(order.reversed());
+          return ranking;
+        });
+  }
+
+  @PreDestroy
+  public void stop() {
+    executor.shutdownNow();
+  }
+
+  private <T> CompletableFuture<T> read(Supplier<T> query) {
+    return CompletableFuture.supplyAsync(() -> transactionTemplate.execute(status -> query.get()), executor);
+  }
+
+  /**
+   * Adds the partial first day of the sensors of a partition to their whole days, and keeps the top sensors. Sensors
+   * with measurements on the partial first day only are ranked as well.
+   */
+  private static PriorityQueue<SensorRanking> rankPartition(SensorIdRange range, List<SensorStatistics> wholeDays,
+                                                            Map<UUID, MeasurementStatistics> partialDay,
+                                                            Comparator<SensorRanking> order, int size) {
+    Map<UUID, MeasurementStatistics> statisticsBySensor = toMap(wholeDays);
+    partialDay.forEach((sensorId, statistics) -> {
+      if (range.contains(sensorId)) {
+        statisticsBySensor.merge(sensorId, statistics, MeasurementStatistics::plus);
+      }
+    });
+
+    PriorityQueue<SensorRanking> top = new PriorityQueue<>(size + 1, order);
+    offerAll(top, statisticsBySensor.entrySet().stream()
+        .filter(sensor -> !sensor.getValue().isEmpty())
+        .map(sensor -> new SensorRanking(sensor.getKey(), sensor.getValue()))
+        .collect(Collectors.toList()), size);
+    return top;
+  }
+
+  private static Map<UUID, MeasurementStatistics> toMap(List<SensorStatistics> statistics) {
+    Map<UUID, MeasurementStatistics> statisticsBySensor = new HashMap<>(statistics.size() * 2);
+    statistics.forEach(sensor -> statisticsBySensor.put(sensor.getSensorId(), sensor.getStatistics()));
+    return statisticsBySensor;
+  }
+
+  /**
+   * Offers rankings to a heap whose head is the lowest ranked sensor, evicting the head whenever the heap exceeds the
+   * given size.
+   */
+  private static void offerAll(PriorityQueue<SensorRanking> top, Collection<SensorRanking> rankings, int size) {
+    for (SensorRanking ranking : rankings) {
+      top.offer(ranking);
+      if (top.size() > size) {
+        top.poll();
+      }
+    }
+  }
+
+  private static Comparator<SensorRanking> ascendingOrder(RankingMetric metric) {
+    return Comparator.<SensorRanking>comparingDouble(ranking -> metric.valueOf(ranking.getStatistics()))
+        .thenComparing(SensorRanking::getSensorId, Comparator.reverseOrder());
+  }
+}
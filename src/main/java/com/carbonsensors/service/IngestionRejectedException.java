@@ -0,0 +1,12 @@
+package com.carbonsensors.service;
+
+/**
+ * Thrown when the asynchronous ingestion pipeline cannot take a reading, because the queue of its sensor is full or
+ * the application is shutting down. The client is expected to retry later.
+ */
+public class IngestionRejectedException extends RuntimeException {
+
+  public IngestionRejectedException(String message) {
+    super(message);
+  }
+}
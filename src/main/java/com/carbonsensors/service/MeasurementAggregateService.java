@@ -0,0 +1,128 @@
+package com.carbonsensors.service;
+
+import com.carbonsensors.model.Measurement;
+import com.carbonsensors.model.MeasurementDailyAggregate;
+import com.carbonsensors.model.MeasurementRollup;
+import com.carbonsensors.model.RollupResolution;
+import com.carbonsensors.model.Sensor;
+import com.carbonsensors.model.projection.MeasurementStatistics;
+import com.carbonsensors.repository.MeasurementDailyAggregateRepository;
+import com.carbonsensors.repository.MeasurementRepository;
+import com.carbonsensors.repository.MeasurementRollupRepository;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Maintains per sensor and per day (UTC) aggregates of the CO2 measurements, so that metrics over the last
+ * days are assembled from one row per day instead of scanning every measurement.
+ * <br>
+ * Minute and hour rollups are maintained along with them, for the series of the measurements of a sensor.
+ */
+@Service
+public class MeasurementAggregateService {
+
+  private final MeasurementDailyAggregateRepository measurementDailyAggregateRepository;
+  private final MeasurementRollupRepository measurementRollupRepository;
+  private final MeasurementRepository measurementRepository;
+
+  public MeasurementAggregateService(MeasurementDailyAggregateRepository measurementDailyAggregateRepository,
+                                     MeasurementRollupRepository measurementRollupRepository,
+                                     MeasurementRepository measurementRepository) {
+    this.measurementDailyAggregateRepository = measurementDailyAggregateRepository;
+    this.measurementRollupRepository = measurementRollupRepository;
+    this.measurementRepository = measurementRepository;
+  }
+
+  /**
+   * Adds new measurements of a sensor to the aggregates of their days, and to the rollups of their minutes and
+   * hours. It must run in the transaction which stores the measurements.
+   *
+   * @param sensor sensor of the measurements
+   * @param measurements new measurements of the sensor
+   */
+  public void addMeasurements(Sensor sensor, List<Measurement> measurements) {
+    Map<LocalDate, MeasurementStatistics> statisticsByDay = new TreeMap<>();
+    for (Measurement measurement : measurements) {
+      statisticsByDay.merge(toDay(measurement.getCreated()), toStatistics(measurement), MeasurementStatistics::plus);
+    }
+
+    statisticsByDay.forEach((day, statistics) -> {
+      int updated = measurementDailyAggregateRepository.addToAggregate(sensor.getId(), day, statistics.getCount(),
+          statistics.getSum(), statistics.getMax(), statistics.getMin());
+      if (updated == 0) {
+        measurementDailyAggregateRepository.save(MeasurementDailyAggregate.builder()
+            .sensor(sensor)
+            .measurementDay(day)
+            .measurementCount(statistics.getCount())
+            .co2QuantitySum(statistics.getSum())
+            .co2QuantityMax(statistics.getMax())
+            .co2QuantityMin(statistics.getMin())
+            .build());
+      }
+    });
+
+    addToRollup(sensor, measurements, RollupResolution.MINUTE);
+    addToRollup(sensor, measurements, RollupResolution.HOUR);
+  }
+
+  private void addToRollup(Sensor sensor, List<Measurement> measurements, RollupResolution resolution) {
+    Map<Instant, MeasurementStatistics> statisticsByBucket = new TreeMap<>();
+    for (Measurement measurement : measurements) {
+      statisticsByBucket.merge(resolution.truncate(measurement.getCreated()), toStatistics(measurement),
+          MeasurementStatistics::plus);
+    }
+
+    statisticsByBucket.forEach((bucketStart, statistics) -> {
+      int updated = measurementRollupRepository.addToRollup(sensor.getId(), resolution, bucketStart,
+          statistics.getCount(), statistics.getSum(), statistics.getMax(), statistics.getMin());
+      if (updated == 0) {
+        measurementRollupRepository.save(MeasurementRollup.builder()
+            .sensor(sensor)
+            .resolution(resolution)
+            .bucketStart(bucketStart)
+            .measurementCount(statistics.getCount())
+            .co2QuantitySum(statistics.getSum())
+            .co2QuantityMax(statistics.getMax())
+            .co2QuantityMin(statistics.getMin())
+            .build());
+      }
+    });
+  }
+
+  /**
+   * Computes the statistics of every measurement of a sensor created at or after a given moment.
+   * <br>
+   * The days after the one holding {@code from} are read from the daily aggregates, while the measurements
+   * of that first, partial, day are read from the measurements themselves, so that the result is exact.
+   *
+   * @param sensorId sensor id
+   * @param from start of the period
+   *
+   * @return statistics of the measurements of the period
+   */
+  public MeasurementStatistics computeStatisticsSince(UUID sensorId, Instant from) {
+    LocalDate firstDay = toDay(from);
+    Instant secondDayStart = RollupResolution.DAY.truncate(from).plus(RollupResolution.DAY.getDuration());
+
+    MeasurementStatistics partialDay = measurementRepository.computeStatisticsById(sensorId, from, secondDayStart);
+    MeasurementStatistics wholeDays = measurementDailyAggregateRepository.sumAggregatesAfter(sensorId, firstDay);
+
+    return MeasurementStatistics.empty().plus(partialDay).plus(wholeDays);
+  }
+
+  private static MeasurementStatistics toStatistics(Measurement measurement) {
+    double co2Quantity = measurement.getCo2Quantity();
+    return new MeasurementStatistics(1L, co2Quantity, co2Quantity, co2Quantity);
+  }
+
+  static LocalDate toDay(Instant instant) {
+    return LocalDate.ofInstant(instant, ZoneOffset.UTC);
+  }
+}
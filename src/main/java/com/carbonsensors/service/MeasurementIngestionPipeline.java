@@ -0,0 +1,246 @@
+package com.carbonsensors.service;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.carbonsensors.config.ConfigurationProperties;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Asynchronous ingestion of single readings, enabled by {@code measurement.ingestion.async.enabled}.
+ * <br>
+ * Readings are sharded by sensor id over bounded queues, each one drained by a single writer thread which stores the
+ * readings it finds in the queue as one batch through {@link MeasurementService#createMeasurements}. Since a sensor
+ * always maps to the same queue and writer, its readings are stored in the order they were accepted. A batch which
+ * cannot be stored is split, so that the readings of other sensors are not lost along with the one which failed.
+ * <br>
+ * A reading is rejected right away when the queue of its sensor is full, so that a traffic spike turns into
+ * retries of the clients instead of blocked request threads. On shutdown, readings are no longer accepted and the
+ * writers store the queued ones before stopping.
+ */
+@Slf4j
+@Profile("!reactive")
+@Component
+public class MeasurementIngestionPipeline {
+
+  private static final long POLL_TIMEOUT_MS = 100;
+
+  private final MeasurementService measurementService;
+  private final SensorService sensorService;
+  private final OperationalMetrics operationalMetrics;
+  private final boolean enabled;
+  private final int batchMaxSize;
+  private final long shutdownTimeoutMs;
+  private final List<BlockingQueue<MeasurementReading>> queues = new ArrayList<>();
+  private final List<Thread> writers = new ArrayList<>();
+
+  /**
+   * Guards the acceptance flag, so that no reading is queued once the writers may have stopped.
+   */
+  private final ReadWriteLock acceptanceLock = new ReentrantReadWriteLock();
+  private boolean accepting;
+
+  public MeasurementIngestionPipeline(MeasurementService measurementService,
+                                      SensorService sensorService,
+                                      OperationalMetrics operationalMetrics,
+                                      ConfigurationProperties configurationProperties) {
+    this.measurementService = measurementService;
+    this.sensorService = sensorService;
+    this.operationalMetrics = operationalMetrics;
+    this.enabled = Boolean.TRUE.equals(configurationProperties.getMeasurementIngestionAsyncEnabled());
+    this.batchMaxSize = configurationProperties.getMeasurementIngestionBatchMaxSize();
+    this.shutdownTimeoutMs = configurationProperties.getMeasurementIngestionShutdownTimeoutMs();
+
+    int shards = configurationProperties.getMeasurementIngestionShards();
+    checkArgument(shards > 0, "Number of ingestion shards must be greater than zero. Entered value: " + shards);
+    checkArgument(batchMaxSize > 0 && batchMaxSize <= configurationProperties.getMeasurementBatchMaxSize(),
+        "Ingestion batch size must be between 1 and the maximum batch size. Entered value: " + batchMaxSize);
+    for (int shard = 0; shard < shards; shard++) {
+      BlockingQueue<MeasurementReading> queue =
+          new ArrayBlockingQueue<>(configurationProperties.getMeasurementIngestionQueueCapacity());
+      queues.add(queue);
+      operationalMetrics.registerIngestionQueue(shard, queue);
+    }
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  @PostConstruct
+  public void start() {
+    if (!enabled) {
+      return;
+    }
+
+    acceptanceLock.writeLock().lock();
+    try {
+      for (int shard = 0; shard < queues.size(); shard++) {
+        BlockingQueue<MeasurementReading> queue = queues.get(shard);
+        Thread writer = new Thread(() -> write(queue), "measurement-ingestion-" + shard);
+        writer.setDaemon(true);
+        writer.start();
+        writers.add(writer);
+      }
+      accepting = true;
+    } finally {
+      acceptanceLock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Validates a reading and queues it for storage. The sensor is looked up in the {@link SensorStatusCache}, so that
+   * readings of unknown sensors are rejected without hitting the database for known ones.
+   *
+   * @param reading reading to be stored
+   *
+   * @throws IllegalArgumentException when the reading is not valid or its sensor does not exist
+   * @throws IngestionRejectedException when the queue of the sensor is full or the pipeline is shutting down
+   */
+  public void submit(MeasurementReading reading) {
+    checkArgument(reading != null, "Measurement cannot be null");
+    MeasurementService.validateCreateMeasurementParameters(reading.getSensorId(), reading.getCo2Quantity(),
+        reading.getCreated());
+    sensorService.findSensorStatusById(reading.getSensorId());
+
+    acceptanceLock.readLock().lock();
+    try {
+      if (!accepting) {
+        throw new IngestionRejectedException(enabled
+            ? "Measurements are not being accepted, the application is shutting down"
+            : "Asynchronous ingestion of measurements is not enabled");
+      }
+      if (!queues.get(shard(reading)).offer(reading)) {
+        throw new IngestionRejectedException(
+            "Too many measurements are waiting to be stored. Sensor Id: " + reading.getSensorId());
+      }
+    } finally {
+      acceptanceLock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Stops accepting readings and waits for the writers to store the queued ones, up to the configured timeout.
+   */
+  @PreDestroy
+  public void stop() {
+    acceptanceLock.writeLock().lock();
+    try {
+      accepting = false;
+    } finally {
+      acceptanceLock.writeLock().unlock();
+    }
+
+    long deadline = System.currentTimeMillis() + shutdownTimeoutMs;
+    for (Thread writer : writers) {
+      try {
+        writer.join(Math.max(1, deadline - System.currentTimeMillis()));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+
+    int pending = queues.stream().mapToInt(BlockingQueue::size).sum();
+    if (pending > 0) {
+      log.warn("Ingestion pipeline stopped with {} measurements not stored", pending);
+    }
+  }
+
+  private int shard(MeasurementReading reading) {
+    return Math.floorMod(reading.getSensorId().hashCode(), queues.size());
+  }
+
+  private void write(BlockingQueue<MeasurementReading> queue) {
+    List<MeasurementReading> batch = new ArrayList<>(batchMaxSize);
+    while (true) {
+      MeasurementReading first;
+      try {
+        first = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+
+      if (first == null) {
+        if (isStopped()) {
+          return;
+        }
+        continue;
+      }
+
+      batch.add(first);
+      queue.drainTo(batch, batchMaxSize - 1);
+      store(batch);
+      batch.clear();
+    }
+  }
+
+  private boolean isStopped() {
+    acceptanceLock.readLock().lock();
+    try {
+      return !accepting;
+    } finally {
+      acceptanceLock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Stores a batch. When it cannot be stored, e.g. because one of its readings violates a constraint and rolls back
+   * the whole transaction, the readings of each sensor are stored apart, and then each reading of a sensor whose
+   * readings still cannot be stored, so that only the readings which cannot be stored by themselves are dropped.
+   */
+  private void store(List<MeasurementReading> batch) {
+    try {
+      BatchMeasurementResult result = createMeasurements(batch);
+      if (!result.getFailures().isEmpty()) {
+        operationalMetrics.countIngestionReadingsDropped(result.getFailures().size());
+        result.getFailures().forEach(failure -> log.warn("Measurement of sensor {} could not be stored: {}",
+            failure.getSensorId(), failure.getMessage()));
+      }
+    } catch (RuntimeException e) {
+      if (batch.size() == 1) {
+        operationalMetrics.countIngestionReadingsDropped(1);
+        log.error("Measurement of sensor {} could not be stored", batch.get(0).getSensorId(), e);
+        return;
+      }
+
+      log.warn("Batch of {} measurements could not be stored, storing them apart", batch.size(), e);
+      Map<UUID, List<MeasurementReading>> readingsBySensor = batch.stream()
+          .collect(Collectors.groupingBy(MeasurementReading::getSensorId, LinkedHashMap::new, Collectors.toList()));
+      if (readingsBySensor.size() > 1) {
+        readingsBySensor.values().forEach(this::store);
+      } else {
+        batch.forEach(reading -> store(Collections.singletonList(reading)));
+      }
+    }
+  }
+
+  /**
+   * Stores a batch, once more when one of its readings was stored by another instance in the meantime: the second
+   * attempt skips that reading as a duplicate.
+   */
+  private BatchMeasurementResult createMeasurements(List<MeasurementReading> batch) {
+    try {
+      return measurementService.createMeasurements(batch);
+    } catch (DuplicateMeasurementException e) {
+      return measurementService.createMeasurements(batch);
+    }
+  }
+}
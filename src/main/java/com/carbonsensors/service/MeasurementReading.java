@@ -0,0 +1,22 @@
+package com.carbonsensors.service;
+
+import java.time.Instant;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * A single CO2 reading of a sensor, as received by the ingestion endpoints.
+ */
+@Getter
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class MeasurementReading {
+
+  private final UUID sensorId;
+  private final Double co2Quantity;
+  private final Instant created;
+}
@@ -0,0 +1,117 @@
+package com.carbonsensors.service;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.carbonsensors.config.ConfigurationProperties;
+import com.carbonsensors.model.projection.MeasurementKey;
+import com.carbonsensors.repository.MeasurementRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Deletes the measurements older than {@code measurement.retention.days}, every {@code measurement.purge.interval.ms}.
+ * <br>
+ * Metrics only read the raw measurements of the last {@code metrics.co2.days}, the older days being served by the
+ * daily aggregates, so the retention window must be longer than that. Measurements referenced by an alert are kept,
+ * so that alerts still list their measurements.
+ * <br>
+ * Expired measurements are walked oldest first, by keyset on their creation time and id, and each chunk of
+ * {@code measurement.purge.chunk.size} measurements is deleted in its own short transaction, so that the purge never
+ * holds locks long enough to stall the ingestion.
+ */
+@Slf4j
+@Component
+public class MeasurementRetentionService {
+
+  /**
+   * Rough storage taken by a measurement in H2 with the schema of V9: the row itself (two UUIDs, the creation time in
+   * epoch millis, a double and the row key) and its entries in the primary key, the sensor foreign key, the covering
+   * (sensor, created) and creation time indexes, and the unique reading constraint. Measured as the growth of a
+   * compacted database file per inserted measurement.
+   */
+  static final long ESTIMATED_BYTES_PER_MEASUREMENT = 210;
+
+  private final MeasurementRepository measurementRepository;
+  private final OperationalMetrics operationalMetrics;
+  private final TransactionTemplate transactionTemplate;
+  private final int retentionDays;
+  private final int chunkSize;
+
+  public MeasurementRetentionService(MeasurementRepository measurementRepository,
+                                     OperationalMetrics operationalMetrics,
+                                     PlatformTransactionManager transactionManager,
+                                     ConfigurationProperties configurationProperties) {
+    this.measurementRepository = measurementRepository;
+    this.operationalMetrics = operationalMetrics;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.retentionDays = configurationProperties.getMeasurementRetentionDays();
+    this.chunkSize = configurationProperties.getMeasurementPurgeChunkSize();
+
+    checkArgument(retentionDays > configurationProperties.getMetricsCo2Days(),
+        "Measurements must be retained for more days than the metrics look back. Entered value: " + retentionDays);
+    checkArgument(chunkSize > 0, "Purge chunk size must be greater than zero. Entered value: " + chunkSize);
+  }
+
+  /**
+   * Deletes the measurements created before the retention window which no alert references.
+   *
+   * @return number of deleted measurements and estimated storage reclaimed
+   */
+  @Scheduled(fixedDelayString = "${measurement.purge.interval.ms}",
+      initialDelayString = "${measurement.purge.interval.ms}")
+  public PurgeResult purgeExpiredMeasurements() {
+    Instant before = Instant.now().minus(Duration.ofDays(retentionDays));
+    int deleted = 0;
+    MeasurementKey last = null;
+    while (true) {
+      Chunk chunk = purgeChunk(before, last);
+      if (chunk.deleted > 0) {
+        operationalMetrics.countMeasurementsPurged(chunk.deleted, chunk.deleted * ESTIMATED_BYTES_PER_MEASUREMENT);
+        deleted += chunk.deleted;
+      }
+      if (chunk.read < chunkSize) {
+        break;
+      }
+      last = chunk.last;
+    }
+
+    PurgeResult result = new PurgeResult(deleted, deleted * ESTIMATED_BYTES_PER_MEASUREMENT);
+    log.info("Purged {} measurements created before {}, reclaiming about {} bytes", result.getRows(), before,
+        result.getBytes());
+    return result;
+  }
+
+  private Chunk purgeChunk(Instant before, MeasurementKey after) {
+    return transactionTemplate.execute(status -> {
+      PageRequest page = PageRequest.of(0, chunkSize);
+      List<MeasurementKey> keys = after == null
+          ? measurementRepository.findUnreferencedCreatedBefore(before, page)
+          : measurementRepository.findUnreferencedCreatedBeforeAfter(before, after.getCreated(), after.getId(), page);
+      if (keys.isEmpty()) {
+        return new Chunk(0, 0, after);
+      }
+
+      int deleted = measurementRepository.deleteUnreferencedByIdIn(
+          keys.stream().map(MeasurementKey::getId).collect(Collectors.toList()));
+      return new Chunk(keys.size(), deleted, keys.get(keys.size() - 1));
+    });
+  }
+
+  @AllArgsConstructor
+  private static class Chunk {
+
+    private final int read;
+    private final int deleted;
+    private final MeasurementKey last;
+  }
+}
@@ -0,0 +1,21 @@
+package com.carbonsensors.service;
+
+import com.carbonsensors.model.RollupResolution;
+
+import java.time.Duration;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Series of the measurements of a sensor, with the rollup it was read from. Buckets without measurements are left
+ * out.
+ */
+@Getter
+@AllArgsConstructor
+public class MeasurementSeries {
+
+  private final Duration resolution;
+  private final RollupResolution rollup;
+  private final List<SeriesPoint> points;
+}
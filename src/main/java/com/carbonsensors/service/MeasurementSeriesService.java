@@ -0,0 +1,90 @@
+package com.carbonsensors.service;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.carbonsensors.config.ConfigurationProperties;
+import com.carbonsensors.model.RollupResolution;
+import com.carbonsensors.model.projection.MeasurementStatistics;
+import com.carbonsensors.model.projection.RollupBucket;
+import com.carbonsensors.repository.MeasurementDailyAggregateRepository;
+import com.carbonsensors.repository.MeasurementRepository;
+import com.carbonsensors.repository.MeasurementRollupRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Reads the series of the measurements of a sensor from the minute, hour and day rollups, as planned by
+ * {@link SeriesPlan}. Partial buckets within the last hours are computed from the {@link RecentMeasurementStore}
+ * when it holds every reading of the bucket.
+ */
+@Service
+public class MeasurementSeriesService {
+
+  private final MeasurementRollupRepository measurementRollupRepository;
+  private final MeasurementDailyAggregateRepository measurementDailyAggregateRepository;
+  private final MeasurementRepository measurementRepository;
+  private final RecentMeasurementStore recentMeasurementStore;
+  private final SensorService sensorService;
+  private final ConfigurationProperties configurationProperties;
+
+  public MeasurementSeriesService(MeasurementRollupRepository measurementRollupRepository,
+                                  MeasurementDailyAggregateRepository measurementDailyAggregateRepository,
+                                  MeasurementRepository measurementRepository,
+                                  RecentMeasurementStore recentMeasurementStore,
+                                  SensorService sensorService,
+                                  ConfigurationProperties configurationProperties) {
+    this.measurementRollupRepository = measurementRollupRepository;
+    this.measurementDailyAggregateRepository = measurementDailyAggregateRepository;
+    this.measurementRepository = measurementRepository;
+    this.recentMeasurementStore = recentMeasurementStore;
+    this.sensorService = sensorService;
+    this.configurationProperties = configurationProperties;
+  }
+
+  /**
+   * @param sensorId sensor id
+   * @param from start of the series
+   * @param to end of the series, excluded
+   * @param resolution width of the buckets of the series, see {@link SeriesPlan#of}
+   *
+   * @return series of the measurements of the sensor, oldest bucket first
+   */
+  @Transactional(readOnly = true)
+  public MeasurementSeries findSeries(UUID sensorId, Instant from, Instant to, String resolution) {
+    checkArgument(sensorId != null, "Sensor Id cannot be null");
+    SeriesPlan plan = SeriesPlan.of(from, to, resolution, configurationProperties.getMeasurementSeriesMaxPoints(),
+        Instant.now().minus(Duration.ofDays(configurationProperties.getMeasurementRetentionDays())));
+    sensorService.findSensorStatusById(sensorId);
+
+    List<RollupBucket> buckets = new ArrayList<>();
+    if (plan.hasWholeRollupBuckets()) {
+      buckets.addAll(findRollupBuckets(sensorId, plan));
+    }
+    for (SeriesPlan.Span span : plan.getExpiredSpans()) {
+      buckets.addAll(measurementRollupRepository.findBuckets(sensorId, RollupResolution.MINUTE, span.getFrom(),
+          span.getTo()));
+    }
+    for (SeriesPlan.Span span : plan.getRawSpans()) {
+      MeasurementStatistics statistics = recentMeasurementStore.computeStatistics(sensorId,
+          span.getFrom().toEpochMilli(), span.getTo().toEpochMilli())
+          .orElseGet(() -> measurementRepository.computeStatisticsById(sensorId, span.getFrom(), span.getTo()));
+      buckets.add(new RollupBucket(span.getFrom(), statistics));
+    }
+    return plan.toSeries(buckets);
+  }
+
+  private List<RollupBucket> findRollupBuckets(UUID sensorId, SeriesPlan plan) {
+    if (plan.getRollup() == RollupResolution.DAY) {
+      return measurementDailyAggregateRepository.findBuckets(sensorId, MeasurementAggregateService.toDay(
+          plan.getRollupFrom()), MeasurementAggregateService.toDay(plan.getRollupTo()));
+    }
+    return measurementRollupRepository.findBuckets(sensorId, plan.getRollup(), plan.getRollupFrom(),
+        plan.getRollupTo());
+  }
+}
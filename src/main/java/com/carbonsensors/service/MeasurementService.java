@@ -10,13 +10,30 @@ import com.carbonsensors.model.Status;
 import com.carbonsensors.repository.AlertRepository;
 import com.carbonsensors.repository.MeasurementRepository;
 import com.carbonsensors.repository.SensorRepository;
+import com.carbonsensors.service.SensorStatusMachine.Transition;
+import org.hibernate.Hibernate;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.ZonedDateTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class MeasurementService {
@@ -25,106 +42,599 @@ public class MeasurementService {
   private final SensorRepository sensorRepository;
   private final AlertRepository alertRepository;
   private final ConfigurationProperties configurationProperties;
+  private final MeasurementWindowStore measurementWindowStore;
+  private final RecentMeasurementStore recentMeasurementStore;
+  private final MeasurementAggregateService measurementAggregateService;
+  private final SensorStatusCache sensorStatusCache;
+  private final OperationalMetrics operationalMetrics;
+  private final SensorLocks sensorLocks;
+  private final SensorStatusMachine sensorStatusMachine;
+  private final SensorEventHub sensorEventHub;
 
   public MeasurementService(MeasurementRepository measurementRepository,
                             SensorRepository sensorRepository,
                             AlertRepository alertRepository,
-                            ConfigurationProperties configurationProperties) {
+                            ConfigurationProperties configurationProperties,
+                            MeasurementWindowStore measurementWindowStore,
+                            RecentMeasurementStore recentMeasurementStore,
+                            MeasurementAggregateService measurementAggregateService,
+                            SensorStatusCache sensorStatusCache,
+                            OperationalMetrics operationalMetrics,
+                            SensorLocks sensorLocks,
+                            SensorStatusMachine sensorStatusMachine,
+                            SensorEventHub sensorEventHub) {
     this.measurementRepository = measurementRepository;
     this.sensorRepository = sensorRepository;
     this.alertRepository = alertRepository;
     this.configurationProperties = configurationProperties;
+    this.measurementWindowStore = measurementWindowStore;
+    this.recentMeasurementStore = recentMeasurementStore;
+    this.measurementAggregateService = measurementAggregateService;
+    this.sensorStatusCache = sensorStatusCache;
+    this.operationalMetrics = operationalMetrics;
+    this.sensorLocks = sensorLocks;
+    this.sensorStatusMachine = sensorStatusMachine;
+    this.sensorEventHub = sensorEventHub;
   }
 
+  /**
+   * Stores a reading of a sensor and updates the sensor status.
+   * <br>
+   * The sensor is locked by {@link SensorLocks} until the transaction completes, so that concurrent readings of the
+   * same sensor are evaluated one after the other.
+   * <br>
+   * Each stage is timed by {@link OperationalMetrics}. The insert and the status changes are flushed within their
+   * stage, so that their time includes the statements sent to the database and not only their queuing in the session.
+   * <br>
+   * A reading which the sensor already has, with the same creation time and CO2 quantity, is a retry: it is neither
+   * stored again nor evaluated, as told by {@link #findStoredReading}.
+   *
+   * @param sensorId sensor of the reading
+   * @param co2Quantity CO2 quantity of the reading
+   * @param createdAt creation time of the reading
+   *
+   * @return stored measurement, which is the one stored before for a duplicate reading
+   *
+   * @throws DuplicateMeasurementException when the reading was stored by another instance in the meantime
+   */
   @Transactional
-  public Measurement createMeasurement(UUID sensorId, Double co2Quantity, ZonedDateTime createdAt) {
+  public Measurement createMeasurement(UUID sensorId, Double co2Quantity, Instant createdAt) {
 
     validateCreateMeasurementParameters(sensorId, co2Quantity, createdAt);
+    sensorLocks.lockUntilTransactionCompletes(Collections.singletonList(sensorId));
 
-    Sensor sensor =
-        sensorRepository.findById(sensorId).orElseThrow(() -> new IllegalArgumentException(
+    Sensor sensor = operationalMetrics.recordStage(OperationalMetrics.Stage.SENSOR_LOOKUP,
+        () -> sensorRepository.findById(sensorId)).orElseThrow(() -> new IllegalArgumentException(
             "The entered sensor id does not represent any entity in the database. Sensor Id: " + sensorId));
 
-    Measurement measurement = Measurement.builder()
-        .sensor(sensor)
-        .created(createdAt)
-        .co2Quantity(co2Quantity)
-        .build();
+    MeasurementWindow window = operationalMetrics.recordStage(OperationalMetrics.Stage.WINDOW, () -> {
+      recentMeasurementStore.track(sensorId);
+      return measurementWindowStore.getWindow(sensorId);
+    });
 
-    measurement = measurementRepository.save(measurement);
+    Optional<Measurement> stored = findStoredReading(sensorId, window, createdAt, co2Quantity);
+    if (stored.isPresent()) {
+      operationalMetrics.countDuplicateMeasurementsAfterCommit(1);
+      return stored.get();
+    }
 
-    updateSensorStatus(sensor, createdAt);
+    Measurement measurement = operationalMetrics.recordStage(OperationalMetrics.Stage.INSERT, () -> {
+      try {
+        Measurement saved = measurementRepository.save(Measurement.builder()
+            .sensor(sensor)
+            .created(createdAt)
+            .co2Quantity(co2Quantity)
+            .build());
+        measurementRepository.flush();
+        return saved;
+      } catch (DataIntegrityViolationException e) {
+        throw duplicateMeasurement(Collections.singletonList(sensorId), e);
+      }
+    });
+
+    List<Measurement> newMeasurements = Collections.singletonList(measurement);
+    operationalMetrics.recordStage(OperationalMetrics.Stage.AGGREGATE,
+        () -> measurementAggregateService.addMeasurements(sensor, newMeasurements));
+    operationalMetrics.recordStage(OperationalMetrics.Stage.STATUS, () -> {
+      evaluateMeasurements(sensor, window, newMeasurements);
+      sensorRepository.flush();
+    });
 
     return measurement;
   }
 
-  void updateSensorStatus(Sensor sensor, ZonedDateTime createdAt) {
-    Integer consecutiveMeasurementsForAlert = configurationProperties.getConsecutiveMeasurementsForAlert();
-    Integer consecutiveMeasurementsForOk = configurationProperties.getConsecutiveMeasurementsForOk();
-    Integer co2Threshold = configurationProperties.getCo2LevelThreshold();
-
-    List<Measurement> lastThreeMeasurements =
-        measurementRepository
-            .findBySensorIdOrderByCreatedDesc(sensor.getId(), PageRequest.of(0, consecutiveMeasurementsForAlert));
-
-    if (lastThreeMeasurements.size() == consecutiveMeasurementsForAlert && lastThreeMeasurements.stream()
-        .allMatch(m -> m.getCo2Quantity() > co2Threshold)) {
-      setSensorToAStatusAlert(createdAt, sensor, lastThreeMeasurements);
-    } else if (lastThreeMeasurements.size() == consecutiveMeasurementsForOk && lastThreeMeasurements.stream()
-        .allMatch(m -> m.getCo2Quantity() <= co2Threshold)) {
-      setSensorToStatusOk(sensor);
-    } else if (sensor.getStatus() != Status.ALERT) {
-      lastThreeMeasurements.stream().findFirst().ifPresent(
-          mostRecentMeasurement -> {
-            if (mostRecentMeasurement.getCo2Quantity() <= co2Threshold) {
-              setSensorToStatusOk(sensor);
-            } else {
-              setSensorToStatusWaring(sensor);
-            }
+  /**
+   * Stores a batch of readings, possibly belonging to several sensors, in a single transaction.
+   * <br>
+   * Every reading is validated up front; invalid readings and readings of unknown sensors are reported back
+   * as failures instead of aborting the batch. The remaining measurements are inserted together, so that
+   * Hibernate can send them as JDBC batches, and the sensor status is evaluated only once per sensor. Every sensor
+   * of the batch is locked by {@link SensorLocks} until the transaction completes.
+   * <br>
+   * Readings which their sensor already has, or which appear twice in the batch, are skipped and counted as duplicates.
+   *
+   * @param readings readings to be stored
+   *
+   * @return number of stored measurements, how many of them were past the lateness horizon, how many were
+   *     duplicates, and the failures, in order of appearance in the batch
+   *
+   * @throws DuplicateMeasurementException when a reading was stored by another instance in the meantime
+   */
+  @Transactional
+  public BatchMeasurementResult createMeasurements(List<MeasurementReading> readings) {
+    checkArgument(readings != null && !readings.isEmpty(), "Batch of measurements cannot be empty");
+    Integer batchMaxSize = configurationProperties.getMeasurementBatchMaxSize();
+    checkArgument(readings.size() <= batchMaxSize,
+        "Batch of measurements cannot have more than " + batchMaxSize + " entries. Entered size: " + readings.size());
+
+    List<BatchMeasurementResult.Failure> failures = new ArrayList<>();
+    Map<UUID, List<Integer>> validIndexesBySensor = new LinkedHashMap<>();
+
+    for (int i = 0; i < readings.size(); i++) {
+      MeasurementReading reading = readings.get(i);
+      try {
+        checkArgument(reading != null, "Measurement cannot be null");
+        validateCreateMeasurementParameters(reading.getSensorId(), reading.getCo2Quantity(), reading.getCreated());
+        validIndexesBySensor.computeIfAbsent(reading.getSensorId(), id -> new ArrayList<>()).add(i);
+      } catch (IllegalArgumentException e) {
+        failures.add(new BatchMeasurementResult.Failure(i, reading != null ? reading.getSensorId() : null,
+            e.getMessage()));
+      }
+    }
+
+    sensorLocks.lockUntilTransactionCompletes(validIndexesBySensor.keySet());
+    Map<UUID, Sensor> sensors = sensorRepository.findAllById(validIndexesBySensor.keySet()).stream()
+        .collect(Collectors.toMap(Sensor::getId, Function.identity()));
+
+    List<Measurement> measurements = new ArrayList<>();
+    Map<UUID, List<Measurement>> measurementsBySensor = new LinkedHashMap<>();
+    Map<UUID, MeasurementWindow> windowsBySensor = new LinkedHashMap<>();
+
+    Set<MeasurementReading> batchReadings = new HashSet<>();
+    int duplicates = 0;
+
+    for (Map.Entry<UUID, List<Integer>> entry : validIndexesBySensor.entrySet()) {
+      UUID sensorId = entry.getKey();
+      Sensor sensor = sensors.get(sensorId);
+      if (sensor == null) {
+        entry.getValue().forEach(i -> failures.add(new BatchMeasurementResult.Failure(i, sensorId,
+            "The entered sensor id does not represent any entity in the database. Sensor Id: " + sensorId)));
+        continue;
+      }
+
+      recentMeasurementStore.track(sensorId);
+      MeasurementWindow window = measurementWindowStore.getWindow(sensorId);
+      List<Measurement> sensorMeasurements = new ArrayList<>();
+      for (Integer i : entry.getValue()) {
+        MeasurementReading reading = readings.get(i);
+        if (!batchReadings.add(reading)
+            || findStoredReading(sensorId, window, reading.getCreated(), reading.getCo2Quantity()).isPresent()) {
+          duplicates++;
+          continue;
+        }
+        sensorMeasurements.add(Measurement.builder()
+            .sensor(sensor)
+            .created(reading.getCreated())
+            .co2Quantity(reading.getCo2Quantity())
+            .build());
+      }
+      if (!sensorMeasurements.isEmpty()) {
+        measurements.addAll(sensorMeasurements);
+        measurementsBySensor.put(sensorId, sensorMeasurements);
+        windowsBySensor.put(sensorId, window);
+      }
+    }
+
+    try {
+      measurementRepository.saveAll(measurements);
+      measurementRepository.flush();
+    } catch (DataIntegrityViolationException e) {
+      throw duplicateMeasurement(measurementsBySensor.keySet(), e);
+    }
+    operationalMetrics.countDuplicateMeasurementsAfterCommit(duplicates);
+
+    int pastHorizon = 0;
+    for (Map.Entry<UUID, List<Measurement>> entry : measurementsBySensor.entrySet()) {
+      Sensor sensor = sensors.get(entry.getKey());
+      measurementAggregateService.addMeasurements(sensor, entry.getValue());
+      pastHorizon += evaluateMeasurements(sensor, windowsBySensor.get(entry.getKey()), entry.getValue());
+    }
+
+    failures.sort(Comparator.comparingInt(BatchMeasurementResult.Failure::getIndex));
+    return new BatchMeasurementResult(measurements.size(), pastHorizon, duplicates, failures);
+  }
+
+  /**
+   * Adds new measurements of a sensor to its window and updates the sensor status.
+   * <br>
+   * Measurements created before the most recent reading of the window are late: the other ones are evaluated first,
+   * then each late one is re-evaluated by {@link #updateSensorStatusAfterLateMeasurement}.
+   *
+   * @param sensor sensor of the measurements
+   * @param window window of the sensor, not holding the new measurements yet
+   * @param newMeasurements measurements of the sensor which were just stored
+   *
+   * @return number of late measurements past the lateness horizon
+   */
+  private int evaluateMeasurements(Sensor sensor, MeasurementWindow window, List<Measurement> newMeasurements) {
+    long mostRecent = window.size() > 0 ? window.getCreatedEpochMillis(0) : Long.MIN_VALUE;
+    Map<Boolean, List<Measurement>> byLateness = newMeasurements.stream()
+        .collect(Collectors.partitioningBy(m -> m.getCreated().toEpochMilli() < mostRecent));
+
+    List<Measurement> inOrder = byLateness.get(false);
+    if (!inOrder.isEmpty()) {
+      addToWindow(sensor.getId(), window, inOrder);
+      updateSensorStatus(sensor, window, inOrder);
+    }
+
+    int pastHorizon = 0;
+    for (Measurement late : byLateness.get(true)) {
+      if (!updateSensorStatusAfterLateMeasurement(sensor, window, late)) {
+        pastHorizon++;
+      }
+    }
+    return pastHorizon;
+  }
+
+  /**
+   * Updates the sensor status based on its most recent readings, which are read from the sensor window
+   * instead of the database. The change itself is decided by the {@link SensorStatusMachine}, and published to the
+   * {@link SensorEventHub} once committed.
+   * <br>
+   * The new status is kept in the window along with the new measurements. The readings of a batch all get the status
+   * decided for the batch as a whole.
+   *
+   * @param sensor sensor whose status is updated
+   * @param window window of the sensor, already holding the new measurements
+   * @param newMeasurements measurements of the sensor which were just stored, none of them older than the readings
+   *     the window held before
+   */
+  void updateSensorStatus(Sensor sensor, MeasurementWindow window, List<Measurement> newMeasurements) {
+    Status previous = sensor.getStatus();
+    Transition transition = sensorStatusMachine.next(previous, window);
+    switch (transition) {
+      case OPEN_ALERT:
+        openAlert(sensor, newMeasurements);
+        break;
+      case EXTEND_ALERT:
+        extendAlert(sensor, window, newMeasurements);
+        break;
+      case SET_OK:
+        setSensorToStatusOk(sensor);
+        break;
+      case SET_WARM:
+        setSensorToStatusWaring(sensor);
+        break;
+      default:
+        break;
+    }
+    if (transition != Transition.NONE) {
+      sensorEventHub.publishAfterCommit(sensor.getId(), previous, transition,
+          mostRecent(newMeasurements).getCreated());
+    }
+
+    Status status = transition.apply(previous);
+    for (int position = 0; position < Math.min(newMeasurements.size(), window.size()); position++) {
+      window.setStatus(position, status);
+    }
+  }
+
+  /**
+   * Updates the sensor status after a late measurement, one created before the most recent reading of the window.
+   * <br>
+   * The measurement is re-evaluated when it is at most {@code measurement.lateness.horizon.ms} older than the most
+   * recent reading, and the window still holds the status of the sensor right before it. Only the readings from the
+   * late one on are then replayed by the {@link SensorStatusMachine}, as if they had been received in order of
+   * creation time, and the alerts they opened or extended are corrected by {@link #correctAlerts}.
+   * <br>
+   * Otherwise, the measurement is past the horizon: it is stored, and taken into account by the following readings,
+   * but it does not change the sensor status by itself.
+   *
+   * @param sensor sensor of the measurement
+   * @param window window of the sensor, not holding the measurement yet
+   * @param late measurement which was just stored
+   *
+   * @return false when the measurement is past the lateness horizon
+   */
+  boolean updateSensorStatusAfterLateMeasurement(Sensor sensor, MeasurementWindow window, Measurement late) {
+    UUID sensorId = sensor.getId();
+    long created = late.getCreated().toEpochMilli();
+    long lateness = window.getCreatedEpochMillis(0) - created;
+    boolean wasFull = window.size() == window.capacity();
+    int position = window.insert(created, late.getCo2Quantity());
+    recentMeasurementStore.add(sensorId, created, late.getCo2Quantity());
+    evictAfterRollback(sensorId);
+
+    // the oldest reading of a window which was not full is the first reading of its sensor
+    boolean first = !wasFull && position == window.size() - 1;
+    Status before = null;
+    boolean beforeKnown = first;
+    if (!first && position >= 0 && position + 1 < window.size()) {
+      before = window.getStatus(position + 1);
+      beforeKnown = before != null;
+    }
+    if (!beforeKnown || lateness > configurationProperties.getMeasurementLatenessHorizonMs()) {
+      operationalMetrics.countLateMeasurementAfterCommit(false);
+      return false;
+    }
+
+    Transition[] transitions = sensorStatusMachine.replay(before, window, position);
+    Status status = before;
+    for (int i = position; i >= 0; i--) {
+      status = transitions[i].apply(status);
+      window.setStatus(i, status);
+    }
+    int opened = correctAlerts(sensor, window, late, before, transitions);
+
+    Status previous = sensor.getStatus();
+    Transition transition;
+    if (status == Status.ALERT) {
+      transition = opened > 0 ? Transition.OPEN_ALERT : Transition.EXTEND_ALERT;
+    } else {
+      transition = status == Status.OK ? Transition.SET_OK : Transition.SET_WARM;
+    }
+    changeStatus(sensor, status);
+    sensorRepository.save(sensor);
+    sensorEventHub.publishAfterCommit(sensorId, previous, transition, late.getCreated());
+    operationalMetrics.countLateMeasurementAfterCommit(true);
+    return true;
+  }
+
+  /**
+   * Corrects the alerts of a sensor once the readings from a late measurement on have been replayed: the alerts they
+   * should not have opened are retracted, the missing ones are opened, and the readings which open or extend an alert
+   * are added to it. Measurements already added to an alert stay in it, so an alert whose measurements all are in
+   * another one is not opened. The sensor then points to the alert it is in after the replayed readings.
+   *
+   * @param sensor sensor of the measurement
+   * @param window window of the sensor, holding the late measurement
+   * @param late late measurement
+   * @param before status of the sensor right before the late measurement
+   * @param transitions change of each replayed reading, indexed by its position in the window
+   *
+   * @return number of opened alerts
+   */
+  private int correctAlerts(Sensor sensor, MeasurementWindow window, Measurement late, Status before,
+                            Transition[] transitions) {
+    UUID sensorId = sensor.getId();
+    int position = transitions.length - 1;
+    int consecutiveMeasurementsForAlert = sensorStatusMachine.getConsecutiveMeasurementsForAlert();
+
+    // the stored measurements, in the order of the window, down to the oldest one an alert opened by a replayed
+    // reading can hold
+    List<Measurement> readings = measurementRepository.findBySensorIdOrderByCreatedDesc(sensorId,
+        PageRequest.of(0, Math.min(position + consecutiveMeasurementsForAlert, window.size())));
+
+    List<Alert> retracted = new ArrayList<>();
+    Map<Long, Alert> openedByReplayed = new HashMap<>();
+    for (Alert alert : alertRepository.findBySensorIdCreatedFrom(sensorId, late.getCreated())) {
+      Alert duplicate = openedByReplayed.put(alert.getCreated().toEpochMilli(), alert);
+      if (duplicate != null) {
+        retracted.add(duplicate);
+      }
+    }
+
+    Alert open = before == Status.ALERT
+        ? alertRepository.findTop1BySensorIdCreatedBefore(sensorId, late.getCreated()).orElse(null)
+        : null;
+    Set<Alert> opened = Collections.newSetFromMap(new IdentityHashMap<>());
+    Map<Alert, List<Measurement>> members = new IdentityHashMap<>();
+    for (int i = position; i >= 0 && i < readings.size(); i--) {
+      switch (transitions[i]) {
+        case OPEN_ALERT:
+          open = openedByReplayed.remove(window.getCreatedEpochMillis(i));
+          if (open == null) {
+            open = Alert.builder()
+                .created(readings.get(i).getCreated())
+                .sensor(sensor)
+                .measurements(new ArrayList<>())
+                .build();
+            opened.add(open);
           }
-      );
+          members.computeIfAbsent(open, alert -> new ArrayList<>())
+              .addAll(readings.subList(i, Math.min(i + consecutiveMeasurementsForAlert, readings.size())));
+          break;
+        case EXTEND_ALERT:
+          if (open != null) {
+            members.computeIfAbsent(open, alert -> new ArrayList<>()).add(readings.get(i));
+          }
+          break;
+        case SET_OK:
+        case SET_WARM:
+          open = null;
+          break;
+        default:
+          break;
+      }
+    }
+    retracted.addAll(openedByReplayed.values());
+
+    for (Alert alert : retracted) {
+      if (Objects.equals(alert.getId(), sensor.getCurrentAlertId())) {
+        sensor.setCurrentAlertId(null);
+      }
+      alert.getMeasurements().clear();
+      if (sensor.getAlerts() != null && Hibernate.isInitialized(sensor.getAlerts())) {
+        sensor.getAlerts().removeIf(sensorAlert -> sensorAlert == alert);
+      }
+      alertRepository.delete(alert);
+      operationalMetrics.countAlertRetractedAfterCommit();
+    }
+    alertRepository.flush();
+
+    Set<UUID> referenced = new HashSet<>(alertRepository.findReferencedMeasurementIds(
+        readings.stream().map(Measurement::getId).collect(Collectors.toList())));
+    // an alert opened by a replayed reading whose measurements all stayed in another alert is not opened: the sensor
+    // remains in that alert
+    Optional<UUID> holdingOpen = Optional.empty();
+    for (Map.Entry<Alert, List<Measurement>> entry : members.entrySet()) {
+      Alert alert = entry.getKey();
+      List<Measurement> added = entry.getValue().stream()
+          .filter(measurement -> referenced.add(measurement.getId()))
+          .collect(Collectors.toList());
+      if (opened.contains(alert) && added.isEmpty()) {
+        opened.remove(alert);
+        if (alert == open) {
+          holdingOpen = alertRepository.findIdByMeasurementId(entry.getValue().get(0).getId());
+        }
+        continue;
+      }
+      addMeasurements(alert, added);
+      if (opened.contains(alert)) {
+        alertRepository.save(alert);
+        operationalMetrics.countAlertCreatedAfterCommit();
+      } else if (!added.isEmpty()) {
+        alertRepository.save(alert);
+        operationalMetrics.countAlertAppendedAfterCommit();
+      }
+    }
+    sensor.setCurrentAlertId(holdingOpen.orElse(open != null ? open.getId() : null));
+    return opened.size();
+  }
+
+  /**
+   * Finds the measurement a sensor already has for a reading, with the same creation time and CO2 quantity.
+   * <br>
+   * The window of the sensor acts as a filter, so that a new reading costs no query: the database is only read when
+   * the window holds a matching reading, or when the reading is older than every reading of a full window.
+   *
+   * @param sensorId sensor of the reading
+   * @param window window of the sensor
+   * @param createdAt creation time of the reading
+   * @param co2Quantity CO2 quantity of the reading
+   *
+   * @return stored measurement, empty for a new reading
+   */
+  private Optional<Measurement> findStoredReading(UUID sensorId, MeasurementWindow window, Instant createdAt,
+                                                  Double co2Quantity) {
+    long created = createdAt.toEpochMilli();
+    if (window.covers(created) && !window.contains(created, co2Quantity)) {
+      return Optional.empty();
     }
+    return measurementRepository.findReading(sensorId, createdAt, co2Quantity);
+  }
+
+  /**
+   * Reports a reading rejected by the unique constraint on the readings. The windows of its sensors missed it, so they
+   * are reloaded from the database, which tells the reading apart once the client retries.
+   */
+  private DuplicateMeasurementException duplicateMeasurement(Collection<UUID> sensorIds,
+                                                             DataIntegrityViolationException cause) {
+    sensorIds.forEach(this::evictAfterRollback);
+    return new DuplicateMeasurementException("The measurement was already stored", cause);
+  }
+
+  private void addToWindow(UUID sensorId, MeasurementWindow window, List<Measurement> newMeasurements) {
+    newMeasurements.forEach(m -> {
+      long created = m.getCreated().toEpochMilli();
+      window.add(created, m.getCo2Quantity());
+      recentMeasurementStore.add(sensorId, created, m.getCo2Quantity());
+    });
+    evictAfterRollback(sensorId);
   }
 
-  private void validateCreateMeasurementParameters(UUID sensorId, Double co2Quantity, ZonedDateTime createdAt) {
+  private void evictAfterRollback(UUID sensorId) {
+    TransactionCallbacks.afterRollback(() -> {
+      measurementWindowStore.evict(sensorId);
+      recentMeasurementStore.evict(sensorId);
+    });
+  }
+
+  static void validateCreateMeasurementParameters(UUID sensorId, Double co2Quantity, Instant createdAt) {
     checkArgument(sensorId != null, "Sensor Id cannot be null");
-    checkArgument(co2Quantity != null && co2Quantity >= 0,
-        "co2Quantity must be greater or equal than zero and not null. Entered value: " + co2Quantity);
+    checkArgument(co2Quantity != null && co2Quantity >= 0 && Double.isFinite(co2Quantity),
+        "co2Quantity must be a finite number greater or equal than zero and not null. Entered value: " + co2Quantity);
     checkArgument(createdAt != null, "Creation date cannot be null");
   }
 
-  private void setSensorToAStatusAlert(ZonedDateTime createdAt, Sensor sensor,
-                                       List<Measurement> lastThreeMeasurements) {
-    if (sensor.getStatus() != null && sensor.getStatus() == Status.ALERT) {
-      Alert alert =
-          alertRepository.findTop1BySensorIdOrderByCreatedDesc(sensor.getId()).orElseThrow(() -> new IllegalStateException(
-              "Sensor " + sensor.getId() + " should have an alert associated, since it is in AlERT state."));
-      alert.getMeasurements().add(lastThreeMeasurements.stream().findFirst().orElseThrow(
-          () -> new IllegalStateException(
-              "Sensor " + sensor.getId() + " should have measurements for adding in an existing alert with id " + alert
-                  .getId())));
+  /**
+   * Extends the alert the sensor is in with the new measurements which are part of the streak above the threshold.
+   * <br>
+   * The alert is neither looked up nor loaded: the sensor points to it, the measurements are added by inserting their
+   * membership rows, and its summary is updated in place. Extending an alert costs the same however many measurements
+   * it already has.
+   */
+  private void extendAlert(Sensor sensor, MeasurementWindow window, List<Measurement> newMeasurements) {
+    UUID alertId = sensor.getCurrentAlertId();
+    if (alertId == null) {
+      throw new IllegalStateException(
+          "Sensor " + sensor.getId() + " should have an alert associated, since it is in AlERT state.");
+    }
 
-      alertRepository.save(alert);
-    } else {
-      sensor.setStatus(Status.ALERT);
-      Alert alert = Alert.builder()
-          .created(createdAt)
-          .sensor(sensor)
-          .measurements(lastThreeMeasurements)
-          .build();
+    // only the new measurements which are part of the streak above the threshold extend the alert
+    long streakStart = window.getCreatedEpochMillis(sensorStatusMachine.getConsecutiveMeasurementsForAlert() - 1);
+    List<Measurement> members = newMeasurements.stream()
+        .filter(m -> m.getCreated().toEpochMilli() >= streakStart)
+        .collect(Collectors.toList());
+    if (!members.isEmpty()) {
+      members.forEach(m -> alertRepository.addMeasurement(alertId, m.getId()));
+      alertRepository.addToSummary(alertId, members.size(),
+          members.stream().mapToDouble(Measurement::getCo2Quantity).max().getAsDouble(),
+          mostRecent(members).getCreated());
+      operationalMetrics.countAlertAppendedAfterCommit();
+    }
+  }
 
+  private void openAlert(Sensor sensor, List<Measurement> newMeasurements) {
+    changeStatus(sensor, Status.ALERT);
+    Alert alert = Alert.builder()
+        .created(mostRecent(newMeasurements).getCreated())
+        .sensor(sensor)
+        .measurements(new ArrayList<>())
+        .build();
+    addMeasurements(alert, measurementRepository.findBySensorIdOrderByCreatedDesc(sensor.getId(),
+        PageRequest.of(0, sensorStatusMachine.getConsecutiveMeasurementsForAlert())));
+
+    // adding to alerts which were not loaded would load every alert of the sensor
+    if (sensor.getAlerts() != null && Hibernate.isInitialized(sensor.getAlerts())) {
       sensor.getAlerts().add(alert);
-      sensorRepository.save(sensor);
     }
+    alertRepository.save(alert);
+    sensor.setCurrentAlertId(alert.getId());
+    sensorRepository.save(sensor);
+    operationalMetrics.countAlertCreatedAfterCommit();
+  }
+
+  /**
+   * Adds measurements to an alert which is loaded, along with its summary.
+   */
+  private static void addMeasurements(Alert alert, List<Measurement> measurements) {
+    for (Measurement measurement : measurements) {
+      alert.getMeasurements().add(measurement);
+      alert.setMeasurementCount(alert.getMeasurementCount() + 1);
+      if (alert.getCo2QuantityMax() == null || alert.getCo2QuantityMax() < measurement.getCo2Quantity()) {
+        alert.setCo2QuantityMax(measurement.getCo2Quantity());
+      }
+      if (alert.getLastMeasurementCreated() == null
+          || alert.getLastMeasurementCreated().isBefore(measurement.getCreated())) {
+        alert.setLastMeasurementCreated(measurement.getCreated());
+      }
+    }
+  }
+
+  private Measurement mostRecent(List<Measurement> measurements) {
+    return measurements.stream().max(Comparator.comparing(Measurement::getCreated)).orElseThrow(
+        () -> new IllegalStateException("There should be at least one new measurement for updating the sensor status"));
   }
 
   private void setSensorToStatusOk(Sensor sensor) {
-    sensor.setStatus(Status.OK);
+    changeStatus(sensor, Status.OK);
     sensorRepository.save(sensor);
   }
 
   private void setSensorToStatusWaring(Sensor sensor) {
-    sensor.setStatus(Status.WARM);
+    changeStatus(sensor, Status.WARM);
     sensorRepository.save(sensor);
   }
+
+  private void changeStatus(Sensor sensor, Status status) {
+    if (sensor.getStatus() != status) {
+      operationalMetrics.countStatusTransitionAfterCommit(sensor.getStatus(), status);
+      sensor.setStatus(status);
+      sensorStatusCache.invalidateAfterCommit(sensor.getId());
+    }
+    if (status != Status.ALERT) {
+      sensor.setCurrentAlertId(null);
+    }
+  }
 }
@@ -0,0 +1,246 @@
+package com.carbonsensors.service;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.carbonsensors.model.Status;
+
+/**
+ * Bounded buffer holding the most recent readings of a sensor, ordered by creation time.
+ * <br>
+ * Values are kept as primitives in parallel ring buffers, so evaluating the status of a sensor does not
+ * require reading back the measurements which were just written. Once the buffer is full, a new reading
+ * replaces the oldest one; readings older than every buffered one are ignored.
+ * <br>
+ * Each reading also keeps the status its sensor had once the reading was evaluated, so that the readings following a
+ * late one can be re-evaluated from there. It is null for the readings loaded from the database, and for the ones
+ * which were not evaluated.
+ */
+public class MeasurementWindow {
+
+  private final double[] co2Quantities;
+  private final long[] createdEpochMillis;
+  private final Status[] statuses;
+
+  /**
+   * Position of the most recent reading.
+   */
+  private int head = -1;
+  private int size;
+  private volatile long lastAccessMillis;
+
+  public MeasurementWindow(int capacity) {
+    checkArgument(capacity > 0, "Window capacity must be greater than zero. Entered value: " + capacity);
+    this.co2Quantities = new double[capacity];
+    this.createdEpochMillis = new long[capacity];
+    this.statuses = new Status[capacity];
+    touch();
+  }
+
+  /**
+   * Adds a reading to the window, keeping the readings ordered by creation time.
+   *
+   * @param created creation time of the reading, in epoch millis
+   * @param co2Quantity CO2 quantity of the reading
+   *
+   * @return false when the window is full and the reading is older than every buffered reading
+   */
+  public boolean add(long created, double co2Quantity) {
+    return insert(created, co2Quantity) >= 0;
+  }
+
+  /**
+   * Adds a reading to the window, keeping the readings ordered by creation time. The reading has no status yet.
+   *
+   * @param created creation time of the reading, in epoch millis
+   * @param co2Quantity CO2 quantity of the reading
+   *
+   * @return position of the reading, or -1 when the window is full and the reading is older than every buffered
+   *     reading
+   */
+  public synchronized int insert(long created, double co2Quantity) {
+    int capacity = co2Quantities.length;
+    if (size == capacity && created < getCreatedEpochMillis(size - 1)) {
+      return -1;
+    }
+
+    head = (head + 1) % capacity;
+    if (size < capacity) {
+      size++;
+    }
+
+    // shift older readings one slot towards the tail until the new reading is in order
+    int position = 0;
+    while (position < size - 1 && getCreatedEpochMillis(position + 1) > created) {
+      int current = index(position);
+      int next = index(position + 1);
+      co2Quantities[current] = co2Quantities[next];
+      createdEpochMillis[current] = createdEpochMillis[next];
+      statuses[current] = statuses[next];
+      position++;
+    }
+
+    co2Quantities[index(position)] = co2Quantity;
+    createdEpochMillis[index(position)] = created;
+    statuses[index(position)] = null;
+    return position;
+  }
+
+  /**
+   * @param position 0 for the most recent reading, 1 for the one before it, and so on
+   *
+   * @return CO2 quantity of the reading
+   */
+  public synchronized double getCo2Quantity(int position) {
+    checkPosition(position);
+    return co2Quantities[index(position)];
+  }
+
+  /**
+   * @param position 0 for the most recent reading, 1 for the one before it, and so on
+   *
+   * @return creation time of the reading, in epoch millis
+   */
+  public synchronized long getCreatedEpochMillis(int position) {
+    checkPosition(position);
+    return createdEpochMillis[index(position)];
+  }
+
+  /**
+   * @param position 0 for the most recent reading, 1 for the one before it, and so on
+   *
+   * @return status of the sensor once the reading was evaluated, null when it is not known
+   */
+  public synchronized Status getStatus(int position) {
+    checkPosition(position);
+    return statuses[index(position)];
+  }
+
+  /**
+   * @param position 0 for the most recent reading, 1 for the one before it, and so on
+   * @param status status of the sensor once the reading was evaluated
+   */
+  public synchronized void setStatus(int position, Status status) {
+    checkPosition(position);
+    statuses[index(position)] = status;
+  }
+
+  /**
+   * @param threshold CO2 threshold
+   * @param count number of readings to look at
+   *
+   * @return true when there are at least {@code count} readings, and the most recent {@code count} ones are
+   *     above the threshold
+   */
+  public boolean areLastAbove(double threshold, int count) {
+    return areAbove(threshold, 0, count);
+  }
+
+  /**
+   * @param threshold CO2 threshold
+   * @param position position of the first reading to look at, 0 for the most recent one
+   * @param count number of readings to look at
+   *
+   * @return true when there are at least {@code count} readings from {@code position} on, and all of them are above
+   *     the threshold
+   */
+  public synchronized boolean areAbove(double threshold, int position, int count) {
+    if (count <= 0 || position < 0 || size - position < count) {
+      return false;
+    }
+    for (int i = position; i < position + count; i++) {
+      if (co2Quantities[index(i)] <= threshold) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @param threshold CO2 threshold
+   * @param count number of readings to look at
+   *
+   * @return true when there are at least {@code count} readings, and the most recent {@code count} ones are
+   *     below or equal to the threshold
+   */
+  public boolean areLastAtOrBelow(double threshold, int count) {
+    return areAtOrBelow(threshold, 0, count);
+  }
+
+  /**
+   * @param threshold CO2 threshold
+   * @param position position of the first reading to look at, 0 for the most recent one
+   * @param count number of readings to look at
+   *
+   * @return true when there are at least {@code count} readings from {@code position} on, and all of them are below
+   *     or equal to the threshold
+   */
+  public synchronized boolean areAtOrBelow(double threshold, int position, int count) {
+    if (count <= 0 || position < 0 || size - position < count) {
+      return false;
+    }
+    for (int i = position; i < position + count; i++) {
+      if (co2Quantities[index(i)] > threshold) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @param created creation time of a reading, in epoch millis
+   * @param co2Quantity CO2 quantity of the reading
+   *
+   * @return true when the window holds a reading with the same creation time and CO2 quantity
+   */
+  public synchronized boolean contains(long created, double co2Quantity) {
+    for (int position = 0; position < size; position++) {
+      long bufferedCreated = createdEpochMillis[index(position)];
+      if (bufferedCreated < created) {
+        return false;
+      }
+      if (bufferedCreated == created && co2Quantities[index(position)] == co2Quantity) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Tells whether {@link #contains} answers for every reading created at a given time. A window which is not full
+   * never dropped a reading, and a full one only dropped readings created at the time of its oldest one or before.
+   *
+   * @param created creation time of a reading, in epoch millis
+   *
+   * @return true when the window holds every reading of its sensor created at that time
+   */
+  public synchronized boolean covers(long created) {
+    return size < co2Quantities.length || created > getCreatedEpochMillis(size - 1);
+  }
+
+  public synchronized int size() {
+    return size;
+  }
+
+  public int capacity() {
+    return co2Quantities.length;
+  }
+
+  public long getLastAccessMillis() {
+    return lastAccessMillis;
+  }
+
+  void touch() {
+    lastAccessMillis = System.currentTimeMillis();
+  }
+
+  private void checkPosition(int position) {
+    if (position < 0 || position >= size) {
+      throw new IndexOutOfBoundsException("Position " + position + " is out of the window. Window size: " + size);
+    }
+  }
+
+  private int index(int position) {
+    int capacity = co2Quantities.length;
+    return (head - position + capacity) % capacity;
+  }
+}
@@ -0,0 +1,125 @@
+package com.carbonsensors.service;
+
+import com.carbonsensors.config.ConfigurationProperties;
+import com.carbonsensors.model.Measurement;
+import com.carbonsensors.repository.MeasurementRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps a {@link MeasurementWindow} per sensor, sized to hold enough readings for deciding the sensor status, plus a
+ * reorder buffer of {@code measurement.reorder.buffer.size} older readings from which late readings are re-evaluated.
+ * <br>
+ * Windows are loaded the first time a sensor is touched, from the {@link RecentMeasurementStore} when it holds enough
+ * readings of the sensor, and from the database otherwise. They are evicted once the sensor has been inactive for a
+ * while, or when the number of windows goes beyond the configured maximum.
+ */
+@Slf4j
+@Component
+public class MeasurementWindowStore {
+
+  private final MeasurementRepository measurementRepository;
+  private final RecentMeasurementStore recentMeasurementStore;
+  private final ConfigurationProperties configurationProperties;
+  private final Map<UUID, MeasurementWindow> windows = new ConcurrentHashMap<>();
+
+  public MeasurementWindowStore(MeasurementRepository measurementRepository,
+                                RecentMeasurementStore recentMeasurementStore,
+                                ConfigurationProperties configurationProperties) {
+    this.measurementRepository = measurementRepository;
+    this.recentMeasurementStore = recentMeasurementStore;
+    this.configurationProperties = configurationProperties;
+  }
+
+  /**
+   * Gets the window of a sensor, loading its most recent measurements from the database if the sensor is not
+   * in memory yet.
+   * <br>
+   * Since the window must only hold committed readings, it has to be fetched before the new measurements of
+   * the sensor are stored.
+   *
+   * @param sensorId sensor id
+   *
+   * @return window of the sensor
+   */
+  public MeasurementWindow getWindow(UUID sensorId) {
+    MeasurementWindow window = windows.get(sensorId);
+    if (window == null) {
+      MeasurementWindow loaded = loadWindow(sensorId);
+      window = windows.putIfAbsent(sensorId, loaded);
+      if (window == null) {
+        window = loaded;
+        evictExceedingWindows();
+      }
+    }
+    window.touch();
+    return window;
+  }
+
+  /**
+   * Drops the window of a sensor, so that it is reloaded from the database next time.
+   *
+   * @param sensorId sensor id
+   */
+  public void evict(UUID sensorId) {
+    windows.remove(sensorId);
+  }
+
+  public int size() {
+    return windows.size();
+  }
+
+  /**
+   * Drops the windows of sensors which have not received measurements within the configured idle time.
+   */
+  @Scheduled(fixedDelayString = "${measurement.window.eviction.interval.ms}")
+  public void evictInactiveWindows() {
+    long idleLimit =
+        System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(configurationProperties.getMeasurementWindowIdleMinutes());
+    int before = windows.size();
+    windows.values().removeIf(window -> window.getLastAccessMillis() < idleLimit);
+    log.debug("Evicted {} inactive measurement windows", before - windows.size());
+  }
+
+  private void evictExceedingWindows() {
+    int maxSensors = configurationProperties.getMeasurementWindowMaxSensors();
+    int exceeding = windows.size() - maxSensors;
+    if (exceeding <= 0) {
+      return;
+    }
+
+    // evicts a tenth of the windows at once, so that the scan is not repeated for every new sensor
+    int toEvict = Math.max(exceeding, maxSensors / 10);
+    windows.entrySet().stream()
+        .sorted(Comparator.comparingLong(entry -> entry.getValue().getLastAccessMillis()))
+        .limit(toEvict)
+        .map(Map.Entry::getKey)
+        .forEach(windows::remove);
+  }
+
+  private MeasurementWindow loadWindow(UUID sensorId) {
+    int capacity = Math.max(configurationProperties.getConsecutiveMeasurementsForAlert(),
+        configurationProperties.getConsecutiveMeasurementsForOk())
+        + configurationProperties.getMeasurementReorderBufferSize();
+    MeasurementWindow window = new MeasurementWindow(capacity);
+    if (recentMeasurementStore.fillWindow(sensorId, window)) {
+      return window;
+    }
+
+    List<Measurement> measurements =
+        measurementRepository.findBySensorIdOrderByCreatedDesc(sensorId, PageRequest.of(0, capacity));
+    for (Measurement measurement : measurements) {
+      window.add(measurement.getCreated().toEpochMilli(), measurement.getCo2Quantity());
+    }
+    return window;
+  }
+}
@@ -0,0 +1,242 @@
+package com.carbonsensors.service;
+
+import com.carbonsensors.model.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer meters describing how the service operates, as opposed to the CO2 metrics of a sensor. They are exposed
+ * in Prometheus format on {@code /actuator/prometheus}.
+ * <br>
+ * Counters of status transitions and alerts are incremented once the transaction which made the change is committed,
+ * so that rolled back changes are not counted.
+ */
+@Component
+public class OperationalMetrics {
+
+  static final String MEASUREMENT_CREATION_STAGE = "carbonsensors.measurement.creation.stage";
+  static final String SENSOR_STATUS_TRANSITIONS = "carbonsensors.sensor.status.transitions";
+  static final String ALERTS_CREATED = "carbonsensors.alerts.created";
+  static final String ALERTS_APPENDED = "carbonsensors.alerts.appended";
+  static final String ALERTS_RETRACTED = "carbonsensors.alerts.retracted";
+  static final String MEASUREMENTS_LATE = "carbonsensors.measurements.late";
+  static final String MEASUREMENTS_DUPLICATE = "carbonsensors.measurements.duplicate";
+  static final String SENSOR_METRICS_QUERY = "carbonsensors.sensor.metrics.query";
+  static final String INGESTION_QUEUE_DEPTH = "carbonsensors.ingestion.queue.depth";
+  static final String INGESTION_READINGS_DROPPED = "carbonsensors.ingestion.readings.dropped";
+  static final String MEASUREMENTS_PURGED = "carbonsensors.measurements.purged";
+  static final String MEASUREMENTS_PURGED_BYTES = "carbonsensors.measurements.purged.bytes";
+  static final String RECENT_STORE_SENSORS = "carbonsensors.recent.store.sensors";
+  static final String RECENT_STORE_SLOTS = "carbonsensors.recent.store.slots";
+  static final String SENSOR_EVENTS_SUBSCRIBERS = "carbonsensors.sensor.events.subscribers";
+  static final String SENSOR_EVENTS_EVICTED = "carbonsensors.sensor.events.evicted";
+
+  /**
+   * Stages of the creation of a single measurement, each one timed on its own.
+   */
+  public enum Stage {
+    SENSOR_LOOKUP("sensor_lookup"),
+    INSERT("insert"),
+    AGGREGATE("aggregate"),
+    WINDOW("window"),
+    STATUS("status");
+
+    private final String tag;
+
+    Stage(String tag) {
+      this.tag = tag;
+    }
+  }
+
+  private final MeterRegistry meterRegistry;
+  private final Map<Stage, Timer> stageTimers = new EnumMap<>(Stage.class);
+  private final Counter alertsCreated;
+  private final Counter alertsAppended;
+  private final Counter alertsRetracted;
+  private final Counter lateMeasurementsReevaluated;
+  private final Counter lateMeasurementsPastHorizon;
+  private final Counter duplicateMeasurements;
+  private final Timer sensorMetricsQuery;
+  private final Counter ingestionReadingsDropped;
+  private final Counter measurementsPurged;
+  private final Counter measurementsPurgedBytes;
+  private final Counter sensorEventsEvicted;
+
+  public OperationalMetrics(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+    for (Stage stage : Stage.values()) {
+      stageTimers.put(stage, Timer.builder(MEASUREMENT_CREATION_STAGE)
+          .description("Time spent in each stage of the creation of a measurement")
+          .tag("stage", stage.tag)
+          .publishPercentileHistogram()
+          .register(meterRegistry));
+    }
+    this.alertsCreated = Counter.builder(ALERTS_CREATED)
+        .description("Alerts opened because a sensor went above the CO2 threshold")
+        .register(meterRegistry);
+    this.alertsAppended = Counter.builder(ALERTS_APPENDED)
+        .description("Times an open alert was extended with new measurements")
+        .register(meterRegistry);
+    this.alertsRetracted = Counter.builder(ALERTS_RETRACTED)
+        .description("Alerts deleted because a late measurement showed the sensor did not go above the CO2 threshold")
+        .register(meterRegistry);
+    this.lateMeasurementsReevaluated = Counter.builder(MEASUREMENTS_LATE)
+        .description("Measurements created before the most recent one of their sensor")
+        .tag("outcome", "reevaluated")
+        .register(meterRegistry);
+    this.lateMeasurementsPastHorizon = Counter.builder(MEASUREMENTS_LATE)
+        .description("Measurements created before the most recent one of their sensor")
+        .tag("outcome", "past_horizon")
+        .register(meterRegistry);
+    this.duplicateMeasurements = Counter.builder(MEASUREMENTS_DUPLICATE)
+        .description("Readings skipped because their sensor already had one created at the same time with the same "
+            + "CO2 quantity")
+        .register(meterRegistry);
+    this.sensorMetricsQuery = Timer.builder(SENSOR_METRICS_QUERY)
+        .description("Time spent computing the CO2 metrics of a sensor")
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+    this.ingestionReadingsDropped = Counter.builder(INGESTION_READINGS_DROPPED)
+        .description("Readings accepted by the asynchronous ingestion pipeline which could not be stored")
+        .register(meterRegistry);
+    this.measurementsPurged = Counter.builder(MEASUREMENTS_PURGED)
+        .description("Measurements deleted because they were older than the retention window")
+        .register(meterRegistry);
+    this.measurementsPurgedBytes = Counter.builder(MEASUREMENTS_PURGED_BYTES)
+        .description("Estimated storage taken by the purged measurements and their index entries")
+        .baseUnit("bytes")
+        .register(meterRegistry);
+    this.sensorEventsEvicted = Counter.builder(SENSOR_EVENTS_EVICTED)
+        .description("Subscribers of the sensor events evicted because they did not keep up with them")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Runs a stage of the creation of a measurement, recording how long it takes.
+   *
+   * @param stage stage being run
+   * @param action action of the stage
+   *
+   * @return result of the action
+   */
+  public <T> T recordStage(Stage stage, Supplier<T> action) {
+    return stageTimers.get(stage).record(action);
+  }
+
+  public void recordStage(Stage stage, Runnable action) {
+    stageTimers.get(stage).record(action);
+  }
+
+  public <T> T recordSensorMetricsQuery(Supplier<T> query) {
+    return sensorMetricsQuery.record(query);
+  }
+
+  /**
+   * Counts a status change of a sensor once the current transaction is committed.
+   *
+   * @param from previous status, null for a sensor which had none
+   * @param to new status
+   */
+  public void countStatusTransitionAfterCommit(Status from, Status to) {
+    Counter counter = Counter.builder(SENSOR_STATUS_TRANSITIONS)
+        .description("Status changes of the sensors")
+        .tag("from", from != null ? from.name() : "NONE")
+        .tag("to", to.name())
+        .register(meterRegistry);
+    TransactionCallbacks.afterCommit(counter::increment);
+  }
+
+  public void countAlertCreatedAfterCommit() {
+    TransactionCallbacks.afterCommit(alertsCreated::increment);
+  }
+
+  public void countAlertAppendedAfterCommit() {
+    TransactionCallbacks.afterCommit(alertsAppended::increment);
+  }
+
+  public void countAlertRetractedAfterCommit() {
+    TransactionCallbacks.afterCommit(alertsRetracted::increment);
+  }
+
+  /**
+   * Counts a late measurement once the current transaction is committed.
+   *
+   * @param reevaluated true when the status of its sensor was re-evaluated, false when it was past the lateness horizon
+   */
+  public void countLateMeasurementAfterCommit(boolean reevaluated) {
+    TransactionCallbacks.afterCommit(
+        reevaluated ? lateMeasurementsReevaluated::increment : lateMeasurementsPastHorizon::increment);
+  }
+
+  /**
+   * Counts readings which were already stored once the current transaction is committed.
+   *
+   * @param readings number of duplicate readings skipped
+   */
+  public void countDuplicateMeasurementsAfterCommit(int readings) {
+    if (readings > 0) {
+      TransactionCallbacks.afterCommit(() -> duplicateMeasurements.increment(readings));
+    }
+  }
+
+  /**
+   * Exposes the number of readings waiting in a queue of the asynchronous ingestion pipeline.
+   *
+   * @param shard index of the shard owning the queue
+   * @param queue queue of the shard
+   */
+  public void registerIngestionQueue(int shard, Collection<?> queue) {
+    Gauge.builder(INGESTION_QUEUE_DEPTH, queue, Collection::size)
+        .description("Readings waiting to be stored by the asynchronous ingestion pipeline")
+        .tag("shard", String.valueOf(shard))
+        .register(meterRegistry);
+  }
+
+  /**
+   * Exposes the number of sensors whose recent readings are held off-heap, and the number of sensors which fit in the
+   * memory budget of the store.
+   *
+   * @param store store of the recent readings
+   */
+  public void registerRecentMeasurementStore(RecentMeasurementStore store) {
+    Gauge.builder(RECENT_STORE_SENSORS, store, RecentMeasurementStore::size)
+        .description("Sensors whose readings of the last hours are held off-heap")
+        .register(meterRegistry);
+    Gauge.builder(RECENT_STORE_SLOTS, store, RecentMeasurementStore::slots)
+        .description("Sensors whose readings of the last hours fit in the off-heap budget")
+        .register(meterRegistry);
+  }
+
+  public void registerSensorEventHub(SensorEventHub hub) {
+    Gauge.builder(SENSOR_EVENTS_SUBSCRIBERS, hub, SensorEventHub::size)
+        .description("Clients subscribed to the sensor events")
+        .register(meterRegistry);
+  }
+
+  public void countSensorEventSubscriberEvicted() {
+    sensorEventsEvicted.increment();
+  }
+
+  public void countIngestionReadingsDropped(int readings) {
+    ingestionReadingsDropped.increment(readings);
+  }
+
+  /**
+   * Counts measurements deleted by a committed purge.
+   *
+   * @param rows number of deleted measurements
+   * @param bytes estimated storage they took
+   */
+  public void countMeasurementsPurged(int rows, long bytes) {
+    measurementsPurged.increment(rows);
+    measurementsPurgedBytes.increment(bytes);
+  }
+}
@@ -0,0 +1,16 @@
+package com.carbonsensors.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Outcome of a purge of expired measurements. Bytes are an estimate of the storage taken by the deleted rows and
+ * their index entries, since H2 does not report the space it frees.
+ */
+@Getter
+@AllArgsConstructor
+public class PurgeResult {
+
+  private final int rows;
+  private final long bytes;
+}
@@ -0,0 +1,43 @@
+package com.carbonsensors.service;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.carbonsensors.model.projection.MeasurementStatistics;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Statistic of the CO2 measurements by which sensors are ranked.
+ */
+public enum RankingMetric {
+
+  MAX("max", MeasurementStatistics::getMax),
+  AVERAGE("avg", MeasurementStatistics::getAverage);
+
+  private final String parameter;
+  private final Function<MeasurementStatistics, Double> value;
+
+  RankingMetric(String parameter, Function<MeasurementStatistics, Double> value) {
+    this.parameter = parameter;
+    this.value = value;
+  }
+
+  public double valueOf(MeasurementStatistics statistics) {
+    return value.apply(statistics);
+  }
+
+  /**
+   * Parses a metric as given in a request, {@code max} or {@code avg}, ignoring the case.
+   *
+   * @throws IllegalArgumentException when the metric is null or unknown
+   */
+  public static RankingMetric fromParameter(String parameter) {
+    checkArgument(parameter != null, "Ranking metric cannot be null");
+    return Arrays.stream(values())
+        .filter(metric -> metric.parameter.equalsIgnoreCase(parameter))
+        .findFirst()
+        .orElseThrow(() -> new IllegalArgumentException(
+            "Ranking metric must be one of max or avg. Entered value: " + parameter));
+  }
+}
@@ -0,0 +1,82 @@
+package com.carbonsensors.service;
+
+import com.carbonsensors.model.projection.AlertMeasurementValue;
+import com.carbonsensors.model.projection.AlertSummary;
+import com.carbonsensors.repository.ReactiveAlertRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Non-blocking counterpart of {@link AlertService}, used by the {@code reactive} profile. Pages are read by keyset
+ * with the same two queries, and the parameters are validated by {@link AlertService}.
+ */
+@Profile("reactive")
+@Service
+public class ReactiveAlertService {
+
+  private final ReactiveAlertRepository alertRepository;
+  private final AlertService alertService;
+
+  public ReactiveAlertService(ReactiveAlertRepository alertRepository,
+                              AlertService alertService) {
+    this.alertRepository = alertRepository;
+    this.alertService = alertService;
+  }
+
+  /**
+   * Finds a page of the alerts of a sensor, newest first, along with their measurement values.
+   *
+   * @param sensorId sensor whose alerts are read
+   * @param from inclusive lower bound of the alert creation time, or null for no bound
+   * @param to exclusive upper bound of the alert creation time, or null for no bound
+   * @param cursor cursor returned with the previous page, or null for the first page
+   * @param limit maximum number of alerts of the page, or null for the configured default
+   *
+   * @return page of alerts, their measurement values and the cursor of the next page
+   */
+  public Mono<AlertPage> findAlertsBySensorId(UUID sensorId, Instant from, Instant to, String cursor,
+                                              Integer limit) {
+    return Mono.defer(() -> {
+      int pageSize = alertService.checkPageRequest(sensorId, from, to, limit);
+      Instant fromOrDefault = from != null ? from : AlertService.DEFAULT_FROM;
+      Instant toOrDefault = to != null ? to : AlertService.DEFAULT_TO;
+
+      // one more alert is read to know whether there is a next page
+      Flux<AlertSummary> alerts;
+      if (cursor == null) {
+        alerts = alertRepository.findPageBySensorId(sensorId, fromOrDefault, toOrDefault, pageSize + 1);
+      } else {
+        AlertCursor lastAlert = AlertCursor.decode(cursor);
+        alerts = alertRepository.findPageBySensorIdAfter(sensorId, fromOrDefault, toOrDefault,
+            lastAlert.getCreated(), lastAlert.getId(), pageSize + 1);
+      }
+
+      return alerts.collectList().flatMap(page -> {
+        if (page.size() > pageSize) {
+          List<AlertSummary> alertsOfPage = page.subList(0, pageSize);
+          return toAlertPage(alertsOfPage, AlertCursor.fromAlertSummary(alertsOfPage.get(pageSize - 1)));
+        }
+        return toAlertPage(page, null);
+      });
+    });
+  }
+
+  private Mono<AlertPage> toAlertPage(List<AlertSummary> alerts, AlertCursor nextCursor) {
+    if (alerts.isEmpty()) {
+      return Mono.just(new AlertPage(alerts, Collections.emptyMap(), nextCursor));
+    }
+
+    List<UUID> alertIds = alerts.stream().map(AlertSummary::getId).collect(Collectors.toList());
+    return alertRepository.findMeasurementValuesByAlertIds(alertIds)
+        .collect(Collectors.groupingBy(AlertMeasurementValue::getAlertId))
+        .map(measurementValues -> new AlertPage(alerts, measurementValues, nextCursor));
+  }
+}
@@ -0,0 +1,84 @@
+package com.carbonsensors.service;
+
+import com.carbonsensors.model.RollupResolution;
+import com.carbonsensors.model.projection.MeasurementStatistics;
+import com.carbonsensors.repository.ReactiveMeasurementDailyAggregateRepository;
+import com.carbonsensors.repository.ReactiveMeasurementRepository;
+import com.carbonsensors.repository.ReactiveMeasurementRollupRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Non-blocking counterpart of {@link MeasurementAggregateService}, used by the {@code reactive} profile.
+ */
+@Profile("reactive")
+@Service
+public class ReactiveMeasurementAggregateService {
+
+  private final ReactiveMeasurementDailyAggregateRepository measurementDailyAggregateRepository;
+  private final ReactiveMeasurementRollupRepository measurementRollupRepository;
+  private final ReactiveMeasurementRepository measurementRepository;
+
+  public ReactiveMeasurementAggregateService(
+      ReactiveMeasurementDailyAggregateRepository measurementDailyAggregateRepository,
+      ReactiveMeasurementRollupRepository measurementRollupRepository,
+      ReactiveMeasurementRepository measurementRepository) {
+    this.measurementDailyAggregateRepository = measurementDailyAggregateRepository;
+    this.measurementRollupRepository = measurementRollupRepository;
+    this.measurementRepository = measurementRepository;
+  }
+
+  /**
+   * Adds a new measurement of a sensor to the aggregate of its day, and to the rollups of its minute and hour. It must
+   * run in the transaction which stores the measurement, with the sensor locked.
+   *
+   * @param sensorId sensor of the measurement
+   * @param created creation time of the measurement
+   * @param co2Quantity CO2 quantity of the measurement
+   *
+   * @return completes once the aggregate is updated
+   */
+  public Mono<Void> addMeasurement(UUID sensorId, Instant created, double co2Quantity) {
+    LocalDate day = MeasurementAggregateService.toDay(created);
+    MeasurementStatistics statistics = new MeasurementStatistics(1L, co2Quantity, co2Quantity, co2Quantity);
+
+    return measurementDailyAggregateRepository.addToAggregate(sensorId, day, statistics)
+        .flatMap(updated -> updated > 0
+            ? Mono.<Void>empty()
+            : measurementDailyAggregateRepository.insert(UUID.randomUUID(), sensorId, day, statistics))
+        .then(addToRollup(sensorId, RollupResolution.MINUTE, created, statistics))
+        .then(addToRollup(sensorId, RollupResolution.HOUR, created, statistics));
+  }
+
+  private Mono<Void> addToRollup(UUID sensorId, RollupResolution resolution, Instant created,
+                                 MeasurementStatistics statistics) {
+    Instant bucketStart = resolution.truncate(created);
+    return measurementRollupRepository.addToRollup(sensorId, resolution, bucketStart, statistics)
+        .flatMap(updated -> updated > 0
+            ? Mono.<Void>empty()
+            : measurementRollupRepository.insert(UUID.randomUUID(), sensorId, resolution, bucketStart, statistics));
+  }
+
+  /**
+   * Computes the statistics of every measurement of a sensor created at or after a given moment, reading the
+   * measurements of the first, partial, day and the aggregates of the following ones.
+   *
+   * @param sensorId sensor id
+   * @param from start of the period
+   *
+   * @return statistics of the measurements of the period
+   */
+  public Mono<MeasurementStatistics> computeStatisticsSince(UUID sensorId, Instant from) {
+    LocalDate firstDay = MeasurementAggregateService.toDay(from);
+    Instant secondDayStart = RollupResolution.DAY.truncate(from).plus(RollupResolution.DAY.getDuration());
+
+    return measurementRepository.computeStatisticsById(sensorId, from, secondDayStart)
+        .zipWith(measurementDailyAggregateRepository.sumAggregatesAfter(sensorId, firstDay),
+            (partialDay, wholeDays) -> MeasurementStatistics.empty().plus(partialDay).plus(wholeDays));
+  }
+}
@@ -0,0 +1,76 @@
+package com.carbonsensors.service;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.carbonsensors.config.ConfigurationProperties;
+import com.carbonsensors.model.RollupResolution;
+import com.carbonsensors.model.projection.RollupBucket;
+import com.carbonsensors.repository.ReactiveMeasurementDailyAggregateRepository;
+import com.carbonsensors.repository.ReactiveMeasurementRepository;
+import com.carbonsensors.repository.ReactiveMeasurementRollupRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Non-blocking counterpart of {@link MeasurementSeriesService}, used by the {@code reactive} profile.
+ */
+@Profile("reactive")
+@Service
+public class ReactiveMeasurementSeriesService {
+
+  private final ReactiveMeasurementRollupRepository measurementRollupRepository;
+  private final ReactiveMeasurementDailyAggregateRepository measurementDailyAggregateRepository;
+  private final ReactiveMeasurementRepository measurementRepository;
+  private final ReactiveSensorService sensorService;
+  private final ConfigurationProperties configurationProperties;
+
+  public ReactiveMeasurementSeriesService(
+      ReactiveMeasurementRollupRepository measurementRollupRepository,
+      ReactiveMeasurementDailyAggregateRepository measurementDailyAggregateRepository,
+      ReactiveMeasurementRepository measurementRepository,
+      ReactiveSensorService sensorService,
+      ConfigurationProperties configurationProperties) {
+    this.measurementRollupRepository = measurementRollupRepository;
+    this.measurementDailyAggregateRepository = measurementDailyAggregateRepository;
+    this.measurementRepository = measurementRepository;
+    this.sensorService = sensorService;
+    this.configurationProperties = configurationProperties;
+  }
+
+  public Mono<MeasurementSeries> findSeries(UUID sensorId, Instant from, Instant to, String resolution) {
+    return Mono.defer(() -> {
+      checkArgument(sensorId != null, "Sensor Id cannot be null");
+      SeriesPlan plan = SeriesPlan.of(from, to, resolution, configurationProperties.getMeasurementSeriesMaxPoints(),
+          Instant.now().minus(Duration.ofDays(configurationProperties.getMeasurementRetentionDays())));
+
+      Flux<RollupBucket> rollupBuckets =
+          plan.hasWholeRollupBuckets() ? findRollupBuckets(sensorId, plan) : Flux.empty();
+      Flux<RollupBucket> expiredBuckets = Flux.fromIterable(plan.getExpiredSpans())
+          .concatMap(span -> measurementRollupRepository.findBuckets(sensorId, RollupResolution.MINUTE, span.getFrom(),
+              span.getTo()));
+      Flux<RollupBucket> rawBuckets = Flux.fromIterable(plan.getRawSpans())
+          .concatMap(span -> measurementRepository.computeStatisticsById(sensorId, span.getFrom(), span.getTo())
+              .map(statistics -> new RollupBucket(span.getFrom(), statistics)));
+
+      return sensorService.findSensorStatusById(sensorId)
+          .thenMany(rollupBuckets.concatWith(expiredBuckets).concatWith(rawBuckets))
+          .collectList()
+          .map(plan::toSeries);
+    });
+  }
+
+  private Flux<RollupBucket> findRollupBuckets(UUID sensorId, SeriesPlan plan) {
+    if (plan.getRollup() == RollupResolution.DAY) {
+      return measurementDailyAggregateRepository.findBuckets(sensorId, MeasurementAggregateService.toDay(
+          plan.getRollupFrom()), MeasurementAggregateService.toDay(plan.getRollupTo()));
+    }
+    return measurementRollupRepository.findBuckets(sensorId, plan.getRollup(), plan.getRollupFrom(),
+        plan.getRollupTo());
+  }
+}
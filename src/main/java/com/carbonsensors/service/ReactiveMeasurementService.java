@@ -0,0 +1,293 @@
+package com.carbonsensors.service;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.carbonsensors.config.ConfigurationProperties;
+import com.carbonsensors.model.Measurement;
+import com.carbonsensors.model.Status;
+import com.carbonsensors.model.TimeOrderedUuidGenerator;
+import com.carbonsensors.repository.ReactiveAlertRepository;
+import com.carbonsensors.repository.ReactiveMeasurementRepository;
+import com.carbonsensors.repository.ReactiveSensorRepository;
+import com.carbonsensors.service.SensorStatusMachine.Transition;
+import lombok.AllArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Non-blocking counterpart of {@link MeasurementService}, used by the {@code reactive} profile.
+ * <br>
+ * Each reading is stored in a transaction which locks the row of its sensor with {@code select ... for update},
+ * so that concurrent readings of the same sensor are evaluated one after the other, whichever instance receives
+ * them. The most recent readings are read back from the database instead of a {@link MeasurementWindowStore}, and
+ * the status change is decided by the same {@link SensorStatusMachine} as the servlet stack.
+ * <br>
+ * The cached status is invalidated, the operational counters are incremented and the sensor events are published once
+ * the transaction is committed.
+ * <br>
+ * A late reading is evaluated along with the most recent readings in order of creation time. Readings older than the
+ * most recent one of their sensor by more than {@code measurement.lateness.horizon.ms} are stored without changing
+ * the sensor status. Unlike the {@link MeasurementWindowStore} of the servlet stack, no reorder buffer is kept between
+ * requests, so the alerts opened before a late reading arrived are not corrected.
+ * <br>
+ * A reading which its sensor already has, with the same creation time and CO2 quantity, is a retry: it is neither
+ * stored again nor evaluated. The most recent readings tell most retries apart, and the insert itself skips the
+ * older ones.
+ */
+@Profile("reactive")
+@Service
+public class ReactiveMeasurementService {
+
+  private static final String UNKNOWN_SENSOR =
+      "The entered sensor id does not represent any entity in the database. Sensor Id: ";
+
+  private final ReactiveSensorRepository sensorRepository;
+  private final ReactiveMeasurementRepository measurementRepository;
+  private final ReactiveAlertRepository alertRepository;
+  private final ReactiveMeasurementAggregateService measurementAggregateService;
+  private final SensorStatusMachine sensorStatusMachine;
+  private final SensorStatusCache sensorStatusCache;
+  private final OperationalMetrics operationalMetrics;
+  private final SensorEventHub sensorEventHub;
+  private final ConfigurationProperties configurationProperties;
+  private final TransactionalOperator transactionalOperator;
+  private final TimeOrderedUuidGenerator measurementIds = new TimeOrderedUuidGenerator();
+  private final TimeOrderedUuidGenerator alertIds = new TimeOrderedUuidGenerator();
+
+  public ReactiveMeasurementService(ReactiveSensorRepository sensorRepository,
+                                    ReactiveMeasurementRepository measurementRepository,
+                                    ReactiveAlertRepository alertRepository,
+                                    ReactiveMeasurementAggregateService measurementAggregateService,
+                                    SensorStatusMachine sensorStatusMachine,
+                                    SensorStatusCache sensorStatusCache,
+                                    OperationalMetrics operationalMetrics,
+                                    SensorEventHub sensorEventHub,
+                                    ConfigurationProperties configurationProperties,
+                                    TransactionalOperator transactionalOperator) {
+    this.sensorRepository = sensorRepository;
+    this.measurementRepository = measurementRepository;
+    this.alertRepository = alertRepository;
+    this.measurementAggregateService = measurementAggregateService;
+    this.sensorStatusMachine = sensorStatusMachine;
+    this.sensorStatusCache = sensorStatusCache;
+    this.operationalMetrics = operationalMetrics;
+    this.sensorEventHub = sensorEventHub;
+    this.configurationProperties = configurationProperties;
+    this.transactionalOperator = transactionalOperator;
+  }
+
+  /**
+   * Stores a reading of a sensor and updates the sensor status.
+   *
+   * @param sensorId sensor of the reading
+   * @param co2Quantity CO2 quantity of the reading
+   * @param createdAt creation time of the reading
+   *
+   * @return completes once the reading is stored, or fails with an {@link IllegalArgumentException} when the reading
+   *     is not valid or its sensor does not exist
+   */
+  public Mono<Void> createMeasurement(UUID sensorId, Double co2Quantity, Instant createdAt) {
+    return Mono.fromRunnable(
+        () -> MeasurementService.validateCreateMeasurementParameters(sensorId, co2Quantity, createdAt))
+        .then(Mono.defer(() -> transactionalOperator.transactional(storeReading(sensorId, co2Quantity, createdAt))))
+        .doOnNext(this::publish)
+        .then();
+  }
+
+  /**
+   * Stores a batch of readings, possibly belonging to several sensors, in a single transaction.
+   * <br>
+   * Invalid readings and readings of unknown sensors are reported back as failures instead of aborting the batch.
+   * Sensors are locked in the order of their ids, so that concurrent batches cannot deadlock. Unlike
+   * {@link MeasurementService#createMeasurements}, the status is evaluated after each reading, as if the readings had
+   * been sent one by one.
+   *
+   * @param readings readings to be stored
+   *
+   * @return number of stored measurements, how many of them were past the lateness horizon, how many were
+   *     duplicates, and the failures, in order of appearance in the batch
+   */
+  public Mono<BatchMeasurementResult> createMeasurements(List<MeasurementReading> readings) {
+    return Mono.defer(() -> {
+      checkArgument(readings != null && !readings.isEmpty(), "Batch of measurements cannot be empty");
+      Integer batchMaxSize = configurationProperties.getMeasurementBatchMaxSize();
+      checkArgument(readings.size() <= batchMaxSize,
+          "Batch of measurements cannot have more than " + batchMaxSize + " entries. Entered size: "
+              + readings.size());
+
+      List<BatchMeasurementResult.Failure> failures = new ArrayList<>();
+      Map<UUID, List<Integer>> validIndexesBySensor = new TreeMap<>();
+
+      for (int i = 0; i < readings.size(); i++) {
+        MeasurementReading reading = readings.get(i);
+        try {
+          checkArgument(reading != null, "Measurement cannot be null");
+          MeasurementService.validateCreateMeasurementParameters(reading.getSensorId(), reading.getCo2Quantity(),
+              reading.getCreated());
+          validIndexesBySensor.computeIfAbsent(reading.getSensorId(), id -> new ArrayList<>()).add(i);
+        } catch (IllegalArgumentException e) {
+          failures.add(new BatchMeasurementResult.Failure(i, reading != null ? reading.getSensorId() : null,
+              e.getMessage()));
+        }
+      }
+
+      Mono<List<StatusChange>> changes = Flux.fromIterable(validIndexesBySensor.entrySet())
+          .concatMap(entry -> storeReadings(entry.getKey(), entry.getValue(), readings, failures))
+          .collectList();
+
+      return transactionalOperator.transactional(changes).map(storedChanges -> {
+        storedChanges.forEach(this::publish);
+        failures.sort(Comparator.comparingInt(BatchMeasurementResult.Failure::getIndex));
+        int pastHorizon = (int) storedChanges.stream().filter(change -> change.pastHorizon).count();
+        int duplicates = (int) storedChanges.stream().filter(change -> change.duplicate).count();
+        return new BatchMeasurementResult(storedChanges.size() - duplicates, pastHorizon, duplicates, failures);
+      });
+    });
+  }
+
+  private Flux<StatusChange> storeReadings(UUID sensorId, List<Integer> indexes, List<MeasurementReading> readings,
+                                           List<BatchMeasurementResult.Failure> failures) {
+    return sensorRepository.findStatusByIdForUpdate(sensorId).hasElement().flatMapMany(exists -> {
+      if (!exists) {
+        indexes.forEach(i -> failures.add(new BatchMeasurementResult.Failure(i, sensorId, UNKNOWN_SENSOR + sensorId)));
+        return Flux.empty();
+      }
+      return Flux.fromIterable(indexes).concatMap(i -> {
+        MeasurementReading reading = readings.get(i);
+        return storeReading(sensorId, reading.getCo2Quantity(), reading.getCreated());
+      });
+    });
+  }
+
+  private Mono<StatusChange> storeReading(UUID sensorId, double co2Quantity, Instant createdAt) {
+    int windowCapacity = sensorStatusMachine.getWindowCapacity();
+
+    return sensorRepository.findStatusByIdForUpdate(sensorId)
+        .switchIfEmpty(Mono.defer(() -> Mono.error(new IllegalArgumentException(UNKNOWN_SENSOR + sensorId))))
+        .flatMap(status -> measurementRepository.findBySensorIdOrderByCreatedDesc(sensorId, windowCapacity)
+            .collectList()
+            .flatMap(latest -> {
+              long created = createdAt.toEpochMilli();
+              MeasurementWindow window = new MeasurementWindow(windowCapacity);
+              latest.forEach(m -> window.add(m.getCreated().toEpochMilli(), m.getCo2Quantity()));
+              StatusChange duplicate = new StatusChange(sensorId, status, Transition.NONE, createdAt, false, true, false);
+              if (window.covers(created) && window.contains(created, co2Quantity)) {
+                return Mono.just(duplicate);
+              }
+
+              UUID measurementId = measurementIds.nextUuid();
+              if (!latest.isEmpty() && latest.get(0).getCreated().toEpochMilli() - created
+                  > configurationProperties.getMeasurementLatenessHorizonMs()) {
+                return measurementRepository.insertIfAbsent(measurementId, sensorId, createdAt, co2Quantity)
+                    .flatMap(inserted -> inserted
+                        ? measurementAggregateService.addMeasurement(sensorId, createdAt, co2Quantity)
+                            .thenReturn(new StatusChange(sensorId, status, Transition.NONE, createdAt, true, false, false))
+                        : Mono.just(duplicate));
+              }
+
+              window.add(created, co2Quantity);
+              Transition transition = sensorStatusMachine.next(status, window);
+              boolean appended = transition == Transition.EXTEND_ALERT && isPartOfStreak(window, createdAt);
+
+              return measurementRepository.insertIfAbsent(measurementId, sensorId, createdAt, co2Quantity)
+                  .flatMap(inserted -> inserted
+                      ? measurementAggregateService.addMeasurement(sensorId, createdAt, co2Quantity)
+                          .then(applyTransition(sensorId, status, transition, appended, measurementId, createdAt,
+                              co2Quantity))
+                          .thenReturn(new StatusChange(sensorId, status, transition, createdAt, false, false,
+                              appended))
+                      : Mono.just(duplicate));
+            }));
+  }
+
+  /**
+   * @param appended whether the reading is part of the streak above the threshold, which extends the alert
+   */
+  private Mono<Void> applyTransition(UUID sensorId, Status status, Transition transition, boolean appended,
+                                     UUID measurementId, Instant createdAt, double co2Quantity) {
+    int consecutiveMeasurementsForAlert = sensorStatusMachine.getConsecutiveMeasurementsForAlert();
+
+    switch (transition) {
+      case OPEN_ALERT:
+        UUID alertId = alertIds.nextUuid();
+        return measurementRepository.findBySensorIdOrderByCreatedDesc(sensorId, consecutiveMeasurementsForAlert)
+            .collectList()
+            .flatMap(streak -> alertRepository.insert(alertId, sensorId, createdAt)
+                .then(sensorRepository.openAlert(sensorId, alertId))
+                .thenMany(Flux.fromIterable(streak))
+                .concatMap(measurement -> alertRepository.addMeasurement(alertId, measurement.getId()))
+                .then(alertRepository.addToSummary(alertId, streak.size(),
+                    streak.stream().mapToDouble(Measurement::getCo2Quantity).max().orElse(co2Quantity),
+                    streak.isEmpty() ? createdAt : streak.get(0).getCreated())));
+      case EXTEND_ALERT:
+        // the alert is found through the sensor and extended without reading its measurements
+        return sensorRepository.findCurrentAlertIdById(sensorId)
+            .switchIfEmpty(Mono.defer(() -> Mono.error(new IllegalStateException(
+                "Sensor " + sensorId + " should have an alert associated, since it is in AlERT state."))))
+            .flatMap(openAlertId -> appended
+                ? alertRepository.addMeasurement(openAlertId, measurementId)
+                    .then(alertRepository.addToSummary(openAlertId, 1, co2Quantity, createdAt))
+                : Mono.empty());
+      case SET_OK:
+      case SET_WARM:
+        Status next = transition.apply(status);
+        return next != status ? sensorRepository.updateStatus(sensorId, next).then() : Mono.empty();
+      default:
+        return Mono.empty();
+    }
+  }
+
+  /**
+   * Tells whether a reading is part of the streak above the threshold: only such a reading extends the alert.
+   */
+  private boolean isPartOfStreak(MeasurementWindow window, Instant createdAt) {
+    return createdAt.toEpochMilli()
+        >= window.getCreatedEpochMillis(sensorStatusMachine.getConsecutiveMeasurementsForAlert() - 1);
+  }
+
+  /**
+   * Publishes a committed status change to the status cache, the operational counters and the sensor events.
+   */
+  private void publish(StatusChange change) {
+    Status next = change.transition.apply(change.from);
+    if (next != change.from) {
+      operationalMetrics.countStatusTransitionAfterCommit(change.from, next);
+      sensorStatusCache.invalidateAfterCommit(change.sensorId);
+    }
+    if (change.transition == Transition.OPEN_ALERT) {
+      operationalMetrics.countAlertCreatedAfterCommit();
+    } else if (change.appended) {
+      operationalMetrics.countAlertAppendedAfterCommit();
+    }
+    if (change.pastHorizon) {
+      operationalMetrics.countLateMeasurementAfterCommit(false);
+    }
+    if (change.duplicate) {
+      operationalMetrics.countDuplicateMeasurementsAfterCommit(1);
+    }
+    sensorEventHub.publishAfterCommit(change.sensorId, change.from, change.transition, change.created);
+  }
+
+  @AllArgsConstructor
+  private static class StatusChange {
+
+    private final UUID sensorId;
+    private final Status from;
+    private final Transition transition;
+    private final Instant created;
+    private final boolean pastHorizon;
+    private final boolean duplicate;
+    private final boolean appended;
+  }
+}
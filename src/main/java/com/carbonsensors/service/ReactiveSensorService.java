@@ -0,0 +1,142 @@
+package com.carbonsensors.service;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.carbonsensors.config.ConfigurationProperties;
+import com.carbonsensors.model.Sensor;
+import com.carbonsensors.model.Status;
+import com.carbonsensors.model.projection.MeasurementStatistics;
+import com.carbonsensors.model.projection.SensorMetrics;
+import com.carbonsensors.model.projection.SensorStatusValue;
+import com.carbonsensors.repository.ReactiveSensorRepository;
+import com.google.common.collect.Lists;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking counterpart of {@link SensorService}, used by the {@code reactive} profile. Statuses are read through
+ * the same {@link SensorStatusCache}, loaded without blocking on a miss.
+ */
+@Profile("reactive")
+@Service
+public class ReactiveSensorService {
+
+  private final ReactiveSensorRepository sensorRepository;
+  private final ReactiveMeasurementAggregateService measurementAggregateService;
+  private final SensorStatusCache sensorStatusCache;
+  private final ConfigurationProperties configurationProperties;
+  private final TransactionalOperator transactionalOperator;
+
+  public ReactiveSensorService(ReactiveSensorRepository sensorRepository,
+                               ReactiveMeasurementAggregateService measurementAggregateService,
+                               SensorStatusCache sensorStatusCache,
+                               ConfigurationProperties configurationProperties,
+                               TransactionalOperator transactionalOperator) {
+    this.sensorRepository = sensorRepository;
+    this.measurementAggregateService = measurementAggregateService;
+    this.sensorStatusCache = sensorStatusCache;
+    this.configurationProperties = configurationProperties;
+    this.transactionalOperator = transactionalOperator;
+  }
+
+  public Mono<Sensor> createSensor() {
+    Sensor sensor = Sensor.builder()
+        .id(UUID.randomUUID())
+        .status(Status.OK)
+        .build();
+
+    return sensorRepository.insert(sensor.getId(), sensor.getStatus()).thenReturn(sensor);
+  }
+
+  /**
+   * Creates several sensors in a single transaction, as {@link SensorService#createSensors(Integer, List)} does.
+   *
+   * @param count number of sensors to create, with new ids
+   * @param sensorIds ids of the sensors to create
+   *
+   * @return ids of the sensors, in the order they were given
+   */
+  public Mono<List<UUID>> createSensors(Integer count, List<UUID> sensorIds) {
+    return Mono.defer(() -> {
+      List<UUID> ids = SensorService.newSensorIds(count, sensorIds,
+          configurationProperties.getSensorProvisioningMaxSize());
+
+      Mono<Integer> inserted = Flux.fromIterable(Lists.partition(ids,
+          configurationProperties.getSensorProvisioningBatchSize()))
+          .concatMap(batch -> sensorRepository.insertIfAbsent(batch, Status.OK))
+          .reduce(0, Integer::sum);
+      return transactionalOperator.transactional(inserted).thenReturn(ids);
+    });
+  }
+
+  /**
+   * Finds the status of a sensor in the {@link SensorStatusCache}, loading it from the database on a miss.
+   *
+   * @param sensorId sensor id
+   *
+   * @return status of the sensor, or fails with an {@link IllegalArgumentException} when the sensor does not exist
+   */
+  public Mono<Status> findSensorStatusById(UUID sensorId) {
+    return Mono.defer(() -> {
+      checkArgument(sensorId != null, "Sensor Id cannot be null");
+
+      return Mono.fromFuture(sensorStatusCache.getAsync(sensorId, id -> sensorRepository.findStatusById(id).toFuture()))
+          .switchIfEmpty(Mono.defer(() -> Mono.error(
+              new IllegalArgumentException("Sensor entity could be be found given the id: " + sensorId))));
+    });
+  }
+
+  /**
+   * Finds the statuses of several sensors at once, as {@link SensorService#findSensorStatusesByIds(List)} does.
+   *
+   * @param sensorIds sensor ids, at most {@code sensor.status.bulk.max.size}
+   *
+   * @return statuses of the known sensors, and the ids which match no sensor
+   */
+  public Mono<SensorStatuses> findSensorStatusesByIds(List<UUID> sensorIds) {
+    return Mono.defer(() -> {
+      SensorService.checkSensorIds(sensorIds, configurationProperties.getSensorStatusBulkMaxSize());
+
+      Set<UUID> ids = new LinkedHashSet<>(sensorIds);
+      return Mono.fromFuture(sensorStatusCache.getAllAsync(ids, this::loadStatuses))
+          .map(found -> SensorStatuses.of(ids, found));
+    });
+  }
+
+  public SensorStatusCacheStatistics findSensorStatusCacheStatistics() {
+    return sensorStatusCache.statistics();
+  }
+
+  public Mono<SensorMetrics> findMetricsBySensorId(UUID sensorId) {
+    return Mono.defer(() -> {
+      checkArgument(sensorId != null, "Sensor Id cannot be null");
+
+      Integer metricsCo2Days = configurationProperties.getMetricsCo2Days();
+
+      return measurementAggregateService
+          .computeStatisticsSince(sensorId, Instant.now().minus(Duration.ofDays(metricsCo2Days)))
+          .map(MeasurementStatistics::toSensorMetrics);
+    });
+  }
+
+  private CompletableFuture<Map<UUID, Status>> loadStatuses(Set<UUID> sensorIds) {
+    return Flux.fromIterable(Lists.partition(new ArrayList<>(sensorIds),
+        configurationProperties.getSensorStatusBulkChunkSize()))
+        .concatMap(sensorRepository::findStatusesByIds)
+        .collectMap(SensorStatusValue::getId, SensorStatusValue::getStatus)
+        .toFuture();
+  }
+}
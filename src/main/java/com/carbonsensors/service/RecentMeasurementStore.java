@@ -0,0 +1,344 @@
+package com.carbonsensors.service;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.carbonsensors.config.ConfigurationProperties;
+import com.carbonsensors.model.Measurement;
+import com.carbonsensors.model.projection.MeasurementStatistics;
+import com.carbonsensors.repository.MeasurementRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Off-heap store of the readings of the last {@code measurement.recent.hours} of the sensors receiving measurements.
+ * <br>
+ * A single direct buffer of {@code measurement.recent.budget.mb} is allocated up front and split into one slot per
+ * sensor, holding up to {@code measurement.recent.readings.per.sensor} readings as two packed columns: creation times
+ * in epoch millis, then CO2 quantities. Storing a reading allocates nothing on the heap, and the readings of the last
+ * hours never reach the old generation, unlike the entities they were built from.
+ * <br>
+ * A sensor gets a slot the first time one of its readings is stored, loaded with its readings of the last hours from
+ * the database. When no slot is free, the slot of a sensor which has not been touched for a while is taken over, by a
+ * clock sweep over the slots. A slot knows since when it holds every reading of its sensor: readings drop out of it
+ * as they age, or when it overflows, and queries reaching further back are left to the database.
+ * <br>
+ * As with the {@link MeasurementWindowStore}, readings are added before their transaction commits, under the sensor
+ * lock, and the slot of the sensor is dropped when the transaction is rolled back.
+ */
+@Component
+public class RecentMeasurementStore {
+
+  static final int BYTES_PER_READING = Long.BYTES + Double.BYTES;
+
+  private final MeasurementRepository measurementRepository;
+  private final OperationalMetrics operationalMetrics;
+  private final long retentionMillis;
+  private final int capacity;
+  private final int slotBytes;
+  private final ByteBuffer readings;
+
+  private final Map<UUID, Integer> slotsBySensor = new ConcurrentHashMap<>();
+  private final Object[] locks;
+  private final UUID[] owners;
+  /**
+   * Position of the oldest reading of each slot.
+   */
+  private final int[] tails;
+  private final int[] sizes;
+  /**
+   * Creation time from which each slot holds every reading of its sensor, in epoch millis.
+   */
+  private final long[] coveredFrom;
+  private final boolean[] referenced;
+  private final Deque<Integer> freeSlots = new ArrayDeque<>();
+  private int clockHand;
+
+  public RecentMeasurementStore(MeasurementRepository measurementRepository,
+                                OperationalMetrics operationalMetrics,
+                                ConfigurationProperties configurationProperties) {
+    this.measurementRepository = measurementRepository;
+    this.operationalMetrics = operationalMetrics;
+    int hours = configurationProperties.getMeasurementRecentHours();
+    this.capacity = configurationProperties.getMeasurementRecentReadingsPerSensor();
+    long budgetBytes = configurationProperties.getMeasurementRecentBudgetMb() * 1024L * 1024L;
+
+    checkArgument(hours > 0, "Recent measurements must be kept for at least an hour. Entered value: " + hours);
+    checkArgument(capacity > 0,
+        "Number of recent readings per sensor must be greater than zero. Entered value: " + capacity);
+    checkArgument(budgetBytes <= Integer.MAX_VALUE,
+        "Recent measurements budget cannot exceed 2 GB. Entered value: " + budgetBytes);
+    this.retentionMillis = TimeUnit.HOURS.toMillis(hours);
+    this.slotBytes = capacity * BYTES_PER_READING;
+    int slots = (int) (budgetBytes / slotBytes);
+    checkArgument(slots > 0, "Recent measurements budget cannot hold the readings of a single sensor");
+
+    this.readings = ByteBuffer.allocateDirect(slots * slotBytes);
+    this.locks = new Object[slots];
+    this.owners = new UUID[slots];
+    this.tails = new int[slots];
+    this.sizes = new int[slots];
+    this.coveredFrom = new long[slots];
+    this.referenced = new boolean[slots];
+    for (int slot = 0; slot < slots; slot++) {
+      locks[slot] = new Object();
+      freeSlots.add(slot);
+    }
+    operationalMetrics.registerRecentMeasurementStore(this);
+  }
+
+  /**
+   * Gives a slot to a sensor which has none, loading its readings of the last hours from the database.
+   * <br>
+   * Since the slot must only hold committed readings, the sensor has to be tracked before its new readings are
+   * stored.
+   *
+   * @param sensorId sensor id
+   */
+  public void track(UUID sensorId) {
+    Integer slot = slotsBySensor.get(sensorId);
+    if (slot != null) {
+      referenced[slot] = true;
+      return;
+    }
+
+    long horizon = System.currentTimeMillis() - retentionMillis;
+    List<Measurement> measurements =
+        measurementRepository.findBySensorIdOrderByCreatedDesc(sensorId, PageRequest.of(0, capacity));
+    synchronized (this) {
+      if (slotsBySensor.containsKey(sensorId)) {
+        return;
+      }
+      slot = takeSlot();
+      synchronized (locks[slot]) {
+        owners[slot] = sensorId;
+        tails[slot] = 0;
+        sizes[slot] = 0;
+        coveredFrom[slot] = horizon;
+        referenced[slot] = true;
+        if (measurements.size() == capacity) {
+          coveredFrom[slot] = Math.max(horizon, epochMillis(measurements.get(capacity - 1)) + 1);
+        }
+        for (int i = measurements.size() - 1; i >= 0; i--) {
+          long created = epochMillis(measurements.get(i));
+          if (created >= coveredFrom[slot]) {
+            append(slot, created, measurements.get(i).getCo2Quantity());
+          }
+        }
+      }
+      slotsBySensor.put(sensorId, slot);
+    }
+  }
+
+  /**
+   * Adds a reading of a tracked sensor, keeping the readings of its slot ordered by creation time. Readings of
+   * sensors which are not tracked, and readings older than the ones the slot covers, are ignored.
+   *
+   * @param sensorId sensor of the reading
+   * @param created creation time of the reading, in epoch millis
+   * @param co2Quantity CO2 quantity of the reading
+   */
+  public void add(UUID sensorId, long created, double co2Quantity) {
+    Integer slot = slotsBySensor.get(sensorId);
+    if (slot == null) {
+      return;
+    }
+
+    synchronized (locks[slot]) {
+      if (!sensorId.equals(owners[slot])) {
+        return;
+      }
+      expire(slot);
+      if (created < coveredFrom[slot]) {
+        return;
+      }
+      if (sizes[slot] == capacity) {
+        coveredFrom[slot] = Math.max(coveredFrom[slot], createdAt(slot, 0) + 1);
+        tails[slot] = (tails[slot] + 1) % capacity;
+        sizes[slot]--;
+        if (created < coveredFrom[slot]) {
+          return;
+        }
+      }
+
+      // shift newer readings one slot towards the head until the new reading is in order
+      int position = sizes[slot];
+      while (position > 0 && createdAt(slot, position - 1) > created) {
+        write(slot, position, createdAt(slot, position - 1), co2QuantityAt(slot, position - 1));
+        position--;
+      }
+      write(slot, position, created, co2Quantity);
+      sizes[slot]++;
+    }
+  }
+
+  /**
+   * Computes the statistics of the readings of a sensor created in a time range, when its slot holds every reading of
+   * that range.
+   *
+   * @param sensorId sensor id
+   * @param from start of the range, in epoch millis
+   * @param to end of the range, excluded, in epoch millis
+   *
+   * @return statistics of the readings, or empty when they have to be read from the database
+   */
+  public Optional<MeasurementStatistics> computeStatistics(UUID sensorId, long from, long to) {
+    Integer slot = slotsBySensor.get(sensorId);
+    if (slot == null) {
+      return Optional.empty();
+    }
+
+    synchronized (locks[slot]) {
+      if (!sensorId.equals(owners[slot])) {
+        return Optional.empty();
+      }
+      expire(slot);
+      if (from < coveredFrom[slot]) {
+        return Optional.empty();
+      }
+      referenced[slot] = true;
+
+      long count = 0;
+      double sum = 0;
+      double max = Double.NEGATIVE_INFINITY;
+      double min = Double.POSITIVE_INFINITY;
+      for (int position = 0; position < sizes[slot]; position++) {
+        long created = createdAt(slot, position);
+        if (created >= to) {
+          break;
+        }
+        if (created >= from) {
+          double co2Quantity = co2QuantityAt(slot, position);
+          count++;
+          sum += co2Quantity;
+          max = Math.max(max, co2Quantity);
+          min = Math.min(min, co2Quantity);
+        }
+      }
+      return Optional.of(count == 0 ? MeasurementStatistics.empty() : new MeasurementStatistics(count, sum, max, min));
+    }
+  }
+
+  /**
+   * Fills a window with the most recent readings of a sensor, when its slot holds at least as many readings as the
+   * window can.
+   *
+   * @param sensorId sensor id
+   * @param window empty window
+   *
+   * @return false when the readings have to be read from the database
+   */
+  public boolean fillWindow(UUID sensorId, MeasurementWindow window) {
+    Integer slot = slotsBySensor.get(sensorId);
+    if (slot == null) {
+      return false;
+    }
+
+    synchronized (locks[slot]) {
+      if (!sensorId.equals(owners[slot]) || sizes[slot] < window.capacity()) {
+        return false;
+      }
+      for (int position = sizes[slot] - window.capacity(); position < sizes[slot]; position++) {
+        window.add(createdAt(slot, position), co2QuantityAt(slot, position));
+      }
+      return true;
+    }
+  }
+
+  /**
+   * Drops the slot of a sensor, so that it is reloaded from the database next time.
+   *
+   * @param sensorId sensor id
+   */
+  public synchronized void evict(UUID sensorId) {
+    Integer slot = slotsBySensor.remove(sensorId);
+    if (slot == null) {
+      return;
+    }
+    synchronized (locks[slot]) {
+      owners[slot] = null;
+    }
+    freeSlots.push(slot);
+  }
+
+  public int size() {
+    return slotsBySensor.size();
+  }
+
+  public int slots() {
+    return owners.length;
+  }
+
+  /**
+   * Finds a free slot, or takes over the first slot not referenced since the clock hand last passed over it.
+   */
+  private int takeSlot() {
+    Integer free = freeSlots.poll();
+    if (free != null) {
+      return free;
+    }
+
+    while (referenced[clockHand]) {
+      referenced[clockHand] = false;
+      clockHand = (clockHand + 1) % owners.length;
+    }
+    int slot = clockHand;
+    clockHand = (clockHand + 1) % owners.length;
+    synchronized (locks[slot]) {
+      slotsBySensor.remove(owners[slot]);
+      owners[slot] = null;
+    }
+    return slot;
+  }
+
+  /**
+   * Drops the readings of a slot which are older than the retention.
+   */
+  private void expire(int slot) {
+    long horizon = System.currentTimeMillis() - retentionMillis;
+    while (sizes[slot] > 0 && createdAt(slot, 0) < horizon) {
+      tails[slot] = (tails[slot] + 1) % capacity;
+      sizes[slot]--;
+    }
+    coveredFrom[slot] = Math.max(coveredFrom[slot], horizon);
+  }
+
+  private void append(int slot, long created, double co2Quantity) {
+    write(slot, sizes[slot], created, co2Quantity);
+    sizes[slot]++;
+  }
+
+  /**
+   * @param position 0 for the oldest reading of the slot, 1 for the one after it, and so on
+   */
+  private long createdAt(int slot, int position) {
+    return readings.getLong(slot * slotBytes + index(slot, position) * Long.BYTES);
+  }
+
+  private double co2QuantityAt(int slot, int position) {
+    return readings.getDouble(slot * slotBytes + capacity * Long.BYTES + index(slot, position) * Double.BYTES);
+  }
+
+  private void write(int slot, int position, long created, double co2Quantity) {
+    int index = index(slot, position);
+    readings.putLong(slot * slotBytes + index * Long.BYTES, created);
+    readings.putDouble(slot * slotBytes + capacity * Long.BYTES + index * Double.BYTES, co2Quantity);
+  }
+
+  private int index(int slot, int position) {
+    return (tails[slot] + position) % capacity;
+  }
+
+  private static long epochMillis(Measurement measurement) {
+    return measurement.getCreated().toEpochMilli();
+  }
+}
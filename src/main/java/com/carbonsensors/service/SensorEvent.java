@@ -0,0 +1,32 @@
+package com.carbonsensors.service;
+
+import com.carbonsensors.model.Status;
+
+import java.time.Instant;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * A committed change of a sensor: either a status transition, or a new alert.
+ */
+@Getter
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class SensorEvent {
+
+  private final SensorEventType type;
+  private final UUID sensorId;
+  /**
+   * Status of the sensor before the change, null for a sensor which had none.
+   */
+  private final Status previousStatus;
+  private final Status status;
+  /**
+   * Creation time of the measurement which caused the change.
+   */
+  private final Instant time;
+}
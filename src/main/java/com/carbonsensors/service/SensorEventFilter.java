@@ -0,0 +1,74 @@
+package com.carbonsensors.service;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.carbonsensors.model.Status;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.UUID;
+import lombok.Getter;
+
+/**
+ * Events a subscriber is interested in: those of a single sensor or of the whole fleet, optionally restricted to some
+ * types and to some statuses reached by the sensors.
+ */
+@Getter
+public class SensorEventFilter {
+
+  private final UUID sensorId;
+  private final Set<SensorEventType> types;
+  private final Set<Status> statuses;
+
+  private SensorEventFilter(UUID sensorId, Set<SensorEventType> types, Set<Status> statuses) {
+    this.sensorId = sensorId;
+    this.types = types;
+    this.statuses = statuses;
+  }
+
+  /**
+   * Builds a filter from the parameters of a request. Null or empty types and statuses match any of them.
+   *
+   * @param sensorId sensor whose events are streamed, null for the whole fleet
+   * @param types types of the events, {@code status} or {@code alert}
+   * @param statuses statuses reached by the sensors, {@code OK}, {@code WARM} or {@code ALERT}
+   *
+   * @return filter of the events
+   *
+   * @throws IllegalArgumentException when a type or a status is unknown
+   */
+  public static SensorEventFilter of(UUID sensorId, Collection<String> types, Collection<String> statuses) {
+    Set<SensorEventType> eventTypes = EnumSet.allOf(SensorEventType.class);
+    if (types != null && !types.isEmpty()) {
+      eventTypes.clear();
+      types.forEach(type -> eventTypes.add(SensorEventType.fromParameter(type)));
+    }
+
+    Set<Status> reachedStatuses = EnumSet.allOf(Status.class);
+    if (statuses != null && !statuses.isEmpty()) {
+      reachedStatuses.clear();
+      statuses.forEach(status -> reachedStatuses.add(parseStatus(status)));
+    }
+
+    return new SensorEventFilter(sensorId, Collections.unmodifiableSet(eventTypes),
+        Collections.unmodifiableSet(reachedStatuses));
+  }
+
+  public boolean matches(SensorEvent event) {
+    return (sensorId == null || sensorId.equals(event.getSensorId()))
+        && types.contains(event.getType())
+        && statuses.contains(event.getStatus());
+  }
+
+  private static Status parseStatus(String status) {
+    checkArgument(status != null, "Sensor status cannot be null");
+    return Arrays.stream(Status.values())
+        .filter(value -> value.name().equalsIgnoreCase(status))
+        .findFirst()
+        .orElseThrow(() -> new IllegalArgumentException(
+            "Sensor status must be one of " + Arrays.toString(Status.values()) + ". Entered value: " + status));
+  }
+}
@@ -0,0 +1,206 @@
+package com.carbonsensors.service;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.carbonsensors.config.ConfigurationProperties;
+import com.carbonsensors.model.Status;
+import com.carbonsensors.service.SensorStatusMachine.Transition;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PreDestroy;
+
+/**
+ * Pushes the status transitions and the new alerts of the sensors to the subscribers of their event streams, once
+ * the transaction which made the change is committed.
+ * <br>
+ * Each subscriber has a buffer of {@code sensor.events.buffer.size} events, drained by a pool of
+ * {@code sensor.events.dispatcher.threads} threads, so that neither the measurement transactions nor the other
+ * subscribers wait for a slow one. A subscriber whose buffer is full is evicted and its stream is ended: its client is
+ * expected to reconnect and read the current status of its sensors again. A heartbeat is sent to every subscriber
+ * every {@code sensor.events.heartbeat.ms}, which keeps idle connections open and detects the clients which went
+ * away.
+ */
+@Component
+public class SensorEventHub {
+
+  private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+  private final OperationalMetrics operationalMetrics;
+  private final ExecutorService dispatcher;
+  private final int bufferSize;
+
+  public SensorEventHub(ConfigurationProperties configurationProperties, OperationalMetrics operationalMetrics) {
+    this.operationalMetrics = operationalMetrics;
+    this.bufferSize = configurationProperties.getSensorEventsBufferSize();
+    checkArgument(bufferSize > 0, "Sensor events buffer size must be positive. Entered value: " + bufferSize);
+
+    AtomicInteger threads = new AtomicInteger();
+    this.dispatcher = Executors.newFixedThreadPool(configurationProperties.getSensorEventsDispatcherThreads(),
+        runnable -> {
+          Thread thread = new Thread(runnable, "sensor-events-" + threads.getAndIncrement());
+          thread.setDaemon(true);
+          return thread;
+        });
+    operationalMetrics.registerSensorEventHub(this);
+  }
+
+  /**
+   * Starts delivering the events matching a filter to a subscriber. A first heartbeat is sent right away, so that the
+   * client knows its stream is open.
+   *
+   * @param filter events the subscriber is interested in
+   * @param sink connection of the subscriber
+   *
+   * @return subscription, to be cancelled when the client goes away
+   */
+  public Subscription subscribe(SensorEventFilter filter, SensorEventSink sink) {
+    Subscription subscription = new Subscription(filter, sink);
+    subscriptions.add(subscription);
+    subscription.heartbeat();
+    return subscription;
+  }
+
+  /**
+   * Publishes the events of a status change decided by the {@link SensorStatusMachine} once the current transaction is
+   * committed: a status event when the status changes, followed by an alert event when an alert is opened.
+   *
+   * @param sensorId sensor whose status is evaluated
+   * @param from status of the sensor before the transition
+   * @param transition transition applied to the sensor
+   * @param time creation time of the measurement which caused the transition
+   */
+  public void publishAfterCommit(UUID sensorId, Status from, Transition transition, Instant time) {
+    Status to = transition.apply(from);
+    if (to != from) {
+      SensorEvent statusChanged = new SensorEvent(SensorEventType.STATUS, sensorId, from, to, time);
+      TransactionCallbacks.afterCommit(() -> publish(statusChanged));
+    }
+    if (transition == Transition.OPEN_ALERT) {
+      SensorEvent alertOpened = new SensorEvent(SensorEventType.ALERT, sensorId, from, to, time);
+      TransactionCallbacks.afterCommit(() -> publish(alertOpened));
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${sensor.events.heartbeat.ms}")
+  public void sendHeartbeats() {
+    subscriptions.forEach(Subscription::heartbeat);
+  }
+
+  public int size() {
+    return subscriptions.size();
+  }
+
+  @PreDestroy
+  public void stop() {
+    subscriptions.forEach(subscription -> subscription.end(false));
+    dispatcher.shutdownNow();
+  }
+
+  void publish(SensorEvent event) {
+    for (Subscription subscription : subscriptions) {
+      if (subscription.filter.matches(event)) {
+        subscription.offer(event);
+      }
+    }
+  }
+
+  /**
+   * Events buffered for a subscriber. The buffer is drained by one dispatcher thread at a time.
+   */
+  public final class Subscription {
+
+    private final SensorEventFilter filter;
+    private final SensorEventSink sink;
+    private final BlockingQueue<SensorEvent> buffer = new ArrayBlockingQueue<>(bufferSize);
+    private final AtomicInteger pendingDrains = new AtomicInteger();
+    private volatile boolean heartbeatDue;
+
+    private Subscription(SensorEventFilter filter, SensorEventSink sink) {
+      this.filter = filter;
+      this.sink = sink;
+    }
+
+    /**
+     * Stops delivering events, once the client went away.
+     */
+    public void cancel() {
+      subscriptions.remove(this);
+      buffer.clear();
+    }
+
+    /**
+     * Delivers the buffered events, once the sink is ready again.
+     */
+    public void resume() {
+      scheduleDrain();
+    }
+
+    private void offer(SensorEvent event) {
+      if (buffer.offer(event)) {
+        scheduleDrain();
+      } else {
+        end(true);
+      }
+    }
+
+    private void heartbeat() {
+      heartbeatDue = true;
+      scheduleDrain();
+    }
+
+    private void end(boolean evicted) {
+      if (subscriptions.remove(this)) {
+        if (evicted) {
+          operationalMetrics.countSensorEventSubscriberEvicted();
+        }
+        buffer.clear();
+        sink.close();
+      }
+    }
+
+    private void scheduleDrain() {
+      if (pendingDrains.getAndIncrement() == 0) {
+        try {
+          dispatcher.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+          // the application is shutting down, and every stream is being ended
+        }
+      }
+    }
+
+    /**
+     * Sends the due heartbeat and the buffered events while the sink is ready, until no other drain was requested in
+     * the meantime.
+     */
+    private void drain() {
+      int pending = 1;
+      do {
+        try {
+          if (heartbeatDue && sink.isReady()) {
+            heartbeatDue = false;
+            sink.heartbeat();
+          }
+          SensorEvent event;
+          while (sink.isReady() && (event = buffer.poll()) != null) {
+            sink.send(event);
+          }
+        } catch (IOException | RuntimeException e) {
+          // the client went away
+          end(false);
+        }
+        pending = pendingDrains.addAndGet(-pending);
+      } while (pending != 0);
+    }
+  }
+}
@@ -0,0 +1,29 @@
+package com.carbonsensors.service;
+
+import java.io.IOException;
+
+/**
+ * Connection of a subscriber of the sensor events, written to by a single dispatcher thread at a time.
+ * <br>
+ * The dispatcher threads are shared by every subscriber, so a sink must not block them: one which cannot take an
+ * event right away reports it through {@link #isReady()} instead.
+ */
+public interface SensorEventSink {
+
+  void send(SensorEvent event) throws IOException;
+
+  void heartbeat() throws IOException;
+
+  /**
+   * @return whether the subscriber can take an event right away. Buffered events are delivered once
+   *     {@link SensorEventHub.Subscription#resume()} is called.
+   */
+  default boolean isReady() {
+    return true;
+  }
+
+  /**
+   * Ends the stream of the subscriber, which is no longer written to.
+   */
+  void close();
+}
@@ -0,0 +1,38 @@
+package com.carbonsensors.service;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.Arrays;
+
+/**
+ * Kind of change pushed to the subscribers of the sensor event streams, named after the SSE event it is sent as.
+ */
+public enum SensorEventType {
+
+  STATUS("status"),
+  ALERT("alert");
+
+  private final String parameter;
+
+  SensorEventType(String parameter) {
+    this.parameter = parameter;
+  }
+
+  public String getParameter() {
+    return parameter;
+  }
+
+  /**
+   * Parses a type as given in a request, {@code status} or {@code alert}, ignoring the case.
+   *
+   * @throws IllegalArgumentException when the type is null or unknown
+   */
+  public static SensorEventType fromParameter(String parameter) {
+    checkArgument(parameter != null, "Sensor event type cannot be null");
+    return Arrays.stream(values())
+        .filter(type -> type.parameter.equalsIgnoreCase(parameter))
+        .findFirst()
+        .orElseThrow(() -> new IllegalArgumentException(
+            "Sensor event type must be one of status or alert. Entered value: " + parameter));
+  }
+}
@@ -0,0 +1,50 @@
+package com.carbonsensors.service;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Inclusive range of sensor ids, used to split the fleet into partitions which are queried independently.
+ * <br>
+ * H2 compares UUIDs as two signed longs, the most significant one first, which is also the order of
+ * {@link UUID#compareTo}. The id space is split into ranges of equal width of the most significant long, so that
+ * random ids, as given to the sensors, spread evenly across the ranges.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+class SensorIdRange {
+
+  private final UUID from;
+  private final UUID to;
+
+  /**
+   * Splits the whole id space into consecutive ranges covering every id exactly once.
+   *
+   * @param partitions number of ranges
+   *
+   * @return ranges, in ascending order of ids
+   */
+  static List<SensorIdRange> partition(int partitions) {
+    checkArgument(partitions > 0, "Number of partitions must be greater than zero. Entered value: " + partitions);
+
+    long width = Long.divideUnsigned(-1L, partitions) + 1;
+    List<SensorIdRange> ranges = new ArrayList<>(partitions);
+    for (int partition = 0; partition < partitions; partition++) {
+      long fromHigh = Long.MIN_VALUE + partition * width;
+      long toHigh = partition == partitions - 1 ? Long.MAX_VALUE : fromHigh + width - 1;
+      ranges.add(new SensorIdRange(new UUID(fromHigh, Long.MIN_VALUE), new UUID(toHigh, Long.MAX_VALUE)));
+    }
+    return ranges;
+  }
+
+  boolean contains(UUID sensorId) {
+    return sensorId.compareTo(from) >= 0 && sensorId.compareTo(to) <= 0;
+  }
+}
@@ -0,0 +1,47 @@
+package com.carbonsensors.service;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.carbonsensors.config.ConfigurationProperties;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Striped;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Serializes the ingestion of the measurements of each sensor, while measurements of different sensors are still
+ * ingested in parallel.
+ * <br>
+ * Sensors are mapped to a fixed number of striped locks. A lock is held until the transaction which took it
+ * completes, so the next measurement of the sensor reads the window and status left by the previous one only once
+ * they are committed. Taking a single stripe for every sensor turns it into a global lock.
+ */
+@Component
+public class SensorLocks {
+
+  private final Striped<Lock> locks;
+
+  public SensorLocks(ConfigurationProperties configurationProperties) {
+    int stripes = configurationProperties.getMeasurementSensorLockStripes();
+    checkArgument(stripes > 0, "Number of sensor lock stripes must be greater than zero. Entered value: " + stripes);
+    this.locks = Striped.lock(stripes);
+  }
+
+  /**
+   * Locks the given sensors until the current transaction completes. Outside a transaction the locks are released
+   * right away.
+   * <br>
+   * Stripes are always taken in the same order, so that transactions locking several sensors cannot deadlock.
+   *
+   * @param sensorIds sensors to be locked
+   */
+  public void lockUntilTransactionCompletes(Collection<UUID> sensorIds) {
+    List<Lock> stripes = Lists.newArrayList(locks.bulkGet(sensorIds));
+    stripes.forEach(Lock::lock);
+    TransactionCallbacks.afterCompletion(() -> Lists.reverse(stripes).forEach(Lock::unlock));
+  }
+}
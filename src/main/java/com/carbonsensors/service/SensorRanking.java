@@ -0,0 +1,18 @@
+package com.carbonsensors.service;
+
+import com.carbonsensors.model.projection.MeasurementStatistics;
+
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Statistics of the CO2 measurements of a sensor within the window of a fleet ranking.
+ */
+@Getter
+@AllArgsConstructor
+public class SensorRanking {
+
+  private final UUID sensorId;
+  private final MeasurementStatistics statistics;
+}
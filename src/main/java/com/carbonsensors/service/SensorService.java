@@ -6,27 +6,52 @@ import com.carbonsensors.config.ConfigurationProperties;
 import com.carbonsensors.model.Sensor;
 import com.carbonsensors.model.Status;
 import com.carbonsensors.model.projection.SensorMetrics;
-import com.carbonsensors.repository.MeasurementRepository;
+import com.carbonsensors.model.projection.SensorStatusValue;
+import com.carbonsensors.repository.SensorBulkRepository;
 import com.carbonsensors.repository.SensorRepository;
+import com.google.common.collect.Lists;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.ZonedDateTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
 public class SensorService {
 
-  private final MeasurementRepository measurementRepository;
+  private final MeasurementAggregateService measurementAggregateService;
   private final SensorRepository sensorRepository;
+  private final SensorBulkRepository sensorBulkRepository;
   private final ConfigurationProperties configurationProperties;
+  private final SensorStatusCache sensorStatusCache;
+  private final OperationalMetrics operationalMetrics;
 
-  public SensorService(MeasurementRepository measurementRepository,
+  public SensorService(MeasurementAggregateService measurementAggregateService,
                        SensorRepository sensorRepository,
-                       ConfigurationProperties configurationProperties) {
-    this.measurementRepository = measurementRepository;
+                       SensorBulkRepository sensorBulkRepository,
+                       ConfigurationProperties configurationProperties,
+                       SensorStatusCache sensorStatusCache,
+                       OperationalMetrics operationalMetrics) {
+    this.measurementAggregateService = measurementAggregateService;
     this.sensorRepository = sensorRepository;
+    this.sensorBulkRepository = sensorBulkRepository;
     this.configurationProperties = configurationProperties;
+    this.sensorStatusCache = sensorStatusCache;
+    this.operationalMetrics = operationalMetrics;
+
+    Integer chunkSize = configurationProperties.getSensorStatusBulkChunkSize();
+    checkArgument(chunkSize > 0, "Sensor status chunk size must be greater than zero. Entered value: " + chunkSize);
+    Integer batchSize = configurationProperties.getSensorProvisioningBatchSize();
+    checkArgument(batchSize > 0, "Sensor provisioning batch size must be greater than zero. Entered value: "
+        + batchSize);
   }
 
   public Sensor createSensor() {
@@ -38,6 +63,24 @@ public class SensorService {
     return sensorRepository.save(sensor);
   }
 
+  /**
+   * Creates several sensors in a single transaction, inserted in batches of {@code sensor.provisioning.batch.size}.
+   * Either the number of sensors to create, or their ids, must be given. Given ids which are already taken are left
+   * untouched, so that a provisioning can be retried with the same ids.
+   *
+   * @param count number of sensors to create, with new ids
+   * @param sensorIds ids of the sensors to create
+   *
+   * @return ids of the sensors, in the order they were given
+   */
+  @Transactional
+  public List<UUID> createSensors(Integer count, List<UUID> sensorIds) {
+    List<UUID> ids = newSensorIds(count, sensorIds, configurationProperties.getSensorProvisioningMaxSize());
+
+    sensorBulkRepository.insertIfAbsent(ids, Status.OK, configurationProperties.getSensorProvisioningBatchSize());
+    return ids;
+  }
+
   public Sensor findSensorById(UUID sensorId) {
     checkArgument(sensorId != null, "Sensor Id cannot be null");
 
@@ -45,12 +88,80 @@ public class SensorService {
         .orElseThrow(() -> new IllegalArgumentException("Sensor entity could be be found given the id: " + sensorId));
   }
 
+  /**
+   * Finds the status of a sensor in the {@link SensorStatusCache}, loading it from the database on a miss.
+   *
+   * @param sensorId sensor id
+   *
+   * @return status of the sensor
+   */
+  public Status findSensorStatusById(UUID sensorId) {
+    checkArgument(sensorId != null, "Sensor Id cannot be null");
+
+    return sensorStatusCache.get(sensorId, id -> findSensorById(id).getStatus());
+  }
+
+  /**
+   * Finds the statuses of several sensors at once. Cached statuses are served from the {@link SensorStatusCache}, and
+   * the missing ones are loaded together, {@code sensor.status.bulk.chunk.size} ids per query.
+   *
+   * @param sensorIds sensor ids, at most {@code sensor.status.bulk.max.size}
+   *
+   * @return statuses of the known sensors, and the ids which match no sensor
+   */
+  public SensorStatuses findSensorStatusesByIds(List<UUID> sensorIds) {
+    checkSensorIds(sensorIds, configurationProperties.getSensorStatusBulkMaxSize());
+
+    Set<UUID> ids = new LinkedHashSet<>(sensorIds);
+    return SensorStatuses.of(ids, sensorStatusCache.getAll(ids, this::loadStatuses));
+  }
+
+  public SensorStatusCacheStatistics findSensorStatusCacheStatistics() {
+    return sensorStatusCache.statistics();
+  }
+
   @Transactional
   public SensorMetrics findMetricsBySensorId(UUID sensorId) {
     checkArgument(sensorId != null, "Sensor Id cannot be null");
 
     Integer metricsCo2Days = configurationProperties.getMetricsCo2Days();
 
-    return measurementRepository.computeMetricsById(sensorId, ZonedDateTime.now().minusDays(metricsCo2Days));
+    return operationalMetrics.recordSensorMetricsQuery(() -> measurementAggregateService
+        .computeStatisticsSince(sensorId, Instant.now().minus(Duration.ofDays(metricsCo2Days)))
+        .toSensorMetrics());
+  }
+
+  static List<UUID> newSensorIds(Integer count, List<UUID> sensorIds, int maxSize) {
+    checkArgument((count == null) != (sensorIds == null), "Either a count of sensors or their ids must be given");
+
+    if (sensorIds != null) {
+      checkSensorIds(sensorIds, maxSize);
+      return new ArrayList<>(new LinkedHashSet<>(sensorIds));
+    }
+    checkArgument(count > 0 && count <= maxSize,
+        "Count of sensors must be between 1 and " + maxSize + ". Entered value: " + count);
+    List<UUID> ids = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      ids.add(UUID.randomUUID());
+    }
+    return ids;
+  }
+
+  static void checkSensorIds(List<UUID> sensorIds, int maxSize) {
+    checkArgument(sensorIds != null, "Sensor ids cannot be null");
+    checkArgument(sensorIds.size() <= maxSize,
+        "At most " + maxSize + " sensor ids can be given at once. Entered: " + sensorIds.size());
+    checkArgument(sensorIds.stream().allMatch(Objects::nonNull), "Sensor Id cannot be null");
+  }
+
+  private Map<UUID, Status> loadStatuses(Set<UUID> sensorIds) {
+    Map<UUID, Status> statuses = new HashMap<>();
+    for (List<UUID> chunk : Lists.partition(new ArrayList<>(sensorIds),
+        configurationProperties.getSensorStatusBulkChunkSize())) {
+      for (SensorStatusValue value : sensorRepository.findStatusesByIds(chunk)) {
+        statuses.put(value.getId(), value.getStatus());
+      }
+    }
+    return statuses;
   }
 }
@@ -0,0 +1,133 @@
+package com.carbonsensors.service;
+
+import com.carbonsensors.config.ConfigurationProperties;
+import com.carbonsensors.model.Status;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of sensor statuses, so that polling the status of a sensor does not hit the database.
+ * <br>
+ * The least recently used statuses are evicted once the configured maximum number of sensors is exceeded. Whenever
+ * the status of a sensor changes, its entry is invalidated after the change is committed, so that the next read
+ * loads the committed status. Invalidating instead of storing the new status keeps concurrent transactions from
+ * leaving an older status behind.
+ * <br>
+ * Statuses are held as futures, so that the reactive stack can load them without blocking. A status which is still
+ * being loaded when it is invalidated is not cached once loaded.
+ */
+@Component
+public class SensorStatusCache {
+
+  private final AsyncCache<UUID, Status> statuses;
+
+  public SensorStatusCache(ConfigurationProperties configurationProperties) {
+    this.statuses = Caffeine.newBuilder()
+        .maximumSize(configurationProperties.getSensorStatusCacheMaxSize())
+        .recordStats()
+        .buildAsync();
+  }
+
+  /**
+   * Gets the status of a sensor, loading and caching it if it is not cached yet.
+   *
+   * @param sensorId sensor id
+   * @param loader loads the status of a sensor from the database
+   *
+   * @return status of the sensor
+   */
+  public Status get(UUID sensorId, Function<UUID, Status> loader) {
+    // the cache is only handed a pending future, and the loader completes it afterwards on the calling thread, so that
+    // the entry is not locked while the database is queried and the exceptions of the loader reach the caller as they
+    // are thrown. Concurrent callers wait for the same load
+    CompletableFuture<Status> load = new CompletableFuture<>();
+    CompletableFuture<Status> status = statuses.get(sensorId, (id, executor) -> load);
+    if (status == load) {
+      try {
+        load.complete(loader.apply(sensorId));
+      } catch (RuntimeException | Error e) {
+        // null is not cached, and completing with it does not log the exception as a failed load would
+        load.complete(null);
+        throw e;
+      }
+    }
+
+    Status loaded = status.join();
+    // null when another caller failed to load the status
+    return loaded != null ? loaded : loader.apply(sensorId);
+  }
+
+  /**
+   * Gets the status of a sensor without blocking, loading and caching it if it is not cached yet.
+   *
+   * @param sensorId sensor id
+   * @param loader loads the status of a sensor from the database, completing with null when the sensor does not
+   *     exist, which is not cached
+   *
+   * @return status of the sensor, or null when it does not exist
+   */
+  public CompletableFuture<Status> getAsync(UUID sensorId, Function<UUID, CompletableFuture<Status>> loader) {
+    return statuses.get(sensorId, (id, executor) -> loader.apply(id));
+  }
+
+  /**
+   * Gets the statuses of several sensors, loading the ones which are not cached yet at once.
+   *
+   * @param sensorIds sensor ids
+   * @param loader loads the statuses of several sensors from the database, leaving out the sensors which do not
+   *     exist, which are not cached
+   *
+   * @return statuses of the existing sensors, by sensor id
+   */
+  public Map<UUID, Status> getAll(Collection<UUID> sensorIds, Function<Set<UUID>, Map<UUID, Status>> loader) {
+    // the missing statuses are held as futures while the loader runs on the calling thread, outside of the cache
+    return statuses.getAll(sensorIds, (ids, executor) -> CompletableFuture.completedFuture(loader.apply(toSet(ids))))
+        .join();
+  }
+
+  /**
+   * Gets the statuses of several sensors without blocking, loading the ones which are not cached yet at once.
+   *
+   * @param sensorIds sensor ids
+   * @param loader loads the statuses of several sensors from the database, leaving out the sensors which do not
+   *     exist, which are not cached
+   *
+   * @return statuses of the existing sensors, by sensor id
+   */
+  public CompletableFuture<Map<UUID, Status>> getAllAsync(
+      Collection<UUID> sensorIds, Function<Set<UUID>, CompletableFuture<Map<UUID, Status>>> loader) {
+    return statuses.getAll(sensorIds, (ids, executor) -> loader.apply(toSet(ids)));
+  }
+
+  /**
+   * Invalidates the status of a sensor once the current transaction is committed, or right away outside a
+   * transaction.
+   *
+   * @param sensorId sensor id
+   */
+  public void invalidateAfterCommit(UUID sensorId) {
+    TransactionCallbacks.afterCommit(() -> statuses.synchronous().invalidate(sensorId));
+  }
+
+  public SensorStatusCacheStatistics statistics() {
+    CacheStats stats = statuses.synchronous().stats();
+    return new SensorStatusCacheStatistics(statuses.synchronous().estimatedSize(), stats.hitCount(), stats.missCount(),
+        stats.hitRate(), stats.evictionCount());
+  }
+
+  private static Set<UUID> toSet(Iterable<? extends UUID> ids) {
+    Set<UUID> set = new HashSet<>();
+    ids.forEach(set::add);
+    return set;
+  }
+}
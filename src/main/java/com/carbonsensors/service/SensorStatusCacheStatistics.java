@@ -0,0 +1,18 @@
+package com.carbonsensors.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Snapshot of the size and hit/miss counters of the {@link SensorStatusCache}, counted since the application started.
+ */
+@Getter
+@AllArgsConstructor
+public class SensorStatusCacheStatistics {
+
+  private final long size;
+  private final long hitCount;
+  private final long missCount;
+  private final double hitRate;
+  private final long evictionCount;
+}
@@ -0,0 +1,120 @@
+package com.carbonsensors.service;
+
+import com.carbonsensors.config.ConfigurationProperties;
+import com.carbonsensors.model.Status;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decides how the status of a sensor changes after new readings, based only on its current status and its most
+ * recent readings. It holds no state and touches no storage, so that both the servlet and the reactive stacks apply
+ * the same rules:
+ * <ul>
+ *   <li>the last {@code consecutive.measurements.for.alert} readings above the threshold open an alert, or extend
+ *   the open one;</li>
+ *   <li>the last {@code consecutive.measurements.for.ok} readings at or below the threshold close it;</li>
+ *   <li>otherwise a sensor not in alert is OK or WARM depending on its latest reading.</li>
+ * </ul>
+ */
+@Component
+public class SensorStatusMachine {
+
+  /**
+   * Change to be applied to a sensor and its alerts.
+   */
+  public enum Transition {
+    OPEN_ALERT(Status.ALERT),
+    EXTEND_ALERT(Status.ALERT),
+    SET_OK(Status.OK),
+    SET_WARM(Status.WARM),
+    NONE(null);
+
+    private final Status status;
+
+    Transition(Status status) {
+      this.status = status;
+    }
+
+    /**
+     * @param current status of the sensor before the transition
+     *
+     * @return status of the sensor after the transition
+     */
+    public Status apply(Status current) {
+      return status != null ? status : current;
+    }
+  }
+
+  private final ConfigurationProperties configurationProperties;
+
+  public SensorStatusMachine(ConfigurationProperties configurationProperties) {
+    this.configurationProperties = configurationProperties;
+  }
+
+  /**
+   * @param current current status of the sensor, null for a sensor which has none
+   * @param window most recent readings of the sensor, already holding the new ones
+   *
+   * @return change to be applied to the sensor
+   */
+  public Transition next(Status current, MeasurementWindow window) {
+    return next(current, window, 0);
+  }
+
+  /**
+   * Decides the change as of a reading of the window, as if the readings created after it had not been received yet.
+   *
+   * @param current status of the sensor before the reading, null for a sensor which had none
+   * @param window readings of the sensor
+   * @param position position of the reading, 0 for the most recent one
+   *
+   * @return change to be applied to the sensor
+   */
+  public Transition next(Status current, MeasurementWindow window, int position) {
+    int co2Threshold = configurationProperties.getCo2LevelThreshold();
+
+    if (window.areAbove(co2Threshold, position, getConsecutiveMeasurementsForAlert())) {
+      return current == Status.ALERT ? Transition.EXTEND_ALERT : Transition.OPEN_ALERT;
+    } else if (window.areAtOrBelow(co2Threshold, position,
+        configurationProperties.getConsecutiveMeasurementsForOk())) {
+      return Transition.SET_OK;
+    } else if (current != Status.ALERT && window.size() > position) {
+      return window.getCo2Quantity(position) <= co2Threshold ? Transition.SET_OK : Transition.SET_WARM;
+    }
+    return Transition.NONE;
+  }
+
+  /**
+   * Re-evaluates the readings of a window from a given one up to the most recent one, one after the other in order of
+   * creation time, as if they had been received in that order.
+   *
+   * @param before status of the sensor before the reading at {@code from}, null for a sensor which had none
+   * @param window readings of the sensor
+   * @param from position of the first reading to re-evaluate
+   *
+   * @return change of each re-evaluated reading, indexed by its position
+   */
+  public Transition[] replay(Status before, MeasurementWindow window, int from) {
+    Transition[] transitions = new Transition[from + 1];
+    Status status = before;
+    for (int position = from; position >= 0; position--) {
+      transitions[position] = next(status, window, position);
+      status = transitions[position].apply(status);
+    }
+    return transitions;
+  }
+
+  /**
+   * @return number of consecutive readings above the threshold which open an alert, and are part of it
+   */
+  public int getConsecutiveMeasurementsForAlert() {
+    return configurationProperties.getConsecutiveMeasurementsForAlert();
+  }
+
+  /**
+   * @return number of readings a window must hold for {@link #next} to take every rule into account
+   */
+  public int getWindowCapacity() {
+    return Math.max(configurationProperties.getConsecutiveMeasurementsForAlert(),
+        configurationProperties.getConsecutiveMeasurementsForOk());
+  }
+}
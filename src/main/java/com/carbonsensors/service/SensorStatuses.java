@@ -0,0 +1,38 @@
+package com.carbonsensors.service;
+
+import com.carbonsensors.model.Status;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Outcome of a bulk status lookup: the statuses of the known sensors, in the order they were asked for, and the ids
+ * which match no sensor.
+ */
+@Getter
+@AllArgsConstructor
+public class SensorStatuses {
+
+  private final Map<UUID, Status> statuses;
+  private final List<UUID> unknown;
+
+  static SensorStatuses of(Collection<UUID> sensorIds, Map<UUID, Status> found) {
+    Map<UUID, Status> statuses = new LinkedHashMap<>();
+    List<UUID> unknown = new ArrayList<>();
+    for (UUID sensorId : sensorIds) {
+      Status status = found.get(sensorId);
+      if (status != null) {
+        statuses.put(sensorId, status);
+      } else {
+        unknown.add(sensorId);
+      }
+    }
+    return new SensorStatuses(statuses, unknown);
+  }
+}
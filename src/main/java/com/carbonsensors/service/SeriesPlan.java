@@ -0,0 +1,228 @@
+package com.carbonsensors.service;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.carbonsensors.model.RollupResolution;
+import com.carbonsensors.model.projection.MeasurementStatistics;
+import com.carbonsensors.model.projection.RollupBucket;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Decides how the series of the measurements of a sensor over {@code [from, to)} is read, for both the servlet and
+ * the reactive stacks.
+ * <br>
+ * The series is read from the coarsest rollup whose buckets divide the requested resolution. The whole buckets of that
+ * rollup within the range are read from the rollup, while the partial buckets at both ends of the range are read from
+ * the measurements themselves, so that the result is exact. Each of those partial buckets lies within a single bucket
+ * of the series, since the buckets of both are aligned on the epoch.
+ * <br>
+ * The measurements older than the retention horizon may have been purged, so the parts of the partial buckets before
+ * the horizon are read from the minute rollup instead, which is kept. The range must then start and end on a whole
+ * minute there, for the result to stay exact.
+ */
+@Getter
+class SeriesPlan {
+
+  private final Instant from;
+  private final Instant to;
+  private final Duration resolution;
+  private final RollupResolution rollup;
+  private final Instant horizon;
+
+  /**
+   * Start of the first and end of the last whole bucket of the rollup within the range. When the range lies within a
+   * single bucket of the rollup, the start is after the end.
+   */
+  private final Instant rollupFrom;
+  private final Instant rollupTo;
+
+  private SeriesPlan(Instant from, Instant to, Duration resolution, Instant horizon) {
+    this.from = from;
+    this.to = to;
+    this.resolution = resolution;
+    this.rollup = coarsestRollupDividing(resolution);
+    this.horizon = horizon;
+
+    Instant firstBucket = rollup.truncate(from);
+    this.rollupFrom = firstBucket.isBefore(from) ? firstBucket.plus(rollup.getDuration()) : firstBucket;
+    this.rollupTo = rollup.truncate(to);
+  }
+
+  /**
+   * @param from start of the series
+   * @param to end of the series, excluded
+   * @param resolution width of the buckets of the series, either an ISO-8601 duration which is a whole number of
+   *     minutes, e.g. {@code PT15M}, or the name of a rollup, e.g. {@code hour}. When null, the finest rollup which
+   *     keeps the series within the maximum number of points is used
+   * @param maxPoints maximum number of buckets of the series
+   * @param horizon moment before which the measurements may have been purged by the retention
+   *
+   * @return plan of the series
+   *
+   * @throws IllegalArgumentException when the range or the resolution are not valid, the range does not start or end
+   *     on a whole minute before the retention horizon, or the series would hold too many buckets
+   */
+  static SeriesPlan of(Instant from, Instant to, String resolution, int maxPoints, Instant horizon) {
+    checkArgument(from != null && to != null, "Start and end of the series cannot be null");
+    checkArgument(from.isBefore(to), "Start of the series must be before its end");
+    checkArgument(!from.isBefore(horizon) || isWholeMinute(from), "Series starting before the retention horizon "
+        + horizon + " must start on a whole minute. Entered value: " + from);
+    checkArgument(!RollupResolution.MINUTE.truncate(to).isBefore(horizon) || isWholeMinute(to),
+        "Series ending before the retention horizon " + horizon + " must end on a whole minute. Entered value: " + to);
+
+    Duration width = resolution != null ? parseResolution(resolution) : finestFitting(from, to, maxPoints);
+    long points = countBuckets(from, to, width);
+    checkArgument(points <= maxPoints, "Series would hold " + points + " points, more than the maximum of "
+        + maxPoints + ". Narrow the time range or enter a coarser resolution");
+
+    return new SeriesPlan(from, to, width, horizon);
+  }
+
+  boolean hasWholeRollupBuckets() {
+    return rollupFrom.isBefore(rollupTo);
+  }
+
+  /**
+   * @return parts of the range which are not covered by whole buckets of the rollup, to be read from the measurements
+   */
+  List<Span> getRawSpans() {
+    List<Span> spans = new ArrayList<>(2);
+    for (Span span : getPartialSpans()) {
+      Instant expiredTo = getExpiredTo(span);
+      if (expiredTo.isBefore(span.to)) {
+        spans.add(new Span(expiredTo, span.to));
+      }
+    }
+    return spans;
+  }
+
+  /**
+   * @return parts of the range which are not covered by whole buckets of the rollup but are older than the retention
+   *     horizon, to be read from the minute rollup
+   */
+  List<Span> getExpiredSpans() {
+    List<Span> spans = new ArrayList<>(2);
+    for (Span span : getPartialSpans()) {
+      Instant expiredTo = getExpiredTo(span);
+      if (span.from.isBefore(expiredTo)) {
+        spans.add(new Span(span.from, expiredTo));
+      }
+    }
+    return spans;
+  }
+
+  /**
+   * The whole minutes of a partial span starting before the horizon are read from the minute rollup. Its start is a
+   * whole minute, being either the start of the range or a bucket of the rollup, and whatever follows its last whole
+   * minute is after the horizon, as checked by {@link #of}.
+   */
+  private Instant getExpiredTo(Span span) {
+    return span.from.isBefore(horizon) ? RollupResolution.MINUTE.truncate(span.to) : span.from;
+  }
+
+  private List<Span> getPartialSpans() {
+    List<Span> spans = new ArrayList<>(2);
+    if (rollupFrom.isAfter(rollupTo)) {
+      spans.add(new Span(from, to));
+      return spans;
+    }
+    if (from.isBefore(rollupFrom)) {
+      spans.add(new Span(from, rollupFrom));
+    }
+    if (rollupTo.isBefore(to)) {
+      spans.add(new Span(rollupTo, to));
+    }
+    return spans;
+  }
+
+  /**
+   * Merges the buckets read from the rollup and from the measurements into the buckets of the series.
+   *
+   * @param buckets buckets of the rollup, and statistics of the spans read from the measurements keyed by their start
+   *
+   * @return series, oldest bucket first
+   */
+  MeasurementSeries toSeries(Collection<RollupBucket> buckets) {
+    Map<Instant, MeasurementStatistics> statisticsByBucket = new TreeMap<>();
+    for (RollupBucket bucket : buckets) {
+      if (bucket.getStatistics() != null && !bucket.getStatistics().isEmpty()) {
+        statisticsByBucket.merge(RollupResolution.truncate(bucket.getStart(), resolution), bucket.getStatistics(),
+            MeasurementStatistics::plus);
+      }
+    }
+
+    List<SeriesPoint> points = statisticsByBucket.entrySet().stream()
+        .map(entry -> new SeriesPoint(entry.getKey(), entry.getValue()))
+        .collect(Collectors.toList());
+    return new MeasurementSeries(resolution, rollup, points);
+  }
+
+  private static Duration parseResolution(String resolution) {
+    Duration width;
+    try {
+      width = RollupResolution.valueOf(resolution.toUpperCase(Locale.ROOT)).getDuration();
+    } catch (IllegalArgumentException e) {
+      try {
+        width = Duration.parse(resolution);
+      } catch (DateTimeParseException parseException) {
+        throw new IllegalArgumentException("Resolution is not valid. Entered value: " + resolution);
+      }
+    }
+
+    checkArgument(!width.isNegative() && !width.isZero() && width.getNano() == 0 && width.getSeconds() % 60 == 0,
+        "Resolution must be a positive whole number of minutes. Entered value: " + resolution);
+    return width;
+  }
+
+  private static boolean isWholeMinute(Instant instant) {
+    return RollupResolution.MINUTE.truncate(instant).equals(instant);
+  }
+
+  private static Duration finestFitting(Instant from, Instant to, int maxPoints) {
+    for (RollupResolution rollup : RollupResolution.values()) {
+      if (countBuckets(from, to, rollup.getDuration()) <= maxPoints) {
+        return rollup.getDuration();
+      }
+    }
+    return RollupResolution.DAY.getDuration();
+  }
+
+  private static long countBuckets(Instant from, Instant to, Duration width) {
+    Instant first = RollupResolution.truncate(from, width);
+    Instant last = RollupResolution.truncate(to.minusNanos(1), width);
+    return Duration.between(first, last).getSeconds() / width.getSeconds() + 1;
+  }
+
+  private static RollupResolution coarsestRollupDividing(Duration resolution) {
+    RollupResolution[] rollups = RollupResolution.values();
+    for (int i = rollups.length - 1; i > 0; i--) {
+      if (resolution.getSeconds() % rollups[i].getDuration().getSeconds() == 0) {
+        return rollups[i];
+      }
+    }
+    return rollups[0];
+  }
+
+  /**
+   * Part {@code [from, to)} of the range of a series.
+   */
+  @Getter
+  @AllArgsConstructor
+  static class Span {
+
+    private final Instant from;
+    private final Instant to;
+  }
+}
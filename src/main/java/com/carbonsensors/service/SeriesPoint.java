@@ -0,0 +1,18 @@
+package com.carbonsensors.service;
+
+import com.carbonsensors.model.projection.MeasurementStatistics;
+
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Statistics of the measurements of a sensor within a bucket of a series.
+ */
+@Getter
+@AllArgsConstructor
+public class SeriesPoint {
+
+  private final Instant start;
+  private final MeasurementStatistics statistics;
+}
@@ -0,0 +1,97 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+
+/**
+ * Stores the creation times of the measurements and alerts, and the bucket starts of the rollups, as milliseconds
+ * since the epoch in {@code bigint} columns, instead of {@code timestamp} columns holding the local date and time of
+ * the JVM time zone.
+ * <br>
+ * The existing values are converted in the time zone of the JVM running the migration, the one Hibernate wrote them
+ * in. With a fixed offset, as UTC, a single update per table converts them. Otherwise each value is converted as JDBC
+ * reads it, so that the moments around daylight saving time changes are the ones the application used to read.
+ * <br>
+ * The indexes and the unique constraint on those columns are dropped along with them and created again as they were.
+ */
+public class V7__EpochMillisTimestamps extends BaseJavaMigration {
+
+  private static final int BATCH_SIZE = 1000;
+
+  @Override
+  public void migrate(Context context) throws SQLException {
+    Connection connection = context.getConnection();
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("drop index idx_measurement_sensor_created");
+      statement.execute("drop index idx_measurement_created");
+      statement.execute("drop index idx_alert_sensor_created");
+      statement.execute(
+          "alter table measurement_rollup drop constraint uk_measurement_rollup_sensor_resolution_bucket");
+    }
+
+    toEpochMillis(connection, "measurement", "created");
+    toEpochMillis(connection, "alert", "created");
+    toEpochMillis(connection, "measurement_rollup", "bucket_start");
+
+    try (Statement statement = connection.createStatement()) {
+      statement.execute(
+          "create index idx_measurement_sensor_created on measurement (sensor_id, created desc, co2quantity, id)");
+      statement.execute(
+          "create index idx_measurement_created on measurement (created, id, sensor_id, co2quantity)");
+      statement.execute("create index idx_alert_sensor_created on alert (sensor_id, created desc, id desc)");
+      statement.execute("alter table measurement_rollup add constraint uk_measurement_rollup_sensor_resolution_bucket "
+          + "unique (sensor_id, resolution, bucket_start)");
+    }
+  }
+
+  private static void toEpochMillis(Connection connection, String table, String column) throws SQLException {
+    String millisColumn = column + "_millis";
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("alter table " + table + " add column " + millisColumn + " bigint");
+
+      ZoneRules rules = ZoneId.systemDefault().getRules();
+      if (rules.isFixedOffset()) {
+        long offsetMillis = rules.getOffset(Instant.EPOCH).getTotalSeconds() * 1000L;
+        statement.executeUpdate("update " + table + " set " + millisColumn + " = "
+            + "datediff('MILLISECOND', timestamp '1970-01-01 00:00:00', " + column + ") - " + offsetMillis);
+      } else {
+        convertRows(connection, table, column, millisColumn);
+      }
+
+      statement.execute("alter table " + table + " drop column " + column);
+      statement.execute("alter table " + table + " alter column " + millisColumn + " rename to " + column);
+      statement.execute("alter table " + table + " alter column " + column + " set not null");
+    }
+  }
+
+  private static void convertRows(Connection connection, String table, String column, String millisColumn)
+      throws SQLException {
+    try (Statement select = connection.createStatement();
+         ResultSet rows = select.executeQuery("select id, " + column + " from " + table);
+         PreparedStatement update = connection.prepareStatement(
+             "update " + table + " set " + millisColumn + " = ? where id = ?")) {
+      int batched = 0;
+      while (rows.next()) {
+        update.setLong(1, rows.getTimestamp(2).getTime());
+        update.setObject(2, rows.getObject(1));
+        update.addBatch();
+        if (++batched == BATCH_SIZE) {
+          update.executeBatch();
+          batched = 0;
+        }
+      }
+      if (batched > 0) {
+        update.executeBatch();
+      }
+    }
+  }
+}
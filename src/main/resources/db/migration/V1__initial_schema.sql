@@ -0,0 +1,48 @@
+create table sensor (
+  id uuid not null,
+  status varchar(255) not null,
+  primary key (id)
+);
+
+create table measurement (
+  id uuid not null,
+  co2quantity double not null,
+  created timestamp not null,
+  sensor_id uuid,
+  primary key (id)
+);
+
+create table alert (
+  id uuid not null,
+  created timestamp not null,
+  sensor_id uuid,
+  primary key (id)
+);
+
+create table alert_measurements (
+  alert_id uuid not null,
+  measurements_id uuid not null
+);
+
+create table measurement_daily_aggregate (
+  id uuid not null,
+  co2quantity_max double not null,
+  co2quantity_min double not null,
+  co2quantity_sum double not null,
+  measurement_count bigint not null,
+  measurement_day date not null,
+  sensor_id uuid,
+  primary key (id)
+);
+
+alter table alert_measurements add constraint uk_alert_measurements_measurement unique (measurements_id);
+alter table measurement_daily_aggregate add constraint uk_measurement_daily_aggregate_sensor_day
+  unique (sensor_id, measurement_day);
+
+alter table alert add constraint fk_alert_sensor foreign key (sensor_id) references sensor;
+alter table alert_measurements add constraint fk_alert_measurements_measurement
+  foreign key (measurements_id) references measurement;
+alter table alert_measurements add constraint fk_alert_measurements_alert foreign key (alert_id) references alert;
+alter table measurement add constraint fk_measurement_sensor foreign key (sensor_id) references sensor;
+alter table measurement_daily_aggregate add constraint fk_measurement_daily_aggregate_sensor
+  foreign key (sensor_id) references sensor;
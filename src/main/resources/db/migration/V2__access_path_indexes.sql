@@ -0,0 +1,14 @@
+-- Every hot query filters by sensor and orders or ranges by creation time, newest first. The indexes also hold
+-- every column those queries read, since H2 otherwise prefers the single column index backing the foreign key
+-- over a composite index it would have to complement with reads from the table.
+
+-- Serves the last N measurements of a sensor (MeasurementRepository.findBySensorIdOrderByCreatedDesc) and the
+-- statistics of a time range (MeasurementRepository.computeStatisticsById) without reading the table.
+create index idx_measurement_sensor_created on measurement (sensor_id, created desc, co2quantity, id);
+
+-- Serves the alerts of a sensor and its most recent alert (AlertRepository.findBySensorIdOrderByCreatedDesc
+-- and AlertRepository.findTop1BySensorIdOrderByCreatedDesc).
+create index idx_alert_sensor_created on alert (sensor_id, created desc, id);
+
+-- Serves loading the measurements of an alert without reading the join table itself.
+create index idx_alert_measurements_alert on alert_measurements (alert_id, measurements_id);
@@ -0,0 +1,4 @@
+-- Alerts are paginated by keyset on (created, id), newest first, so the index also orders the id descending. This
+-- lets H2 read each page straight from the index, whatever the position of the page.
+drop index idx_alert_sensor_created;
+create index idx_alert_sensor_created on alert (sensor_id, created desc, id desc);
@@ -0,0 +1,3 @@
+-- Expired measurements are purged in chunks walked by keyset on (created, id), oldest first, so that each chunk is
+-- read straight from this index instead of scanning the measurements of every sensor.
+create index idx_measurement_created on measurement (created, id);
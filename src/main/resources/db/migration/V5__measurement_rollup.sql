@@ -0,0 +1,17 @@
+-- Minute and hour rollups of the measurements of each sensor, day rollups being the daily aggregates. The unique
+-- index serves both the update of a bucket on every new measurement and the range read of a series.
+create table measurement_rollup (
+  id uuid not null,
+  resolution varchar(16) not null,
+  bucket_start timestamp not null,
+  co2quantity_max double not null,
+  co2quantity_min double not null,
+  co2quantity_sum double not null,
+  measurement_count bigint not null,
+  sensor_id uuid,
+  primary key (id)
+);
+
+alter table measurement_rollup add constraint uk_measurement_rollup_sensor_resolution_bucket
+  unique (sensor_id, resolution, bucket_start);
+alter table measurement_rollup add constraint fk_measurement_rollup_sensor foreign key (sensor_id) references sensor;
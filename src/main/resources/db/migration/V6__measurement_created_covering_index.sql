@@ -0,0 +1,5 @@
+-- The fleet ranking reads the measurements of one partial day of every sensor. Holding the sensor and the CO2
+-- quantity in the creation time index lets H2 read just that day from it, instead of the whole history of every
+-- sensor from the (sensor, created) index. The purge keeps reading its chunks from the (created, id) prefix.
+drop index idx_measurement_created;
+create index idx_measurement_created on measurement (created, id, sensor_id, co2quantity);
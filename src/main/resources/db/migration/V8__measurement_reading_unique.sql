@@ -0,0 +1,41 @@
+-- Gateways retry the readings whose request timed out, so the same reading may be sent several times. A reading is
+-- identified by its sensor, creation time and CO2 quantity: the services skip the ones they already hold, and this
+-- constraint rejects the ones they could not tell apart from a new reading.
+
+-- The readings stored more than once so far are collapsed into one of their rows first, preferably the one an alert
+-- references, so that the alert keeps it.
+create table measurement_reading_survivor as
+select m.sensor_id, m.created, m.co2quantity, coalesce(min(am.measurements_id), min(m.id)) as survivor_id
+from measurement m
+left join alert_measurements am on am.measurements_id = m.id
+where m.sensor_id is not null
+group by m.sensor_id, m.created, m.co2quantity
+having count(*) > 1;
+
+create table measurement_reading_duplicate as
+select m.id, s.survivor_id
+from measurement m
+join measurement_reading_survivor s
+  on s.sensor_id = m.sensor_id and s.created = m.created and s.co2quantity = m.co2quantity
+where m.id <> s.survivor_id;
+
+-- A measurement belongs to a single alert, and the survivor of a reading some alert references is referenced itself,
+-- so the memberships of its duplicates cannot be moved to it: they are dropped, along with the alerts left empty.
+create table alert_of_duplicate as
+select distinct am.alert_id
+from alert_measurements am
+join measurement_reading_duplicate d on d.id = am.measurements_id;
+
+delete from alert_measurements where measurements_id in (select id from measurement_reading_duplicate);
+
+delete from alert a where a.id in (select alert_id from alert_of_duplicate)
+  and not exists (select 1 from alert_measurements am where am.alert_id = a.id);
+
+delete from measurement where id in (select id from measurement_reading_duplicate);
+
+drop table alert_of_duplicate;
+drop table measurement_reading_duplicate;
+drop table measurement_reading_survivor;
+
+alter table measurement add constraint uk_measurement_sensor_created_co2quantity
+  unique (sensor_id, created, co2quantity);
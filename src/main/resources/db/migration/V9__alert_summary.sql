@@ -0,0 +1,20 @@
+-- Extending the open alert of a sensor appends its new measurements to the join table and adds them to a summary
+-- held by the alert, instead of loading every measurement the alert already has. The sensor points to its open alert,
+-- so that the alert is not looked up either.
+alter table alert add column measurement_count bigint default 0 not null;
+alter table alert add column co2quantity_max double;
+alter table alert add column last_measurement_created bigint;
+alter table sensor add column current_alert_id uuid;
+alter table sensor add constraint fk_sensor_current_alert foreign key (current_alert_id) references alert;
+
+update alert a set
+  measurement_count = (select count(*) from alert_measurements am where am.alert_id = a.id),
+  co2quantity_max = (select max(m.co2quantity) from alert_measurements am
+    join measurement m on m.id = am.measurements_id where am.alert_id = a.id),
+  last_measurement_created = (select max(m.created) from alert_measurements am
+    join measurement m on m.id = am.measurements_id where am.alert_id = a.id);
+
+-- the open alert of a sensor in alert is its most recent one
+update sensor s set current_alert_id = (select a.id from alert a where a.sensor_id = s.id
+  order by a.created desc, a.id desc limit 1)
+where s.status = 'ALERT';
@@ -1,43 +1,98 @@
 package com.carbonsensors.controller;
 
 import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 
+import com.carbonsensors.config.ConfigurationProperties;
 import com.carbonsensors.dto.AlertDto;
+import com.carbonsensors.dto.BatchMeasurementsDto;
+import com.carbonsensors.dto.BatchMeasurementsResultDto;
 import com.carbonsensors.dto.CreateMeasurementDto;
+import com.carbonsensors.dto.CreateSensorsDto;
+import com.carbonsensors.dto.MeasurementRecords;
 import com.carbonsensors.dto.SensorCreatedDto;
+import com.carbonsensors.dto.SensorMeasurementsDto;
 import com.carbonsensors.dto.SensorMetricsDto;
+import com.carbonsensors.dto.SensorRankingDto;
+import com.carbonsensors.dto.SensorSeriesDto;
+import com.carbonsensors.dto.SensorStatusCacheStatisticsDto;
 import com.carbonsensors.dto.SensorStatusDto;
-import com.carbonsensors.model.Alert;
-import com.carbonsensors.model.Measurement;
+import com.carbonsensors.dto.SensorStatusesDto;
+import com.carbonsensors.model.RollupResolution;
 import com.carbonsensors.model.Sensor;
 import com.carbonsensors.model.Status;
+import com.carbonsensors.model.projection.AlertMeasurementValue;
+import com.carbonsensors.model.projection.AlertSummary;
+import com.carbonsensors.model.projection.MeasurementStatistics;
 import com.carbonsensors.model.projection.SensorMetrics;
+import com.carbonsensors.service.AlertCursor;
+import com.carbonsensors.service.AlertPage;
 import com.carbonsensors.service.AlertService;
+import com.carbonsensors.service.BatchMeasurementResult;
+import com.carbonsensors.service.FleetRankingService;
+import com.carbonsensors.service.MeasurementIngestionPipeline;
+import com.carbonsensors.service.MeasurementReading;
+import com.carbonsensors.service.MeasurementSeries;
+import com.carbonsensors.service.MeasurementSeriesService;
 import com.carbonsensors.service.MeasurementService;
+import com.carbonsensors.service.OperationalMetrics;
+import com.carbonsensors.service.SensorEvent;
+import com.carbonsensors.service.SensorEventFilter;
+import com.carbonsensors.service.SensorEventHub;
+import com.carbonsensors.service.SensorEventSink;
+import com.carbonsensors.service.SensorRanking;
 import com.carbonsensors.service.SensorService;
+import com.carbonsensors.service.SensorStatusCacheStatistics;
+import com.carbonsensors.service.SensorStatuses;
+import com.carbonsensors.service.SensorStatusMachine.Transition;
+import com.carbonsensors.service.SeriesPoint;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 class SensorControllerTest {
 
   private static final double FIRST_MEASUREMENT = 2001d;
   private static final double SECOND_MEASUREMENT = 2002d;
   private static final double THIRD_MEASUREMENT = 2003d;
-  private static final ZonedDateTime START = ZonedDateTime.now();
-  private static final ZonedDateTime MIDDLE_DATE = ZonedDateTime.now().plusDays(1);
-  private static final ZonedDateTime END = ZonedDateTime.now().plusDays(2);
+  private static final Instant START = Instant.now();
+  private static final Instant MIDDLE_DATE = Instant.now().plus(Duration.ofDays(1));
+  private static final Instant END = Instant.now().plus(Duration.ofDays(2));
 
   @Mock
   private SensorService sensorService;
@@ -45,13 +100,25 @@ class SensorControllerTest {
   private MeasurementService measurementService;
   @Mock
   private AlertService alertService;
+  @Mock
+  private MeasurementIngestionPipeline measurementIngestionPipeline;
+  @Mock
+  private MeasurementSeriesService measurementSeriesService;
+  @Mock
+  private FleetRankingService fleetRankingService;
+  @Mock
+  private SensorEventHub sensorEventHub;
 
   private SensorController sensorController;
 
   @BeforeEach
   void setup() {
     initMocks(this);
-    sensorController = new SensorController(sensorService, measurementService, alertService);
+    ConfigurationProperties configurationProperties = new ConfigurationProperties();
+    configurationProperties.setMeasurementBatchMaxSize(10);
+    sensorController = new SensorController(sensorService, measurementService, alertService,
+        measurementIngestionPipeline, measurementSeriesService, fleetRankingService, configurationProperties,
+        sensorEventHub, new ObjectMapper());
   }
 
   @Test
@@ -69,20 +136,62 @@ class SensorControllerTest {
     verify(sensorService).createSensor();
   }
 
+  @Test
+  void createSensors_whenSensorsAreCreated_thenStreamOneIdPerLine() throws IOException {
+    UUID firstSensorId = UUID.randomUUID();
+    UUID secondSensorId = UUID.randomUUID();
+    when(sensorService.createSensors(2, null)).thenReturn(Arrays.asList(firstSensorId, secondSensorId));
+
+    ResponseEntity<StreamingResponseBody> response = sensorController.createSensors(new CreateSensorsDto(2, null));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    assertNotNull(response.getBody());
+    response.getBody().writeTo(out);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals("{\"id\":\"" + firstSensorId + "\"}\n{\"id\":\"" + secondSensorId + "\"}\n",
+        out.toString(StandardCharsets.UTF_8));
+  }
+
   @Test
   void findSensorStatus_whenSensorIdIsValid_thenReturnSensorStatus() {
     UUID sensorId = UUID.randomUUID();
-    Sensor sensor = Sensor.builder()
-        .status(Status.OK)
-        .build();
 
-    when(sensorService.findSensorById(sensorId)).thenReturn(sensor);
+    when(sensorService.findSensorStatusById(sensorId)).thenReturn(Status.OK);
 
     SensorStatusDto result = sensorController.findSensorStatus(sensorId);
 
     assertNotNull(result);
     assertEquals(Status.OK.name(), result.getStatus());
-    verify(sensorService).findSensorById(sensorId);
+    verify(sensorService).findSensorStatusById(sensorId);
+  }
+
+  @Test
+  void findSensorStatuses_whenSomeSensorsAreUnknown_thenReturnStatusesAndUnknownIds() {
+    UUID sensorId = UUID.randomUUID();
+    UUID unknownSensorId = UUID.randomUUID();
+    List<UUID> sensorIds = Arrays.asList(sensorId, unknownSensorId);
+    when(sensorService.findSensorStatusesByIds(sensorIds)).thenReturn(
+        new SensorStatuses(singletonMap(sensorId, Status.WARM), singletonList(unknownSensorId)));
+
+    SensorStatusesDto result = sensorController.findSensorStatuses(sensorIds);
+
+    assertNotNull(result);
+    assertEquals(singletonMap(sensorId, Status.WARM.name()), result.getStatuses());
+    assertEquals(singletonList(unknownSensorId), result.getUnknown());
+  }
+
+  @Test
+  void findSensorStatusCacheStatistics_whenCalled_thenReturnStatistics() {
+    when(sensorService.findSensorStatusCacheStatistics())
+        .thenReturn(new SensorStatusCacheStatistics(3, 8, 2, 0.8, 1));
+
+    SensorStatusCacheStatisticsDto result = sensorController.findSensorStatusCacheStatistics();
+
+    assertEquals(3, result.getSize());
+    assertEquals(8, result.getHitCount());
+    assertEquals(2, result.getMissCount());
+    assertEquals(0.8, result.getHitRate());
+    assertEquals(1, result.getEvictionCount());
   }
 
   @Test
@@ -91,13 +200,81 @@ class SensorControllerTest {
     UUID sensorId = UUID.randomUUID();
 
     when(measurementService
-        .createMeasurement(sensorId, createMeasurementDto.getCo2Quantity(), createMeasurementDto.getTime()))
+        .createMeasurement(sensorId, createMeasurementDto.getCo2Quantity(), createMeasurementDto.getTime().toInstant()))
         .thenReturn(null);
 
-    sensorController.createMeasurement(sensorId, createMeasurementDto);
+    ResponseEntity<Void> result = sensorController.createMeasurement(sensorId, createMeasurementDto);
 
+    assertEquals(HttpStatus.OK, result.getStatusCode());
     verify(measurementService)
-        .createMeasurement(sensorId, createMeasurementDto.getCo2Quantity(), createMeasurementDto.getTime());
+        .createMeasurement(sensorId, createMeasurementDto.getCo2Quantity(), createMeasurementDto.getTime().toInstant());
+    verify(measurementIngestionPipeline, never()).submit(any());
+  }
+
+  @Test
+  void createMeasurement_whenAsyncIngestionIsEnabled_thenSubmitReadingAndReturnAccepted() {
+    CreateMeasurementDto createMeasurementDto = new CreateMeasurementDto(20d, ZonedDateTime.now());
+    UUID sensorId = UUID.randomUUID();
+
+    when(measurementIngestionPipeline.isEnabled()).thenReturn(true);
+
+    ResponseEntity<Void> result = sensorController.createMeasurement(sensorId, createMeasurementDto);
+
+    assertEquals(HttpStatus.ACCEPTED, result.getStatusCode());
+    verify(measurementIngestionPipeline).submit(
+        new MeasurementReading(sensorId, createMeasurementDto.getCo2Quantity(),
+            createMeasurementDto.getTime().toInstant()));
+    verify(measurementService, never()).createMeasurement(any(), any(), any());
+  }
+
+  @Test
+  void createMeasurements_whenBatchHasFailures_thenReturnThemPerSensor() {
+    UUID firstSensorId = UUID.randomUUID();
+    UUID secondSensorId = UUID.randomUUID();
+    BatchMeasurementsDto batch = new BatchMeasurementsDto(Arrays.asList(
+        new SensorMeasurementsDto(firstSensorId, Arrays.asList(
+            new CreateMeasurementDto(FIRST_MEASUREMENT, START.atZone(ZoneOffset.UTC)),
+            new CreateMeasurementDto(SECOND_MEASUREMENT, MIDDLE_DATE.atZone(ZoneOffset.UTC)))),
+        new SensorMeasurementsDto(secondSensorId, Arrays.asList(
+            new CreateMeasurementDto(THIRD_MEASUREMENT, END.atZone(ZoneOffset.UTC)),
+            new CreateMeasurementDto(null, END.atZone(ZoneOffset.UTC))))
+    ));
+    List<MeasurementReading> readings = batch.toMeasurementReadings();
+
+    when(measurementService.createMeasurements(readings)).thenReturn(new BatchMeasurementResult(3,
+        singletonList(new BatchMeasurementResult.Failure(3, secondSensorId, "co2Quantity must not be null"))));
+
+    BatchMeasurementsResultDto result = sensorController.createMeasurements(batch);
+
+    assertNotNull(result);
+    assertEquals(3, result.getAccepted());
+    assertEquals(1, result.getRejected());
+    assertEquals(secondSensorId, result.getFailures().get(0).getSensorId());
+    assertEquals(1, result.getFailures().get(0).getIndex());
+    verify(measurementService).createMeasurements(readings);
+  }
+
+  @Test
+  void createMeasurementRecords_whenBatchHasFailures_thenIndexThemByRecord() throws IOException {
+    UUID firstSensorId = UUID.randomUUID();
+    UUID secondSensorId = UUID.randomUUID();
+    Instant created = START.truncatedTo(ChronoUnit.MILLIS);
+    List<MeasurementReading> readings = Arrays.asList(
+        new MeasurementReading(firstSensorId, FIRST_MEASUREMENT, created),
+        new MeasurementReading(secondSensorId, -1d, created.plus(Duration.ofMinutes(1))));
+
+    when(measurementService.createMeasurements(readings)).thenReturn(new BatchMeasurementResult(1,
+        singletonList(new BatchMeasurementResult.Failure(1, secondSensorId, "co2Quantity must be positive"))));
+
+    BatchMeasurementsResultDto result =
+        sensorController.createMeasurementRecords(new ByteArrayInputStream(MeasurementRecords.write(readings)));
+
+    assertNotNull(result);
+    assertEquals(1, result.getAccepted());
+    assertEquals(1, result.getRejected());
+    assertEquals(secondSensorId, result.getFailures().get(0).getSensorId());
+    assertEquals(1, result.getFailures().get(0).getIndex());
+    verify(measurementService).createMeasurements(readings);
   }
 
   @Test
@@ -115,38 +292,176 @@ class SensorControllerTest {
     verify(sensorService).findMetricsBySensorId(sensorId);
   }
 
+  @Test
+  void findTopSensors_whenRankingIsComputed_thenReturnSensorsInOrder() {
+    UUID firstSensorId = UUID.randomUUID();
+    UUID secondSensorId = UUID.randomUUID();
+    when(fleetRankingService.findTopSensors("max", 7, 2)).thenReturn(CompletableFuture.completedFuture(Arrays.asList(
+        new SensorRanking(firstSensorId, new MeasurementStatistics(2L, 4200d, 2200d, 2000d)),
+        new SensorRanking(secondSensorId, new MeasurementStatistics(1L, 2100d, 2100d, 2100d)))));
+
+    List<SensorRankingDto> result = sensorController.findTopSensors("max", 7, 2).join();
+
+    assertEquals(2, result.size());
+    assertEquals(firstSensorId, result.get(0).getSensorId());
+    assertEquals(2200d, result.get(0).getMax());
+    assertEquals(2100d, result.get(0).getAvg());
+    assertEquals(2L, result.get(0).getCount());
+    assertEquals(secondSensorId, result.get(1).getSensorId());
+  }
+
+  @Test
+  void findSeries_whenSensorIdIsValid_thenReturnPoints() {
+    UUID sensorId = UUID.randomUUID();
+    MeasurementSeries series = new MeasurementSeries(Duration.ofMinutes(15), RollupResolution.MINUTE,
+        singletonList(new SeriesPoint(START, new MeasurementStatistics(2L, 4000d, 2100d, 1900d))));
+    when(measurementSeriesService.findSeries(sensorId, START, END, "PT15M")).thenReturn(series);
+
+    SensorSeriesDto result = sensorController.findSeries(sensorId, START.atZone(ZoneOffset.UTC),
+        END.atZone(ZoneOffset.UTC), "PT15M");
+
+    assertEquals("PT15M", result.getResolution());
+    assertEquals("MINUTE", result.getRollup());
+    assertEquals(1, result.getPoints().size());
+    assertEquals(START, result.getPoints().get(0).getStart().toInstant());
+    assertEquals(2L, result.getPoints().get(0).getCount());
+    assertEquals(2000d, result.getPoints().get(0).getAvg());
+    assertEquals(1900d, result.getPoints().get(0).getMin());
+    assertEquals(2100d, result.getPoints().get(0).getMax());
+  }
+
   @Test
   void findAlerts_whenSensorIsValid_thenReturnAlerts() {
     UUID sensorId = UUID.randomUUID();
-    Alert alert = Alert.builder()
-        .measurements(Arrays.asList(
-            Measurement.builder()
-                .co2Quantity(FIRST_MEASUREMENT)
-                .created(START)
-                .build()
-            ,
-            Measurement.builder()
-                .co2Quantity(SECOND_MEASUREMENT)
-                .created(MIDDLE_DATE)
-                .build(),
-            Measurement.builder()
-                .co2Quantity(THIRD_MEASUREMENT)
-                .created(END)
-                .build()
-        ))
-        .build();
+    AlertSummary alert = new AlertSummary(UUID.randomUUID(), START);
+    List<AlertMeasurementValue> measurements = Arrays.asList(
+        new AlertMeasurementValue(alert.getId(), START, FIRST_MEASUREMENT),
+        new AlertMeasurementValue(alert.getId(), MIDDLE_DATE, SECOND_MEASUREMENT),
+        new AlertMeasurementValue(alert.getId(), END, THIRD_MEASUREMENT));
 
-    when(alertService.findAlertsBySensorId(sensorId)).thenReturn(singletonList(alert));
+    when(alertService.findAlertsBySensorId(sensorId, null, null, null, null))
+        .thenReturn(new AlertPage(singletonList(alert), singletonMap(alert.getId(), measurements), null));
 
-    List<AlertDto> result = sensorController.findAlerts(sensorId);
+    ResponseEntity<List<AlertDto>> response = sensorController.findAlerts(sensorId, null, null, null, null);
 
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertFalse(response.getHeaders().containsKey(SensorController.NEXT_CURSOR_HEADER));
+    List<AlertDto> result = response.getBody();
     assertNotNull(result);
     assertEquals(1, result.size());
     AlertDto alertResult = result.get(0);
     assertNotNull(alertResult);
-    assertEquals(START, alertResult.getStartTime());
-    assertEquals(END, alertResult.getEndTime());
-    assertEquals(alert.getMeasurements().stream().map(Measurement::getCo2Quantity).collect(Collectors.toList()),
+    assertEquals(START, alertResult.getStartTime().toInstant());
+    assertEquals(END, alertResult.getEndTime().toInstant());
+    assertEquals(Arrays.asList(FIRST_MEASUREMENT, SECOND_MEASUREMENT, THIRD_MEASUREMENT),
         alertResult.getMesurements());
   }
-}
\ No newline at end of file
+
+  @Test
+  void findAlerts_whenThereIsANextPage_thenReturnItsCursorInHeader() {
+    UUID sensorId = UUID.randomUUID();
+    AlertCursor nextCursor = new AlertCursor(START, UUID.randomUUID());
+    AlertSummary alert = new AlertSummary(UUID.randomUUID(), START);
+    List<AlertMeasurementValue> measurements =
+        singletonList(new AlertMeasurementValue(alert.getId(), START, FIRST_MEASUREMENT));
+    when(alertService.findAlertsBySensorId(sensorId, START, END, "cursor", 1))
+        .thenReturn(new AlertPage(singletonList(alert), singletonMap(alert.getId(), measurements), nextCursor));
+
+    ResponseEntity<List<AlertDto>> response = sensorController.findAlerts(sensorId,
+        START.atZone(ZoneOffset.UTC), END.atZone(ZoneOffset.UTC), "cursor", 1);
+
+    assertEquals(nextCursor.encode(), response.getHeaders().getFirst(SensorController.NEXT_CURSOR_HEADER));
+    assertNotNull(response.getBody());
+    assertEquals(1, response.getBody().size());
+  }
+
+  @Test
+  void streamSensorEvents_whenSensorIsUnknown_thenThrowExceptionAndDoNotSubscribe() {
+    UUID sensorId = UUID.randomUUID();
+    when(sensorService.findSensorStatusById(sensorId)).thenThrow(new IllegalArgumentException("unknown"));
+
+    assertThrows(IllegalArgumentException.class, () -> sensorController.streamSensorEvents(sensorId, null));
+
+    verify(sensorEventHub, never()).subscribe(any(), any());
+  }
+
+  @Test
+  void streamFleetEvents_whenStatusIsUnknown_thenThrowExceptionAndDoNotSubscribe() {
+    assertThrows(IllegalArgumentException.class,
+        () -> sensorController.streamFleetEvents(singletonList("alert"), singletonList("BROKEN")));
+
+    verify(sensorEventHub, never()).subscribe(any(), any());
+  }
+
+  @Test
+  void streamFleetEvents_whenSomeClientsDoNotRead_thenEvictThemAndKeepDeliveringToTheOthers()
+      throws InterruptedException {
+    ConfigurationProperties configurationProperties = new ConfigurationProperties();
+    configurationProperties.setSensorEventsBufferSize(2);
+    configurationProperties.setSensorEventsDispatcherThreads(2);
+    SensorEventHub hub =
+        new SensorEventHub(configurationProperties, new OperationalMetrics(new SimpleMeterRegistry()));
+    ExecutorService writer = Executors.newCachedThreadPool();
+    CountDownLatch unblock = new CountDownLatch(1);
+    try {
+      // more clients which do not read than dispatcher threads
+      for (int i = 0; i < 3; i++) {
+        SensorController.EmitterSink sink = new SensorController.EmitterSink(new BlockingEmitter(unblock), writer);
+        sink.attach(hub.subscribe(SensorEventFilter.of(null, null, null), sink));
+      }
+      BlockingQueue<SensorEvent> received = new LinkedBlockingQueue<>();
+      hub.subscribe(SensorEventFilter.of(null, null, null), new SensorEventSink() {
+        @Override
+        public void send(SensorEvent event) {
+          received.add(event);
+        }
+
+        @Override
+        public void heartbeat() {
+        }
+
+        @Override
+        public void close() {
+        }
+      });
+
+      UUID sensorId = UUID.randomUUID();
+      for (int i = 0; i < 5; i++) {
+        hub.publishAfterCommit(sensorId, i % 2 == 0 ? Status.OK : Status.WARM,
+            i % 2 == 0 ? Transition.SET_WARM : Transition.SET_OK, START.plusSeconds(i));
+
+        SensorEvent event = received.poll(5, TimeUnit.SECONDS);
+        assertNotNull(event);
+        assertEquals(START.plusSeconds(i), event.getTime());
+      }
+      // the clients which do not read were evicted once their buffers were full
+      assertEquals(1, hub.size());
+    } finally {
+      unblock.countDown();
+      writer.shutdownNow();
+      hub.stop();
+    }
+  }
+
+  /**
+   * Response of a client which does not read its stream, whose writes block until released.
+   */
+  private static class BlockingEmitter extends SseEmitter {
+
+    private final CountDownLatch unblock;
+
+    BlockingEmitter(CountDownLatch unblock) {
+      this.unblock = unblock;
+    }
+
+    @Override
+    public void send(SseEventBuilder builder) throws IOException {
+      try {
+        unblock.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException(e);
+      }
+    }
+  }
+}
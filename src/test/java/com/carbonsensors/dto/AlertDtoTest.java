@@ -1,5 +1,6 @@
 package com.carbonsensors.dto;
 
+import static java.util.Collections.singletonList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
@@ -7,10 +8,18 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import com.carbonsensors.model.Alert;
 import com.carbonsensors.model.Measurement;
+import com.carbonsensors.model.projection.AlertMeasurementValue;
+import com.carbonsensors.model.projection.AlertSummary;
+import com.carbonsensors.service.AlertPage;
 import org.junit.jupiter.api.Test;
 
-import java.time.ZonedDateTime;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 class AlertDtoTest {
@@ -18,9 +27,9 @@ class AlertDtoTest {
   private static final double FIRST_MEASUREMENT = 2001d;
   private static final double SECOND_MEASUREMENT = 2002d;
   private static final double THIRD_MEASUREMENT = 2003d;
-  private static final ZonedDateTime START = ZonedDateTime.now();
-  private static final ZonedDateTime MIDDLE_DATE = ZonedDateTime.now().plusDays(1);
-  private static final ZonedDateTime END = ZonedDateTime.now().plusDays(2);
+  private static final Instant START = Instant.now();
+  private static final Instant MIDDLE_DATE = Instant.now().plus(Duration.ofDays(1));
+  private static final Instant END = Instant.now().plus(Duration.ofDays(2));
 
   @Test
   void fromAlert_whenAlertIsNull_thenReturnNull() {
@@ -51,8 +60,8 @@ class AlertDtoTest {
     AlertDto result = AlertDto.fromAlert(alert);
 
     assertNotNull(result);
-    assertEquals(START, result.getStartTime());
-    assertEquals(END, result.getEndTime());
+    assertEquals(START, result.getStartTime().toInstant());
+    assertEquals(END, result.getEndTime().toInstant());
     assertEquals(alert.getMeasurements().stream().map(Measurement::getCo2Quantity).collect(Collectors.toList()),
         result.getMesurements());
   }
@@ -63,4 +72,35 @@ class AlertDtoTest {
 
     assertThrows(IllegalArgumentException.class, () -> AlertDto.fromAlert(alert));
   }
-}
\ No newline at end of file
+
+  @Test
+  void fromAlertPage_whenAlertsHaveMeasurements_thenReturnDtosInPageOrder() {
+    AlertSummary newest = new AlertSummary(UUID.randomUUID(), END);
+    AlertSummary oldest = new AlertSummary(UUID.randomUUID(), START);
+    Map<UUID, List<AlertMeasurementValue>> measurements = new HashMap<>();
+    measurements.put(newest.getId(), Arrays.asList(
+        new AlertMeasurementValue(newest.getId(), MIDDLE_DATE, SECOND_MEASUREMENT),
+        new AlertMeasurementValue(newest.getId(), END, THIRD_MEASUREMENT)));
+    measurements.put(oldest.getId(), singletonList(
+        new AlertMeasurementValue(oldest.getId(), START, FIRST_MEASUREMENT)));
+    AlertPage alertPage = new AlertPage(Arrays.asList(newest, oldest), measurements, null);
+
+    List<AlertDto> result = AlertDto.fromAlertPage(alertPage);
+
+    assertEquals(2, result.size());
+    assertEquals(MIDDLE_DATE, result.get(0).getStartTime().toInstant());
+    assertEquals(END, result.get(0).getEndTime().toInstant());
+    assertEquals(Arrays.asList(SECOND_MEASUREMENT, THIRD_MEASUREMENT), result.get(0).getMesurements());
+    assertEquals(START, result.get(1).getStartTime().toInstant());
+    assertEquals(START, result.get(1).getEndTime().toInstant());
+    assertEquals(singletonList(FIRST_MEASUREMENT), result.get(1).getMesurements());
+  }
+
+  @Test
+  void fromAlertPage_whenAlertHasNoMeasurements_thenThrowException() {
+    AlertSummary alert = new AlertSummary(UUID.randomUUID(), START);
+    AlertPage alertPage = new AlertPage(singletonList(alert), new HashMap<>(), null);
+
+    assertThrows(IllegalArgumentException.class, () -> AlertDto.fromAlertPage(alertPage));
+  }
+}
@@ -0,0 +1,44 @@
+package com.carbonsensors.dto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.carbonsensors.service.MeasurementReading;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+class BatchMeasurementsDtoTest {
+
+  private static final ZonedDateTime NOW = ZonedDateTime.now();
+  private static final UUID FIRST_SENSOR_ID = UUID.randomUUID();
+  private static final UUID SECOND_SENSOR_ID = UUID.randomUUID();
+
+  @Test
+  void toMeasurementReadings_whenSensorsAreNull_thenReturnEmptyList() {
+    assertTrue(new BatchMeasurementsDto(null).toMeasurementReadings().isEmpty());
+  }
+
+  @Test
+  void toMeasurementReadings_whenBatchHasSeveralSensors_thenFlattenKeepingOrder() {
+    BatchMeasurementsDto batch = new BatchMeasurementsDto(Arrays.asList(
+        new SensorMeasurementsDto(FIRST_SENSOR_ID, Arrays.asList(
+            new CreateMeasurementDto(1d, NOW),
+            null)),
+        new SensorMeasurementsDto(SECOND_SENSOR_ID, null),
+        new SensorMeasurementsDto(SECOND_SENSOR_ID, Arrays.asList(
+            new CreateMeasurementDto(2d, NOW.plusMinutes(1))))
+    ));
+
+    List<MeasurementReading> result = batch.toMeasurementReadings();
+
+    assertEquals(3, result.size());
+    assertEquals(new MeasurementReading(FIRST_SENSOR_ID, 1d, NOW.toInstant()), result.get(0));
+    assertNull(result.get(1));
+    assertEquals(new MeasurementReading(SECOND_SENSOR_ID, 2d, NOW.plusMinutes(1).toInstant()), result.get(2));
+  }
+}
@@ -0,0 +1,109 @@
+package com.carbonsensors.dto;
+
+import static java.util.Collections.emptyList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.carbonsensors.service.BatchMeasurementResult;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.UUID;
+
+class BatchMeasurementsResultDtoTest {
+
+  private static final ZonedDateTime NOW = ZonedDateTime.now();
+  private static final UUID FIRST_SENSOR_ID = UUID.randomUUID();
+  private static final UUID SECOND_SENSOR_ID = UUID.randomUUID();
+
+  @Test
+  void fromBatchMeasurementResult_whenResultIsNull_thenReturnNull() {
+    assertNull(BatchMeasurementsResultDto.fromBatchMeasurementResult(null, null));
+  }
+
+  @Test
+  void fromBatchMeasurementResult_whenThereAreNoFailures_thenReturnAcceptedOnly() {
+    BatchMeasurementsResultDto result =
+        BatchMeasurementsResultDto.fromBatchMeasurementResult(new BatchMeasurementResult(2, emptyList()), null);
+
+    assertNotNull(result);
+    assertEquals(2, result.getAccepted());
+    assertEquals(0, result.getRejected());
+    assertTrue(result.getFailures().isEmpty());
+  }
+
+  @Test
+  void fromBatchMeasurementResult_whenThereAreFailures_thenReturnIndexWithinSensor() {
+    BatchMeasurementsDto batch = new BatchMeasurementsDto(Arrays.asList(
+        new SensorMeasurementsDto(FIRST_SENSOR_ID, Arrays.asList(
+            new CreateMeasurementDto(1d, NOW),
+            new CreateMeasurementDto(null, NOW))),
+        new SensorMeasurementsDto(SECOND_SENSOR_ID, Arrays.asList(
+            new CreateMeasurementDto(2d, NOW),
+            new CreateMeasurementDto(3d, null)))
+    ));
+    BatchMeasurementResult batchResult = new BatchMeasurementResult(2, Arrays.asList(
+        new BatchMeasurementResult.Failure(1, FIRST_SENSOR_ID, "first"),
+        new BatchMeasurementResult.Failure(3, SECOND_SENSOR_ID, "second")));
+
+    BatchMeasurementsResultDto result = BatchMeasurementsResultDto.fromBatchMeasurementResult(batchResult, batch);
+
+    assertEquals(2, result.getAccepted());
+    assertEquals(2, result.getRejected());
+    assertEquals(FIRST_SENSOR_ID, result.getFailures().get(0).getSensorId());
+    assertEquals(0, result.getFailures().get(0).getEntryIndex());
+    assertEquals(1, result.getFailures().get(0).getIndex());
+    assertEquals("first", result.getFailures().get(0).getMessage());
+    assertEquals(SECOND_SENSOR_ID, result.getFailures().get(1).getSensorId());
+    assertEquals(1, result.getFailures().get(1).getEntryIndex());
+    assertEquals(1, result.getFailures().get(1).getIndex());
+  }
+
+  @Test
+  void fromBatchMeasurementResult_whenSensorIsRepeated_thenReturnEntryOfEachFailure() {
+    BatchMeasurementsDto batch = new BatchMeasurementsDto(Arrays.asList(
+        new SensorMeasurementsDto(FIRST_SENSOR_ID, Arrays.asList(
+            new CreateMeasurementDto(1d, NOW),
+            new CreateMeasurementDto(null, NOW))),
+        new SensorMeasurementsDto(SECOND_SENSOR_ID, Arrays.asList(
+            new CreateMeasurementDto(2d, NOW))),
+        new SensorMeasurementsDto(FIRST_SENSOR_ID, Arrays.asList(
+            new CreateMeasurementDto(3d, NOW),
+            new CreateMeasurementDto(4d, null)))
+    ));
+    BatchMeasurementResult batchResult = new BatchMeasurementResult(3, Arrays.asList(
+        new BatchMeasurementResult.Failure(1, FIRST_SENSOR_ID, "first"),
+        new BatchMeasurementResult.Failure(4, FIRST_SENSOR_ID, "second")));
+
+    BatchMeasurementsResultDto result = BatchMeasurementsResultDto.fromBatchMeasurementResult(batchResult, batch);
+
+    assertEquals(0, result.getFailures().get(0).getEntryIndex());
+    assertEquals(1, result.getFailures().get(0).getIndex());
+    assertEquals(2, result.getFailures().get(1).getEntryIndex());
+    assertEquals(1, result.getFailures().get(1).getIndex());
+  }
+
+  @Test
+  void fromBatchMeasurementResult_whenBatchIsMissing_thenReturnPositionInFlattenedBatch() {
+    BatchMeasurementResult batchResult = new BatchMeasurementResult(2, Arrays.asList(
+        new BatchMeasurementResult.Failure(2, FIRST_SENSOR_ID, "first")));
+
+    BatchMeasurementsResultDto result = BatchMeasurementsResultDto.fromBatchMeasurementResult(batchResult, null);
+
+    assertEquals(0, result.getFailures().get(0).getEntryIndex());
+    assertEquals(2, result.getFailures().get(0).getIndex());
+  }
+
+  @Test
+  void fromBatchMeasurementResult_whenThereAreDuplicates_thenReturnThemApartFromRejected() {
+    BatchMeasurementsResultDto result = BatchMeasurementsResultDto.fromBatchMeasurementResult(
+        new BatchMeasurementResult(1, 0, 2, emptyList()), null);
+
+    assertEquals(1, result.getAccepted());
+    assertEquals(0, result.getRejected());
+    assertEquals(2, result.getDuplicates());
+  }
+}
@@ -0,0 +1,82 @@
+package com.carbonsensors.dto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.carbonsensors.service.MeasurementReading;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+class MeasurementRecordsTest {
+
+  private static final Instant NOW = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+  private static final UUID FIRST_SENSOR_ID = UUID.randomUUID();
+  private static final UUID SECOND_SENSOR_ID = UUID.randomUUID();
+
+  @Test
+  void read_whenRecordsWereWritten_thenReturnSameReadingsInOrder() throws IOException {
+    List<MeasurementReading> readings = Arrays.asList(
+        new MeasurementReading(FIRST_SENSOR_ID, 2100.5d, NOW),
+        new MeasurementReading(SECOND_SENSOR_ID, 0d, NOW.minus(Duration.ofDays(1))));
+
+    byte[] records = MeasurementRecords.write(readings);
+
+    assertEquals(MeasurementRecords.HEADER_BYTES + 2 * MeasurementRecords.RECORD_BYTES, records.length);
+    assertEquals(readings, MeasurementRecords.read(new ByteArrayInputStream(records), 2));
+  }
+
+  @Test
+  void read_whenNoRecords_thenReturnEmptyList() throws IOException {
+    byte[] records = MeasurementRecords.write(Collections.emptyList());
+
+    assertTrue(MeasurementRecords.read(new ByteArrayInputStream(records), 2).isEmpty());
+  }
+
+  @Test
+  void read_whenMoreRecordsThanMaximum_thenThrowIllegalArgumentException() {
+    byte[] records = MeasurementRecords.write(Arrays.asList(
+        new MeasurementReading(FIRST_SENSOR_ID, 1d, NOW),
+        new MeasurementReading(FIRST_SENSOR_ID, 2d, NOW)));
+
+    assertThrows(IllegalArgumentException.class,
+        () -> MeasurementRecords.read(new ByteArrayInputStream(records), 1));
+  }
+
+  @Test
+  void read_whenRecordIsTruncated_thenThrowIllegalArgumentException() {
+    byte[] records = MeasurementRecords.write(Collections.singletonList(
+        new MeasurementReading(FIRST_SENSOR_ID, 1d, NOW)));
+
+    assertThrows(IllegalArgumentException.class, () -> MeasurementRecords.read(
+        new ByteArrayInputStream(records, 0, records.length - 1), 1));
+  }
+
+  @Test
+  void read_whenBytesFollowRecords_thenThrowIllegalArgumentException() {
+    byte[] records = Arrays.copyOf(MeasurementRecords.write(Collections.singletonList(
+        new MeasurementReading(FIRST_SENSOR_ID, 1d, NOW))), MeasurementRecords.HEADER_BYTES
+        + MeasurementRecords.RECORD_BYTES + 1);
+
+    assertThrows(IllegalArgumentException.class,
+        () -> MeasurementRecords.read(new ByteArrayInputStream(records), 1));
+  }
+
+  @Test
+  void readOne_whenRecordIsOfAnotherSensor_thenThrowIllegalArgumentException() {
+    byte[] records = MeasurementRecords.write(Collections.singletonList(
+        new MeasurementReading(FIRST_SENSOR_ID, 1d, NOW)));
+
+    assertThrows(IllegalArgumentException.class,
+        () -> MeasurementRecords.readOne(new ByteArrayInputStream(records), SECOND_SENSOR_ID));
+  }
+}
@@ -27,4 +27,14 @@ class SensorStatusDtoTest {
 
     assertEquals(Status.OK.name(), SensorStatusDto.fromSensor(sensor).getStatus());
   }
-}
\ No newline at end of file
+
+  @Test
+  void fromStatus_whenParameterIsNull_thenReturnNull() {
+    assertNull(SensorStatusDto.fromStatus(null));
+  }
+
+  @Test
+  void fromStatus_whenStatusIsAlert_thenReturnAlert() {
+    assertEquals(Status.ALERT.name(), SensorStatusDto.fromStatus(Status.ALERT).getStatus());
+  }
+}
@@ -3,16 +3,30 @@ package com.carbonsensors.e2e;
 import static java.text.MessageFormat.format;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 
+import com.carbonsensors.controller.SensorController;
 import com.carbonsensors.dto.AlertDto;
+import com.carbonsensors.dto.BatchMeasurementsDto;
+import com.carbonsensors.dto.BatchMeasurementsResultDto;
 import com.carbonsensors.dto.CreateMeasurementDto;
+import com.carbonsensors.dto.CreateSensorsDto;
+import com.carbonsensors.dto.MeasurementRecords;
 import com.carbonsensors.dto.SensorCreatedDto;
+import com.carbonsensors.dto.SensorMeasurementsDto;
 import com.carbonsensors.dto.SensorMetricsDto;
+import com.carbonsensors.dto.SensorRankingDto;
+import com.carbonsensors.dto.SensorSeriesDto;
 import com.carbonsensors.dto.SensorStatusDto;
+import com.carbonsensors.dto.SensorStatusesDto;
 import com.carbonsensors.model.Status;
+import com.carbonsensors.service.MeasurementReading;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -22,13 +36,20 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
 import java.text.MessageFormat;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @SpringBootTest
 class ApiEndToEndITCase {
@@ -64,7 +85,7 @@ class ApiEndToEndITCase {
    * 5. Add 1 measurement below the CO2 limit - check the status which should be OK.
    * 6. Add 3 consecutive above, and 3 consecutive below the CO2 limit measurements. All statuses should be checked accordingly.
    * 7. Fetch and check the metrics.
-   * 8. Fetch and check the alerts.
+   * 8. Fetch and check the alerts, at once and one page at a time.
    *
    * @throws Exception Exception thrown when an unexpected error has occurred
    */
@@ -95,6 +116,285 @@ class ApiEndToEndITCase {
     List<AlertDto> alertDtos = getSensorAlerts(sensorId);
     assertNotNull(alertDtos);
     assertEquals(2, alertDtos.size());
+
+    MvcResult firstPage = getSensorAlertsPage(sensorId, null);
+    String nextCursor = firstPage.getResponse().getHeader(SensorController.NEXT_CURSOR_HEADER);
+    assertNotNull(nextCursor);
+    assertEquals(1, objectMapper.readValue(firstPage.getResponse().getContentAsString(), List.class).size());
+
+    MvcResult secondPage = getSensorAlertsPage(sensorId, nextCursor);
+    assertNull(secondPage.getResponse().getHeader(SensorController.NEXT_CURSOR_HEADER));
+    assertEquals(1, objectMapper.readValue(secondPage.getResponse().getContentAsString(), List.class).size());
+  }
+
+  /**
+   * Sends a single batch holding measurements of two sensors and an unknown one. The first sensor receives 3
+   * readings above the CO2 limit and should end up in ALERT, the second one a reading below the limit and
+   * should stay OK. Readings of the unknown sensor and invalid readings are reported back as failures.
+   *
+   * @throws Exception Exception thrown when an unexpected error has occurred
+   */
+  @Test
+  void createMeasurementsInBatch() throws Exception {
+    UUID firstSensorId = createSensor().getId();
+    UUID secondSensorId = createSensor().getId();
+    UUID unknownSensorId = UUID.randomUUID();
+
+    BatchMeasurementsDto batch = new BatchMeasurementsDto(Arrays.asList(
+        new SensorMeasurementsDto(firstSensorId, Arrays.asList(
+            new CreateMeasurementDto(CO2_QUANTITY_LIMIT + 1, NOW.minusMinutes(3)),
+            new CreateMeasurementDto(CO2_QUANTITY_LIMIT + 1, NOW.minusMinutes(2)),
+            new CreateMeasurementDto(CO2_QUANTITY_LIMIT + 1, NOW.minusMinutes(1)))),
+        new SensorMeasurementsDto(secondSensorId, Arrays.asList(
+            new CreateMeasurementDto(CO2_QUANTITY_LIMIT - 1, NOW),
+            new CreateMeasurementDto(null, NOW))),
+        new SensorMeasurementsDto(unknownSensorId, Arrays.asList(
+            new CreateMeasurementDto(CO2_QUANTITY_LIMIT, NOW)))
+    ));
+
+    MvcResult mvcResult = mockMvc.perform(post("/api/v1/sensors/measurements")
+        .contentType(MediaType.APPLICATION_JSON)
+        .characterEncoding(ENCODING_UTF8)
+        .content(objectMapper.writeValueAsString(batch)))
+        .andDo(print())
+        .andReturn();
+
+    assertEquals(HttpStatus.OK.value(), mvcResult.getResponse().getStatus());
+
+    BatchMeasurementsResultDto result =
+        objectMapper.readValue(mvcResult.getResponse().getContentAsString(), BatchMeasurementsResultDto.class);
+    assertEquals(4, result.getAccepted());
+    assertEquals(2, result.getRejected());
+    assertEquals(secondSensorId, result.getFailures().get(0).getSensorId());
+    assertEquals(1, result.getFailures().get(0).getEntryIndex());
+    assertEquals(1, result.getFailures().get(0).getIndex());
+    assertEquals(unknownSensorId, result.getFailures().get(1).getSensorId());
+    assertEquals(2, result.getFailures().get(1).getEntryIndex());
+    assertEquals(0, result.getFailures().get(1).getIndex());
+
+    checkSensorStatus(firstSensorId, Status.ALERT);
+    checkSensorStatus(secondSensorId, Status.OK);
+    assertEquals(1, getSensorAlerts(firstSensorId).size());
+  }
+
+  /**
+   * Brings a sensor to ALERT, then sends a late reading below the CO2 limit which breaks the streak that opened the
+   * alert: the alert is retracted and the sensor goes back to WARM. A reading past the lateness horizon is stored, and
+   * reported as such, without changing the status.
+   *
+   * @throws Exception Exception thrown when an unexpected error has occurred
+   */
+  @Test
+  void createLateMeasurements() throws Exception {
+    UUID sensorId = createSensor().getId();
+    createMeasurementAboveTheLimitLevelOfCo2(sensorId, NOW.minusMinutes(3));
+    createMeasurementAboveTheLimitLevelOfCo2(sensorId, NOW.minusMinutes(2));
+    createMeasurementAboveTheLimitLevelOfCo2(sensorId, NOW);
+    checkSensorStatus(sensorId, Status.ALERT);
+    assertEquals(1, getSensorAlerts(sensorId).size());
+
+    createMeasurementBelowTheLimitLevelOfCo2(sensorId, NOW.minusMinutes(1));
+    checkSensorStatus(sensorId, Status.WARM);
+    assertEquals(0, getSensorAlerts(sensorId).size());
+
+    BatchMeasurementsDto batch = new BatchMeasurementsDto(Collections.singletonList(new SensorMeasurementsDto(sensorId,
+        Collections.singletonList(new CreateMeasurementDto(CO2_QUANTITY_LIMIT - 1, NOW.minusDays(1))))));
+    MvcResult mvcResult = mockMvc.perform(post("/api/v1/sensors/measurements")
+        .contentType(MediaType.APPLICATION_JSON)
+        .characterEncoding(ENCODING_UTF8)
+        .content(objectMapper.writeValueAsString(batch)))
+        .andDo(print())
+        .andReturn();
+
+    BatchMeasurementsResultDto result =
+        objectMapper.readValue(mvcResult.getResponse().getContentAsString(), BatchMeasurementsResultDto.class);
+    assertEquals(1, result.getAccepted());
+    assertEquals(1, result.getPastHorizon());
+    checkSensorStatus(sensorId, Status.WARM);
+
+    String metrics = mockMvc.perform(get("/actuator/prometheus")).andReturn().getResponse().getContentAsString();
+    assertTrue(metrics.contains("carbonsensors_measurements_late_total{outcome=\"reevaluated\",}"));
+    assertTrue(metrics.contains("carbonsensors_measurements_late_total{outcome=\"past_horizon\",}"));
+    assertTrue(metrics.contains("carbonsensors_alerts_retracted_total"));
+  }
+
+  @Test
+  void extendAlert() throws Exception {
+    UUID sensorId = createSensor().getId();
+    createMeasurementAboveTheLimitLevelOfCo2(sensorId, NOW.minusMinutes(3));
+    createMeasurementAboveTheLimitLevelOfCo2(sensorId, NOW.minusMinutes(2));
+    createMeasurementAboveTheLimitLevelOfCo2(sensorId, NOW.minusMinutes(1));
+    checkSensorStatus(sensorId, Status.ALERT);
+
+    createMeasurement(sensorId, CO2_QUANTITY_LIMIT + 10, NOW);
+    BatchMeasurementsDto batch = new BatchMeasurementsDto(Collections.singletonList(new SensorMeasurementsDto(sensorId,
+        Arrays.asList(
+            new CreateMeasurementDto(CO2_QUANTITY_LIMIT + 1, NOW.plusMinutes(1)),
+            new CreateMeasurementDto(CO2_QUANTITY_LIMIT + 1, NOW.plusMinutes(2))))));
+    mockMvc.perform(post("/api/v1/sensors/measurements")
+        .contentType(MediaType.APPLICATION_JSON)
+        .characterEncoding(ENCODING_UTF8)
+        .content(objectMapper.writeValueAsString(batch)))
+        .andDo(print())
+        .andReturn();
+
+    checkSensorStatus(sensorId, Status.ALERT);
+    List<AlertDto> alerts = getSensorAlerts(sensorId);
+    assertEquals(1, alerts.size());
+    assertEquals(6, alerts.get(0).getMesurements().size());
+    assertEquals(CO2_QUANTITY_LIMIT + 10, Collections.max(alerts.get(0).getMesurements()));
+  }
+
+  @Test
+  void createDuplicateMeasurements() throws Exception {
+    UUID sensorId = createSensor().getId();
+    createMeasurementAboveTheLimitLevelOfCo2(sensorId, NOW.minusMinutes(1));
+    createMeasurementAboveTheLimitLevelOfCo2(sensorId, NOW);
+    createMeasurementAboveTheLimitLevelOfCo2(sensorId, NOW);
+    checkSensorStatus(sensorId, Status.WARM);
+
+    BatchMeasurementsDto batch = new BatchMeasurementsDto(Collections.singletonList(new SensorMeasurementsDto(sensorId,
+        Arrays.asList(
+            new CreateMeasurementDto(CO2_QUANTITY_LIMIT + 1, NOW.minusMinutes(1)),
+            new CreateMeasurementDto(CO2_QUANTITY_LIMIT + 1, NOW.plusMinutes(1)),
+            new CreateMeasurementDto(CO2_QUANTITY_LIMIT + 1, NOW.plusMinutes(1))))));
+    MvcResult mvcResult = mockMvc.perform(post("/api/v1/sensors/measurements")
+        .contentType(MediaType.APPLICATION_JSON)
+        .characterEncoding(ENCODING_UTF8)
+        .content(objectMapper.writeValueAsString(batch)))
+        .andDo(print())
+        .andReturn();
+
+    BatchMeasurementsResultDto result =
+        objectMapper.readValue(mvcResult.getResponse().getContentAsString(), BatchMeasurementsResultDto.class);
+    assertEquals(1, result.getAccepted());
+    assertEquals(2, result.getDuplicates());
+    assertEquals(0, result.getRejected());
+    checkSensorStatus(sensorId, Status.ALERT);
+    assertEquals(1, getSensorAlerts(sensorId).size());
+
+    String metrics = mockMvc.perform(get("/actuator/prometheus")).andReturn().getResponse().getContentAsString();
+    assertTrue(metrics.contains("carbonsensors_measurements_duplicate_total"));
+  }
+
+  @Test
+  void createMeasurementsAsBinaryRecords() throws Exception {
+    UUID sensorId = createSensor().getId();
+    UUID unknownSensorId = UUID.randomUUID();
+
+    MvcResult singleResult = mockMvc.perform(post(format("/api/v1/sensors/{0}/measurements", sensorId))
+        .contentType(MeasurementRecords.MEDIA_TYPE)
+        .content(MeasurementRecords.write(Collections.singletonList(
+            new MeasurementReading(sensorId, CO2_QUANTITY_LIMIT + 1, NOW.minusMinutes(3).toInstant())))))
+        .andReturn();
+    assertEquals(HttpStatus.OK.value(), singleResult.getResponse().getStatus());
+
+    MvcResult batchResult = mockMvc.perform(post("/api/v1/sensors/measurements")
+        .contentType(MeasurementRecords.MEDIA_TYPE)
+        .content(MeasurementRecords.write(Arrays.asList(
+            new MeasurementReading(sensorId, CO2_QUANTITY_LIMIT + 1, NOW.minusMinutes(2).toInstant()),
+            new MeasurementReading(unknownSensorId, CO2_QUANTITY_LIMIT, NOW.toInstant()),
+            new MeasurementReading(sensorId, CO2_QUANTITY_LIMIT + 1, NOW.minusMinutes(1).toInstant())))))
+        .andDo(print())
+        .andReturn();
+    assertEquals(HttpStatus.OK.value(), batchResult.getResponse().getStatus());
+
+    BatchMeasurementsResultDto result =
+        objectMapper.readValue(batchResult.getResponse().getContentAsString(), BatchMeasurementsResultDto.class);
+    assertEquals(2, result.getAccepted());
+    assertEquals(1, result.getRejected());
+    assertEquals(unknownSensorId, result.getFailures().get(0).getSensorId());
+    assertEquals(1, result.getFailures().get(0).getIndex());
+
+    checkSensorStatus(sensorId, Status.ALERT);
+
+    MvcResult truncatedResult = mockMvc.perform(post("/api/v1/sensors/measurements")
+        .contentType(MeasurementRecords.MEDIA_TYPE)
+        .content(new byte[] {0, 0, 0, 1, 42}))
+        .andReturn();
+    assertEquals(HttpStatus.BAD_REQUEST.value(), truncatedResult.getResponse().getStatus());
+
+    MvcResult infiniteResult = mockMvc.perform(post(format("/api/v1/sensors/{0}/measurements", sensorId))
+        .contentType(MeasurementRecords.MEDIA_TYPE)
+        .content(MeasurementRecords.write(Collections.singletonList(
+            new MeasurementReading(sensorId, Double.POSITIVE_INFINITY, NOW.toInstant())))))
+        .andReturn();
+    assertEquals(HttpStatus.BAD_REQUEST.value(), infiniteResult.getResponse().getStatus());
+  }
+
+  /**
+   * Creates measurements over three hours and reads their hourly series from a moment which is not aligned on an
+   * hour, so that the first hour is read from the measurements and the following ones from the hour rollup.
+   *
+   * @throws Exception Exception thrown when an unexpected error has occurred
+   */
+  @Test
+  void findSeriesFromRollups() throws Exception {
+    UUID sensorId = createSensor().getId();
+    ZonedDateTime hourStart = NOW.withZoneSameInstant(ZoneOffset.UTC).minusDays(2).truncatedTo(ChronoUnit.HOURS);
+    createMeasurement(sensorId, CO2_QUANTITY_LIMIT, hourStart.plusMinutes(1));
+    createMeasurement(sensorId, CO2_QUANTITY_LIMIT + 100, hourStart.plusMinutes(1).plusSeconds(30));
+    createMeasurement(sensorId, CO2_QUANTITY_LIMIT - 100, hourStart.plusMinutes(61));
+    createMeasurement(sensorId, CO2_QUANTITY_LIMIT - 200, hourStart.plusMinutes(125));
+
+    MvcResult mvcResult = mockMvc.perform(get(format("/api/v1/sensors/{0}/series", sensorId))
+        .param("from", hourStart.plusSeconds(30).toOffsetDateTime().toString())
+        .param("to", hourStart.plusHours(3).toOffsetDateTime().toString())
+        .param("resolution", "PT1H")
+        .characterEncoding(ENCODING_UTF8))
+        .andDo(print())
+        .andReturn();
+
+    assertEquals(HttpStatus.OK.value(), mvcResult.getResponse().getStatus());
+    SensorSeriesDto series =
+        objectMapper.readValue(mvcResult.getResponse().getContentAsString(), SensorSeriesDto.class);
+    assertEquals("HOUR", series.getRollup());
+    assertEquals(3, series.getPoints().size());
+    assertTrue(hourStart.isEqual(series.getPoints().get(0).getStart()));
+    assertEquals(2L, series.getPoints().get(0).getCount());
+    assertEquals(CO2_QUANTITY_LIMIT + 50, series.getPoints().get(0).getAvg());
+    assertEquals(CO2_QUANTITY_LIMIT - 100, series.getPoints().get(1).getMax());
+    assertEquals(CO2_QUANTITY_LIMIT - 200, series.getPoints().get(2).getMin());
+
+    mvcResult = mockMvc.perform(get(format("/api/v1/sensors/{0}/series", sensorId))
+        .param("from", hourStart.toOffsetDateTime().toString())
+        .param("to", hourStart.plusDays(30).toOffsetDateTime().toString())
+        .param("resolution", "minute"))
+        .andReturn();
+    assertEquals(HttpStatus.BAD_REQUEST.value(), mvcResult.getResponse().getStatus());
+  }
+
+  /**
+   * Readings far above those of the other tests keep the sensors of this test at the top of the fleet. The database is
+   * shared with the reactive tests, whose ranked sensors are filtered out.
+   */
+  @Test
+  void findTopSensorsOfFleet() throws Exception {
+    UUID firstSensorId = createSensor().getId();
+    UUID secondSensorId = createSensor().getId();
+    UUID thirdSensorId = createSensor().getId();
+    createMeasurement(firstSensorId, 900000d, NOW.minusDays(2));
+    createMeasurement(firstSensorId, 100d, NOW.minusHours(1));
+    createMeasurement(secondSensorId, 800000d, NOW.minusHours(1));
+    createMeasurement(thirdSensorId, 700000d, NOW.minusHours(1));
+    List<UUID> sensorIds = Arrays.asList(firstSensorId, secondSensorId, thirdSensorId);
+
+    List<SensorRankingDto> ranking = getRanking("max", null, sensorIds);
+    assertEquals(Arrays.asList(firstSensorId, secondSensorId, thirdSensorId), toSensorIds(ranking));
+    assertEquals(900000d, ranking.get(0).getMax());
+    assertEquals(450050d, ranking.get(0).getAvg());
+    assertEquals(2L, ranking.get(0).getCount());
+
+    ranking = getRanking("avg", null, sensorIds);
+    assertEquals(Arrays.asList(secondSensorId, thirdSensorId, firstSensorId), toSensorIds(ranking));
+
+    ranking = getRanking("max", 1, sensorIds);
+    assertEquals(Arrays.asList(secondSensorId, thirdSensorId, firstSensorId), toSensorIds(ranking));
+    assertEquals(100d, ranking.get(2).getMax());
+
+    MvcResult mvcResult = mockMvc.perform(get("/api/v1/sensors/ranking").param("metric", "median"))
+        .andReturn();
+    assertEquals(HttpStatus.BAD_REQUEST.value(), mvcResult.getResponse().getStatus());
   }
 
   private int add3ConsecutiveBelowTheLimitCo2Measurements(int numberOfDays, UUID sensorId) throws Exception {
@@ -127,7 +427,25 @@ class ApiEndToEndITCase {
     assertEquals(HttpStatus.OK.value(), mvcResult.getResponse().getStatus());
 
     String responseAsString = mvcResult.getResponse().getContentAsString();
-    return objectMapper.readValue(responseAsString, List.class);
+    return objectMapper.readValue(responseAsString, new TypeReference<List<AlertDto>>() {
+    });
+  }
+
+  private MvcResult getSensorAlertsPage(UUID sensorId, String cursor) throws Exception {
+    MockHttpServletRequestBuilder request = get(format("/api/v1/sensors/{0}/alerts", sensorId))
+        .param("limit", "1")
+        .contentType(MediaType.APPLICATION_JSON)
+        .characterEncoding(ENCODING_UTF8);
+    if (cursor != null) {
+      request.param("cursor", cursor);
+    }
+
+    MvcResult mvcResult = mockMvc.perform(request)
+        .andDo(print())
+        .andReturn();
+
+    assertEquals(HttpStatus.OK.value(), mvcResult.getResponse().getStatus());
+    return mvcResult;
   }
 
   private SensorMetricsDto calculateSensorMetrics(UUID sensorId) throws Exception {
@@ -143,6 +461,127 @@ class ApiEndToEndITCase {
     return objectMapper.readValue(responseAsString, SensorMetricsDto.class);
   }
 
+  /**
+   * Brings a sensor to ALERT and checks that the stage timers, the status transitions and the created alert are
+   * exposed on the Prometheus endpoint.
+   *
+   * @throws Exception Exception thrown when an unexpected error has occurred
+   */
+  @Test
+  void exposeOperationalMetricsInPrometheusFormat() throws Exception {
+    UUID sensorId = createSensor().getId();
+    for (int i = 3; i > 0; i--) {
+      createMeasurementAboveTheLimitLevelOfCo2(sensorId, NOW.minusMinutes(i));
+    }
+    checkSensorStatus(sensorId, Status.ALERT);
+
+    MvcResult mvcResult = mockMvc.perform(get("/actuator/prometheus"))
+        .andReturn();
+
+    assertEquals(HttpStatus.OK.value(), mvcResult.getResponse().getStatus());
+    String metrics = mvcResult.getResponse().getContentAsString();
+    assertTrue(metrics.contains("carbonsensors_measurement_creation_stage_seconds_bucket{stage=\"insert\""));
+    assertTrue(metrics.contains("carbonsensors_sensor_status_transitions_total{from=\"OK\",to=\"WARM\",}"));
+    assertTrue(metrics.contains("carbonsensors_sensor_status_transitions_total{from=\"WARM\",to=\"ALERT\",}"));
+    assertTrue(metrics.contains("carbonsensors_alerts_created_total"));
+    assertTrue(metrics.contains("carbonsensors_sensor_events_evicted_total"));
+  }
+
+  /**
+   * Provisions sensors by number and by id. Provisioning the same ids again returns them again, without resetting
+   * the status they reached in the meantime.
+   *
+   * @throws Exception Exception thrown when an unexpected error has occurred
+   */
+  @Test
+  void createSensorsInBulk() throws Exception {
+    List<UUID> createdIds = createSensors(new CreateSensorsDto(3, null));
+    assertEquals(3, createdIds.size());
+    for (UUID sensorId : createdIds) {
+      checkSensorStatus(sensorId, Status.OK);
+    }
+
+    List<UUID> givenIds = Arrays.asList(UUID.randomUUID(), UUID.randomUUID());
+    assertEquals(givenIds, createSensors(new CreateSensorsDto(null, givenIds)));
+    createMeasurementAboveTheLimitLevelOfCo2(givenIds.get(0), NOW);
+    assertEquals(givenIds, createSensors(new CreateSensorsDto(null, givenIds)));
+    checkSensorStatus(givenIds.get(0), Status.WARM);
+
+    MvcResult mvcResult = mockMvc.perform(post("/api/v1/sensors/bulk")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(new CreateSensorsDto(3, givenIds))))
+        .andReturn();
+    assertEquals(HttpStatus.BAD_REQUEST.value(), mvcResult.getResponse().getStatus());
+  }
+
+  /**
+   * Looks up the statuses of two sensors and of an unknown id at once: the unknown id is reported on its own.
+   *
+   * @throws Exception Exception thrown when an unexpected error has occurred
+   */
+  @Test
+  void findSensorStatusesInBulk() throws Exception {
+    UUID okSensorId = createSensor().getId();
+    UUID warmSensorId = createSensor().getId();
+    UUID unknownSensorId = UUID.randomUUID();
+    createMeasurementAboveTheLimitLevelOfCo2(warmSensorId, NOW);
+
+    MvcResult mvcResult = mockMvc.perform(post("/api/v1/sensors/statuses")
+        .contentType(MediaType.APPLICATION_JSON)
+        .characterEncoding(ENCODING_UTF8)
+        .content(objectMapper.writeValueAsString(Arrays.asList(okSensorId, unknownSensorId, warmSensorId))))
+        .andDo(print())
+        .andReturn();
+
+    assertEquals(HttpStatus.OK.value(), mvcResult.getResponse().getStatus());
+    SensorStatusesDto statuses =
+        objectMapper.readValue(mvcResult.getResponse().getContentAsString(), SensorStatusesDto.class);
+    assertEquals(Arrays.asList(okSensorId, warmSensorId), new ArrayList<>(statuses.getStatuses().keySet()));
+    assertEquals(Status.OK.name(), statuses.getStatuses().get(okSensorId));
+    assertEquals(Status.WARM.name(), statuses.getStatuses().get(warmSensorId));
+    assertEquals(Collections.singletonList(unknownSensorId), statuses.getUnknown());
+  }
+
+  /**
+   * Subscribes to the events of a new sensor, then brings it to the ALERT status: the two status transitions and the
+   * new alert are pushed to the stream, after its first heartbeat.
+   *
+   * @throws Exception Exception thrown when an unexpected error has occurred
+   */
+  @Test
+  void streamSensorEvents() throws Exception {
+    UUID sensorId = createSensor().getId();
+    MvcResult mvcResult = mockMvc.perform(get(format("/api/v1/sensors/{0}/events", sensorId))
+        .accept(MediaType.TEXT_EVENT_STREAM))
+        .andReturn();
+    assertTrue(mvcResult.getRequest().isAsyncStarted());
+
+    for (int i = 3; i > 0; i--) {
+      createMeasurementAboveTheLimitLevelOfCo2(sensorId, NOW.minusMinutes(i));
+    }
+
+    String events = awaitContent(mvcResult, "event:alert");
+    assertTrue(events.startsWith(":heartbeat"));
+    assertTrue(events.indexOf("\"status\":\"WARM\"") < events.indexOf("\"status\":\"ALERT\""));
+    assertTrue(events.contains("\"sensorId\":\"" + sensorId + "\""));
+
+    MvcResult invalidTypes = mockMvc.perform(get(format("/api/v1/sensors/{0}/events", sensorId))
+        .param("types", "measurement"))
+        .andReturn();
+    assertEquals(HttpStatus.BAD_REQUEST.value(), invalidTypes.getResponse().getStatus());
+  }
+
+  private String awaitContent(MvcResult mvcResult, String expected) throws Exception {
+    long deadline = System.currentTimeMillis() + 5000;
+    String content = mvcResult.getResponse().getContentAsString();
+    while (!content.contains(expected) && System.currentTimeMillis() < deadline) {
+      Thread.sleep(50);
+      content = mvcResult.getResponse().getContentAsString();
+    }
+    assertTrue(content.contains(expected), content);
+    return content;
+  }
+
   private void checkSensorStatus(UUID sensorId, Status status) throws Exception {
     MvcResult mvcResult = mockMvc.perform(get(format("/api/v1/sensors/{0}", sensorId))
         .contentType(MediaType.APPLICATION_JSON)
@@ -157,6 +596,47 @@ class ApiEndToEndITCase {
     assertEquals(status.name(), sensorStatusDto.getStatus());
   }
 
+  private List<SensorRankingDto> getRanking(String metric, Integer days, List<UUID> sensorIds) throws Exception {
+    MockHttpServletRequestBuilder request = get("/api/v1/sensors/ranking").param("metric", metric)
+        .param("size", "100");
+    if (days != null) {
+      request.param("days", String.valueOf(days));
+    }
+    MvcResult mvcResult = mockMvc.perform(asyncDispatch(mockMvc.perform(request).andReturn()))
+        .andDo(print())
+        .andReturn();
+
+    assertEquals(HttpStatus.OK.value(), mvcResult.getResponse().getStatus());
+    List<SensorRankingDto> ranking = objectMapper.readValue(mvcResult.getResponse().getContentAsString(),
+        new TypeReference<List<SensorRankingDto>>() {
+        });
+    return ranking.stream()
+        .filter(sensor -> sensorIds.contains(sensor.getSensorId()))
+        .collect(Collectors.toList());
+  }
+
+  private static List<UUID> toSensorIds(List<SensorRankingDto> ranking) {
+    return ranking.stream().map(SensorRankingDto::getSensorId).collect(Collectors.toList());
+  }
+
+  private List<UUID> createSensors(CreateSensorsDto createSensorsDto) throws Exception {
+    MvcResult mvcResult = mockMvc.perform(post("/api/v1/sensors/bulk")
+        .contentType(MediaType.APPLICATION_JSON)
+        .characterEncoding(ENCODING_UTF8)
+        .content(objectMapper.writeValueAsString(createSensorsDto)))
+        .andReturn();
+    mvcResult = mockMvc.perform(asyncDispatch(mvcResult))
+        .andReturn();
+
+    assertEquals(HttpStatus.OK.value(), mvcResult.getResponse().getStatus());
+    assertEquals(CreateSensorsDto.CREATED_MEDIA_TYPE, mvcResult.getResponse().getContentType());
+    List<UUID> sensorIds = new ArrayList<>();
+    for (String line : mvcResult.getResponse().getContentAsString().split("\n")) {
+      sensorIds.add(objectMapper.readValue(line, SensorCreatedDto.class).getId());
+    }
+    return sensorIds;
+  }
+
   private SensorCreatedDto createSensor() throws Exception {
     MvcResult mvcResult = mockMvc.perform(post("/api/v1/sensors")
         .contentType(MediaType.APPLICATION_JSON)
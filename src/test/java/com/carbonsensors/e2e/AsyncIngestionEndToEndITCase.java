@@ -0,0 +1,93 @@
+package com.carbonsensors.e2e;
+
+import static java.text.MessageFormat.format;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+import com.carbonsensors.dto.CreateMeasurementDto;
+import com.carbonsensors.dto.SensorCreatedDto;
+import com.carbonsensors.dto.SensorStatusDto;
+import com.carbonsensors.model.Status;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+@SpringBootTest(properties = "measurement.ingestion.async.enabled=true")
+class AsyncIngestionEndToEndITCase {
+
+  private static final ZonedDateTime NOW = ZonedDateTime.now();
+  private static final long TIMEOUT_MS = 10000;
+
+  private MockMvc mockMvc;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @BeforeEach
+  public void setUp(WebApplicationContext webApplicationContext) {
+    this.mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext)
+        .build();
+  }
+
+  /**
+   * Sends 3 readings above the CO2 limit, which are accepted right away, and waits for the pipeline to store them
+   * and bring the sensor to ALERT. Readings of an unknown sensor are still rejected synchronously.
+   *
+   * @throws Exception Exception thrown when an unexpected error has occurred
+   */
+  @Test
+  void createMeasurementsAsynchronously() throws Exception {
+    UUID sensorId = createSensor();
+
+    for (int i = 3; i > 0; i--) {
+      assertEquals(HttpStatus.ACCEPTED.value(), createMeasurement(sensorId, 2100d, NOW.minusMinutes(i)));
+    }
+    assertEquals(HttpStatus.BAD_REQUEST.value(), createMeasurement(UUID.randomUUID(), 2100d, NOW));
+
+    long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+    Status status = findSensorStatus(sensorId);
+    while (status != Status.ALERT && System.currentTimeMillis() < deadline) {
+      Thread.sleep(50);
+      status = findSensorStatus(sensorId);
+    }
+    assertEquals(Status.ALERT, status);
+  }
+
+  private UUID createSensor() throws Exception {
+    MvcResult mvcResult = mockMvc.perform(post("/api/v1/sensors")
+        .contentType(MediaType.APPLICATION_JSON))
+        .andReturn();
+
+    return objectMapper.readValue(mvcResult.getResponse().getContentAsString(), SensorCreatedDto.class).getId();
+  }
+
+  private int createMeasurement(UUID sensorId, Double co2Quantity, ZonedDateTime time) throws Exception {
+    return mockMvc.perform(post(format("/api/v1/sensors/{0}/measurements", sensorId))
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(new CreateMeasurementDto(co2Quantity, time))))
+        .andReturn()
+        .getResponse()
+        .getStatus();
+  }
+
+  private Status findSensorStatus(UUID sensorId) throws Exception {
+    MvcResult mvcResult = mockMvc.perform(get(format("/api/v1/sensors/{0}", sensorId))
+        .contentType(MediaType.APPLICATION_JSON))
+        .andReturn();
+
+    return Status.valueOf(
+        objectMapper.readValue(mvcResult.getResponse().getContentAsString(), SensorStatusDto.class).getStatus());
+  }
+}
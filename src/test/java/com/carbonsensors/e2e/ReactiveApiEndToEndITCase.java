@@ -0,0 +1,513 @@
+package com.carbonsensors.e2e;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.carbonsensors.controller.SensorController;
+import com.carbonsensors.dto.AlertDto;
+import com.carbonsensors.dto.BatchMeasurementsDto;
+import com.carbonsensors.dto.BatchMeasurementsResultDto;
+import com.carbonsensors.dto.CreateMeasurementDto;
+import com.carbonsensors.dto.CreateSensorsDto;
+import com.carbonsensors.dto.MeasurementRecords;
+import com.carbonsensors.dto.SensorCreatedDto;
+import com.carbonsensors.dto.SensorEventDto;
+import com.carbonsensors.dto.SensorMeasurementsDto;
+import com.carbonsensors.dto.SensorMetricsDto;
+import com.carbonsensors.dto.SensorRankingDto;
+import com.carbonsensors.dto.SensorSeriesDto;
+import com.carbonsensors.dto.SensorStatusDto;
+import com.carbonsensors.dto.SensorStatusesDto;
+import com.carbonsensors.model.Status;
+import com.carbonsensors.service.MeasurementReading;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * Goes through the API served by the {@code reactive} profile, which must behave as the servlet one.
+ */
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("reactive")
+class ReactiveApiEndToEndITCase {
+
+  private static final Double CO2_QUANTITY_LIMIT = 2000d;
+  private static final ZonedDateTime NOW = ZonedDateTime.now();
+
+  @Autowired
+  private WebTestClient webTestClient;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  /**
+   * Brings a sensor to ALERT and back to OK twice, then checks its metrics and reads its alerts one page at a time.
+   */
+  @Test
+  void goThroughSensorCreationAndMeasurementFlow() {
+    int numberOfDays = 30;
+    UUID sensorId = createSensor();
+    checkSensorStatus(sensorId, Status.OK);
+    createMeasurement(sensorId, CO2_QUANTITY_LIMIT, NOW.minusDays(numberOfDays));
+    checkSensorStatus(sensorId, Status.OK);
+
+    for (int streak = 0; streak < 2; streak++) {
+      createMeasurement(sensorId, CO2_QUANTITY_LIMIT + 1, NOW.minusDays(--numberOfDays));
+      checkSensorStatus(sensorId, Status.WARM);
+      createMeasurement(sensorId, CO2_QUANTITY_LIMIT + 1, NOW.minusDays(--numberOfDays));
+      checkSensorStatus(sensorId, Status.WARM);
+      createMeasurement(sensorId, CO2_QUANTITY_LIMIT + 1, NOW.minusDays(--numberOfDays));
+      checkSensorStatus(sensorId, Status.ALERT);
+
+      createMeasurement(sensorId, CO2_QUANTITY_LIMIT - 1, NOW.minusDays(--numberOfDays));
+      checkSensorStatus(sensorId, Status.ALERT);
+      createMeasurement(sensorId, CO2_QUANTITY_LIMIT - 1, NOW.minusDays(--numberOfDays));
+      checkSensorStatus(sensorId, Status.ALERT);
+      createMeasurement(sensorId, CO2_QUANTITY_LIMIT - 1, NOW.minusDays(--numberOfDays));
+      checkSensorStatus(sensorId, Status.OK);
+    }
+
+    SensorMetricsDto metricsDto = webTestClient.get().uri("/api/v1/sensors/{id}/metrics", sensorId)
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody(SensorMetricsDto.class)
+        .returnResult().getResponseBody();
+    assertNotNull(metricsDto);
+    assertEquals(CO2_QUANTITY_LIMIT + 1, metricsDto.getMaxLast30Days());
+    assertEquals(CO2_QUANTITY_LIMIT, metricsDto.getAvgLast30Days());
+
+    List<AlertDto> alerts = getSensorAlerts(sensorId);
+    assertEquals(2, alerts.size());
+    alerts.forEach(alert -> assertEquals(3, alert.getMesurements().size()));
+
+    EntityExchangeResult<List<AlertDto>> firstPage = getSensorAlertsPage(sensorId, null);
+    String nextCursor = firstPage.getResponseHeaders().getFirst(SensorController.NEXT_CURSOR_HEADER);
+    assertNotNull(nextCursor);
+    assertEquals(1, firstPage.getResponseBody().size());
+
+    EntityExchangeResult<List<AlertDto>> secondPage = getSensorAlertsPage(sensorId, nextCursor);
+    assertNull(secondPage.getResponseHeaders().getFirst(SensorController.NEXT_CURSOR_HEADER));
+    assertEquals(1, secondPage.getResponseBody().size());
+  }
+
+  @Test
+  void createMeasurementsInBatch() {
+    UUID firstSensorId = createSensor();
+    UUID secondSensorId = createSensor();
+    UUID unknownSensorId = UUID.randomUUID();
+
+    BatchMeasurementsDto batch = new BatchMeasurementsDto(Arrays.asList(
+        new SensorMeasurementsDto(firstSensorId, Arrays.asList(
+            new CreateMeasurementDto(CO2_QUANTITY_LIMIT + 1, NOW.minusMinutes(3)),
+            new CreateMeasurementDto(CO2_QUANTITY_LIMIT + 1, NOW.minusMinutes(2)),
+            new CreateMeasurementDto(CO2_QUANTITY_LIMIT + 1, NOW.minusMinutes(1)))),
+        new SensorMeasurementsDto(secondSensorId, Arrays.asList(
+            new CreateMeasurementDto(CO2_QUANTITY_LIMIT - 1, NOW),
+            new CreateMeasurementDto(null, NOW))),
+        new SensorMeasurementsDto(unknownSensorId, Arrays.asList(
+            new CreateMeasurementDto(CO2_QUANTITY_LIMIT, NOW)))
+    ));
+
+    BatchMeasurementsResultDto result = webTestClient.post().uri("/api/v1/sensors/measurements")
+        .bodyValue(batch)
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody(BatchMeasurementsResultDto.class)
+        .returnResult().getResponseBody();
+
+    assertNotNull(result);
+    assertEquals(4, result.getAccepted());
+    assertEquals(2, result.getRejected());
+    assertEquals(secondSensorId, result.getFailures().get(0).getSensorId());
+    assertEquals(1, result.getFailures().get(0).getEntryIndex());
+    assertEquals(1, result.getFailures().get(0).getIndex());
+    assertEquals(unknownSensorId, result.getFailures().get(1).getSensorId());
+    assertEquals(2, result.getFailures().get(1).getEntryIndex());
+    assertEquals(0, result.getFailures().get(1).getIndex());
+
+    checkSensorStatus(firstSensorId, Status.ALERT);
+    checkSensorStatus(secondSensorId, Status.OK);
+    assertEquals(1, getSensorAlerts(firstSensorId).size());
+  }
+
+  @Test
+  void extendAlert() {
+    UUID sensorId = createSensor();
+    createMeasurement(sensorId, CO2_QUANTITY_LIMIT + 1, NOW.minusMinutes(3));
+    createMeasurement(sensorId, CO2_QUANTITY_LIMIT + 1, NOW.minusMinutes(2));
+    createMeasurement(sensorId, CO2_QUANTITY_LIMIT + 1, NOW.minusMinutes(1));
+    checkSensorStatus(sensorId, Status.ALERT);
+
+    createMeasurement(sensorId, CO2_QUANTITY_LIMIT + 10, NOW);
+    createMeasurement(sensorId, CO2_QUANTITY_LIMIT + 1, NOW.plusMinutes(1));
+
+    checkSensorStatus(sensorId, Status.ALERT);
+    List<AlertDto> alerts = getSensorAlerts(sensorId);
+    assertEquals(1, alerts.size());
+    assertEquals(5, alerts.get(0).getMesurements().size());
+    assertEquals(CO2_QUANTITY_LIMIT + 10, Collections.max(alerts.get(0).getMesurements()));
+  }
+
+  @Test
+  void createMeasurementsInBatch_whenReadingIsPastLatenessHorizon_thenReportIt() {
+    UUID sensorId = createSensor();
+    createMeasurement(sensorId, CO2_QUANTITY_LIMIT + 1, NOW);
+
+    BatchMeasurementsDto batch = new BatchMeasurementsDto(Collections.singletonList(new SensorMeasurementsDto(sensorId,
+        Arrays.asList(
+            new CreateMeasurementDto(CO2_QUANTITY_LIMIT - 1, NOW.minusDays(1)),
+            new CreateMeasurementDto(CO2_QUANTITY_LIMIT + 1, NOW.minusMinutes(1))))));
+
+    BatchMeasurementsResultDto result = webTestClient.post().uri("/api/v1/sensors/measurements")
+        .bodyValue(batch)
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody(BatchMeasurementsResultDto.class)
+        .returnResult().getResponseBody();
+
+    assertNotNull(result);
+    assertEquals(2, result.getAccepted());
+    assertEquals(1, result.getPastHorizon());
+    checkSensorStatus(sensorId, Status.WARM);
+  }
+
+  @Test
+  void createMeasurementsInBatch_whenReadingsAreDuplicates_thenSkipThem() {
+    UUID sensorId = createSensor();
+    createMeasurement(sensorId, CO2_QUANTITY_LIMIT + 1, NOW.minusMinutes(1));
+    createMeasurement(sensorId, CO2_QUANTITY_LIMIT + 1, NOW);
+    createMeasurement(sensorId, CO2_QUANTITY_LIMIT + 1, NOW);
+    checkSensorStatus(sensorId, Status.WARM);
+
+    BatchMeasurementsDto batch = new BatchMeasurementsDto(Collections.singletonList(new SensorMeasurementsDto(sensorId,
+        Arrays.asList(
+            new CreateMeasurementDto(CO2_QUANTITY_LIMIT + 1, NOW.minusMinutes(1)),
+            new CreateMeasurementDto(CO2_QUANTITY_LIMIT + 1, NOW.plusMinutes(1)),
+            new CreateMeasurementDto(CO2_QUANTITY_LIMIT + 1, NOW.plusMinutes(1))))));
+
+    BatchMeasurementsResultDto result = webTestClient.post().uri("/api/v1/sensors/measurements")
+        .bodyValue(batch)
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody(BatchMeasurementsResultDto.class)
+        .returnResult().getResponseBody();
+
+    assertNotNull(result);
+    assertEquals(1, result.getAccepted());
+    assertEquals(2, result.getDuplicates());
+    checkSensorStatus(sensorId, Status.ALERT);
+    assertEquals(3, getSensorAlerts(sensorId).get(0).getMesurements().size());
+  }
+
+  @Test
+  void createMeasurementsAsBinaryRecords() {
+    UUID sensorId = createSensor();
+    UUID unknownSensorId = UUID.randomUUID();
+
+    webTestClient.post().uri("/api/v1/sensors/{id}/measurements", sensorId)
+        .contentType(MediaType.parseMediaType(MeasurementRecords.MEDIA_TYPE))
+        .bodyValue(MeasurementRecords.write(Collections.singletonList(
+            new MeasurementReading(sensorId, CO2_QUANTITY_LIMIT + 1, NOW.minusMinutes(3).toInstant()))))
+        .exchange()
+        .expectStatus().isOk();
+
+    BatchMeasurementsResultDto result = webTestClient.post().uri("/api/v1/sensors/measurements")
+        .contentType(MediaType.parseMediaType(MeasurementRecords.MEDIA_TYPE))
+        .bodyValue(MeasurementRecords.write(Arrays.asList(
+            new MeasurementReading(sensorId, CO2_QUANTITY_LIMIT + 1, NOW.minusMinutes(2).toInstant()),
+            new MeasurementReading(unknownSensorId, CO2_QUANTITY_LIMIT, NOW.toInstant()),
+            new MeasurementReading(sensorId, CO2_QUANTITY_LIMIT + 1, NOW.minusMinutes(1).toInstant()))))
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody(BatchMeasurementsResultDto.class)
+        .returnResult().getResponseBody();
+
+    assertNotNull(result);
+    assertEquals(2, result.getAccepted());
+    assertEquals(1, result.getRejected());
+    assertEquals(unknownSensorId, result.getFailures().get(0).getSensorId());
+    assertEquals(1, result.getFailures().get(0).getIndex());
+
+    checkSensorStatus(sensorId, Status.ALERT);
+
+    webTestClient.post().uri("/api/v1/sensors/measurements")
+        .contentType(MediaType.parseMediaType(MeasurementRecords.MEDIA_TYPE))
+        .bodyValue(new byte[] {0, 0, 0, 1, 42})
+        .exchange()
+        .expectStatus().isBadRequest();
+
+    webTestClient.post().uri("/api/v1/sensors/{id}/measurements", sensorId)
+        .contentType(MediaType.parseMediaType(MeasurementRecords.MEDIA_TYPE))
+        .bodyValue(MeasurementRecords.write(Collections.singletonList(
+            new MeasurementReading(sensorId, Double.POSITIVE_INFINITY, NOW.toInstant()))))
+        .exchange()
+        .expectStatus().isBadRequest();
+  }
+
+  /**
+   * Sends readings above the CO2 limit of a single sensor concurrently. The sensor row lock has them evaluated one
+   * after the other, so only one alert is opened.
+   */
+  @Test
+  void createMeasurementsConcurrently_thenOpenOneAlert() throws Exception {
+    UUID sensorId = createSensor();
+    ExecutorService executor = Executors.newFixedThreadPool(6);
+    try {
+      List<CompletableFuture<Void>> requests = new ArrayList<>();
+      for (int i = 6; i > 0; i--) {
+        ZonedDateTime time = NOW.minusMinutes(i);
+        requests.add(CompletableFuture.runAsync(
+            () -> createMeasurement(sensorId, CO2_QUANTITY_LIMIT + 1, time), executor));
+      }
+      CompletableFuture.allOf(requests.toArray(new CompletableFuture[0])).get();
+    } finally {
+      executor.shutdown();
+    }
+
+    checkSensorStatus(sensorId, Status.ALERT);
+    assertEquals(1, getSensorAlerts(sensorId).size());
+  }
+
+  @Test
+  void findSeriesFromRollups() {
+    UUID sensorId = createSensor();
+    ZonedDateTime hourStart = NOW.withZoneSameInstant(ZoneOffset.UTC).minusDays(2).truncatedTo(ChronoUnit.HOURS);
+    createMeasurement(sensorId, CO2_QUANTITY_LIMIT, hourStart.plusMinutes(1));
+    createMeasurement(sensorId, CO2_QUANTITY_LIMIT + 100, hourStart.plusMinutes(1).plusSeconds(30));
+    createMeasurement(sensorId, CO2_QUANTITY_LIMIT - 100, hourStart.plusMinutes(61));
+
+    SensorSeriesDto series = webTestClient.get()
+        .uri(builder -> builder.path("/api/v1/sensors/{id}/series")
+            .queryParam("from", hourStart.plusSeconds(30).toOffsetDateTime().toString())
+            .queryParam("to", hourStart.plusHours(2).toOffsetDateTime().toString())
+            .queryParam("resolution", "hour")
+            .build(sensorId))
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody(SensorSeriesDto.class)
+        .returnResult().getResponseBody();
+
+    assertNotNull(series);
+    assertEquals("HOUR", series.getRollup());
+    assertEquals(2, series.getPoints().size());
+    assertTrue(hourStart.isEqual(series.getPoints().get(0).getStart()));
+    assertEquals(CO2_QUANTITY_LIMIT + 50, series.getPoints().get(0).getAvg());
+    assertEquals(1L, series.getPoints().get(1).getCount());
+  }
+
+  /**
+   * The database is shared with the servlet tests, whose ranked sensors are filtered out.
+   */
+  @Test
+  void findTopSensorsOfFleet() {
+    UUID firstSensorId = createSensor();
+    UUID secondSensorId = createSensor();
+    createMeasurement(firstSensorId, 90000000d, NOW.minusDays(2));
+    createMeasurement(firstSensorId, 100d, NOW.minusHours(1));
+    createMeasurement(secondSensorId, 80000000d, NOW.minusHours(1));
+    List<UUID> sensorIds = Arrays.asList(firstSensorId, secondSensorId);
+
+    List<SensorRankingDto> ranking = webTestClient.get()
+        .uri(builder -> builder.path("/api/v1/sensors/ranking").queryParam("metric", "max")
+            .queryParam("size", 100).build())
+        .exchange()
+        .expectStatus().isOk()
+        .expectBodyList(SensorRankingDto.class)
+        .returnResult().getResponseBody();
+
+    assertNotNull(ranking);
+    ranking = ranking.stream()
+        .filter(sensor -> sensorIds.contains(sensor.getSensorId()))
+        .collect(Collectors.toList());
+    assertEquals(2, ranking.size());
+    assertEquals(firstSensorId, ranking.get(0).getSensorId());
+    assertEquals(45000050d, ranking.get(0).getAvg());
+    assertEquals(secondSensorId, ranking.get(1).getSensorId());
+
+    webTestClient.get().uri("/api/v1/sensors/ranking?metric=median")
+        .exchange()
+        .expectStatus().isBadRequest();
+  }
+
+  @Test
+  void findSensorStatus_whenSensorDoesNotExist_thenReturnBadRequest() {
+    webTestClient.get().uri("/api/v1/sensors/{id}", UUID.randomUUID())
+        .exchange()
+        .expectStatus().isBadRequest();
+    webTestClient.post().uri("/api/v1/sensors/{id}/measurements", UUID.randomUUID())
+        .bodyValue(new CreateMeasurementDto(CO2_QUANTITY_LIMIT, NOW))
+        .exchange()
+        .expectStatus().isBadRequest();
+  }
+
+  @Test
+  void createSensorsInBulk() throws IOException {
+    List<UUID> createdIds = createSensors(new CreateSensorsDto(3, null));
+    assertEquals(3, createdIds.size());
+    createdIds.forEach(sensorId -> checkSensorStatus(sensorId, Status.OK));
+
+    List<UUID> givenIds = Arrays.asList(UUID.randomUUID(), UUID.randomUUID());
+    assertEquals(givenIds, createSensors(new CreateSensorsDto(null, givenIds)));
+    createMeasurement(givenIds.get(0), CO2_QUANTITY_LIMIT + 1, NOW);
+    assertEquals(givenIds, createSensors(new CreateSensorsDto(null, givenIds)));
+    checkSensorStatus(givenIds.get(0), Status.WARM);
+
+    webTestClient.post().uri("/api/v1/sensors/bulk")
+        .bodyValue(new CreateSensorsDto(null, null))
+        .exchange()
+        .expectStatus().isBadRequest();
+  }
+
+  @Test
+  void findSensorStatusesInBulk() {
+    UUID okSensorId = createSensor();
+    UUID warmSensorId = createSensor();
+    UUID unknownSensorId = UUID.randomUUID();
+    createMeasurement(warmSensorId, CO2_QUANTITY_LIMIT + 1, NOW);
+
+    SensorStatusesDto statuses = webTestClient.post().uri("/api/v1/sensors/statuses")
+        .bodyValue(Arrays.asList(okSensorId, unknownSensorId, warmSensorId))
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody(SensorStatusesDto.class)
+        .returnResult().getResponseBody();
+    assertNotNull(statuses);
+    assertEquals(Arrays.asList(okSensorId, warmSensorId), new ArrayList<>(statuses.getStatuses().keySet()));
+    assertEquals(Status.WARM.name(), statuses.getStatuses().get(warmSensorId));
+    assertEquals(Collections.singletonList(unknownSensorId), statuses.getUnknown());
+
+    webTestClient.post().uri("/api/v1/sensors/statuses")
+        .bodyValue(Collections.singletonList(null))
+        .exchange()
+        .expectStatus().isBadRequest();
+  }
+
+  /**
+   * Subscribes to the events of the fleet in ALERT, then brings a new sensor to that status: the transition from WARM
+   * and the new alert are pushed to the stream.
+   */
+  @Test
+  void streamFleetEvents() {
+    Flux<ServerSentEvent<SensorEventDto>> events = webTestClient.get()
+        .uri("/api/v1/sensors/events?statuses=ALERT")
+        .accept(MediaType.TEXT_EVENT_STREAM)
+        .exchange()
+        .expectStatus().isOk()
+        .returnResult(new ParameterizedTypeReference<ServerSentEvent<SensorEventDto>>() {
+        })
+        .getResponseBody();
+
+    UUID sensorId = createSensor();
+    for (int i = 3; i > 0; i--) {
+      createMeasurement(sensorId, CO2_QUANTITY_LIMIT + 1, NOW.minusMinutes(i));
+    }
+
+    List<ServerSentEvent<SensorEventDto>> received = events
+        .filter(event -> event.data() != null && sensorId.equals(event.data().getSensorId()))
+        .take(2)
+        .collectList()
+        .block(Duration.ofSeconds(10));
+    assertNotNull(received);
+    assertEquals(Arrays.asList("status", "alert"),
+        received.stream().map(ServerSentEvent::event).collect(Collectors.toList()));
+    assertEquals(Status.WARM.name(), received.get(0).data().getPreviousStatus());
+    assertEquals(Status.ALERT.name(), received.get(0).data().getStatus());
+
+    webTestClient.get().uri("/api/v1/sensors/events?types=measurement")
+        .exchange()
+        .expectStatus().isBadRequest();
+  }
+
+  private List<UUID> createSensors(CreateSensorsDto createSensorsDto) throws IOException {
+    String lines = webTestClient.post().uri("/api/v1/sensors/bulk")
+        .bodyValue(createSensorsDto)
+        .exchange()
+        .expectStatus().isOk()
+        .expectHeader().contentTypeCompatibleWith(CreateSensorsDto.CREATED_MEDIA_TYPE)
+        .expectBody(String.class)
+        .returnResult().getResponseBody();
+
+    assertNotNull(lines);
+    List<UUID> sensorIds = new ArrayList<>();
+    for (String line : lines.split("\n")) {
+      sensorIds.add(objectMapper.readValue(line, SensorCreatedDto.class).getId());
+    }
+    return sensorIds;
+  }
+
+  private UUID createSensor() {
+    SensorCreatedDto sensorCreatedDto = webTestClient.post().uri("/api/v1/sensors")
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody(SensorCreatedDto.class)
+        .returnResult().getResponseBody();
+
+    assertNotNull(sensorCreatedDto);
+    assertNotNull(sensorCreatedDto.getId());
+    return sensorCreatedDto.getId();
+  }
+
+  private void checkSensorStatus(UUID sensorId, Status status) {
+    webTestClient.get().uri("/api/v1/sensors/{id}", sensorId)
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody(SensorStatusDto.class)
+        .value(sensorStatusDto -> assertEquals(status.name(), sensorStatusDto.getStatus()));
+  }
+
+  private void createMeasurement(UUID sensorId, Double co2Quantity, ZonedDateTime time) {
+    webTestClient.post().uri("/api/v1/sensors/{id}/measurements", sensorId)
+        .bodyValue(new CreateMeasurementDto(co2Quantity, time))
+        .exchange()
+        .expectStatus().isOk();
+  }
+
+  private List<AlertDto> getSensorAlerts(UUID sensorId) {
+    return webTestClient.get().uri("/api/v1/sensors/{id}/alerts", sensorId)
+        .exchange()
+        .expectStatus().isOk()
+        .expectBodyList(AlertDto.class)
+        .returnResult().getResponseBody();
+  }
+
+  private EntityExchangeResult<List<AlertDto>> getSensorAlertsPage(UUID sensorId, String cursor) {
+    return webTestClient.get()
+        .uri(builder -> {
+          builder.path("/api/v1/sensors/{id}/alerts").queryParam("limit", 1);
+          if (cursor != null) {
+            builder.queryParam("cursor", cursor);
+          }
+          return builder.build(sensorId);
+        })
+        .exchange()
+        .expectStatus().isOk()
+        .expectBodyList(AlertDto.class)
+        .returnResult();
+  }
+}
@@ -0,0 +1,47 @@
+package com.carbonsensors.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+class TimeOrderedUuidGeneratorTest {
+
+  private final TimeOrderedUuidGenerator generator = new TimeOrderedUuidGenerator();
+
+  @Test
+  void nextUuid_whenGenerated_thenSetVersionVariantAndTimestamp() {
+    long now = System.currentTimeMillis();
+
+    UUID uuid = generator.nextUuid(now);
+
+    assertEquals(7, uuid.version());
+    assertEquals(2, uuid.variant());
+    assertEquals(now, uuid.getMostSignificantBits() >>> 16);
+  }
+
+  @Test
+  void nextUuid_whenGeneratedInTheSameMillisecond_thenIncreaseStrictly() {
+    long now = System.currentTimeMillis();
+
+    UUID previous = generator.nextUuid(now);
+    for (int i = 0; i < 10_000; i++) {
+      UUID next = generator.nextUuid(now);
+      assertTrue(Long.compareUnsigned(next.getMostSignificantBits(), previous.getMostSignificantBits()) > 0,
+          previous + " should be lower than " + next);
+      previous = next;
+    }
+  }
+
+  @Test
+  void nextUuid_whenClockGoesBackwards_thenIncreaseStrictly() {
+    long now = System.currentTimeMillis();
+
+    UUID first = generator.nextUuid(now);
+    UUID second = generator.nextUuid(now - 1_000);
+
+    assertTrue(Long.compareUnsigned(second.getMostSignificantBits(), first.getMostSignificantBits()) > 0);
+  }
+}
@@ -1,22 +1,32 @@
 package com.carbonsensors.repository;
 
 import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
 import static org.apache.commons.collections4.CollectionUtils.isNotEmpty;
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.carbonsensors.model.Alert;
+import com.carbonsensors.model.Measurement;
 import com.carbonsensors.model.Sensor;
 import com.carbonsensors.model.Status;
+import com.carbonsensors.model.projection.AlertMeasurementValue;
+import com.carbonsensors.model.projection.AlertSummary;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
 
-import java.time.ZonedDateTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @DataJpaTest
 class AlertRepositoryITCase {
@@ -27,14 +37,21 @@ class AlertRepositoryITCase {
   @Autowired
   private SensorRepository sensorRepository;
 
+  @Autowired
+  private MeasurementRepository measurementRepository;
+
+  @Autowired
+  private TestEntityManager entityManager;
+
   @Test
-  void findBySensorId_whenExistsAlert_thenReturnAlert() {
-    ZonedDateTime today = ZonedDateTime.now();
-    ZonedDateTime tomorrow = ZonedDateTime.now().plusDays(1);
+  void findPageBySensorId_whenExistsAlert_thenReturnAlertsInRangeNewestFirst() {
+    Instant today = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+    Instant tomorrow = today.plus(Duration.ofDays(1));
 
     Sensor sensor = createSensorAnd2Alerts(today, tomorrow);
 
-    List<Alert> result = alertRepository.findBySensorIdOrderByCreatedDesc(sensor.getId());
+    List<AlertSummary> result = alertRepository.findPageBySensorId(sensor.getId(), today.minus(Duration.ofDays(1)),
+        today.plus(Duration.ofDays(2)), PageRequest.of(0, 10));
 
     assertTrue(isNotEmpty(result));
     assertEquals(2, result.size());
@@ -43,20 +60,118 @@ class AlertRepositoryITCase {
   }
 
   @Test
-  void findTop1BySensorIdOrderByCreatedDesc_whenSensorHaveSeveralAlerts_thenReturnMostRecentOne() {
-    ZonedDateTime today = ZonedDateTime.now();
-    ZonedDateTime tomorrow = ZonedDateTime.now().plusDays(1);
+  void findPageBySensorId_whenAlertIsOutOfRange_thenDoNotReturnIt() {
+    Instant today = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+    Instant tomorrow = today.plus(Duration.ofDays(1));
 
     Sensor sensor = createSensorAnd2Alerts(today, tomorrow);
 
-    Optional<Alert> result = alertRepository.findTop1BySensorIdOrderByCreatedDesc(sensor.getId());
+    List<AlertSummary> result = alertRepository.findPageBySensorId(sensor.getId(), today.minus(Duration.ofDays(1)),
+        tomorrow, PageRequest.of(0, 10));
+
+    assertEquals(1, result.size());
+    assertEquals(today, result.get(0).getCreated());
+  }
+
+  @Test
+  void findPageBySensorIdAfter_whenAlertsShareCreationTime_thenReturnEachAlertOnce() {
+    Instant today = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+    Sensor sensor = sensorRepository.save(Sensor.builder().status(Status.ALERT).build());
+    alertRepository.save(Alert.builder().sensor(sensor).created(today).build());
+    alertRepository.save(Alert.builder().sensor(sensor).created(today).build());
+    Instant from = today.minus(Duration.ofDays(1));
+    Instant to = today.plus(Duration.ofDays(1));
+
+    List<AlertSummary> firstPage = alertRepository.findPageBySensorId(sensor.getId(), from, to, PageRequest.of(0, 1));
+    AlertSummary last = firstPage.get(0);
+    List<AlertSummary> secondPage = alertRepository.findPageBySensorIdAfter(sensor.getId(), from, to, last.getCreated(),
+        last.getId(), PageRequest.of(0, 1));
+    AlertSummary secondLast = secondPage.get(0);
+    List<AlertSummary> thirdPage = alertRepository.findPageBySensorIdAfter(sensor.getId(), from, to,
+        secondLast.getCreated(), secondLast.getId(), PageRequest.of(0, 1));
+
+    assertNotEquals(last.getId(), secondLast.getId());
+    assertTrue(thirdPage.isEmpty());
+  }
+
+  @Test
+  void findMeasurementValuesByAlertIds_whenAlertsHaveMeasurements_thenReturnValuesOfRequestedAlertsNewestFirst() {
+    Instant now = Instant.now();
+    Sensor sensor = sensorRepository.save(Sensor.builder().status(Status.ALERT).build());
+    Measurement older = measurementRepository.save(
+        Measurement.builder().sensor(sensor).created(now.minus(Duration.ofMinutes(1))).co2Quantity(2001d).build());
+    Measurement newer = measurementRepository.save(
+        Measurement.builder().sensor(sensor).created(now).co2Quantity(2002d).build());
+    Measurement otherAlertMeasurement = measurementRepository.save(
+        Measurement.builder().sensor(sensor).created(now.minus(Duration.ofDays(1))).co2Quantity(2003d).build());
+    Alert alert = alertRepository.save(
+        Alert.builder().sensor(sensor).created(now).measurements(new ArrayList<>(asList(older, newer))).build());
+    alertRepository.save(Alert.builder().sensor(sensor).created(now.minus(Duration.ofDays(1)))
+        .measurements(new ArrayList<>(singletonList(otherAlertMeasurement))).build());
+
+    List<AlertMeasurementValue> result = alertRepository.findMeasurementValuesByAlertIds(singletonList(alert.getId()));
 
-    assertNotNull(result);
-    assertTrue(result.isPresent());
-    assertEquals(tomorrow, result.get().getCreated());
+    assertEquals(2, result.size());
+    assertTrue(result.stream().allMatch(value -> alert.getId().equals(value.getAlertId())));
+    assertEquals(asList(newer.getCo2Quantity(), older.getCo2Quantity()),
+        result.stream().map(AlertMeasurementValue::getCo2Quantity).collect(Collectors.toList()));
+  }
+
+  @Test
+  void findIdByMeasurementId_whenMeasurementBelongsToAlert_thenReturnItsAlert() {
+    Instant now = Instant.now();
+    Sensor sensor = sensorRepository.save(Sensor.builder().status(Status.ALERT).build());
+    Measurement member = measurementRepository.save(
+        Measurement.builder().sensor(sensor).created(now).co2Quantity(2001d).build());
+    Measurement other = measurementRepository.save(
+        Measurement.builder().sensor(sensor).created(now.plusSeconds(1)).co2Quantity(2001d).build());
+    Alert alert = alertRepository.save(
+        Alert.builder().sensor(sensor).created(now).measurements(new ArrayList<>(singletonList(member))).build());
+
+    assertEquals(Optional.of(alert.getId()), alertRepository.findIdByMeasurementId(member.getId()));
+    assertEquals(Optional.empty(), alertRepository.findIdByMeasurementId(other.getId()));
+  }
+
+  @Test
+  void addMeasurementAndAddToSummary_whenAlertIsExtended_thenAddMembershipAndUpdateSummary() {
+    Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+    Sensor sensor = sensorRepository.save(Sensor.builder().status(Status.ALERT).build());
+    Measurement first = measurementRepository.save(
+        Measurement.builder().sensor(sensor).created(now.minus(Duration.ofMinutes(1))).co2Quantity(2005d).build());
+    Measurement added = measurementRepository.save(
+        Measurement.builder().sensor(sensor).created(now).co2Quantity(2001d).build());
+    Alert alert = alertRepository.save(Alert.builder().sensor(sensor).created(first.getCreated())
+        .measurements(new ArrayList<>(singletonList(first))).measurementCount(1).co2QuantityMax(2005d)
+        .lastMeasurementCreated(first.getCreated()).build());
+
+    assertEquals(1, alertRepository.addMeasurement(alert.getId(), added.getId()));
+    assertEquals(1, alertRepository.addToSummary(alert.getId(), 1, added.getCo2Quantity(), added.getCreated()));
+    entityManager.clear();
+
+    Alert extended = alertRepository.findById(alert.getId()).orElseThrow(IllegalStateException::new);
+    assertEquals(2, extended.getMeasurementCount());
+    assertEquals(2005d, extended.getCo2QuantityMax());
+    assertEquals(now, extended.getLastMeasurementCreated());
+    assertEquals(asList(added.getId(), first.getId()),
+        extended.getMeasurements().stream().map(Measurement::getId).collect(Collectors.toList()));
+  }
+
+  @Test
+  void addToSummary_whenAlertHasNoSummaryYet_thenTakeAddedValues() {
+    Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+    Sensor sensor = sensorRepository.save(Sensor.builder().status(Status.ALERT).build());
+    Alert alert = alertRepository.save(Alert.builder().sensor(sensor).created(now).build());
+
+    alertRepository.addToSummary(alert.getId(), 3, 2010d, now);
+    entityManager.clear();
+
+    Alert extended = alertRepository.findById(alert.getId()).orElseThrow(IllegalStateException::new);
+    assertEquals(3, extended.getMeasurementCount());
+    assertEquals(2010d, extended.getCo2QuantityMax());
+    assertEquals(now, extended.getLastMeasurementCreated());
   }
 
-  private Sensor createSensorAnd2Alerts(ZonedDateTime today, ZonedDateTime tomorrow) {
+  private Sensor createSensorAnd2Alerts(Instant today, Instant tomorrow) {
     Sensor sensor = Sensor.builder()
         .status(Status.OK)
         .build();
@@ -0,0 +1,103 @@
+package com.carbonsensors.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.UUID;
+
+/**
+ * Checks that the migration to alert summaries fills in the summary of the existing alerts, and points the sensors in
+ * alert to their most recent alert.
+ */
+class AlertSummaryMigrationITCase {
+
+  private static final String BEFORE_ALERT_SUMMARY = "8";
+  private static final String LATEST = "latest";
+
+  @Test
+  void migrate_whenAlertsHaveMeasurements_thenFillInSummariesAndCurrentAlerts() throws SQLException {
+    String url = "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+    migrate(url, BEFORE_ALERT_SUMMARY);
+
+    UUID sensorInAlert = UUID.randomUUID();
+    UUID sensorOk = UUID.randomUUID();
+    UUID olderAlert = UUID.randomUUID();
+    UUID currentAlert = UUID.randomUUID();
+    UUID okSensorAlert = UUID.randomUUID();
+    try (Connection connection = DriverManager.getConnection(url, "sa", "")) {
+      update(connection, "insert into sensor (id, status) values (?, 'ALERT')", sensorInAlert);
+      update(connection, "insert into sensor (id, status) values (?, 'OK')", sensorOk);
+      update(connection, "insert into alert (id, created, sensor_id) values (?, 1000, ?)", olderAlert, sensorInAlert);
+      update(connection, "insert into alert (id, created, sensor_id) values (?, 5000, ?)", currentAlert,
+          sensorInAlert);
+      update(connection, "insert into alert (id, created, sensor_id) values (?, 1000, ?)", okSensorAlert, sensorOk);
+      addMeasurement(connection, currentAlert, sensorInAlert, 3000, 2100);
+      addMeasurement(connection, currentAlert, sensorInAlert, 4000, 2300);
+      addMeasurement(connection, currentAlert, sensorInAlert, 5000, 2200);
+    }
+
+    migrate(url, LATEST);
+
+    try (Connection connection = DriverManager.getConnection(url, "sa", "")) {
+      assertEquals(3L, select(connection, "select measurement_count from alert where id = ?", currentAlert));
+      assertEquals(2300d, select(connection, "select co2quantity_max from alert where id = ?", currentAlert));
+      assertEquals(5000L, select(connection, "select last_measurement_created from alert where id = ?",
+          currentAlert));
+      assertEquals(0L, select(connection, "select measurement_count from alert where id = ?", olderAlert));
+      assertNull(select(connection, "select co2quantity_max from alert where id = ?", olderAlert));
+      assertEquals(currentAlert, select(connection, "select current_alert_id from sensor where id = ?",
+          sensorInAlert));
+      assertNull(select(connection, "select current_alert_id from sensor where id = ?", sensorOk));
+    }
+  }
+
+  private static void migrate(String url, String target) {
+    Flyway.configure()
+        .dataSource(url, "sa", "")
+        .target(target)
+        .load()
+        .migrate();
+  }
+
+  private static void addMeasurement(Connection connection, UUID alertId, UUID sensorId, long created,
+                                     double co2Quantity) throws SQLException {
+    UUID measurementId = UUID.randomUUID();
+    try (PreparedStatement statement = connection.prepareStatement(
+        "insert into measurement (id, co2quantity, created, sensor_id) values (?, ?, ?, ?)")) {
+      statement.setObject(1, measurementId);
+      statement.setDouble(2, co2Quantity);
+      statement.setLong(3, created);
+      statement.setObject(4, sensorId);
+      statement.executeUpdate();
+    }
+    update(connection, "insert into alert_measurements (alert_id, measurements_id) values (?, ?)", alertId,
+        measurementId);
+  }
+
+  private static void update(Connection connection, String sql, UUID... ids) throws SQLException {
+    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+      for (int i = 0; i < ids.length; i++) {
+        statement.setObject(i + 1, ids[i]);
+      }
+      statement.executeUpdate();
+    }
+  }
+
+  private static Object select(Connection connection, String sql, UUID id) throws SQLException {
+    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+      statement.setObject(1, id);
+      try (ResultSet resultSet = statement.executeQuery()) {
+        resultSet.next();
+        return resultSet.getObject(1);
+      }
+    }
+  }
+}
@@ -0,0 +1,88 @@
+package com.carbonsensors.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.carbonsensors.model.MeasurementDailyAggregate;
+import com.carbonsensors.model.Sensor;
+import com.carbonsensors.model.Status;
+import com.carbonsensors.model.projection.MeasurementStatistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.LocalDate;
+
+@DataJpaTest
+class MeasurementDailyAggregateRepositoryITCase {
+
+  private static final LocalDate TODAY = LocalDate.now();
+
+  @Autowired
+  private MeasurementDailyAggregateRepository measurementDailyAggregateRepository;
+
+  @Autowired
+  private SensorRepository sensorRepository;
+
+  @Test
+  void addToAggregate_whenAggregateDoesNotExist_thenUpdateNothing() {
+    Sensor sensor = createSensor();
+
+    int updated = measurementDailyAggregateRepository.addToAggregate(sensor.getId(), TODAY, 1, 10d, 10d, 10d);
+
+    assertEquals(0, updated);
+  }
+
+  @Test
+  void addToAggregate_whenAggregateExists_thenAccumulateValues() {
+    Sensor sensor = createSensor();
+    createAggregate(sensor, TODAY, 2, 30d, 20d, 10d);
+
+    int updated = measurementDailyAggregateRepository.addToAggregate(sensor.getId(), TODAY, 2, 35d, 30d, 5d);
+
+    assertEquals(1, updated);
+    MeasurementStatistics statistics =
+        measurementDailyAggregateRepository.sumAggregatesAfter(sensor.getId(), TODAY.minusDays(1));
+    assertEquals(4L, statistics.getCount());
+    assertEquals(65d, statistics.getSum());
+    assertEquals(30d, statistics.getMax());
+    assertEquals(5d, statistics.getMin());
+  }
+
+  @Test
+  void sumAggregatesAfter_whenThereAreSeveralDays_thenSumOnlyTheDaysAfter() {
+    Sensor sensor = createSensor();
+    createAggregate(sensor, TODAY, 1, 10d, 10d, 10d);
+    createAggregate(sensor, TODAY.minusDays(1), 2, 50d, 40d, 10d);
+    createAggregate(sensor, TODAY.minusDays(2), 1, 100d, 100d, 100d);
+
+    MeasurementStatistics statistics =
+        measurementDailyAggregateRepository.sumAggregatesAfter(sensor.getId(), TODAY.minusDays(2));
+
+    assertNotNull(statistics);
+    assertEquals(3L, statistics.getCount());
+    assertEquals(60d, statistics.getSum());
+    assertEquals(40d, statistics.getMax());
+    assertEquals(10d, statistics.getMin());
+
+    assertTrue(measurementDailyAggregateRepository.sumAggregatesAfter(sensor.getId(), TODAY).isEmpty());
+  }
+
+  private Sensor createSensor() {
+    return sensorRepository.save(Sensor.builder()
+        .status(Status.OK)
+        .build());
+  }
+
+  private void createAggregate(Sensor sensor, LocalDate day, long count, double sum, double max, double min) {
+    measurementDailyAggregateRepository.save(MeasurementDailyAggregate.builder()
+        .sensor(sensor)
+        .measurementDay(day)
+        .measurementCount(count)
+        .co2QuantitySum(sum)
+        .co2QuantityMax(max)
+        .co2QuantityMin(min)
+        .build());
+  }
+}
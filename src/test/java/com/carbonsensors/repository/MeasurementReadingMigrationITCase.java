@@ -0,0 +1,122 @@
+package com.carbonsensors.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Checks that the migration adding the unique constraint on the readings first collapses the readings stored more than
+ * once into a single row, keeping the one an alert references.
+ */
+class MeasurementReadingMigrationITCase {
+
+  private static final String BEFORE_READING_UNIQUE = "7";
+  private static final String READING_UNIQUE = "8";
+
+  private static final UUID SENSOR = UUID.randomUUID();
+
+  @Test
+  void migrate_whenReadingsAreDuplicated_thenKeepOneRowPerReadingPreferablyReferencedByAlert() throws SQLException {
+    String url = "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+    migrate(url, BEFORE_READING_UNIQUE);
+
+    // ids are ordered, so that the surviving row is known when several rows of a reading qualify
+    UUID retried1 = new UUID(0, 1);
+    UUID retriedInAlert = new UUID(0, 2);
+    UUID retried3 = new UUID(0, 3);
+    UUID unreferenced1 = new UUID(0, 4);
+    UUID unreferenced2 = new UUID(0, 5);
+    UUID inFirstAlert = new UUID(0, 6);
+    UUID inSecondAlert = new UUID(0, 7);
+    UUID single = new UUID(0, 8);
+    UUID alert = UUID.randomUUID();
+    UUID firstAlert = UUID.randomUUID();
+    UUID secondAlert = UUID.randomUUID();
+    try (Connection connection = DriverManager.getConnection(url, "sa", "")) {
+      update(connection, "insert into sensor (id, status) values (?, 'ALERT')", SENSOR);
+      for (UUID id : Arrays.asList(retried1, retriedInAlert, retried3)) {
+        insertMeasurement(connection, id, 1000, 2100);
+      }
+      insertMeasurement(connection, unreferenced1, 2000, 1900);
+      insertMeasurement(connection, unreferenced2, 2000, 1900);
+      insertMeasurement(connection, inFirstAlert, 3000, 2200);
+      insertMeasurement(connection, inSecondAlert, 3000, 2200);
+      insertMeasurement(connection, single, 3000, 2300);
+      for (UUID id : Arrays.asList(alert, firstAlert, secondAlert)) {
+        update(connection, "insert into alert (id, created, sensor_id) values (?, 1000, ?)", id, SENSOR);
+      }
+      update(connection, "insert into alert_measurements (alert_id, measurements_id) values (?, ?)", alert,
+          retriedInAlert);
+      update(connection, "insert into alert_measurements (alert_id, measurements_id) values (?, ?)", firstAlert,
+          inFirstAlert);
+      update(connection, "insert into alert_measurements (alert_id, measurements_id) values (?, ?)", secondAlert,
+          inSecondAlert);
+    }
+
+    migrate(url, READING_UNIQUE);
+
+    try (Connection connection = DriverManager.getConnection(url, "sa", "")) {
+      assertEquals(Arrays.asList(retriedInAlert, unreferenced1, inFirstAlert, single),
+          selectIds(connection, "select id from measurement order by id"));
+      assertEquals(Arrays.asList(retriedInAlert), selectIds(connection,
+          "select measurements_id from alert_measurements where alert_id = '" + alert + "'"));
+      assertEquals(Arrays.asList(inFirstAlert), selectIds(connection,
+          "select measurements_id from alert_measurements where alert_id = '" + firstAlert + "'"));
+      // the second alert only had a duplicate of a measurement of the first one
+      assertEquals(new HashSet<>(Arrays.asList(alert, firstAlert)),
+          new HashSet<>(selectIds(connection, "select id from alert")));
+    }
+  }
+
+  private static void migrate(String url, String target) {
+    Flyway.configure()
+        .dataSource(url, "sa", "")
+        .target(target)
+        .load()
+        .migrate();
+  }
+
+  private static void insertMeasurement(Connection connection, UUID id, long created, double co2Quantity)
+      throws SQLException {
+    try (PreparedStatement statement = connection.prepareStatement(
+        "insert into measurement (id, co2quantity, created, sensor_id) values (?, ?, ?, ?)")) {
+      statement.setObject(1, id);
+      statement.setDouble(2, co2Quantity);
+      statement.setLong(3, created);
+      statement.setObject(4, SENSOR);
+      statement.executeUpdate();
+    }
+  }
+
+  private static void update(Connection connection, String sql, UUID... ids) throws SQLException {
+    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+      for (int i = 0; i < ids.length; i++) {
+        statement.setObject(i + 1, ids[i]);
+      }
+      statement.executeUpdate();
+    }
+  }
+
+  private static List<UUID> selectIds(Connection connection, String sql) throws SQLException {
+    List<UUID> ids = new ArrayList<>();
+    try (PreparedStatement statement = connection.prepareStatement(sql);
+         ResultSet resultSet = statement.executeQuery()) {
+      while (resultSet.next()) {
+        ids.add(resultSet.getObject(1, UUID.class));
+      }
+    }
+    return ids;
+  }
+}
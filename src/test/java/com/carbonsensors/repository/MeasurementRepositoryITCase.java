@@ -4,17 +4,24 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import com.carbonsensors.model.Alert;
 import com.carbonsensors.model.Measurement;
 import com.carbonsensors.model.Sensor;
 import com.carbonsensors.model.Status;
-import com.carbonsensors.model.projection.SensorMetrics;
+import com.carbonsensors.model.projection.MeasurementKey;
+import com.carbonsensors.model.projection.MeasurementStatistics;
+import com.carbonsensors.model.projection.SensorStatistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.data.domain.PageRequest;
 
-import java.time.ZonedDateTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @DataJpaTest
 class MeasurementRepositoryITCase {
@@ -30,32 +37,72 @@ class MeasurementRepositoryITCase {
   @Autowired
   private SensorRepository sensorRepository;
 
+  @Autowired
+  private AlertRepository alertRepository;
+
   @Test
-  void computeMetricsById_whenDataIsOk_thenReturnComputedData() {
-    ZonedDateTime today = ZonedDateTime.now();
-    ZonedDateTime yesterday = ZonedDateTime.now().minusDays(1);
-    ZonedDateTime dayBeforeYesterday = ZonedDateTime.now().minusDays(2);
+  void computeStatisticsById_whenDataIsOk_thenReturnComputedData() {
+    Instant today = Instant.now();
+    Instant yesterday = Instant.now().minus(Duration.ofDays(1));
+    Instant dayBeforeYesterday = Instant.now().minus(Duration.ofDays(2));
 
     Sensor sensor = create3Measurements(today, yesterday, dayBeforeYesterday);
 
-    SensorMetrics sensorMetrics =
-        measurementRepository.computeMetricsById(sensor.getId(), yesterday);
+    MeasurementStatistics statistics =
+        measurementRepository.computeStatisticsById(sensor.getId(), yesterday, today.plusSeconds(1));
+
+    assertNotNull(statistics);
+    assertEquals(2, statistics.getCount());
+    assertEquals(MEASUREMENT_TODAY + MEASUREMENT_YESTERDAY, statistics.getSum());
+    assertEquals(MEASUREMENT_YESTERDAY, statistics.getMax());
+    assertEquals(MEASUREMENT_TODAY, statistics.getMin());
+
+    statistics = measurementRepository.computeStatisticsById(sensor.getId(), dayBeforeYesterday, today);
+    assertEquals(2, statistics.getCount());
+    assertEquals(MEASUREMENT_DAY_BEFORE_YESTERDAY, statistics.getMax());
+    assertEquals(162.5d, statistics.getAverage());
+  }
+
+  @Test
+  void computeStatisticsById_whenThereAreNoMeasurements_thenReturnEmptyStatistics() {
+    Instant today = Instant.now();
+    Sensor sensor = create3Measurements(today, today, today);
+
+    MeasurementStatistics statistics =
+        measurementRepository.computeStatisticsById(sensor.getId(), today.plus(Duration.ofDays(1)),
+            today.plus(Duration.ofDays(2)));
 
-    assertNotNull(sensorMetrics);
-    assertEquals(MEASUREMENT_YESTERDAY, sensorMetrics.getMaxLastNDays());
-    assertEquals(125, sensorMetrics.getAverageLastNDays());
+    assertNotNull(statistics);
+    assertTrue(statistics.isEmpty());
+  }
 
-    sensorMetrics = measurementRepository.computeMetricsById(sensor.getId(), dayBeforeYesterday);
-    assertEquals(MEASUREMENT_DAY_BEFORE_YESTERDAY, sensorMetrics.getMaxLastNDays());
-    assertEquals(141.67d, Math.round(sensorMetrics.getAverageLastNDays() * 100d) / 100d);
+  @Test
+  void computeStatisticsBySensor_whenDataIsOk_thenReturnOneRowPerSensor() {
+    Instant today = Instant.now();
+    Instant yesterday = Instant.now().minus(Duration.ofDays(1));
+    Sensor sensor = create3Measurements(today, yesterday, Instant.now().minus(Duration.ofDays(2)));
+    Sensor otherSensor = create3Measurements(today, today, today);
+
+    List<SensorStatistics> statistics = measurementRepository.computeStatisticsBySensor(yesterday,
+        today.plusSeconds(1));
+
+    assertEquals(2, statistics.size());
+    SensorStatistics sensorStatistics = statistics.stream()
+        .filter(sensorStatistic -> sensorStatistic.getSensorId().equals(sensor.getId()))
+        .findFirst()
+        .orElseThrow();
+    assertEquals(2, sensorStatistics.getStatistics().getCount());
+    assertEquals(MEASUREMENT_YESTERDAY, sensorStatistics.getStatistics().getMax());
+    assertTrue(statistics.stream().anyMatch(sensorStatistic -> sensorStatistic.getSensorId()
+        .equals(otherSensor.getId()) && sensorStatistic.getStatistics().getCount() == 3));
   }
 
   @Test
   void findBySensorIdOrderByCreatedDesc_whenMeasurementsToBeFoundAre3_thenReturnSet() {
-    ZonedDateTime today = ZonedDateTime.now();
-    ZonedDateTime yesterday = ZonedDateTime.now().minusDays(1);
-    ZonedDateTime dayBeforeYesterday = ZonedDateTime.now().minusDays(2);
-    ZonedDateTime threeDaysAgo = ZonedDateTime.now().minusDays(3);
+    Instant today = Instant.now();
+    Instant yesterday = Instant.now().minus(Duration.ofDays(1));
+    Instant dayBeforeYesterday = Instant.now().minus(Duration.ofDays(2));
+    Instant threeDaysAgo = Instant.now().minus(Duration.ofDays(3));
 
     Sensor sensor = create3Measurements(today, yesterday, dayBeforeYesterday);
 
@@ -75,8 +122,63 @@ class MeasurementRepositoryITCase {
     assertTrue(measurements.stream().noneMatch(m -> m.getCo2Quantity() == MEASUREMENT_3_DAYS_AGO));
   }
 
-  private Sensor create3Measurements(ZonedDateTime dateFirstMeasurement, ZonedDateTime dateSecondMesurement,
-                                     ZonedDateTime dateThirdMeasurement) {
+  @Test
+  void findUnreferencedCreatedBefore_whenMeasurementsAreExpired_thenReturnUnreferencedOnesOldestFirstByChunk() {
+    Instant now = Instant.now();
+    Sensor sensor = create3Measurements(now.minus(Duration.ofDays(10)), now.minus(Duration.ofDays(12)),
+        now.minus(Duration.ofDays(11)));
+    Measurement referenced = measurementRepository.save(Measurement.builder()
+        .created(now.minus(Duration.ofDays(13)))
+        .co2Quantity(MEASUREMENT_3_DAYS_AGO)
+        .sensor(sensor)
+        .build());
+    alertRepository.save(Alert.builder()
+        .created(referenced.getCreated())
+        .sensor(sensor)
+        .measurements(Collections.singletonList(referenced))
+        .build());
+
+    List<MeasurementKey> firstChunk =
+        measurementRepository.findUnreferencedCreatedBefore(now.minus(Duration.ofDays(10)).minusSeconds(1),
+            PageRequest.of(0, 1));
+    assertEquals(1, firstChunk.size());
+    assertEquals(MEASUREMENT_YESTERDAY, co2QuantityOf(firstChunk.get(0)));
+
+    MeasurementKey last = firstChunk.get(0);
+    List<MeasurementKey> secondChunk = measurementRepository.findUnreferencedCreatedBeforeAfter(
+        now.minus(Duration.ofDays(10)).minusSeconds(1), last.getCreated(), last.getId(), PageRequest.of(0, 10));
+    assertEquals(1, secondChunk.size());
+    assertEquals(MEASUREMENT_DAY_BEFORE_YESTERDAY, co2QuantityOf(secondChunk.get(0)));
+  }
+
+  @Test
+  void deleteUnreferencedByIdIn_whenAMeasurementIsReferencedByAnAlert_thenKeepIt() {
+    Instant now = Instant.now();
+    Sensor sensor = create3Measurements(now, now, now);
+    List<Measurement> measurements =
+        measurementRepository.findBySensorIdOrderByCreatedDesc(sensor.getId(), PageRequest.of(0, 3));
+    alertRepository.saveAndFlush(Alert.builder()
+        .created(now)
+        .sensor(sensor)
+        .measurements(Collections.singletonList(measurements.get(0)))
+        .build());
+
+    int deleted = measurementRepository.deleteUnreferencedByIdIn(
+        measurements.stream().map(Measurement::getId).collect(Collectors.toList()));
+
+    assertEquals(2, deleted);
+    assertEquals(Arrays.asList(measurements.get(0).getId()),
+        measurementRepository.findBySensorIdOrderByCreatedDesc(sensor.getId(), PageRequest.of(0, 3)).stream()
+            .map(Measurement::getId)
+            .collect(Collectors.toList()));
+  }
+
+  private double co2QuantityOf(MeasurementKey key) {
+    return measurementRepository.findById(key.getId()).orElseThrow().getCo2Quantity();
+  }
+
+  private Sensor create3Measurements(Instant dateFirstMeasurement, Instant dateSecondMesurement,
+                                     Instant dateThirdMeasurement) {
     Sensor sensor = Sensor.builder()
         .status(Status.OK)
         .build();
@@ -0,0 +1,174 @@
+package com.carbonsensors.repository;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.carbonsensors.model.RollupResolution;
+import com.carbonsensors.model.Sensor;
+import com.carbonsensors.model.Status;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Checks that the queries generated for the hot repository methods are executed through the indexes created
+ * by the migrations, so that dropping or changing an index fails the build.
+ */
+@DataJpaTest(properties =
+    "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.carbonsensors.repository.SqlStatementCollector")
+class RepositoryQueryPlanITCase {
+
+  @Autowired
+  private MeasurementRepository measurementRepository;
+
+  @Autowired
+  private AlertRepository alertRepository;
+
+  @Autowired
+  private MeasurementDailyAggregateRepository measurementDailyAggregateRepository;
+
+  @Autowired
+  private MeasurementRollupRepository measurementRollupRepository;
+
+  @Autowired
+  private SensorRepository sensorRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  private UUID sensorId;
+
+  @BeforeEach
+  void setup() {
+    sensorId = sensorRepository.saveAndFlush(Sensor.builder().status(Status.OK).build()).getId();
+    SqlStatementCollector.clear();
+  }
+
+  @Test
+  void findBySensorIdOrderByCreatedDesc_whenExecuted_thenUseMeasurementSensorCreatedIndex() {
+    measurementRepository.findBySensorIdOrderByCreatedDesc(sensorId, PageRequest.of(0, 3));
+
+    String plan = explainLastQuery();
+    assertTrue(plan.contains("idx_measurement_sensor_created"), plan);
+    assertFalse(plan.contains("tablescan"), plan);
+  }
+
+  @Test
+  void findReading_whenExecuted_thenSeekMeasurementSensorCreatedIndex() {
+    measurementRepository.findReading(sensorId, Instant.now(), 2000d);
+
+    String plan = explainLastQuery();
+    assertTrue(plan.contains("idx_measurement_sensor_created"), plan);
+    assertFalse(plan.contains("tablescan"), plan);
+  }
+
+  @Test
+  void computeStatisticsById_whenExecuted_thenUseCoveringMeasurementSensorCreatedIndex() {
+    measurementRepository.computeStatisticsById(sensorId, Instant.now().minus(Duration.ofDays(1)), Instant.now());
+
+    String plan = explainLastQuery();
+    assertTrue(plan.contains("idx_measurement_sensor_created"), plan);
+  }
+
+  @Test
+  void findUnreferencedCreatedBeforeAfter_whenExecuted_thenReadChunkFromSortedMeasurementCreatedIndex() {
+    measurementRepository.findUnreferencedCreatedBeforeAfter(Instant.now().minus(Duration.ofDays(90)),
+        Instant.now().minus(Duration.ofDays(100)), UUID.randomUUID(), PageRequest.of(0, 1000));
+
+    String plan = explainLastQuery();
+    assertTrue(plan.contains("idx_measurement_created"), plan);
+    assertTrue(plan.contains("index sorted"), plan);
+  }
+
+  @Test
+  void findPageBySensorId_whenExecuted_thenReadPageFromSortedAlertSensorCreatedIndex() {
+    alertRepository.findPageBySensorId(sensorId, Instant.now().minus(Duration.ofDays(1)), Instant.now(),
+        PageRequest.of(0, 10));
+
+    String plan = explainLastQuery();
+    assertTrue(plan.contains("idx_alert_sensor_created"), plan);
+    assertTrue(plan.contains("index sorted"), plan);
+  }
+
+  @Test
+  void findPageBySensorIdAfter_whenExecuted_thenReadPageFromSortedAlertSensorCreatedIndex() {
+    alertRepository.findPageBySensorIdAfter(sensorId, Instant.now().minus(Duration.ofDays(1)), Instant.now(),
+        Instant.now().minus(Duration.ofHours(1)), UUID.randomUUID(), PageRequest.of(0, 10));
+
+    String plan = explainLastQuery();
+    assertTrue(plan.contains("idx_alert_sensor_created"), plan);
+    assertTrue(plan.contains("index sorted"), plan);
+  }
+
+  @Test
+  void sumAggregatesAfter_whenExecuted_thenUseSensorDayUniqueIndex() {
+    measurementDailyAggregateRepository.sumAggregatesAfter(sensorId, LocalDate.now().minusDays(30));
+
+    String plan = explainLastQuery();
+    assertTrue(plan.contains("uk_measurement_daily_aggregate_sensor_day"), plan);
+  }
+
+  @Test
+  void sumAggregatesAfterBySensor_whenExecuted_thenUseSensorDayUniqueIndex() {
+    measurementDailyAggregateRepository.sumAggregatesAfterBySensor(sensorId, sensorId, LocalDate.now().minusDays(30));
+
+    String plan = explainLastQuery();
+    assertTrue(plan.contains("uk_measurement_daily_aggregate_sensor_day"), plan);
+  }
+
+  @Test
+  void computeStatisticsBySensor_whenExecuted_thenReadPartialDayFromMeasurementCreatedIndex() {
+    measurementRepository.computeStatisticsBySensor(Instant.now().minus(Duration.ofDays(30)),
+        Instant.now().minus(Duration.ofDays(29)));
+
+    String plan = explainLastQuery();
+    assertTrue(plan.contains("idx_measurement_created"), plan);
+  }
+
+  @Test
+  void findBuckets_whenExecuted_thenReadBucketsFromSortedRollupUniqueIndex() {
+    measurementRollupRepository.findBuckets(sensorId, RollupResolution.MINUTE, Instant.now().minus(Duration.ofDays(1)),
+        Instant.now());
+
+    String plan = explainLastQuery();
+    assertTrue(plan.contains("uk_measurement_rollup_sensor_resolution_bucket"), plan);
+    assertTrue(plan.contains("index sorted"), plan);
+  }
+
+  @Test
+  void findStatusesByIds_whenExecuted_thenLookUpSensorsByPrimaryKey() {
+    sensorRepository.findStatusesByIds(Arrays.asList(sensorId, UUID.randomUUID()));
+
+    String plan = explainLastQuery();
+    assertTrue(plan.contains("primary_key"), plan);
+    assertFalse(plan.contains("tablescan"), plan);
+  }
+
+  /**
+   * Explains the last select statement sent by Hibernate. Parameters are bound to null, which is enough for
+   * H2 to choose the index, since plans are built when statements are prepared.
+   */
+  private String explainLastQuery() {
+    List<String> selects = SqlStatementCollector.getStatements().stream()
+        .filter(sql -> sql.trim().toLowerCase(Locale.ROOT).startsWith("select"))
+        .collect(Collectors.toList());
+    assertFalse(selects.isEmpty(), "No query was executed");
+
+    String sql = selects.get(selects.size() - 1);
+    Object[] parameters = new Object[(int) sql.chars().filter(c -> c == '?').count()];
+    return jdbcTemplate.queryForObject("explain " + sql, String.class, parameters).toLowerCase(Locale.ROOT);
+  }
+}
@@ -0,0 +1,61 @@
+package com.carbonsensors.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.carbonsensors.model.Sensor;
+import com.carbonsensors.model.Status;
+import com.carbonsensors.model.projection.SensorStatusValue;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@DataJpaTest
+@Import(SensorBulkRepository.class)
+class SensorBulkRepositoryITCase {
+
+  @Autowired
+  private SensorBulkRepository sensorBulkRepository;
+
+  @Autowired
+  private SensorRepository sensorRepository;
+
+  @Test
+  void insertIfAbsent_whenIdsAreNew_thenInsertThemInBatches() {
+    List<UUID> ids = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      ids.add(UUID.randomUUID());
+    }
+
+    assertEquals(5, sensorBulkRepository.insertIfAbsent(ids, Status.OK, 2));
+
+    Map<UUID, Status> statuses = findStatuses(ids);
+    assertEquals(5, statuses.size());
+    assertEquals(Status.OK, statuses.get(ids.get(4)));
+  }
+
+  @Test
+  void insertIfAbsent_whenSomeIdsAreTaken_thenLeaveExistingSensorsUntouched() {
+    UUID existingId = sensorRepository.saveAndFlush(Sensor.builder().status(Status.ALERT).build()).getId();
+    UUID newId = UUID.randomUUID();
+
+    assertEquals(1, sensorBulkRepository.insertIfAbsent(Arrays.asList(existingId, newId), Status.OK, 10));
+    assertEquals(0, sensorBulkRepository.insertIfAbsent(Arrays.asList(existingId, newId), Status.OK, 10));
+
+    Map<UUID, Status> statuses = findStatuses(Arrays.asList(existingId, newId));
+    assertEquals(Status.ALERT, statuses.get(existingId));
+    assertEquals(Status.OK, statuses.get(newId));
+  }
+
+  private Map<UUID, Status> findStatuses(List<UUID> ids) {
+    return sensorRepository.findStatusesByIds(ids).stream()
+        .collect(Collectors.toMap(SensorStatusValue::getId, SensorStatusValue::getStatus));
+  }
+}
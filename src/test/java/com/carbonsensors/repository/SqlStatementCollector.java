@@ -0,0 +1,34 @@
+package com.carbonsensors.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records the SQL statements Hibernate sends to the database, so that tests can inspect them.
+ */
+public class SqlStatementCollector implements StatementInspector {
+
+  private static final List<String> STATEMENTS = new ArrayList<>();
+
+  @Override
+  public String inspect(String sql) {
+    synchronized (STATEMENTS) {
+      STATEMENTS.add(sql);
+    }
+    return sql;
+  }
+
+  public static void clear() {
+    synchronized (STATEMENTS) {
+      STATEMENTS.clear();
+    }
+  }
+
+  public static List<String> getStatements() {
+    synchronized (STATEMENTS) {
+      return new ArrayList<>(STATEMENTS);
+    }
+  }
+}
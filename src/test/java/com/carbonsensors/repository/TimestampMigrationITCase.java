@@ -0,0 +1,105 @@
+package com.carbonsensors.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.flywaydb.core.Flyway;
+import org.h2.util.DateTimeUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.TimeZone;
+import java.util.UUID;
+
+/**
+ * Checks that the migration to epoch milliseconds keeps the moments Hibernate used to read from the {@code timestamp}
+ * columns, which hold the local date and time of the JVM time zone.
+ */
+class TimestampMigrationITCase {
+
+  private static final TimeZone DEFAULT_TIME_ZONE = TimeZone.getDefault();
+  private static final String BEFORE_EPOCH_MILLIS = "6";
+  private static final String LATEST = "latest";
+
+  @AfterEach
+  void restoreTimeZone() {
+    TimeZone.setDefault(DEFAULT_TIME_ZONE);
+    DateTimeUtils.resetCalendar();
+  }
+
+  @Test
+  void migrate_whenTimeZoneHasFixedOffset_thenConvertEveryTimestamp() throws SQLException {
+    checkConversion("GMT+02:00", LocalDateTime.of(2021, 1, 10, 1, 30));
+  }
+
+  @Test
+  void migrate_whenTimeZoneHasDaylightSavingTime_thenConvertEachTimestampWithItsOwnOffset() throws SQLException {
+    checkConversion("Europe/Paris", LocalDateTime.of(2021, 3, 28, 1, 59, 59, 999_000_000));
+    checkConversion("Europe/Paris", LocalDateTime.of(2021, 7, 1, 12, 0));
+  }
+
+  private void checkConversion(String timeZone, LocalDateTime created) throws SQLException {
+    // The in-process database caches the time zone of the JVM the first time it needs it
+    TimeZone.setDefault(TimeZone.getTimeZone(timeZone));
+    DateTimeUtils.resetCalendar();
+    long expectedMillis = created.atZone(ZoneId.of(timeZone)).toInstant().toEpochMilli();
+    String url = "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+    migrate(url, BEFORE_EPOCH_MILLIS);
+
+    UUID measurementId = UUID.randomUUID();
+    UUID alertId = UUID.randomUUID();
+    UUID rollupId = UUID.randomUUID();
+    try (Connection connection = DriverManager.getConnection(url, "sa", "")) {
+      insert(connection, "insert into measurement (id, co2quantity, created) values (?, 2100, ?)",
+          measurementId, created);
+      insert(connection, "insert into alert (id, created) values (?, ?)", alertId, created);
+      insert(connection, "insert into measurement_rollup (id, resolution, bucket_start, co2quantity_max, "
+          + "co2quantity_min, co2quantity_sum, measurement_count) values (?, 'MINUTE', ?, 1, 1, 1, 1)",
+          rollupId, created);
+    }
+
+    migrate(url, LATEST);
+
+    try (Connection connection = DriverManager.getConnection(url, "sa", "")) {
+      assertEquals(expectedMillis, selectMillis(connection, "select created from measurement where id = ?",
+          measurementId));
+      assertEquals(expectedMillis, selectMillis(connection, "select created from alert where id = ?", alertId));
+      assertEquals(expectedMillis, selectMillis(connection,
+          "select bucket_start from measurement_rollup where id = ?", rollupId));
+    }
+  }
+
+  private static void migrate(String url, String target) {
+    Flyway.configure()
+        .dataSource(url, "sa", "")
+        .target(target)
+        .load()
+        .migrate();
+  }
+
+  private static void insert(Connection connection, String sql, UUID id, LocalDateTime created)
+      throws SQLException {
+    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+      statement.setObject(1, id);
+      statement.setTimestamp(2, Timestamp.valueOf(created));
+      statement.executeUpdate();
+    }
+  }
+
+  private static long selectMillis(Connection connection, String sql, UUID id) throws SQLException {
+    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+      statement.setObject(1, id);
+      try (ResultSet resultSet = statement.executeQuery()) {
+        resultSet.next();
+        return resultSet.getLong(1);
+      }
+    }
+  }
+}
@@ -0,0 +1,35 @@
+package com.carbonsensors.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+class AlertCursorTest {
+
+  @Test
+  void decode_whenCursorWasEncoded_thenReturnSamePosition() {
+    AlertCursor cursor = new AlertCursor(Instant.now(), UUID.randomUUID());
+
+    AlertCursor result = AlertCursor.decode(cursor.encode());
+
+    assertEquals(cursor, result);
+  }
+
+  @Test
+  void decode_whenCursorIsNotBase64_thenThrowException() {
+    assertThrows(IllegalArgumentException.class, () -> AlertCursor.decode("#!"));
+  }
+
+  @Test
+  void decode_whenCursorHasInvalidContent_thenThrowException() {
+    String cursor = Base64.getUrlEncoder().encodeToString("yesterday_sensor".getBytes(StandardCharsets.UTF_8));
+
+    assertThrows(IllegalArgumentException.class, () -> AlertCursor.decode(cursor));
+  }
+}
@@ -0,0 +1,105 @@
+package com.carbonsensors.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import com.carbonsensors.config.ConfigurationProperties;
+import com.carbonsensors.config.CustomPropertiesConfig;
+import com.carbonsensors.dto.AlertDto;
+import com.carbonsensors.model.Alert;
+import com.carbonsensors.model.Measurement;
+import com.carbonsensors.model.Sensor;
+import com.carbonsensors.model.Status;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Checks that rendering a page of alerts takes a fixed number of queries, whatever the number of alerts and
+ * measurements, and does not load any entity.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({AlertService.class, ConfigurationProperties.class, CustomPropertiesConfig.class})
+class AlertServiceITCase {
+
+  private static final int ALERTS = 5;
+  private static final int MEASUREMENTS_PER_ALERT = 3;
+
+  @Autowired
+  private AlertService alertService;
+
+  @Autowired
+  private TestEntityManager entityManager;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  private Statistics statistics;
+
+  private UUID sensorId;
+
+  @BeforeEach
+  void setup() {
+    Sensor sensor = entityManager.persist(Sensor.builder().status(Status.ALERT).build());
+    sensorId = sensor.getId();
+
+    Instant now = Instant.now();
+    for (int i = 0; i < ALERTS; i++) {
+      List<Measurement> measurements = new ArrayList<>();
+      for (int j = 0; j < MEASUREMENTS_PER_ALERT; j++) {
+        measurements.add(entityManager.persist(Measurement.builder()
+            .sensor(sensor)
+            .created(now.minus(Duration.ofHours(i)).plus(Duration.ofMinutes(j)))
+            .co2Quantity(2001d + j)
+            .build()));
+      }
+      entityManager.persist(Alert.builder()
+          .sensor(sensor)
+          .created(now.minus(Duration.ofHours(i)))
+          .measurements(measurements)
+          .build());
+    }
+    entityManager.flush();
+    entityManager.clear();
+
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+  }
+
+  @Test
+  void findAlertsBySensorId_whenRenderingAllAlerts_thenRunTwoQueriesAndLoadNoEntity() {
+    List<AlertDto> result = AlertDto.fromAlertPage(alertService.findAlertsBySensorId(sensorId, null, null, null, null));
+
+    assertEquals(ALERTS, result.size());
+    result.forEach(alert -> assertEquals(MEASUREMENTS_PER_ALERT, alert.getMesurements().size()));
+    assertEquals(2, statistics.getPrepareStatementCount());
+    assertEquals(0, statistics.getEntityLoadCount());
+    assertEquals(0, statistics.getCollectionLoadCount());
+  }
+
+  @Test
+  void findAlertsBySensorId_whenRenderingFollowingPage_thenRunTwoQueriesAndLoadNoEntity() {
+    AlertPage firstPage = alertService.findAlertsBySensorId(sensorId, null, null, null, 2);
+    assertNotNull(firstPage.getNextCursor());
+    statistics.clear();
+
+    List<AlertDto> result = AlertDto.fromAlertPage(
+        alertService.findAlertsBySensorId(sensorId, null, null, firstPage.getNextCursor().encode(), 2));
+
+    assertEquals(2, result.size());
+    assertEquals(2, statistics.getPrepareStatementCount());
+    assertEquals(0, statistics.getEntityLoadCount());
+  }
+}
@@ -1,46 +1,136 @@
 package com.carbonsensors.service;
 
+import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 
-import com.carbonsensors.model.Alert;
+import com.carbonsensors.config.ConfigurationProperties;
+import com.carbonsensors.model.projection.AlertMeasurementValue;
+import com.carbonsensors.model.projection.AlertSummary;
 import com.carbonsensors.repository.AlertRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
+import org.springframework.data.domain.PageRequest;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
 
 class AlertServiceTest {
 
   private static final UUID SENSOR_ID = UUID.randomUUID();
+  private static final Instant NOW = Instant.now();
+  private static final int PAGE_DEFAULT_SIZE = 2;
+  private static final int PAGE_MAX_SIZE = 10;
 
   @Mock
   private AlertRepository alertRepository;
 
+  @Mock
+  private ConfigurationProperties configurationProperties;
+
   private AlertService alertService;
 
   @BeforeEach
   void setup() {
     initMocks(this);
-    alertService = new AlertService(alertRepository);
+    when(configurationProperties.getAlertPageDefaultSize()).thenReturn(PAGE_DEFAULT_SIZE);
+    when(configurationProperties.getAlertPageMaxSize()).thenReturn(PAGE_MAX_SIZE);
+    alertService = new AlertService(alertRepository, configurationProperties);
   }
 
   @Test
-  void findAlertBySensorId_whenSensorIdRelatesToAlert_thenReturnAlert() {
-    Alert alert = Alert.builder().build();
-    List<Alert> alerts = singletonList(alert);
-    when(alertRepository.findBySensorIdOrderByCreatedDesc(SENSOR_ID)).thenReturn(alerts);
+  void findAlertBySensorId_whenSensorIdRelatesToAlert_thenReturnAlertAndItsMeasurementValues() {
+    AlertSummary alert = new AlertSummary(UUID.randomUUID(), NOW);
+    List<AlertSummary> alerts = singletonList(alert);
+    List<AlertMeasurementValue> values = Arrays.asList(
+        new AlertMeasurementValue(alert.getId(), NOW, 2002d),
+        new AlertMeasurementValue(alert.getId(), NOW.minus(Duration.ofMinutes(1)), 2001d));
+    when(alertRepository.findPageBySensorId(SENSOR_ID, AlertService.DEFAULT_FROM, AlertService.DEFAULT_TO,
+        PageRequest.of(0, PAGE_DEFAULT_SIZE + 1))).thenReturn(alerts);
+    when(alertRepository.findMeasurementValuesByAlertIds(singletonList(alert.getId()))).thenReturn(values);
 
-    List<Alert> result = alertService.findAlertsBySensorId(SENSOR_ID);
+    AlertPage result = alertService.findAlertsBySensorId(SENSOR_ID, null, null, null, null);
 
     assertNotNull(result);
-    assertEquals(alerts, result);
-    verify(alertRepository).findBySensorIdOrderByCreatedDesc(SENSOR_ID);
+    assertEquals(alerts, result.getAlerts());
+    assertEquals(values, result.getMeasurementValuesByAlert().get(alert.getId()));
+    assertNull(result.getNextCursor());
+  }
+
+  @Test
+  void findAlertBySensorId_whenThereAreNoAlerts_thenDoNotReadMeasurementValues() {
+    when(alertRepository.findPageBySensorId(any(), any(), any(), any())).thenReturn(emptyList());
+
+    AlertPage result = alertService.findAlertsBySensorId(SENSOR_ID, null, null, null, null);
+
+    assertTrue(result.getAlerts().isEmpty());
+    assertTrue(result.getMeasurementValuesByAlert().isEmpty());
+    verify(alertRepository, never()).findMeasurementValuesByAlertIds(any());
+  }
+
+  @Test
+  void findAlertBySensorId_whenThereAreMoreAlertsThanTheLimit_thenReturnCursorOfLastAlertOfPage() {
+    AlertSummary first = new AlertSummary(UUID.randomUUID(), NOW);
+    AlertSummary second = new AlertSummary(UUID.randomUUID(), NOW.minus(Duration.ofHours(1)));
+    AlertSummary third = new AlertSummary(UUID.randomUUID(), NOW.minus(Duration.ofHours(2)));
+    when(alertRepository.findPageBySensorId(SENSOR_ID, NOW.minus(Duration.ofDays(1)), NOW, PageRequest.of(0, 3)))
+        .thenReturn(Arrays.asList(first, second, third));
+
+    AlertPage result = alertService.findAlertsBySensorId(SENSOR_ID, NOW.minus(Duration.ofDays(1)), NOW, null, 2);
+
+    assertEquals(Arrays.asList(first, second), result.getAlerts());
+    assertEquals(AlertCursor.fromAlertSummary(second), result.getNextCursor());
+    verify(alertRepository).findMeasurementValuesByAlertIds(Arrays.asList(first.getId(), second.getId()));
+  }
+
+  @Test
+  void findAlertBySensorId_whenCursorIsEntered_thenReadAlertsAfterIt() {
+    AlertCursor cursor = new AlertCursor(NOW, UUID.randomUUID());
+    AlertSummary alert = new AlertSummary(UUID.randomUUID(), NOW.minus(Duration.ofHours(1)));
+    when(alertRepository.findPageBySensorIdAfter(any(), any(), any(), any(), any(), any()))
+        .thenReturn(singletonList(alert));
+
+    AlertPage result = alertService.findAlertsBySensorId(SENSOR_ID, null, null, cursor.encode(), null);
+
+    assertEquals(singletonList(alert), result.getAlerts());
+    assertNull(result.getNextCursor());
+    verify(alertRepository).findPageBySensorIdAfter(SENSOR_ID, AlertService.DEFAULT_FROM, AlertService.DEFAULT_TO,
+        AlertCursor.decode(cursor.encode()).getCreated(), cursor.getId(),
+        PageRequest.of(0, PAGE_DEFAULT_SIZE + 1));
+  }
+
+  @Test
+  void findAlertBySensorId_whenLimitExceedsMaximum_thenThrowException() {
+    assertThrows(IllegalArgumentException.class,
+        () -> alertService.findAlertsBySensorId(SENSOR_ID, null, null, null, PAGE_MAX_SIZE + 1));
+    verifyNoInteractions(alertRepository);
+  }
+
+  @Test
+  void findAlertBySensorId_whenTimeRangeIsEmpty_thenThrowException() {
+    assertThrows(IllegalArgumentException.class,
+        () -> alertService.findAlertsBySensorId(SENSOR_ID, NOW, NOW, null, null));
+    verifyNoInteractions(alertRepository);
+  }
+
+  @Test
+  void findAlertBySensorId_whenCursorIsNotValid_thenThrowException() {
+    assertThrows(IllegalArgumentException.class,
+        () -> alertService.findAlertsBySensorId(SENSOR_ID, null, null, "not-a-cursor", null));
+    verifyNoInteractions(alertRepository);
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,139 @@
+package com.carbonsensors.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import com.carbonsensors.config.ConfigurationProperties;
+import com.carbonsensors.model.projection.SensorStatistics;
+import com.carbonsensors.repository.MeasurementDailyAggregateRepository;
+import com.carbonsensors.repository.MeasurementRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+class FleetRankingServiceTest {
+
+  private static final UUID FIRST_HALF_SENSOR_ID = new UUID(-1L, 1L);
+  private static final UUID SECOND_HALF_SENSOR_ID = new UUID(1L, 1L);
+  private static final UUID OTHER_SECOND_HALF_SENSOR_ID = new UUID(2L, 1L);
+
+  @Mock
+  private MeasurementDailyAggregateRepository measurementDailyAggregateRepository;
+
+  @Mock
+  private MeasurementRepository measurementRepository;
+
+  @Mock
+  private PlatformTransactionManager transactionManager;
+
+  private FleetRankingService fleetRankingService;
+
+  @BeforeEach
+  void setup() {
+    initMocks(this);
+
+    ConfigurationProperties configurationProperties = new ConfigurationProperties();
+    configurationProperties.setMetricsCo2Days(30);
+    configurationProperties.setMeasurementRetentionDays(90);
+    configurationProperties.setFleetRankingPartitions(2);
+    configurationProperties.setFleetRankingDefaultSize(2);
+    configurationProperties.setFleetRankingMaxSize(10);
+
+    fleetRankingService = new FleetRankingService(measurementDailyAggregateRepository, measurementRepository,
+        transactionManager, configurationProperties);
+
+    List<SensorStatistics> wholeDays = Arrays.asList(
+        new SensorStatistics(FIRST_HALF_SENSOR_ID, 10L, 25000d, 2500d, 2400d),
+        new SensorStatistics(SECOND_HALF_SENSOR_ID, 10L, 20000d, 2100d, 1900d),
+        new SensorStatistics(OTHER_SECOND_HALF_SENSOR_ID, 10L, 15000d, 2000d, 1000d));
+    List<SensorStatistics> partialDay = Arrays.asList(
+        new SensorStatistics(SECOND_HALF_SENSOR_ID, 1L, 2600d, 2600d, 2600d));
+    when(measurementDailyAggregateRepository.sumAggregatesAfterBySensor(any(), any(), any(LocalDate.class)))
+        .thenAnswer(invocation -> withinRange(invocation, wholeDays));
+    when(measurementRepository.computeStatisticsBySensor(any(Instant.class), any(Instant.class)))
+        .thenReturn(partialDay);
+  }
+
+  @AfterEach
+  void tearDown() {
+    fleetRankingService.stop();
+  }
+
+  @Test
+  void findTopSensors_whenMetricIsMax_thenMergePartialDayAndRankAcrossPartitions() {
+    List<SensorRanking> ranking = fleetRankingService.findTopSensors("max", null, null).join();
+
+    assertEquals(Arrays.asList(SECOND_HALF_SENSOR_ID, FIRST_HALF_SENSOR_ID), sensorIds(ranking));
+    assertEquals(2600d, ranking.get(0).getStatistics().getMax());
+    assertEquals(11L, ranking.get(0).getStatistics().getCount());
+    verify(measurementDailyAggregateRepository, times(2)).sumAggregatesAfterBySensor(any(), any(), any());
+    verify(measurementRepository).computeStatisticsBySensor(any(), any());
+  }
+
+  @Test
+  void findTopSensors_whenMetricIsAverage_thenRankByAverage() {
+    List<SensorRanking> ranking = fleetRankingService.findTopSensors("AVG", 7, 3).join();
+
+    assertEquals(Arrays.asList(FIRST_HALF_SENSOR_ID, SECOND_HALF_SENSOR_ID, OTHER_SECOND_HALF_SENSOR_ID),
+        sensorIds(ranking));
+    assertEquals(22600d / 11, ranking.get(1).getStatistics().getAverage());
+  }
+
+  @Test
+  void findTopSensors_whenSensorOnlyHasMeasurementsOnPartialFirstDay_thenRankIt() {
+    UUID sensorId = new UUID(3L, 1L);
+    when(measurementRepository.computeStatisticsBySensor(any(Instant.class), any(Instant.class)))
+        .thenReturn(List.of(new SensorStatistics(sensorId, 1L, 3000d, 3000d, 3000d)));
+
+    List<SensorRanking> ranking = fleetRankingService.findTopSensors("max", null, 1).join();
+
+    assertEquals(List.of(sensorId), sensorIds(ranking));
+  }
+
+  @Test
+  void findTopSensors_whenNoSensorHasMeasurements_thenReturnEmptyRanking() {
+    when(measurementDailyAggregateRepository.sumAggregatesAfterBySensor(any(), any(), any(LocalDate.class)))
+        .thenReturn(List.of());
+    when(measurementRepository.computeStatisticsBySensor(any(Instant.class), any(Instant.class)))
+        .thenReturn(List.of());
+
+    assertTrue(fleetRankingService.findTopSensors("max", null, 1).join().isEmpty());
+  }
+
+  @Test
+  void findTopSensors_whenParametersAreNotValid_thenThrowIllegalArgumentException() {
+    assertThrows(IllegalArgumentException.class, () -> fleetRankingService.findTopSensors("median", null, null));
+    assertThrows(IllegalArgumentException.class, () -> fleetRankingService.findTopSensors(null, null, null));
+    assertThrows(IllegalArgumentException.class, () -> fleetRankingService.findTopSensors("max", 0, null));
+    assertThrows(IllegalArgumentException.class, () -> fleetRankingService.findTopSensors("max", 90, null));
+    assertThrows(IllegalArgumentException.class, () -> fleetRankingService.findTopSensors("max", null, 11));
+  }
+
+  private static List<SensorStatistics> withinRange(InvocationOnMock invocation, List<SensorStatistics> fleet) {
+    UUID from = invocation.getArgument(0);
+    UUID to = invocation.getArgument(1);
+    return fleet.stream()
+        .filter(sensor -> sensor.getSensorId().compareTo(from) >= 0 && sensor.getSensorId().compareTo(to) <= 0)
+        .collect(Collectors.toList());
+  }
+
+  private static List<UUID> sensorIds(List<SensorRanking> ranking) {
+    return ranking.stream().map(SensorRanking::getSensorId).collect(Collectors.toList());
+  }
+}
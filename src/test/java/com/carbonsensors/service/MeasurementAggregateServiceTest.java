@@ -0,0 +1,156 @@
+package com.carbonsensors.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import com.carbonsensors.model.Measurement;
+import com.carbonsensors.model.MeasurementDailyAggregate;
+import com.carbonsensors.model.MeasurementRollup;
+import com.carbonsensors.model.RollupResolution;
+import com.carbonsensors.model.Sensor;
+import com.carbonsensors.model.projection.MeasurementStatistics;
+import com.carbonsensors.repository.MeasurementDailyAggregateRepository;
+import com.carbonsensors.repository.MeasurementRepository;
+import com.carbonsensors.repository.MeasurementRollupRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.UUID;
+
+class MeasurementAggregateServiceTest {
+
+  private static final UUID SENSOR_ID = UUID.randomUUID();
+  private static final Instant DAY_START = Instant.parse("2021-01-10T00:00:00Z");
+
+  @Mock
+  private MeasurementDailyAggregateRepository measurementDailyAggregateRepository;
+  @Mock
+  private MeasurementRollupRepository measurementRollupRepository;
+  @Mock
+  private MeasurementRepository measurementRepository;
+
+  private MeasurementAggregateService measurementAggregateService;
+
+  @BeforeEach
+  void setup() {
+    initMocks(this);
+    measurementAggregateService =
+        new MeasurementAggregateService(measurementDailyAggregateRepository, measurementRollupRepository,
+            measurementRepository);
+  }
+
+  @Test
+  void addMeasurements_whenDayAggregateExists_thenUpdateItOncePerDay() {
+    Sensor sensor = Sensor.builder().id(SENSOR_ID).build();
+
+    when(measurementDailyAggregateRepository.addToAggregate(eq(SENSOR_ID), any(), anyLong(), anyDouble(),
+        anyDouble(), anyDouble())).thenReturn(1);
+
+    measurementAggregateService.addMeasurements(sensor, Arrays.asList(
+        createMeasurement(DAY_START.plus(Duration.ofHours(1)), 10d),
+        createMeasurement(DAY_START.plus(Duration.ofHours(2)), 30d),
+        createMeasurement(DAY_START.plus(Duration.ofDays(1)), 5d)));
+
+    verify(measurementDailyAggregateRepository)
+        .addToAggregate(SENSOR_ID, LocalDate.of(2021, 1, 10), 2L, 40d, 30d, 10d);
+    verify(measurementDailyAggregateRepository)
+        .addToAggregate(SENSOR_ID, LocalDate.of(2021, 1, 11), 1L, 5d, 5d, 5d);
+    verify(measurementDailyAggregateRepository, never()).save(any());
+  }
+
+  @Test
+  void addMeasurements_whenDayAggregateDoesNotExist_thenCreateIt() {
+    Sensor sensor = Sensor.builder().id(SENSOR_ID).build();
+
+    measurementAggregateService.addMeasurements(sensor, Arrays.asList(
+        createMeasurement(DAY_START.plus(Duration.ofHours(23)), 10d)));
+
+    ArgumentCaptor<MeasurementDailyAggregate> captor = ArgumentCaptor.forClass(MeasurementDailyAggregate.class);
+    verify(measurementDailyAggregateRepository).save(captor.capture());
+    MeasurementDailyAggregate aggregate = captor.getValue();
+    assertEquals(sensor, aggregate.getSensor());
+    assertEquals(LocalDate.of(2021, 1, 10), aggregate.getMeasurementDay());
+    assertEquals(1L, aggregate.getMeasurementCount());
+    assertEquals(10d, aggregate.getCo2QuantitySum());
+    assertEquals(10d, aggregate.getCo2QuantityMax());
+    assertEquals(10d, aggregate.getCo2QuantityMin());
+  }
+
+  @Test
+  void addMeasurements_whenMeasurementsShareBuckets_thenRollThemUpOncePerMinuteAndHour() {
+    Sensor sensor = Sensor.builder().id(SENSOR_ID).build();
+    Instant hourStart = DAY_START.plus(Duration.ofHours(1));
+
+    when(measurementRollupRepository.addToRollup(eq(SENSOR_ID), eq(RollupResolution.HOUR), any(), anyLong(),
+        anyDouble(), anyDouble(), anyDouble())).thenReturn(1);
+
+    measurementAggregateService.addMeasurements(sensor, Arrays.asList(
+        createMeasurement(hourStart, 10d),
+        createMeasurement(hourStart.plusSeconds(30), 30d),
+        createMeasurement(hourStart.plus(Duration.ofMinutes(5)), 5d)));
+
+    verify(measurementRollupRepository).addToRollup(SENSOR_ID, RollupResolution.HOUR, hourStart, 3L, 45d, 30d, 5d);
+    verify(measurementRollupRepository)
+        .addToRollup(SENSOR_ID, RollupResolution.MINUTE, hourStart, 2L, 40d, 30d, 10d);
+    ArgumentCaptor<MeasurementRollup> captor = ArgumentCaptor.forClass(MeasurementRollup.class);
+    verify(measurementRollupRepository, times(2)).save(captor.capture());
+    MeasurementRollup rollup = captor.getAllValues().get(1);
+    assertEquals(RollupResolution.MINUTE, rollup.getResolution());
+    assertEquals(hourStart.plus(Duration.ofMinutes(5)), rollup.getBucketStart());
+    assertEquals(1L, rollup.getMeasurementCount());
+    assertEquals(5d, rollup.getCo2QuantityMax());
+  }
+
+  @Test
+  void computeStatisticsSince_whenThereArePartialAndWholeDays_thenCombineThem() {
+    Instant from = DAY_START.plus(Duration.ofHours(12));
+
+    when(measurementRepository.computeStatisticsById(SENSOR_ID, from, DAY_START.plus(Duration.ofDays(1))))
+        .thenReturn(new MeasurementStatistics(2L, 300d, 200d, 100d));
+    when(measurementDailyAggregateRepository.sumAggregatesAfter(SENSOR_ID, LocalDate.of(2021, 1, 10)))
+        .thenReturn(new MeasurementStatistics(4L, 100d, 40d, 10d));
+
+    MeasurementStatistics result = measurementAggregateService.computeStatisticsSince(SENSOR_ID, from);
+
+    assertEquals(6L, result.getCount());
+    assertEquals(400d, result.getSum());
+    assertEquals(200d, result.getMax());
+    assertEquals(10d, result.getMin());
+    assertEquals(400d / 6, result.getAverage());
+  }
+
+  @Test
+  void computeStatisticsSince_whenThereAreNoMeasurements_thenReturnEmptyStatistics() {
+    when(measurementRepository.computeStatisticsById(any(), any(), any()))
+        .thenReturn(MeasurementStatistics.empty());
+    when(measurementDailyAggregateRepository.sumAggregatesAfter(any(), any()))
+        .thenReturn(new MeasurementStatistics(null, null, null, null));
+
+    MeasurementStatistics result = measurementAggregateService.computeStatisticsSince(SENSOR_ID, DAY_START);
+
+    assertNull(result.getMax());
+    assertNull(result.getAverage());
+  }
+
+  private Measurement createMeasurement(Instant created, double co2Quantity) {
+    return Measurement.builder()
+        .created(created)
+        .co2Quantity(co2Quantity)
+        .build();
+  }
+}
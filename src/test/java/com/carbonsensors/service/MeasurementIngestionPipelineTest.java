@@ -0,0 +1,225 @@
+package com.carbonsensors.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import com.carbonsensors.config.ConfigurationProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+class MeasurementIngestionPipelineTest {
+
+  private static final UUID SENSOR_ID = UUID.randomUUID();
+  private static final Instant NOW = Instant.now();
+
+  @Mock
+  private MeasurementService measurementService;
+  @Mock
+  private SensorService sensorService;
+
+  private ConfigurationProperties configurationProperties;
+
+  private MeterRegistry meterRegistry;
+
+  private MeasurementIngestionPipeline pipeline;
+
+  /**
+   * Readings stored by the writers, in the order they were stored.
+   */
+  private final List<MeasurementReading> stored = Collections.synchronizedList(new ArrayList<>());
+
+  @BeforeEach
+  void setup() {
+    initMocks(this);
+
+    configurationProperties = new ConfigurationProperties();
+    configurationProperties.setMeasurementIngestionAsyncEnabled(true);
+    configurationProperties.setMeasurementIngestionShards(2);
+    configurationProperties.setMeasurementIngestionQueueCapacity(100);
+    configurationProperties.setMeasurementIngestionBatchMaxSize(10);
+    configurationProperties.setMeasurementIngestionShutdownTimeoutMs(5000L);
+    configurationProperties.setMeasurementBatchMaxSize(100);
+
+    meterRegistry = new SimpleMeterRegistry();
+
+    doAnswer(invocation -> store(invocation.getArgument(0)))
+        .when(measurementService).createMeasurements(anyList());
+  }
+
+  @AfterEach
+  void tearDown() {
+    if (pipeline != null) {
+      pipeline.stop();
+    }
+  }
+
+  @Test
+  void submit_whenReadingsOfASensorAreSubmitted_thenStoreThemInOrder() throws InterruptedException {
+    startPipeline();
+    List<MeasurementReading> readings = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      readings.add(new MeasurementReading(SENSOR_ID, (double) i, NOW.plusSeconds(i)));
+    }
+
+    readings.forEach(pipeline::submit);
+    pipeline.stop();
+
+    assertEquals(readings, stored);
+  }
+
+  @Test
+  void submit_whenQueueIsFull_thenRejectReading() throws InterruptedException {
+    configurationProperties.setMeasurementIngestionShards(1);
+    configurationProperties.setMeasurementIngestionQueueCapacity(1);
+    CountDownLatch writing = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    doAnswer(invocation -> {
+      writing.countDown();
+      release.await();
+      return store(invocation.getArgument(0));
+    }).when(measurementService).createMeasurements(anyList());
+    startPipeline();
+
+    pipeline.submit(reading(1));
+    assertTrue(writing.await(5, TimeUnit.SECONDS));
+    pipeline.submit(reading(2));
+    assertEquals(1d, meterRegistry.get(OperationalMetrics.INGESTION_QUEUE_DEPTH).gauge().value());
+
+    assertThrows(IngestionRejectedException.class, () -> pipeline.submit(reading(3)));
+
+    release.countDown();
+    pipeline.stop();
+    assertEquals(2, stored.size());
+  }
+
+  @Test
+  void submit_whenPipelineIsStopped_thenRejectReading() {
+    startPipeline();
+    pipeline.stop();
+
+    assertThrows(IngestionRejectedException.class, () -> pipeline.submit(reading(1)));
+  }
+
+  @Test
+  void submit_whenSensorDoesNotExist_thenThrowExceptionAndQueueNothing() {
+    startPipeline();
+    doThrow(new IllegalArgumentException()).when(sensorService).findSensorStatusById(SENSOR_ID);
+
+    assertThrows(IllegalArgumentException.class, () -> pipeline.submit(reading(1)));
+    pipeline.stop();
+
+    verify(measurementService, never()).createMeasurements(any());
+  }
+
+  @Test
+  void submit_whenBatchCannotBeStored_thenCountDroppedReadingsAndKeepWriting() {
+    doThrow(new IllegalStateException())
+        .doAnswer(invocation -> store(invocation.getArgument(0)))
+        .when(measurementService).createMeasurements(anyList());
+    configurationProperties.setMeasurementIngestionBatchMaxSize(1);
+    startPipeline();
+
+    pipeline.submit(reading(1));
+    pipeline.submit(reading(2));
+    pipeline.stop();
+
+    assertEquals(Collections.singletonList(reading(2)), stored);
+    assertEquals(1, meterRegistry.get(OperationalMetrics.INGESTION_READINGS_DROPPED).counter().count());
+  }
+
+  @Test
+  void submit_whenReadingOfBatchCannotBeStored_thenStoreTheOthersAndCountOnlyThatOne() throws InterruptedException {
+    UUID otherSensorId = UUID.randomUUID();
+    MeasurementReading poisoned = new MeasurementReading(SENSOR_ID, 9999d, NOW.plusSeconds(2));
+    configurationProperties.setMeasurementIngestionShards(1);
+    CountDownLatch writing = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    List<List<MeasurementReading>> batches = Collections.synchronizedList(new ArrayList<>());
+    doAnswer(invocation -> {
+      List<MeasurementReading> batch = new ArrayList<>(invocation.getArgument(0));
+      batches.add(batch);
+      writing.countDown();
+      release.await();
+      if (batch.contains(poisoned)) {
+        throw new IllegalStateException("Constraint violation");
+      }
+      return store(batch);
+    }).when(measurementService).createMeasurements(anyList());
+    startPipeline();
+
+    pipeline.submit(reading(1));
+    assertTrue(writing.await(5, TimeUnit.SECONDS));
+    MeasurementReading otherFirst = new MeasurementReading(otherSensorId, 400d, NOW.plusSeconds(2));
+    MeasurementReading otherSecond = new MeasurementReading(otherSensorId, 410d, NOW.plusSeconds(3));
+    pipeline.submit(otherFirst);
+    pipeline.submit(poisoned);
+    pipeline.submit(reading(3));
+    pipeline.submit(otherSecond);
+    release.countDown();
+    pipeline.stop();
+
+    assertEquals(Arrays.asList(otherFirst, poisoned, reading(3), otherSecond), batches.get(1));
+    assertEquals(Arrays.asList(reading(1), otherFirst, otherSecond, reading(3)), stored);
+    assertEquals(1, meterRegistry.get(OperationalMetrics.INGESTION_READINGS_DROPPED).counter().count());
+  }
+
+  @Test
+  void submit_whenReadingWasStoredInTheMeantime_thenStoreBatchAgain() {
+    doThrow(new DuplicateMeasurementException("duplicate", null))
+        .doAnswer(invocation -> store(invocation.getArgument(0)))
+        .when(measurementService).createMeasurements(anyList());
+    startPipeline();
+
+    pipeline.submit(reading(1));
+    pipeline.stop();
+
+    assertEquals(Collections.singletonList(reading(1)), stored);
+    assertEquals(0, meterRegistry.get(OperationalMetrics.INGESTION_READINGS_DROPPED).counter().count());
+  }
+
+  @Test
+  void start_whenAsyncIngestionIsDisabled_thenRejectReadings() {
+    configurationProperties.setMeasurementIngestionAsyncEnabled(false);
+    startPipeline();
+
+    assertFalse(pipeline.isEnabled());
+    assertThrows(IngestionRejectedException.class, () -> pipeline.submit(reading(1)));
+  }
+
+  private void startPipeline() {
+    pipeline = new MeasurementIngestionPipeline(measurementService, sensorService,
+        new OperationalMetrics(meterRegistry), configurationProperties);
+    pipeline.start();
+  }
+
+  private BatchMeasurementResult store(List<MeasurementReading> batch) {
+    stored.addAll(batch);
+    return new BatchMeasurementResult(batch.size(), Collections.emptyList());
+  }
+
+  private MeasurementReading reading(int second) {
+    return new MeasurementReading(SENSOR_ID, 2100d, NOW.plusSeconds(second));
+  }
+}
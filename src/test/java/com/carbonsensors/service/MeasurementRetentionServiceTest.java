@@ -0,0 +1,122 @@
+package com.carbonsensors.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import com.carbonsensors.config.ConfigurationProperties;
+import com.carbonsensors.model.projection.MeasurementKey;
+import com.carbonsensors.repository.MeasurementRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+class MeasurementRetentionServiceTest {
+
+  private static final int CHUNK_SIZE = 2;
+  private static final long BYTES = MeasurementRetentionService.ESTIMATED_BYTES_PER_MEASUREMENT;
+  private static final Instant OLD = Instant.now().minus(Duration.ofDays(100));
+
+  @Mock
+  private MeasurementRepository measurementRepository;
+
+  @Mock
+  private OperationalMetrics operationalMetrics;
+
+  @Mock
+  private PlatformTransactionManager transactionManager;
+
+  private ConfigurationProperties configurationProperties;
+
+  private MeasurementRetentionService measurementRetentionService;
+
+  @BeforeEach
+  void setup() {
+    initMocks(this);
+
+    configurationProperties = new ConfigurationProperties();
+    configurationProperties.setMetricsCo2Days(30);
+    configurationProperties.setMeasurementRetentionDays(90);
+    configurationProperties.setMeasurementPurgeChunkSize(CHUNK_SIZE);
+
+    measurementRetentionService = new MeasurementRetentionService(measurementRepository, operationalMetrics,
+        transactionManager, configurationProperties);
+  }
+
+  @Test
+  void constructor_whenRetentionIsNotLongerThanMetricsLookBack_thenThrowIllegalArgumentException() {
+    configurationProperties.setMeasurementRetentionDays(30);
+
+    assertThrows(IllegalArgumentException.class, () -> new MeasurementRetentionService(measurementRepository,
+        operationalMetrics, transactionManager, configurationProperties));
+  }
+
+  @Test
+  void purgeExpiredMeasurements_whenThereAreSeveralChunks_thenDeleteEachChunkAfterThePreviousOne() {
+    MeasurementKey first = key(OLD);
+    MeasurementKey second = key(OLD.plus(Duration.ofMinutes(1)));
+    MeasurementKey third = key(OLD.plus(Duration.ofMinutes(2)));
+    when(measurementRepository.findUnreferencedCreatedBefore(any(), eq(PageRequest.of(0, CHUNK_SIZE))))
+        .thenReturn(Arrays.asList(first, second));
+    when(measurementRepository.findUnreferencedCreatedBeforeAfter(any(), eq(second.getCreated()), eq(second.getId()),
+        eq(PageRequest.of(0, CHUNK_SIZE)))).thenReturn(Collections.singletonList(third));
+    when(measurementRepository.deleteUnreferencedByIdIn(Arrays.asList(first.getId(), second.getId()))).thenReturn(2);
+    when(measurementRepository.deleteUnreferencedByIdIn(Collections.singletonList(third.getId()))).thenReturn(1);
+
+    PurgeResult result = measurementRetentionService.purgeExpiredMeasurements();
+
+    assertEquals(3, result.getRows());
+    assertEquals(3 * BYTES, result.getBytes());
+    verify(operationalMetrics).countMeasurementsPurged(2, 2 * BYTES);
+    verify(operationalMetrics).countMeasurementsPurged(1, BYTES);
+    verify(transactionManager, times(2)).commit(any());
+  }
+
+  @Test
+  void purgeExpiredMeasurements_whenChunkIsFullAndNextOneIsEmpty_thenStop() {
+    List<MeasurementKey> keys = Arrays.asList(key(OLD), key(OLD.plus(Duration.ofMinutes(1))));
+    when(measurementRepository.findUnreferencedCreatedBefore(any(), any())).thenReturn(keys);
+    when(measurementRepository.deleteUnreferencedByIdIn(anyCollection())).thenReturn(2);
+    when(measurementRepository.findUnreferencedCreatedBeforeAfter(any(), any(), any(), any()))
+        .thenReturn(Collections.emptyList());
+
+    PurgeResult result = measurementRetentionService.purgeExpiredMeasurements();
+
+    assertEquals(2, result.getRows());
+    verify(measurementRepository).deleteUnreferencedByIdIn(anyCollection());
+  }
+
+  @Test
+  void purgeExpiredMeasurements_whenNothingExpired_thenDeleteNothing() {
+    when(measurementRepository.findUnreferencedCreatedBefore(any(), any())).thenReturn(Collections.emptyList());
+
+    PurgeResult result = measurementRetentionService.purgeExpiredMeasurements();
+
+    assertEquals(0, result.getRows());
+    assertEquals(0, result.getBytes());
+    verify(measurementRepository, never()).deleteUnreferencedByIdIn(anyCollection());
+    verify(operationalMetrics, never()).countMeasurementsPurged(anyInt(), anyLong());
+  }
+
+  private static MeasurementKey key(Instant created) {
+    return new MeasurementKey(UUID.randomUUID(), created);
+  }
+}
@@ -0,0 +1,150 @@
+package com.carbonsensors.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import com.carbonsensors.config.ConfigurationProperties;
+import com.carbonsensors.model.RollupResolution;
+import com.carbonsensors.model.projection.MeasurementStatistics;
+import com.carbonsensors.model.projection.RollupBucket;
+import com.carbonsensors.repository.MeasurementDailyAggregateRepository;
+import com.carbonsensors.repository.MeasurementRepository;
+import com.carbonsensors.repository.MeasurementRollupRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.UUID;
+
+class MeasurementSeriesServiceTest {
+
+  private static final UUID SENSOR_ID = UUID.randomUUID();
+  private static final LocalDate DAY = LocalDate.now(ZoneOffset.UTC).minusDays(10);
+  private static final Instant DAY_START = DAY.atStartOfDay(ZoneOffset.UTC).toInstant();
+
+  @Mock
+  private MeasurementRollupRepository measurementRollupRepository;
+  @Mock
+  private MeasurementDailyAggregateRepository measurementDailyAggregateRepository;
+  @Mock
+  private MeasurementRepository measurementRepository;
+  @Mock
+  private RecentMeasurementStore recentMeasurementStore;
+  @Mock
+  private SensorService sensorService;
+
+  private MeasurementSeriesService measurementSeriesService;
+
+  @BeforeEach
+  void setup() {
+    initMocks(this);
+
+    ConfigurationProperties configurationProperties = new ConfigurationProperties();
+    configurationProperties.setMeasurementSeriesMaxPoints(1500);
+    configurationProperties.setMeasurementRetentionDays(90);
+
+    measurementSeriesService = new MeasurementSeriesService(measurementRollupRepository,
+        measurementDailyAggregateRepository, measurementRepository, recentMeasurementStore, sensorService,
+        configurationProperties);
+  }
+
+  @Test
+  void findSeries_whenResolutionIsDays_thenReadDailyAggregatesAndPartialDaysFromMeasurements() {
+    Instant from = DAY_START.plus(Duration.ofHours(12));
+    Instant to = DAY_START.plus(Duration.ofDays(3)).plus(Duration.ofHours(6));
+    when(measurementDailyAggregateRepository.findBuckets(SENSOR_ID, DAY.plusDays(1),
+        DAY.plusDays(3))).thenReturn(Arrays.asList(
+            new RollupBucket(DAY.plusDays(1), 10L, 200d, 30d, 10d),
+            new RollupBucket(DAY.plusDays(2), 1L, 5d, 5d, 5d)));
+    when(measurementRepository.computeStatisticsById(SENSOR_ID, from, DAY_START.plus(Duration.ofDays(1))))
+        .thenReturn(new MeasurementStatistics(2L, 100d, 60d, 40d));
+    when(measurementRepository.computeStatisticsById(SENSOR_ID, DAY_START.plus(Duration.ofDays(3)), to))
+        .thenReturn(MeasurementStatistics.empty());
+
+    MeasurementSeries series = measurementSeriesService.findSeries(SENSOR_ID, from, to, "day");
+
+    assertEquals(RollupResolution.DAY, series.getRollup());
+    assertEquals(3, series.getPoints().size());
+    assertEquals(DAY_START, series.getPoints().get(0).getStart());
+    assertEquals(50d, series.getPoints().get(0).getStatistics().getAverage());
+    assertEquals(DAY_START.plus(Duration.ofDays(1)), series.getPoints().get(1).getStart());
+    assertEquals(20d, series.getPoints().get(1).getStatistics().getAverage());
+    verify(sensorService).findSensorStatusById(SENSOR_ID);
+    verifyNoInteractions(measurementRollupRepository);
+  }
+
+  @Test
+  void findSeries_whenResolutionIsMinutesAndRangeIsAligned_thenReadOnlyMinuteRollup() {
+    Instant to = DAY_START.plus(Duration.ofHours(1));
+    when(measurementRollupRepository.findBuckets(SENSOR_ID, RollupResolution.MINUTE, DAY_START, to))
+        .thenReturn(Collections.singletonList(
+            new RollupBucket(DAY_START.plus(Duration.ofMinutes(20)), 3L, 30d, 20d, 1d)));
+
+    MeasurementSeries series = measurementSeriesService.findSeries(SENSOR_ID, DAY_START, to, "PT15M");
+
+    assertEquals(1, series.getPoints().size());
+    assertEquals(DAY_START.plus(Duration.ofMinutes(15)), series.getPoints().get(0).getStart());
+    verify(measurementRepository, never()).computeStatisticsById(any(), any(), any());
+  }
+
+  @Test
+  void findSeries_whenRecentStoreHoldsPartialBucket_thenDoNotReadMeasurements() {
+    Instant to = DAY_START.plus(Duration.ofMinutes(30)).plusSeconds(20);
+    when(recentMeasurementStore.computeStatistics(SENSOR_ID, DAY_START.plus(Duration.ofMinutes(30)).toEpochMilli(),
+        to.toEpochMilli())).thenReturn(Optional.of(new MeasurementStatistics(1L, 7d, 7d, 7d)));
+
+    MeasurementSeries series = measurementSeriesService.findSeries(SENSOR_ID, DAY_START, to, "PT15M");
+
+    assertEquals(1, series.getPoints().size());
+    assertEquals(DAY_START.plus(Duration.ofMinutes(30)), series.getPoints().get(0).getStart());
+    assertEquals(7d, series.getPoints().get(0).getStatistics().getAverage());
+    verify(measurementRepository, never()).computeStatisticsById(any(), any(), any());
+  }
+
+  @Test
+  void findSeries_whenPartialBucketsAreOlderThanRetention_thenReadThemFromMinuteRollup() {
+    Instant dayStart = DAY_START.minus(Duration.ofDays(365));
+    Instant from = dayStart.plus(Duration.ofHours(1)).plus(Duration.ofMinutes(20));
+    Instant to = dayStart.plus(Duration.ofHours(5)).plus(Duration.ofMinutes(10));
+    when(measurementRollupRepository.findBuckets(SENSOR_ID, RollupResolution.HOUR, dayStart.plus(Duration.ofHours(2)),
+        dayStart.plus(Duration.ofHours(5)))).thenReturn(Collections.singletonList(
+            new RollupBucket(dayStart.plus(Duration.ofHours(3)), 2L, 40d, 30d, 10d)));
+    when(measurementRollupRepository.findBuckets(SENSOR_ID, RollupResolution.MINUTE, from,
+        dayStart.plus(Duration.ofHours(2)))).thenReturn(Collections.singletonList(
+            new RollupBucket(dayStart.plus(Duration.ofMinutes(90)), 1L, 7d, 7d, 7d)));
+    when(measurementRollupRepository.findBuckets(SENSOR_ID, RollupResolution.MINUTE,
+        dayStart.plus(Duration.ofHours(5)), to)).thenReturn(Collections.singletonList(
+            new RollupBucket(dayStart.plus(Duration.ofHours(5)), 1L, 9d, 9d, 9d)));
+
+    MeasurementSeries series = measurementSeriesService.findSeries(SENSOR_ID, from, to, "hour");
+
+    assertEquals(3, series.getPoints().size());
+    assertEquals(dayStart.plus(Duration.ofHours(1)), series.getPoints().get(0).getStart());
+    assertEquals(7d, series.getPoints().get(0).getStatistics().getAverage());
+    assertEquals(dayStart.plus(Duration.ofHours(5)), series.getPoints().get(2).getStart());
+    assertEquals(9d, series.getPoints().get(2).getStatistics().getAverage());
+    verifyNoInteractions(measurementRepository, recentMeasurementStore);
+  }
+
+  @Test
+  void findSeries_whenSensorDoesNotExist_thenThrowIllegalArgumentException() {
+    when(sensorService.findSensorStatusById(SENSOR_ID)).thenThrow(new IllegalArgumentException());
+
+    assertThrows(IllegalArgumentException.class,
+        () -> measurementSeriesService.findSeries(SENSOR_ID, DAY_START, DAY_START.plus(Duration.ofHours(1)), "hour"));
+    verifyNoInteractions(measurementRollupRepository, measurementRepository);
+  }
+}
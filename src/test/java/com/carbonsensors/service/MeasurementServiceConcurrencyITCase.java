@@ -0,0 +1,92 @@
+package com.carbonsensors.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.carbonsensors.model.Status;
+import com.carbonsensors.repository.AlertRepository;
+import com.carbonsensors.repository.MeasurementDailyAggregateRepository;
+import com.carbonsensors.repository.MeasurementRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Stress test sending readings of the same sensors from many threads at once, which checks that they are ingested as
+ * if they had arrived one after the other: a single alert per sensor and no lost measurement nor aggregate update.
+ */
+@SpringBootTest
+class MeasurementServiceConcurrencyITCase {
+
+  private static final int SENSORS = 4;
+  private static final int THREADS_PER_SENSOR = 8;
+  private static final int READINGS_PER_THREAD = 10;
+  private static final Instant START = Instant.parse("2021-01-01T00:00:00Z");
+
+  @Autowired
+  private MeasurementService measurementService;
+
+  @Autowired
+  private SensorService sensorService;
+
+  @Autowired
+  private AlertRepository alertRepository;
+
+  @Autowired
+  private MeasurementRepository measurementRepository;
+
+  @Autowired
+  private MeasurementDailyAggregateRepository measurementDailyAggregateRepository;
+
+  @Test
+  void createMeasurement_whenReadingsOfASensorArriveConcurrently_thenCreateASingleAlert() throws Exception {
+    List<UUID> sensorIds = new ArrayList<>();
+    for (int i = 0; i < SENSORS; i++) {
+      sensorIds.add(sensorService.createSensor().getId());
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(SENSORS * THREADS_PER_SENSOR);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> tasks = new ArrayList<>();
+    try {
+      for (UUID sensorId : sensorIds) {
+        for (int thread = 0; thread < THREADS_PER_SENSOR; thread++) {
+          int firstSecond = thread * READINGS_PER_THREAD;
+          tasks.add(executor.submit(() -> {
+            start.await();
+            for (int i = 0; i < READINGS_PER_THREAD; i++) {
+              measurementService.createMeasurement(sensorId, 2100d, START.plusSeconds(firstSecond + i));
+            }
+            return null;
+          }));
+        }
+      }
+      start.countDown();
+      for (Future<?> task : tasks) {
+        task.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    int readingsPerSensor = THREADS_PER_SENSOR * READINGS_PER_THREAD;
+    for (UUID sensorId : sensorIds) {
+      assertEquals(Status.ALERT, sensorService.findSensorById(sensorId).getStatus());
+      assertEquals(1, alertRepository.findBySensorIdCreatedFrom(sensorId, Instant.EPOCH).size());
+      assertEquals(readingsPerSensor,
+          measurementRepository.findBySensorIdOrderByCreatedDesc(sensorId, PageRequest.of(0, 1000)).size());
+      assertEquals(Long.valueOf(readingsPerSensor), measurementDailyAggregateRepository
+          .sumAggregatesAfter(sensorId, LocalDate.of(2020, 12, 31)).getCount());
+    }
+  }
+}
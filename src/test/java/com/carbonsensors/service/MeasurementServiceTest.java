@@ -1,13 +1,21 @@
 package com.carbonsensors.service;
 
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 
@@ -19,15 +27,22 @@ import com.carbonsensors.model.Status;
 import com.carbonsensors.repository.AlertRepository;
 import com.carbonsensors.repository.MeasurementRepository;
 import com.carbonsensors.repository.SensorRepository;
+import com.carbonsensors.service.SensorStatusMachine.Transition;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
 
-import java.time.ZonedDateTime;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
@@ -35,9 +50,11 @@ import java.util.UUID;
 
 class MeasurementServiceTest {
 
-  private static final ZonedDateTime NOW = ZonedDateTime.now();
+  private static final Instant NOW = Instant.now();
   private static final UUID SENSOR_ID = UUID.randomUUID();
   private static final Double CO2_QUANTITY_LIMIT = 2000d;
+  private static final Integer BATCH_MAX_SIZE = 10;
+  private static final Duration LATENESS_HORIZON = Duration.ofMinutes(10);
 
   @Mock
   private MeasurementRepository measurementRepository;
@@ -45,9 +62,21 @@ class MeasurementServiceTest {
   private SensorRepository sensorRepository;
   @Mock
   private AlertRepository alertRepository;
+  @Mock
+  private MeasurementAggregateService measurementAggregateService;
+  @Mock
+  private SensorStatusCache sensorStatusCache;
+  @Mock
+  private RecentMeasurementStore recentMeasurementStore;
+  @Mock
+  private SensorEventHub sensorEventHub;
 
   private ConfigurationProperties configurationProperties;
 
+  private MeasurementWindowStore measurementWindowStore;
+
+  private MeterRegistry meterRegistry;
+
   private MeasurementService measurementService;
 
   @BeforeEach
@@ -58,9 +87,22 @@ class MeasurementServiceTest {
     configurationProperties.setCo2LevelThreshold((CO2_QUANTITY_LIMIT.intValue()));
     configurationProperties.setConsecutiveMeasurementsForAlert(3);
     configurationProperties.setConsecutiveMeasurementsForOk(3);
-
-    measurementService =
-        new MeasurementService(measurementRepository, sensorRepository, alertRepository, configurationProperties);
+    configurationProperties.setMeasurementBatchMaxSize(BATCH_MAX_SIZE);
+
+    configurationProperties.setMeasurementWindowMaxSensors(10);
+    configurationProperties.setMeasurementWindowIdleMinutes(60);
+    configurationProperties.setMeasurementReorderBufferSize(0);
+    configurationProperties.setMeasurementLatenessHorizonMs(LATENESS_HORIZON.toMillis());
+    configurationProperties.setMeasurementSensorLockStripes(16);
+
+    measurementWindowStore =
+        new MeasurementWindowStore(measurementRepository, recentMeasurementStore, configurationProperties);
+    meterRegistry = new SimpleMeterRegistry();
+    measurementService = new MeasurementService(measurementRepository, sensorRepository, alertRepository,
+        configurationProperties, measurementWindowStore, recentMeasurementStore, measurementAggregateService,
+        sensorStatusCache,
+        new OperationalMetrics(meterRegistry), new SensorLocks(configurationProperties),
+        new SensorStatusMachine(configurationProperties), sensorEventHub);
   }
 
   @Test
@@ -72,6 +114,10 @@ class MeasurementServiceTest {
           () -> measurementService.createMeasurement(SENSOR_ID, null, NOW));
       Assertions.assertThrows(IllegalArgumentException.class,
           () -> measurementService.createMeasurement(SENSOR_ID, CO2_QUANTITY_LIMIT, null));
+      Assertions.assertThrows(IllegalArgumentException.class,
+          () -> measurementService.createMeasurement(SENSOR_ID, Double.POSITIVE_INFINITY, NOW));
+      Assertions.assertThrows(IllegalArgumentException.class,
+          () -> measurementService.createMeasurement(SENSOR_ID, Double.NaN, NOW));
     });
   }
 
@@ -93,12 +139,141 @@ class MeasurementServiceTest {
 
     when(sensorRepository.findById(SENSOR_ID)).thenReturn(Optional.of(sensor));
     when(measurementRepository.save(measurement)).thenReturn(measurement);
-    doNothing().when(measurementServiceSpy).updateSensorStatus(sensor, NOW);
+    doNothing().when(measurementServiceSpy).updateSensorStatus(eq(sensor), any(), eq(singletonList(measurement)));
 
     Measurement result = measurementServiceSpy.createMeasurement(SENSOR_ID, CO2_QUANTITY_LIMIT, NOW);
     assertEquals(measurement, result);
+    assertEquals(1, measurementWindowStore.getWindow(SENSOR_ID).size());
     verify(sensorRepository).findById(SENSOR_ID);
     verify(measurementRepository).save(measurement);
+    verify(measurementRepository).findBySensorIdOrderByCreatedDesc(SENSOR_ID, PageRequest.of(0, 3));
+    verify(measurementRepository, never()).findReading(any(), any(), any());
+    verify(measurementAggregateService).addMeasurements(sensor, singletonList(measurement));
+    for (OperationalMetrics.Stage stage : OperationalMetrics.Stage.values()) {
+      assertEquals(1, meterRegistry.get(OperationalMetrics.MEASUREMENT_CREATION_STAGE)
+          .tag("stage", stage.name().toLowerCase()).timer().count());
+    }
+  }
+
+  @Test
+  void createMeasurements_whenBatchIsEmptyOrTooBig_thenThrowException() {
+    List<MeasurementReading> tooBig = Collections.nCopies(BATCH_MAX_SIZE + 1,
+        new MeasurementReading(SENSOR_ID, CO2_QUANTITY_LIMIT, NOW));
+
+    assertAll("Failed testing invalid batches", () -> {
+      Assertions.assertThrows(IllegalArgumentException.class, () -> measurementService.createMeasurements(null));
+      Assertions.assertThrows(IllegalArgumentException.class,
+          () -> measurementService.createMeasurements(Collections.emptyList()));
+      Assertions.assertThrows(IllegalArgumentException.class, () -> measurementService.createMeasurements(tooBig));
+    });
+  }
+
+  @Test
+  void createMeasurements_whenSomeReadingsAreInvalid_thenSaveValidOnesAndReportFailures() {
+    Sensor sensor = createSensor();
+    UUID unknownSensorId = UUID.randomUUID();
+    List<MeasurementReading> readings = Arrays.asList(
+        new MeasurementReading(SENSOR_ID, CO2_QUANTITY_LIMIT, NOW.minus(Duration.ofMinutes(1))),
+        new MeasurementReading(SENSOR_ID, null, NOW),
+        new MeasurementReading(unknownSensorId, CO2_QUANTITY_LIMIT, NOW),
+        null,
+        new MeasurementReading(SENSOR_ID, CO2_QUANTITY_LIMIT - 1, NOW)
+    );
+
+    MeasurementService measurementServiceSpy = spy(measurementService);
+
+    when(sensorRepository.findAllById(any())).thenReturn(Collections.singletonList(sensor));
+    doNothing().when(measurementServiceSpy).updateSensorStatus(eq(sensor), any(), anyList());
+
+    BatchMeasurementResult result = measurementServiceSpy.createMeasurements(readings);
+
+    assertEquals(2, result.getAccepted());
+    assertEquals(3, result.getFailures().size());
+    assertEquals(1, result.getFailures().get(0).getIndex());
+    assertEquals(SENSOR_ID, result.getFailures().get(0).getSensorId());
+    assertEquals(2, result.getFailures().get(1).getIndex());
+    assertEquals(unknownSensorId, result.getFailures().get(1).getSensorId());
+    assertEquals(3, result.getFailures().get(2).getIndex());
+    verify(measurementRepository).saveAll(anyList());
+    verify(measurementAggregateService, times(1)).addMeasurements(eq(sensor), anyList());
+    verify(measurementServiceSpy, times(1)).updateSensorStatus(eq(sensor), any(), anyList());
+    assertEquals(2, measurementWindowStore.getWindow(SENSOR_ID).size());
+    assertEquals(CO2_QUANTITY_LIMIT - 1, measurementWindowStore.getWindow(SENSOR_ID).getCo2Quantity(0));
+  }
+
+  @Test
+  void createMeasurement_whenWindowHoldsReading_thenReturnStoredMeasurementWithoutEvaluatingIt() {
+    Sensor sensor = createSensor();
+    Measurement stored = createMeasurement(CO2_QUANTITY_LIMIT + 1, NOW, sensor);
+    measurementWindowStore.getWindow(SENSOR_ID).add(NOW.toEpochMilli(), CO2_QUANTITY_LIMIT + 1);
+
+    when(sensorRepository.findById(SENSOR_ID)).thenReturn(Optional.of(sensor));
+    when(measurementRepository.findReading(SENSOR_ID, NOW, CO2_QUANTITY_LIMIT + 1)).thenReturn(Optional.of(stored));
+
+    Measurement result = measurementService.createMeasurement(SENSOR_ID, CO2_QUANTITY_LIMIT + 1, NOW);
+
+    assertEquals(stored, result);
+    assertEquals(1, measurementWindowStore.getWindow(SENSOR_ID).size());
+    verify(measurementRepository, never()).save(any());
+    verifyNoInteractions(measurementAggregateService, sensorEventHub);
+    assertEquals(1, meterRegistry.get(OperationalMetrics.MEASUREMENTS_DUPLICATE).counter().count());
+  }
+
+  @Test
+  void createMeasurement_whenDatabaseRejectsReading_thenThrowDuplicateMeasurementException() {
+    Sensor sensor = createSensor();
+
+    when(sensorRepository.findById(SENSOR_ID)).thenReturn(Optional.of(sensor));
+    when(measurementRepository.save(any())).thenThrow(new DataIntegrityViolationException("duplicate"));
+
+    Assertions.assertThrows(DuplicateMeasurementException.class,
+        () -> measurementService.createMeasurement(SENSOR_ID, CO2_QUANTITY_LIMIT, NOW));
+    verifyNoInteractions(measurementAggregateService, sensorEventHub);
+  }
+
+  @Test
+  void createMeasurements_whenReadingsAreDuplicates_thenSkipThem() {
+    Sensor sensor = createSensor();
+    Instant earlier = NOW.minus(Duration.ofMinutes(1));
+    measurementWindowStore.getWindow(SENSOR_ID).add(earlier.toEpochMilli(), CO2_QUANTITY_LIMIT);
+    List<MeasurementReading> readings = Arrays.asList(
+        new MeasurementReading(SENSOR_ID, CO2_QUANTITY_LIMIT, earlier),
+        new MeasurementReading(SENSOR_ID, CO2_QUANTITY_LIMIT - 1, earlier),
+        new MeasurementReading(SENSOR_ID, CO2_QUANTITY_LIMIT, NOW),
+        new MeasurementReading(SENSOR_ID, CO2_QUANTITY_LIMIT, NOW)
+    );
+
+    when(sensorRepository.findAllById(any())).thenReturn(singletonList(sensor));
+    when(measurementRepository.findReading(SENSOR_ID, earlier, CO2_QUANTITY_LIMIT))
+        .thenReturn(Optional.of(createMeasurement(CO2_QUANTITY_LIMIT, earlier, sensor)));
+
+    BatchMeasurementResult result = measurementService.createMeasurements(readings);
+
+    assertEquals(2, result.getAccepted());
+    assertEquals(2, result.getDuplicates());
+    assertTrue(result.getFailures().isEmpty());
+    verify(measurementRepository).findReading(any(), any(), any());
+    assertEquals(3, measurementWindowStore.getWindow(SENSOR_ID).size());
+    assertEquals(2, meterRegistry.get(OperationalMetrics.MEASUREMENTS_DUPLICATE).counter().count());
+  }
+
+  @Test
+  void createMeasurements_whenReadingIsOlderThanFullWindow_thenLookItUpInDatabase() {
+    Sensor sensor = createSensor();
+    MeasurementWindow window = measurementWindowStore.getWindow(SENSOR_ID);
+    for (int i = 3; i > 0; i--) {
+      window.add(NOW.minus(Duration.ofMinutes(i)).toEpochMilli(), CO2_QUANTITY_LIMIT);
+    }
+    Instant older = NOW.minus(Duration.ofMinutes(4));
+
+    when(sensorRepository.findAllById(any())).thenReturn(singletonList(sensor));
+
+    BatchMeasurementResult result = measurementService.createMeasurements(singletonList(
+        new MeasurementReading(SENSOR_ID, CO2_QUANTITY_LIMIT, older)));
+
+    assertEquals(1, result.getAccepted());
+    assertEquals(0, result.getDuplicates());
+    verify(measurementRepository).findReading(SENSOR_ID, older, CO2_QUANTITY_LIMIT);
   }
 
   @Test
@@ -109,22 +284,33 @@ class MeasurementServiceTest {
         createMeasurementAboveThreshold(sensor),
         createMeasurementAboveThreshold(sensor)
     );
+    MeasurementWindow window = createWindow(measurements);
 
     when(sensorRepository.save(any())).thenReturn(sensor);
     when(measurementRepository.findBySensorIdOrderByCreatedDesc(SENSOR_ID,
         PageRequest.of(0, configurationProperties.getConsecutiveMeasurementsForAlert()))).thenReturn(measurements);
 
-    measurementService.updateSensorStatus(sensor, NOW);
+    measurementService.updateSensorStatus(sensor, window, singletonList(measurements.get(0)));
 
     assertEquals(Status.ALERT, sensor.getStatus());
     assertEquals(1, sensor.getAlerts().size());
     Alert createdAlert = sensor.getAlerts().iterator().next();
     assertEquals(sensor, createdAlert.getSensor());
+    assertEquals(NOW, createdAlert.getCreated());
     assertEquals(3, createdAlert.getMeasurements().size());
     assertTrue(
         createdAlert.getMeasurements().stream().allMatch(m -> m.equals(createMeasurementAboveThreshold(sensor))));
+    assertEquals(3, createdAlert.getMeasurementCount());
+    assertEquals(CO2_QUANTITY_LIMIT + 1, createdAlert.getCo2QuantityMax());
+    assertEquals(NOW, createdAlert.getLastMeasurementCreated());
 
+    verify(alertRepository).save(createdAlert);
     verify(sensorRepository).save(any());
+    verify(sensorStatusCache).invalidateAfterCommit(SENSOR_ID);
+    assertEquals(1, meterRegistry.get(OperationalMetrics.SENSOR_STATUS_TRANSITIONS)
+        .tags("from", "NONE", "to", Status.ALERT.name()).counter().count());
+    assertEquals(1, meterRegistry.get(OperationalMetrics.ALERTS_CREATED).counter().count());
+    verify(sensorEventHub).publishAfterCommit(SENSOR_ID, null, Transition.OPEN_ALERT, NOW);
     verify(measurementRepository).findBySensorIdOrderByCreatedDesc(SENSOR_ID,
         PageRequest.of(0, configurationProperties.getConsecutiveMeasurementsForAlert()));
   }
@@ -133,34 +319,66 @@ class MeasurementServiceTest {
   void updateSensorStatus_whenLast3AlertsAreAboveThresholdAndSensorHasStatusAlert_thenAddMeasurementToAlert() {
     Sensor sensor = createSensor();
     sensor.setStatus(Status.ALERT);
+    UUID alertId = UUID.randomUUID();
+    sensor.setCurrentAlertId(alertId);
     List<Measurement> measurements = Arrays.asList(
         createMeasurementAboveThreshold(sensor),
         createMeasurementAboveThreshold(sensor),
         createMeasurementAboveThreshold(sensor)
     );
+    MeasurementWindow window = createWindow(measurements);
 
-    Alert alert = Alert.builder()
-        .sensor(sensor)
-        .measurements(new ArrayList<>())
-        .build();
-
-    when(sensorRepository.save(any())).thenReturn(sensor);
-    when(measurementRepository.findBySensorIdOrderByCreatedDesc(SENSOR_ID,
-        PageRequest.of(0, configurationProperties.getConsecutiveMeasurementsForAlert()))).thenReturn(measurements);
-    when(alertRepository.findTop1BySensorIdOrderByCreatedDesc(sensor.getId())).thenReturn(Optional.of(alert));
-    when(alertRepository.save(alert)).thenReturn(alert);
-
-    measurementService.updateSensorStatus(sensor, NOW);
+    measurementService.updateSensorStatus(sensor, window, singletonList(measurements.get(0)));
 
     assertEquals(Status.ALERT, sensor.getStatus());
+    assertEquals(alertId, sensor.getCurrentAlertId());
     assertEquals(0, sensor.getAlerts().size());
-    assertEquals(1, alert.getMeasurements().size());
 
+    verify(alertRepository).addMeasurement(alertId, measurements.get(0).getId());
+    verify(alertRepository).addToSummary(alertId, 1, CO2_QUANTITY_LIMIT + 1, NOW);
+    verify(alertRepository, never()).findById(any());
+    verify(alertRepository, never()).save(any());
     verify(sensorRepository, never()).save(any());
-    verify(measurementRepository).findBySensorIdOrderByCreatedDesc(SENSOR_ID,
-        PageRequest.of(0, configurationProperties.getConsecutiveMeasurementsForAlert()));
-    verify(alertRepository).findTop1BySensorIdOrderByCreatedDesc(sensor.getId());
-    verify(alertRepository).save(alert);
+    verify(sensorStatusCache, never()).invalidateAfterCommit(any());
+    assertEquals(1, meterRegistry.get(OperationalMetrics.ALERTS_APPENDED).counter().count());
+    assertEquals(0, meterRegistry.get(OperationalMetrics.ALERTS_CREATED).counter().count());
+    verify(measurementRepository, never()).findBySensorIdOrderByCreatedDesc(any(), any());
+  }
+
+  @Test
+  void updateSensorStatus_whenNewMeasurementIsNotPartOfStreak_thenDoNotExtendAlert() {
+    Sensor sensor = createSensor();
+    sensor.setStatus(Status.ALERT);
+    sensor.setCurrentAlertId(UUID.randomUUID());
+    List<Measurement> measurements = Arrays.asList(
+        createMeasurementAboveThreshold(sensor),
+        createMeasurementAboveThreshold(sensor),
+        createMeasurementAboveThreshold(sensor)
+    );
+    MeasurementWindow window = createWindow(measurements);
+    Measurement beforeStreak = createMeasurement(CO2_QUANTITY_LIMIT + 1, NOW.minus(Duration.ofMinutes(3)), sensor);
+
+    measurementService.updateSensorStatus(sensor, window, singletonList(beforeStreak));
+
+    assertEquals(Status.ALERT, sensor.getStatus());
+    verifyNoInteractions(alertRepository);
+    assertEquals(0, meterRegistry.get(OperationalMetrics.ALERTS_APPENDED).counter().count());
+  }
+
+  @Test
+  void updateSensorStatus_whenSensorInAlertHasNoCurrentAlert_thenThrowException() {
+    Sensor sensor = createSensor();
+    sensor.setStatus(Status.ALERT);
+    List<Measurement> measurements = Arrays.asList(
+        createMeasurementAboveThreshold(sensor),
+        createMeasurementAboveThreshold(sensor),
+        createMeasurementAboveThreshold(sensor)
+    );
+    MeasurementWindow window = createWindow(measurements);
+
+    Assertions.assertThrows(IllegalStateException.class,
+        () -> measurementService.updateSensorStatus(sensor, window, singletonList(measurements.get(0))));
+    verifyNoInteractions(alertRepository);
   }
 
   @Test
@@ -173,15 +391,31 @@ class MeasurementServiceTest {
     );
 
     when(sensorRepository.save(any())).thenReturn(sensor);
-    when(measurementRepository.findBySensorIdOrderByCreatedDesc(SENSOR_ID,
-        PageRequest.of(0, configurationProperties.getConsecutiveMeasurementsForAlert()))).thenReturn(measurements);
 
-    measurementService.updateSensorStatus(sensor, NOW);
+    measurementService.updateSensorStatus(sensor, createWindow(measurements), singletonList(measurements.get(0)));
 
     assertEquals(Status.OK, sensor.getStatus());
     verify(sensorRepository).save(any());
-    verify(measurementRepository).findBySensorIdOrderByCreatedDesc(SENSOR_ID,
-        PageRequest.of(0, configurationProperties.getConsecutiveMeasurementsForAlert()));
+    verify(measurementRepository, never()).findBySensorIdOrderByCreatedDesc(any(), any());
+  }
+
+  @Test
+  void updateSensorStatus_whenSensorIsAlreadyOk_thenDoNotInvalidateCachedStatus() {
+    Sensor sensor = createSensor();
+    sensor.setStatus(Status.OK);
+    List<Measurement> measurements = Arrays.asList(
+        createMeasurementBelowThreshold(sensor),
+        createMeasurementBelowThreshold(sensor),
+        createMeasurementBelowThreshold(sensor)
+    );
+
+    when(sensorRepository.save(any())).thenReturn(sensor);
+
+    measurementService.updateSensorStatus(sensor, createWindow(measurements), singletonList(measurements.get(0)));
+
+    assertEquals(Status.OK, sensor.getStatus());
+    verify(sensorStatusCache, never()).invalidateAfterCommit(any());
+    assertTrue(meterRegistry.find(OperationalMetrics.SENSOR_STATUS_TRANSITIONS).counters().isEmpty());
   }
 
   @Test
@@ -194,15 +428,12 @@ class MeasurementServiceTest {
     );
 
     when(sensorRepository.save(any())).thenReturn(sensor);
-    when(measurementRepository.findBySensorIdOrderByCreatedDesc(SENSOR_ID,
-        PageRequest.of(0, configurationProperties.getConsecutiveMeasurementsForAlert()))).thenReturn(measurements);
 
-    measurementService.updateSensorStatus(sensor, NOW);
+    measurementService.updateSensorStatus(sensor, createWindow(measurements), singletonList(measurements.get(0)));
 
     assertEquals(Status.OK, sensor.getStatus());
     verify(sensorRepository).save(any());
-    verify(measurementRepository).findBySensorIdOrderByCreatedDesc(SENSOR_ID,
-        PageRequest.of(0, configurationProperties.getConsecutiveMeasurementsForAlert()));
+    verify(measurementRepository, never()).findBySensorIdOrderByCreatedDesc(any(), any());
   }
 
   @Test
@@ -215,15 +446,218 @@ class MeasurementServiceTest {
     );
 
     when(sensorRepository.save(any())).thenReturn(sensor);
-    when(measurementRepository.findBySensorIdOrderByCreatedDesc(SENSOR_ID,
-        PageRequest.of(0, configurationProperties.getConsecutiveMeasurementsForAlert()))).thenReturn(measurements);
 
-    measurementService.updateSensorStatus(sensor, NOW);
+    measurementService.updateSensorStatus(sensor, createWindow(measurements), singletonList(measurements.get(0)));
 
     assertEquals(Status.WARM, sensor.getStatus());
     verify(sensorRepository).save(any());
-    verify(measurementRepository).findBySensorIdOrderByCreatedDesc(SENSOR_ID,
-        PageRequest.of(0, configurationProperties.getConsecutiveMeasurementsForAlert()));
+    verify(sensorStatusCache).invalidateAfterCommit(SENSOR_ID);
+    assertEquals(1, meterRegistry.get(OperationalMetrics.SENSOR_STATUS_TRANSITIONS)
+        .tags("from", "NONE", "to", Status.WARM.name()).counter().count());
+    verify(measurementRepository, never()).findBySensorIdOrderByCreatedDesc(any(), any());
+  }
+
+  @Test
+  void updateSensorStatus_whenSensorIsInAlertAndLastIsBelowThreshold_thenKeepAlertStatus() {
+    Sensor sensor = createSensor();
+    sensor.setStatus(Status.ALERT);
+    List<Measurement> measurements = Arrays.asList(
+        createMeasurementBelowThreshold(sensor),
+        createMeasurementAboveThreshold(sensor),
+        createMeasurementAboveThreshold(sensor)
+    );
+
+    measurementService.updateSensorStatus(sensor, createWindow(measurements), singletonList(measurements.get(0)));
+
+    assertEquals(Status.ALERT, sensor.getStatus());
+    verify(sensorRepository, never()).save(any());
+    verify(sensorStatusCache, never()).invalidateAfterCommit(any());
+  }
+
+  @Test
+  void createMeasurements_whenReadingIsPastLatenessHorizon_thenStoreItWithoutEvaluatingIt() {
+    Sensor sensor = createSensor();
+    sensor.setStatus(Status.WARM);
+    MeasurementWindow window = measurementWindowStore.getWindow(SENSOR_ID);
+    window.add(NOW.toEpochMilli(), CO2_QUANTITY_LIMIT + 1);
+    window.setStatus(0, Status.WARM);
+
+    when(sensorRepository.findAllById(any())).thenReturn(singletonList(sensor));
+
+    BatchMeasurementResult result = measurementService.createMeasurements(singletonList(
+        new MeasurementReading(SENSOR_ID, CO2_QUANTITY_LIMIT - 1, NOW.minus(LATENESS_HORIZON).minusMillis(1))));
+
+    assertEquals(1, result.getAccepted());
+    assertEquals(1, result.getPastHorizon());
+    assertEquals(Status.WARM, sensor.getStatus());
+    assertEquals(2, window.size());
+    assertNull(window.getStatus(1));
+    verify(sensorRepository, never()).save(any());
+    verifyNoInteractions(alertRepository, sensorEventHub);
+    assertEquals(1, meterRegistry.get(OperationalMetrics.MEASUREMENTS_LATE)
+        .tag("outcome", "past_horizon").counter().count());
+  }
+
+  @Test
+  void updateSensorStatusAfterLateMeasurement_whenStatusBeforeIsUnknown_thenDoNotEvaluateIt() {
+    Sensor sensor = createSensor();
+    sensor.setStatus(Status.WARM);
+    MeasurementWindow window = new MeasurementWindow(5);
+    window.add(NOW.minus(Duration.ofMinutes(2)).toEpochMilli(), CO2_QUANTITY_LIMIT + 1);
+    window.add(NOW.toEpochMilli(), CO2_QUANTITY_LIMIT + 1);
+
+    boolean reevaluated = measurementService.updateSensorStatusAfterLateMeasurement(sensor, window,
+        createMeasurement(CO2_QUANTITY_LIMIT + 1, NOW.minus(Duration.ofMinutes(1)), sensor));
+
+    assertFalse(reevaluated);
+    assertEquals(3, window.size());
+    assertEquals(Status.WARM, sensor.getStatus());
+    verifyNoInteractions(alertRepository, sensorEventHub);
+  }
+
+  @Test
+  void updateSensorStatusAfterLateMeasurement_whenMeasurementBreaksStreakOfAlert_thenRetractAlert() {
+    Sensor sensor = createSensor();
+    sensor.setStatus(Status.ALERT);
+    sensor.setCurrentAlertId(UUID.randomUUID());
+    Measurement late = createMeasurement(CO2_QUANTITY_LIMIT - 1, NOW.minus(Duration.ofMinutes(1)), sensor);
+    List<Measurement> mostRecentFirst = Arrays.asList(
+        createMeasurement(CO2_QUANTITY_LIMIT + 1, NOW, sensor),
+        late,
+        createMeasurement(CO2_QUANTITY_LIMIT + 1, NOW.minus(Duration.ofMinutes(2)), sensor),
+        createMeasurement(CO2_QUANTITY_LIMIT + 1, NOW.minus(Duration.ofMinutes(3)), sensor));
+    MeasurementWindow window = createWindow(Arrays.asList(mostRecentFirst.get(0), mostRecentFirst.get(2),
+        mostRecentFirst.get(3)), Status.WARM, Status.WARM, Status.ALERT);
+    Alert alert = Alert.builder()
+        .id(sensor.getCurrentAlertId())
+        .created(NOW)
+        .sensor(sensor)
+        .measurements(new ArrayList<>(Arrays.asList(mostRecentFirst.get(0), mostRecentFirst.get(2),
+            mostRecentFirst.get(3))))
+        .build();
+
+    when(measurementRepository.findBySensorIdOrderByCreatedDesc(SENSOR_ID, PageRequest.of(0, 4)))
+        .thenReturn(mostRecentFirst);
+    when(alertRepository.findBySensorIdCreatedFrom(SENSOR_ID, late.getCreated())).thenReturn(singletonList(alert));
+
+    boolean reevaluated = measurementService.updateSensorStatusAfterLateMeasurement(sensor, window, late);
+
+    assertTrue(reevaluated);
+    assertEquals(Status.WARM, sensor.getStatus());
+    assertEquals(Status.OK, window.getStatus(1));
+    assertEquals(Status.WARM, window.getStatus(0));
+    assertTrue(alert.getMeasurements().isEmpty());
+    assertNull(sensor.getCurrentAlertId());
+    verify(alertRepository).delete(alert);
+    verify(alertRepository, never()).save(any());
+    verify(sensorStatusCache).invalidateAfterCommit(SENSOR_ID);
+    verify(sensorEventHub).publishAfterCommit(SENSOR_ID, Status.ALERT, Transition.SET_WARM, late.getCreated());
+    assertEquals(1, meterRegistry.get(OperationalMetrics.ALERTS_RETRACTED).counter().count());
+    assertEquals(1, meterRegistry.get(OperationalMetrics.MEASUREMENTS_LATE)
+        .tag("outcome", "reevaluated").counter().count());
+  }
+
+  @Test
+  void updateSensorStatusAfterLateMeasurement_whenMeasurementCompletesStreak_thenOpenAlertAtItsMostRecentReading() {
+    Sensor sensor = createSensor();
+    sensor.setStatus(Status.WARM);
+    Measurement late = createMeasurement(CO2_QUANTITY_LIMIT + 1, NOW.minus(Duration.ofMinutes(1)), sensor);
+    List<Measurement> mostRecentFirst = Arrays.asList(
+        createMeasurement(CO2_QUANTITY_LIMIT + 1, NOW, sensor),
+        late,
+        createMeasurement(CO2_QUANTITY_LIMIT + 1, NOW.minus(Duration.ofMinutes(2)), sensor),
+        createMeasurement(CO2_QUANTITY_LIMIT - 1, NOW.minus(Duration.ofMinutes(3)), sensor));
+    MeasurementWindow window = createWindow(Arrays.asList(mostRecentFirst.get(0), mostRecentFirst.get(2),
+        mostRecentFirst.get(3)), Status.OK, Status.WARM, Status.WARM);
+
+    when(measurementRepository.findBySensorIdOrderByCreatedDesc(SENSOR_ID, PageRequest.of(0, 4)))
+        .thenReturn(mostRecentFirst);
+    when(alertRepository.findBySensorIdCreatedFrom(SENSOR_ID, late.getCreated())).thenReturn(emptyList());
+    when(alertRepository.findReferencedMeasurementIds(anyList())).thenReturn(emptyList());
+
+    boolean reevaluated = measurementService.updateSensorStatusAfterLateMeasurement(sensor, window, late);
+
+    assertTrue(reevaluated);
+    assertEquals(Status.ALERT, sensor.getStatus());
+    ArgumentCaptor<Alert> alert = ArgumentCaptor.forClass(Alert.class);
+    verify(alertRepository).save(alert.capture());
+    assertEquals(NOW, alert.getValue().getCreated());
+    assertEquals(mostRecentFirst.subList(0, 3), alert.getValue().getMeasurements());
+    assertEquals(3, alert.getValue().getMeasurementCount());
+    assertEquals(NOW, alert.getValue().getLastMeasurementCreated());
+    verify(alertRepository, never()).delete(any());
+    verify(sensorEventHub).publishAfterCommit(SENSOR_ID, Status.WARM, Transition.OPEN_ALERT, late.getCreated());
+    assertEquals(1, meterRegistry.get(OperationalMetrics.ALERTS_CREATED).counter().count());
+  }
+
+  @Test
+  void updateSensorStatusAfterLateMeasurement_whenReopenedStreakIsInAnotherAlert_thenDoNotOpenEmptyAlert() {
+    configurationProperties.setConsecutiveMeasurementsForOk(1);
+    measurementService = new MeasurementService(measurementRepository, sensorRepository, alertRepository,
+        configurationProperties, measurementWindowStore, recentMeasurementStore, measurementAggregateService,
+        sensorStatusCache, new OperationalMetrics(meterRegistry), new SensorLocks(configurationProperties),
+        new SensorStatusMachine(configurationProperties), sensorEventHub);
+    Sensor sensor = createSensor();
+    sensor.setStatus(Status.ALERT);
+    UUID alertId = UUID.randomUUID();
+    sensor.setCurrentAlertId(alertId);
+    Measurement late = createMeasurement(CO2_QUANTITY_LIMIT - 1, NOW.minus(Duration.ofMinutes(4)), sensor);
+    // the alert opened at the oldest reading was extended by the 3 most recent ones
+    List<Measurement> mostRecentFirst = Arrays.asList(
+        createMeasurement(CO2_QUANTITY_LIMIT + 1, NOW.minus(Duration.ofMinutes(1)), sensor),
+        createMeasurement(CO2_QUANTITY_LIMIT + 1, NOW.minus(Duration.ofMinutes(2)), sensor),
+        createMeasurement(CO2_QUANTITY_LIMIT + 1, NOW.minus(Duration.ofMinutes(3)), sensor),
+        late,
+        createMeasurement(CO2_QUANTITY_LIMIT + 1, NOW.minus(Duration.ofMinutes(5)), sensor));
+    MeasurementWindow window = createWindow(Arrays.asList(mostRecentFirst.get(0), mostRecentFirst.get(1),
+        mostRecentFirst.get(2), mostRecentFirst.get(4),
+        createMeasurement(CO2_QUANTITY_LIMIT + 1, NOW.minus(Duration.ofMinutes(6)), sensor)),
+        Status.WARM, Status.ALERT, Status.ALERT, Status.ALERT, Status.ALERT);
+
+    when(measurementRepository.findBySensorIdOrderByCreatedDesc(SENSOR_ID, PageRequest.of(0, 5)))
+        .thenReturn(mostRecentFirst);
+    when(alertRepository.findBySensorIdCreatedFrom(SENSOR_ID, late.getCreated())).thenReturn(emptyList());
+    when(alertRepository.findTop1BySensorIdCreatedBefore(SENSOR_ID, late.getCreated())).thenReturn(Optional.of(
+        Alert.builder().id(alertId).sensor(sensor).created(NOW.minus(Duration.ofMinutes(5))).build()));
+    when(alertRepository.findReferencedMeasurementIds(anyList())).thenReturn(Arrays.asList(
+        mostRecentFirst.get(0).getId(), mostRecentFirst.get(1).getId(), mostRecentFirst.get(2).getId(),
+        mostRecentFirst.get(4).getId()));
+    when(alertRepository.findIdByMeasurementId(mostRecentFirst.get(0).getId())).thenReturn(Optional.of(alertId));
+
+    boolean reevaluated = measurementService.updateSensorStatusAfterLateMeasurement(sensor, window, late);
+
+    assertTrue(reevaluated);
+    assertEquals(Status.ALERT, sensor.getStatus());
+    assertEquals(alertId, sensor.getCurrentAlertId());
+    verify(alertRepository, never()).save(any());
+    verify(alertRepository, never()).delete(any());
+    verify(sensorEventHub).publishAfterCommit(SENSOR_ID, Status.ALERT, Transition.EXTEND_ALERT, late.getCreated());
+    assertEquals(0, meterRegistry.get(OperationalMetrics.ALERTS_CREATED).counter().count());
+  }
+
+  /**
+   * Creates a window of 5 readings holding the measurements, the first one being the most recent, with the status
+   * the sensor had after each of them, the oldest status first.
+   */
+  private MeasurementWindow createWindow(List<Measurement> mostRecentFirst, Status... oldestFirst) {
+    MeasurementWindow window = new MeasurementWindow(5);
+    for (int i = mostRecentFirst.size() - 1; i >= 0; i--) {
+      Measurement measurement = mostRecentFirst.get(i);
+      window.add(measurement.getCreated().toEpochMilli(), measurement.getCo2Quantity());
+      window.setStatus(0, oldestFirst[mostRecentFirst.size() - 1 - i]);
+    }
+    return window;
+  }
+
+  /**
+   * Creates a window holding the measurements, the first one being the most recent.
+   */
+  private MeasurementWindow createWindow(List<Measurement> mostRecentFirst) {
+    MeasurementWindow window = new MeasurementWindow(mostRecentFirst.size());
+    for (int i = 0; i < mostRecentFirst.size(); i++) {
+      window.add(NOW.minus(Duration.ofMinutes(i)).toEpochMilli(), mostRecentFirst.get(i).getCo2Quantity());
+    }
+    return window;
   }
 
   private Measurement createMeasurementBelowThreshold(Sensor sensor) {
@@ -234,6 +668,15 @@ class MeasurementServiceTest {
     return createMeasurement(CO2_QUANTITY_LIMIT + 1, sensor);
   }
 
+  private Measurement createMeasurement(double co2Quantity, Instant created, Sensor sensor) {
+    return Measurement.builder()
+        .id(UUID.randomUUID())
+        .co2Quantity(co2Quantity)
+        .created(created)
+        .sensor(sensor)
+        .build();
+  }
+
   private Measurement createMeasurement(double co2Quantity, Sensor sensor) {
     return Measurement.builder()
         .co2Quantity(co2Quantity)
@@ -0,0 +1,113 @@
+package com.carbonsensors.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import com.carbonsensors.config.ConfigurationProperties;
+import com.carbonsensors.model.Measurement;
+import com.carbonsensors.repository.MeasurementRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.UUID;
+
+class MeasurementWindowStoreTest {
+
+  private static final UUID SENSOR_ID = UUID.randomUUID();
+  private static final Instant NOW = Instant.now();
+  private static final int MAX_SENSORS = 20;
+
+  @Mock
+  private MeasurementRepository measurementRepository;
+
+  @Mock
+  private RecentMeasurementStore recentMeasurementStore;
+
+  private ConfigurationProperties configurationProperties;
+
+  private MeasurementWindowStore measurementWindowStore;
+
+  @BeforeEach
+  void setup() {
+    initMocks(this);
+
+    configurationProperties = new ConfigurationProperties();
+    configurationProperties.setConsecutiveMeasurementsForAlert(3);
+    configurationProperties.setConsecutiveMeasurementsForOk(4);
+    configurationProperties.setMeasurementReorderBufferSize(2);
+    configurationProperties.setMeasurementWindowMaxSensors(MAX_SENSORS);
+    configurationProperties.setMeasurementWindowIdleMinutes(60);
+
+    measurementWindowStore =
+        new MeasurementWindowStore(measurementRepository, recentMeasurementStore, configurationProperties);
+  }
+
+  @Test
+  void getWindow_whenSensorIsNotInMemory_thenLoadMostRecentMeasurementsOnce() {
+    when(measurementRepository.findBySensorIdOrderByCreatedDesc(SENSOR_ID, PageRequest.of(0, 6))).thenReturn(
+        Arrays.asList(
+            Measurement.builder().created(NOW).co2Quantity(3d).build(),
+            Measurement.builder().created(NOW.minus(Duration.ofMinutes(1))).co2Quantity(2d).build()));
+
+    MeasurementWindow window = measurementWindowStore.getWindow(SENSOR_ID);
+
+    assertEquals(6, window.capacity());
+    assertEquals(2, window.size());
+    assertEquals(3d, window.getCo2Quantity(0));
+    assertEquals(2d, window.getCo2Quantity(1));
+    assertSame(window, measurementWindowStore.getWindow(SENSOR_ID));
+    verify(measurementRepository, times(1)).findBySensorIdOrderByCreatedDesc(SENSOR_ID, PageRequest.of(0, 6));
+  }
+
+  @Test
+  void getWindow_whenRecentStoreHoldsEnoughReadings_thenDoNotReadDatabase() {
+    when(recentMeasurementStore.fillWindow(eq(SENSOR_ID), any())).thenReturn(true);
+
+    measurementWindowStore.getWindow(SENSOR_ID);
+
+    verify(recentMeasurementStore).fillWindow(eq(SENSOR_ID), any());
+    verify(measurementRepository, never()).findBySensorIdOrderByCreatedDesc(any(), any());
+  }
+
+  @Test
+  void evict_whenSensorIsInMemory_thenReloadItNextTime() {
+    MeasurementWindow window = measurementWindowStore.getWindow(SENSOR_ID);
+
+    measurementWindowStore.evict(SENSOR_ID);
+
+    assertNotSame(window, measurementWindowStore.getWindow(SENSOR_ID));
+    verify(measurementRepository, times(2)).findBySensorIdOrderByCreatedDesc(eq(SENSOR_ID), any());
+  }
+
+  @Test
+  void evictInactiveWindows_whenIdleTimeIsOver_thenDropWindows() {
+    measurementWindowStore.getWindow(SENSOR_ID);
+    configurationProperties.setMeasurementWindowIdleMinutes(-1);
+
+    measurementWindowStore.evictInactiveWindows();
+
+    assertEquals(0, measurementWindowStore.size());
+  }
+
+  @Test
+  void getWindow_whenMaximumNumberOfSensorsIsExceeded_thenEvictLeastRecentlyUsed() {
+    for (int i = 0; i <= MAX_SENSORS; i++) {
+      measurementWindowStore.getWindow(UUID.randomUUID());
+    }
+
+    assertEquals(MAX_SENSORS - 1, measurementWindowStore.size());
+  }
+}
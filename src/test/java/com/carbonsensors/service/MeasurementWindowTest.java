@@ -0,0 +1,127 @@
+package com.carbonsensors.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.carbonsensors.model.Status;
+import org.junit.jupiter.api.Test;
+
+class MeasurementWindowTest {
+
+  private static final double THRESHOLD = 2000d;
+
+  @Test
+  void constructor_whenCapacityIsNotPositive_thenThrowException() {
+    assertThrows(IllegalArgumentException.class, () -> new MeasurementWindow(0));
+  }
+
+  @Test
+  void add_whenWindowIsFull_thenReplaceOldestReading() {
+    MeasurementWindow window = new MeasurementWindow(3);
+    window.add(1, 10d);
+    window.add(2, 20d);
+    window.add(3, 30d);
+    window.add(4, 40d);
+
+    assertEquals(3, window.size());
+    assertEquals(40d, window.getCo2Quantity(0));
+    assertEquals(30d, window.getCo2Quantity(1));
+    assertEquals(20d, window.getCo2Quantity(2));
+    assertEquals(2, window.getCreatedEpochMillis(2));
+  }
+
+  @Test
+  void add_whenReadingIsOutOfOrder_thenKeepReadingsOrderedByCreation() {
+    MeasurementWindow window = new MeasurementWindow(3);
+    window.add(10, 10d);
+    window.add(30, 30d);
+    window.add(20, 20d);
+    window.add(25, 25d);
+
+    assertEquals(30d, window.getCo2Quantity(0));
+    assertEquals(25d, window.getCo2Quantity(1));
+    assertEquals(20d, window.getCo2Quantity(2));
+  }
+
+  @Test
+  void add_whenWindowIsFullAndReadingIsOlderThanAll_thenIgnoreReading() {
+    MeasurementWindow window = new MeasurementWindow(2);
+    window.add(10, 10d);
+    window.add(20, 20d);
+
+    assertFalse(window.add(5, 5d));
+    assertEquals(2, window.size());
+    assertEquals(10d, window.getCo2Quantity(1));
+  }
+
+  @Test
+  void insert_whenReadingIsLate_thenReturnItsPositionAndKeepStatusesOfOtherReadings() {
+    MeasurementWindow window = new MeasurementWindow(3);
+    window.add(10, 10d);
+    window.setStatus(0, Status.OK);
+    window.add(30, 30d);
+    window.setStatus(0, Status.WARM);
+
+    assertEquals(1, window.insert(20, 20d));
+    assertEquals(Status.WARM, window.getStatus(0));
+    assertNull(window.getStatus(1));
+    assertEquals(Status.OK, window.getStatus(2));
+    assertEquals(-1, window.insert(5, 5d));
+  }
+
+  @Test
+  void getCo2Quantity_whenPositionIsOutOfWindow_thenThrowException() {
+    MeasurementWindow window = new MeasurementWindow(3);
+    window.add(1, 10d);
+
+    assertThrows(IndexOutOfBoundsException.class, () -> window.getCo2Quantity(1));
+  }
+
+  @Test
+  void contains_whenReadingHasSameTimeAndQuantity_thenReturnTrue() {
+    MeasurementWindow window = new MeasurementWindow(3);
+    window.add(1, 10d);
+    window.add(2, 20d);
+
+    assertTrue(window.contains(1, 10d));
+    assertFalse(window.contains(1, 20d));
+    assertFalse(window.contains(3, 20d));
+  }
+
+  @Test
+  void covers_whenWindowIsFull_thenCoverOnlyReadingsAfterTheOldestOne() {
+    MeasurementWindow window = new MeasurementWindow(2);
+    window.add(2, 10d);
+    assertTrue(window.covers(1));
+
+    window.add(3, 10d);
+    assertFalse(window.covers(1));
+    assertFalse(window.covers(2));
+    assertTrue(window.covers(3));
+  }
+
+  @Test
+  void areLastAbove_whenThereAreNotEnoughReadings_thenReturnFalse() {
+    MeasurementWindow window = new MeasurementWindow(3);
+    window.add(1, THRESHOLD + 1);
+    window.add(2, THRESHOLD + 1);
+
+    assertFalse(window.areLastAbove(THRESHOLD, 3));
+    assertTrue(window.areLastAbove(THRESHOLD, 2));
+  }
+
+  @Test
+  void areLastAboveAndAtOrBelow_whenReadingsAreMixed_thenLookOnlyAtTheMostRecentOnes() {
+    MeasurementWindow window = new MeasurementWindow(3);
+    window.add(1, THRESHOLD + 1);
+    window.add(2, THRESHOLD);
+    window.add(3, THRESHOLD - 1);
+
+    assertFalse(window.areLastAbove(THRESHOLD, 1));
+    assertTrue(window.areLastAtOrBelow(THRESHOLD, 2));
+    assertFalse(window.areLastAtOrBelow(THRESHOLD, 3));
+  }
+}
@@ -0,0 +1,71 @@
+package com.carbonsensors.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.carbonsensors.model.Status;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class OperationalMetricsTest {
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private OperationalMetrics operationalMetrics;
+
+  @BeforeEach
+  void setup() {
+    meterRegistry = new SimpleMeterRegistry();
+    operationalMetrics = new OperationalMetrics(meterRegistry);
+  }
+
+  @AfterEach
+  void tearDown() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  void recordStage_whenActionThrowsException_thenRecordItsTimeAnyway() {
+    assertThrows(IllegalArgumentException.class, () -> operationalMetrics.recordStage(OperationalMetrics.Stage.INSERT,
+        () -> {
+          throw new IllegalArgumentException();
+        }));
+
+    assertEquals(1, meterRegistry.get(OperationalMetrics.MEASUREMENT_CREATION_STAGE)
+        .tag("stage", "insert").timer().count());
+  }
+
+  @Test
+  void countStatusTransitionAfterCommit_whenTransactionIsCommitted_thenCountTransition() {
+    TransactionSynchronizationManager.initSynchronization();
+
+    operationalMetrics.countStatusTransitionAfterCommit(Status.OK, Status.WARM);
+    operationalMetrics.countStatusTransitionAfterCommit(Status.OK, Status.WARM);
+    assertEquals(0, transitions(Status.OK, Status.WARM));
+
+    TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+    assertEquals(2, transitions(Status.OK, Status.WARM));
+  }
+
+  @Test
+  void countAlertCreatedAfterCommit_whenTransactionIsRolledBack_thenDoNotCountAlert() {
+    TransactionSynchronizationManager.initSynchronization();
+
+    operationalMetrics.countAlertCreatedAfterCommit();
+    TransactionSynchronizationManager.getSynchronizations()
+        .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+    assertEquals(0, meterRegistry.get(OperationalMetrics.ALERTS_CREATED).counter().count());
+  }
+
+  private double transitions(Status from, Status to) {
+    return meterRegistry.get(OperationalMetrics.SENSOR_STATUS_TRANSITIONS)
+        .tags("from", from.name(), "to", to.name()).counter().count();
+  }
+}
@@ -0,0 +1,157 @@
+package com.carbonsensors.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import com.carbonsensors.config.ConfigurationProperties;
+import com.carbonsensors.model.Measurement;
+import com.carbonsensors.model.projection.MeasurementStatistics;
+import com.carbonsensors.repository.MeasurementRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.UUID;
+
+class RecentMeasurementStoreTest {
+
+  private static final UUID SENSOR_ID = UUID.randomUUID();
+  private static final Instant NOW = Instant.now();
+  private static final long NOW_MILLIS = NOW.toEpochMilli();
+  private static final long MINUTE = 60_000;
+
+  @Mock
+  private MeasurementRepository measurementRepository;
+
+  @Mock
+  private OperationalMetrics operationalMetrics;
+
+  private ConfigurationProperties configurationProperties;
+
+  @BeforeEach
+  void setup() {
+    initMocks(this);
+
+    configurationProperties = new ConfigurationProperties();
+    configurationProperties.setMeasurementRecentHours(1);
+    configurationProperties.setMeasurementRecentReadingsPerSensor(4);
+    configurationProperties.setMeasurementRecentBudgetMb(1);
+  }
+
+  @Test
+  void track_whenSensorHasRecentMeasurements_thenLoadThoseWithinRetention() {
+    when(measurementRepository.findBySensorIdOrderByCreatedDesc(eq(SENSOR_ID), any())).thenReturn(Arrays.asList(
+        Measurement.builder().created(NOW.minus(Duration.ofMinutes(1))).co2Quantity(30d).build(),
+        Measurement.builder().created(NOW.minus(Duration.ofMinutes(2))).co2Quantity(10d).build(),
+        Measurement.builder().created(NOW.minus(Duration.ofHours(2))).co2Quantity(1000d).build()));
+    RecentMeasurementStore store = newStore();
+
+    store.track(SENSOR_ID);
+    store.track(SENSOR_ID);
+
+    MeasurementStatistics statistics = store.computeStatistics(SENSOR_ID, NOW_MILLIS - 30 * MINUTE, NOW_MILLIS)
+        .orElseThrow();
+    assertEquals(2L, statistics.getCount());
+    assertEquals(20d, statistics.getAverage());
+    assertEquals(30d, statistics.getMax());
+    assertFalse(store.computeStatistics(SENSOR_ID, NOW_MILLIS - 2 * 60 * MINUTE, NOW_MILLIS).isPresent());
+    verify(measurementRepository, times(1)).findBySensorIdOrderByCreatedDesc(eq(SENSOR_ID), any());
+  }
+
+  @Test
+  void add_whenSensorIsNotTracked_thenIgnoreReading() {
+    RecentMeasurementStore store = newStore();
+
+    store.add(SENSOR_ID, NOW_MILLIS, 10d);
+
+    assertEquals(Optional.empty(), store.computeStatistics(SENSOR_ID, NOW_MILLIS - MINUTE, NOW_MILLIS + 1));
+    assertEquals(0, store.size());
+  }
+
+  @Test
+  void add_whenReadingsArriveOutOfOrder_thenKeepThemOrderedByCreationTime() {
+    RecentMeasurementStore store = trackedStore();
+
+    store.add(SENSOR_ID, NOW_MILLIS - MINUTE, 1d);
+    store.add(SENSOR_ID, NOW_MILLIS - 3 * MINUTE, 3d);
+    store.add(SENSOR_ID, NOW_MILLIS - 2 * MINUTE, 2d);
+
+    MeasurementWindow window = new MeasurementWindow(3);
+    assertTrue(store.fillWindow(SENSOR_ID, window));
+    assertEquals(1d, window.getCo2Quantity(0));
+    assertEquals(2d, window.getCo2Quantity(1));
+    assertEquals(3d, window.getCo2Quantity(2));
+    assertFalse(store.fillWindow(SENSOR_ID, new MeasurementWindow(4)));
+  }
+
+  @Test
+  void add_whenSlotIsFull_thenDropOldestReadingAndItsCoverage() {
+    RecentMeasurementStore store = trackedStore();
+    for (int minutes = 5; minutes > 0; minutes--) {
+      store.add(SENSOR_ID, NOW_MILLIS - minutes * MINUTE, minutes);
+    }
+
+    assertFalse(store.computeStatistics(SENSOR_ID, NOW_MILLIS - 5 * MINUTE, NOW_MILLIS).isPresent());
+    MeasurementStatistics statistics = store.computeStatistics(SENSOR_ID, NOW_MILLIS - 4 * MINUTE, NOW_MILLIS)
+        .orElseThrow();
+    assertEquals(4L, statistics.getCount());
+    assertEquals(4d, statistics.getMax());
+
+    store.add(SENSOR_ID, NOW_MILLIS - 10 * MINUTE, 100d);
+    assertEquals(4d, store.computeStatistics(SENSOR_ID, NOW_MILLIS - 4 * MINUTE, NOW_MILLIS).orElseThrow().getMax());
+  }
+
+  @Test
+  void track_whenNoSlotIsFree_thenTakeOverSlotOfAnotherSensor() {
+    configurationProperties.setMeasurementRecentReadingsPerSensor(65536);
+    configurationProperties.setMeasurementRecentBudgetMb(2);
+    when(measurementRepository.findBySensorIdOrderByCreatedDesc(any(), any())).thenReturn(Collections.emptyList());
+    RecentMeasurementStore store = newStore();
+    UUID secondSensorId = UUID.randomUUID();
+    UUID thirdSensorId = UUID.randomUUID();
+
+    store.track(SENSOR_ID);
+    store.track(secondSensorId);
+    store.track(thirdSensorId);
+
+    assertEquals(2, store.slots());
+    assertEquals(2, store.size());
+    assertFalse(store.computeStatistics(SENSOR_ID, NOW_MILLIS - MINUTE, NOW_MILLIS).isPresent());
+    assertTrue(store.computeStatistics(thirdSensorId, NOW_MILLIS - MINUTE, NOW_MILLIS).isPresent());
+  }
+
+  @Test
+  void evict_whenSensorIsTracked_thenReloadItNextTime() {
+    RecentMeasurementStore store = trackedStore();
+
+    store.evict(SENSOR_ID);
+
+    assertFalse(store.computeStatistics(SENSOR_ID, NOW_MILLIS - MINUTE, NOW_MILLIS).isPresent());
+    store.track(SENSOR_ID);
+    verify(measurementRepository, times(2)).findBySensorIdOrderByCreatedDesc(eq(SENSOR_ID), any());
+  }
+
+  private RecentMeasurementStore trackedStore() {
+    when(measurementRepository.findBySensorIdOrderByCreatedDesc(eq(SENSOR_ID), any()))
+        .thenReturn(Collections.emptyList());
+    RecentMeasurementStore store = newStore();
+    store.track(SENSOR_ID);
+    return store;
+  }
+
+  private RecentMeasurementStore newStore() {
+    return new RecentMeasurementStore(measurementRepository, operationalMetrics, configurationProperties);
+  }
+}
@@ -0,0 +1,54 @@
+package com.carbonsensors.service;
+
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.carbonsensors.model.Status;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+
+class SensorEventFilterTest {
+
+  private static final UUID SENSOR_ID = UUID.randomUUID();
+  private static final SensorEvent STATUS_EVENT =
+      new SensorEvent(SensorEventType.STATUS, SENSOR_ID, Status.WARM, Status.ALERT, Instant.now());
+  private static final SensorEvent ALERT_EVENT =
+      new SensorEvent(SensorEventType.ALERT, SENSOR_ID, Status.WARM, Status.ALERT, Instant.now());
+
+  @Test
+  void matches_whenFilterHasNoCriteria_thenMatchEveryEvent() {
+    SensorEventFilter filter = SensorEventFilter.of(null, Collections.emptyList(), null);
+
+    assertTrue(filter.matches(STATUS_EVENT));
+    assertTrue(filter.matches(ALERT_EVENT));
+  }
+
+  @Test
+  void matches_whenEventIsOfAnotherSensor_thenDoNotMatch() {
+    SensorEventFilter filter = SensorEventFilter.of(UUID.randomUUID(), null, null);
+
+    assertFalse(filter.matches(STATUS_EVENT));
+  }
+
+  @Test
+  void matches_whenTypesAndStatusesAreGiven_thenMatchOnlyThem() {
+    SensorEventFilter filter = SensorEventFilter.of(SENSOR_ID, singletonList("alert"), Arrays.asList("alert", "WARM"));
+
+    assertTrue(filter.matches(ALERT_EVENT));
+    assertFalse(filter.matches(STATUS_EVENT));
+    assertFalse(filter.matches(
+        new SensorEvent(SensorEventType.ALERT, SENSOR_ID, Status.ALERT, Status.OK, Instant.now())));
+  }
+
+  @Test
+  void of_whenTypeOrStatusIsUnknown_thenThrowException() {
+    assertThrows(IllegalArgumentException.class, () -> SensorEventFilter.of(null, singletonList("measurement"), null));
+    assertThrows(IllegalArgumentException.class, () -> SensorEventFilter.of(null, null, singletonList("BROKEN")));
+  }
+}
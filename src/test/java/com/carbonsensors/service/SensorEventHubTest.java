@@ -0,0 +1,201 @@
+package com.carbonsensors.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.carbonsensors.config.ConfigurationProperties;
+import com.carbonsensors.model.Status;
+import com.carbonsensors.service.SensorStatusMachine.Transition;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+class SensorEventHubTest {
+
+  private static final Instant NOW = Instant.now();
+  private static final UUID SENSOR_ID = UUID.randomUUID();
+  private static final String HEARTBEAT = "heartbeat";
+  private static final int BUFFER_SIZE = 2;
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private SensorEventHub sensorEventHub;
+
+  @BeforeEach
+  void setup() {
+    ConfigurationProperties configurationProperties = new ConfigurationProperties();
+    configurationProperties.setSensorEventsBufferSize(BUFFER_SIZE);
+    configurationProperties.setSensorEventsDispatcherThreads(2);
+
+    meterRegistry = new SimpleMeterRegistry();
+    sensorEventHub = new SensorEventHub(configurationProperties, new OperationalMetrics(meterRegistry));
+  }
+
+  @AfterEach
+  void tearDown() {
+    sensorEventHub.stop();
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  void subscribe_whenSubscribed_thenSendHeartbeatRightAway() throws InterruptedException {
+    RecordingSink sink = new RecordingSink();
+
+    sensorEventHub.subscribe(SensorEventFilter.of(null, null, null), sink);
+
+    assertEquals(HEARTBEAT, sink.next());
+    assertEquals(1, sensorEventHub.size());
+    assertEquals(1, meterRegistry.get(OperationalMetrics.SENSOR_EVENTS_SUBSCRIBERS).gauge().value());
+  }
+
+  @Test
+  void publish_whenEventsMatchFilter_thenDeliverThemInOrder() throws InterruptedException {
+    RecordingSink sink = new RecordingSink();
+    sensorEventHub.subscribe(SensorEventFilter.of(SENSOR_ID, null, null), sink);
+    SensorEvent warm = statusEvent(SENSOR_ID, Status.OK, Status.WARM);
+    SensorEvent alert = statusEvent(SENSOR_ID, Status.WARM, Status.ALERT);
+
+    sensorEventHub.publish(warm);
+    sensorEventHub.publish(alert);
+
+    assertEquals(HEARTBEAT, sink.next());
+    assertEquals(warm, sink.next());
+    assertEquals(alert, sink.next());
+  }
+
+  @Test
+  void publish_whenEventDoesNotMatchFilter_thenDoNotDeliverIt() throws InterruptedException {
+    RecordingSink sink = new RecordingSink();
+    sensorEventHub.subscribe(SensorEventFilter.of(SENSOR_ID, null, null), sink);
+    SensorEvent matching = statusEvent(SENSOR_ID, Status.OK, Status.WARM);
+
+    sensorEventHub.publish(statusEvent(UUID.randomUUID(), Status.OK, Status.WARM));
+    sensorEventHub.publish(matching);
+
+    assertEquals(HEARTBEAT, sink.next());
+    assertEquals(matching, sink.next());
+  }
+
+  @Test
+  void publish_whenSubscriberBufferIsFull_thenEvictSubscriber() {
+    RecordingSink sink = new RecordingSink();
+    sink.ready = false;
+    sensorEventHub.subscribe(SensorEventFilter.of(null, null, null), sink);
+
+    for (int i = 0; i <= BUFFER_SIZE; i++) {
+      sensorEventHub.publish(statusEvent(SENSOR_ID, Status.OK, Status.WARM));
+    }
+
+    assertEquals(0, sink.closed.getCount());
+    assertEquals(0, sensorEventHub.size());
+    assertEquals(1, meterRegistry.get(OperationalMetrics.SENSOR_EVENTS_EVICTED).counter().count());
+  }
+
+  @Test
+  void publish_whenSinkFails_thenEndSubscriptionWithoutEvictingIt() throws InterruptedException {
+    RecordingSink sink = new RecordingSink();
+    sink.failing = true;
+    sensorEventHub.subscribe(SensorEventFilter.of(null, null, null), sink);
+
+    sensorEventHub.publish(statusEvent(SENSOR_ID, Status.OK, Status.WARM));
+
+    assertTrue(sink.closed.await(5, TimeUnit.SECONDS));
+    assertEquals(0, sensorEventHub.size());
+    assertEquals(0, meterRegistry.get(OperationalMetrics.SENSOR_EVENTS_EVICTED).counter().count());
+  }
+
+  @Test
+  void publishAfterCommit_whenAlertIsOpened_thenPublishStatusAndAlertOnceCommitted() throws InterruptedException {
+    RecordingSink sink = new RecordingSink();
+    sensorEventHub.subscribe(SensorEventFilter.of(SENSOR_ID, null, null), sink);
+    assertEquals(HEARTBEAT, sink.next());
+    TransactionSynchronizationManager.initSynchronization();
+
+    sensorEventHub.publishAfterCommit(SENSOR_ID, Status.WARM, Transition.OPEN_ALERT, NOW);
+
+    assertNull(sink.received.poll(100, TimeUnit.MILLISECONDS));
+    TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+    assertEquals(statusEvent(SENSOR_ID, Status.WARM, Status.ALERT), sink.next());
+    assertEquals(new SensorEvent(SensorEventType.ALERT, SENSOR_ID, Status.WARM, Status.ALERT, NOW), sink.next());
+  }
+
+  @Test
+  void publishAfterCommit_whenAlertIsExtended_thenPublishNothing() throws InterruptedException {
+    RecordingSink sink = new RecordingSink();
+    sensorEventHub.subscribe(SensorEventFilter.of(SENSOR_ID, null, null), sink);
+    assertEquals(HEARTBEAT, sink.next());
+
+    sensorEventHub.publishAfterCommit(SENSOR_ID, Status.ALERT, Transition.EXTEND_ALERT, NOW);
+
+    assertNull(sink.received.poll(100, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  void sendHeartbeats_whenSubscriptionIsCancelled_thenDoNotSendHeartbeat() throws InterruptedException {
+    RecordingSink sink = new RecordingSink();
+    SensorEventHub.Subscription subscription =
+        sensorEventHub.subscribe(SensorEventFilter.of(null, null, null), sink);
+    assertEquals(HEARTBEAT, sink.next());
+
+    sensorEventHub.sendHeartbeats();
+    assertEquals(HEARTBEAT, sink.next());
+    subscription.cancel();
+    sensorEventHub.sendHeartbeats();
+
+    assertNull(sink.received.poll(100, TimeUnit.MILLISECONDS));
+    assertEquals(0, sensorEventHub.size());
+  }
+
+  private static SensorEvent statusEvent(UUID sensorId, Status from, Status to) {
+    return new SensorEvent(SensorEventType.STATUS, sensorId, from, to, NOW);
+  }
+
+  private static class RecordingSink implements SensorEventSink {
+
+    private final BlockingQueue<Object> received = new LinkedBlockingQueue<>();
+    private final CountDownLatch closed = new CountDownLatch(1);
+    private volatile boolean ready = true;
+    private volatile boolean failing;
+
+    @Override
+    public void send(SensorEvent event) throws IOException {
+      if (failing) {
+        throw new IOException("Broken pipe");
+      }
+      received.add(event);
+    }
+
+    @Override
+    public void heartbeat() {
+      received.add(HEARTBEAT);
+    }
+
+    @Override
+    public boolean isReady() {
+      return ready;
+    }
+
+    @Override
+    public void close() {
+      closed.countDown();
+    }
+
+    private Object next() throws InterruptedException {
+      return received.poll(5, TimeUnit.SECONDS);
+    }
+  }
+}
@@ -0,0 +1,54 @@
+package com.carbonsensors.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+class SensorIdRangeTest {
+
+  private static final UUID LOWEST = new UUID(Long.MIN_VALUE, Long.MIN_VALUE);
+  private static final UUID HIGHEST = new UUID(Long.MAX_VALUE, Long.MAX_VALUE);
+
+  @Test
+  void partition_whenOnePartition_thenCoverWholeIdSpace() {
+    List<SensorIdRange> ranges = SensorIdRange.partition(1);
+
+    assertEquals(1, ranges.size());
+    assertEquals(LOWEST, ranges.get(0).getFrom());
+    assertEquals(HIGHEST, ranges.get(0).getTo());
+  }
+
+  @Test
+  void partition_whenTwoPartitions_thenSplitOnSignOfMostSignificantBits() {
+    List<SensorIdRange> ranges = SensorIdRange.partition(2);
+
+    assertEquals(new UUID(-1L, Long.MAX_VALUE), ranges.get(0).getTo());
+    assertEquals(new UUID(0L, Long.MIN_VALUE), ranges.get(1).getFrom());
+  }
+
+  @Test
+  void partition_whenPartitionsDoNotDivideIdSpace_thenRangesAreContiguous() {
+    for (int partitions = 3; partitions <= 7; partitions++) {
+      List<SensorIdRange> ranges = SensorIdRange.partition(partitions);
+
+      assertEquals(partitions, ranges.size());
+      assertEquals(LOWEST, ranges.get(0).getFrom());
+      assertEquals(HIGHEST, ranges.get(partitions - 1).getTo());
+      for (int i = 1; i < partitions; i++) {
+        SensorIdRange previous = ranges.get(i - 1);
+        SensorIdRange range = ranges.get(i);
+        assertEquals(previous.getTo().getMostSignificantBits() + 1, range.getFrom().getMostSignificantBits());
+        assertEquals(-1, previous.getFrom().compareTo(previous.getTo()));
+      }
+    }
+  }
+
+  @Test
+  void partition_whenNoPartition_thenThrowIllegalArgumentException() {
+    assertThrows(IllegalArgumentException.class, () -> SensorIdRange.partition(0));
+  }
+}
@@ -0,0 +1,91 @@
+package com.carbonsensors.service;
+
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.carbonsensors.config.ConfigurationProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+class SensorLocksTest {
+
+  private static final UUID SENSOR_ID = UUID.randomUUID();
+
+  private ConfigurationProperties configurationProperties;
+
+  private SensorLocks sensorLocks;
+
+  @BeforeEach
+  void setup() {
+    configurationProperties = new ConfigurationProperties();
+    configurationProperties.setMeasurementSensorLockStripes(16);
+
+    sensorLocks = new SensorLocks(configurationProperties);
+  }
+
+  @AfterEach
+  void tearDown() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  void lockUntilTransactionCompletes_whenTransactionIsActive_thenHoldLockUntilItCompletes() throws Exception {
+    TransactionSynchronizationManager.initSynchronization();
+    sensorLocks.lockUntilTransactionCompletes(singletonList(SENSOR_ID));
+
+    CompletableFuture<Void> otherTransaction =
+        CompletableFuture.runAsync(() -> sensorLocks.lockUntilTransactionCompletes(singletonList(SENSOR_ID)));
+    assertThrows(TimeoutException.class, () -> otherTransaction.get(200, TimeUnit.MILLISECONDS));
+
+    TransactionSynchronizationManager.getSynchronizations()
+        .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+    otherTransaction.get(5, TimeUnit.SECONDS);
+  }
+
+  @Test
+  void lockUntilTransactionCompletes_whenSensorsShareAStripe_thenLockAndReleaseThemAll() throws Exception {
+    configurationProperties.setMeasurementSensorLockStripes(1);
+    sensorLocks = new SensorLocks(configurationProperties);
+    TransactionSynchronizationManager.initSynchronization();
+
+    sensorLocks.lockUntilTransactionCompletes(Arrays.asList(SENSOR_ID, UUID.randomUUID()));
+    TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+    TransactionSynchronizationManager.getSynchronizations()
+        .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+    CompletableFuture<Void> otherTransaction =
+        CompletableFuture.runAsync(() -> sensorLocks.lockUntilTransactionCompletes(singletonList(SENSOR_ID)));
+    otherTransaction.get(5, TimeUnit.SECONDS);
+    assertTrue(otherTransaction.isDone());
+  }
+
+  @Test
+  void lockUntilTransactionCompletes_whenNoTransactionIsActive_thenReleaseLocksRightAway() throws Exception {
+    sensorLocks.lockUntilTransactionCompletes(singletonList(SENSOR_ID));
+
+    CompletableFuture<Void> otherTransaction =
+        CompletableFuture.runAsync(() -> sensorLocks.lockUntilTransactionCompletes(singletonList(SENSOR_ID)));
+    otherTransaction.get(5, TimeUnit.SECONDS);
+    assertFalse(otherTransaction.isCompletedExceptionally());
+  }
+
+  @Test
+  void constructor_whenStripesAreNotPositive_thenThrowException() {
+    configurationProperties.setMeasurementSensorLockStripes(0);
+
+    assertThrows(IllegalArgumentException.class, () -> new SensorLocks(configurationProperties));
+  }
+}
@@ -3,7 +3,12 @@ package com.carbonsensors.service;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
@@ -11,13 +16,21 @@ import static org.mockito.MockitoAnnotations.initMocks;
 import com.carbonsensors.config.ConfigurationProperties;
 import com.carbonsensors.model.Sensor;
 import com.carbonsensors.model.Status;
+import com.carbonsensors.model.projection.MeasurementStatistics;
 import com.carbonsensors.model.projection.SensorMetrics;
-import com.carbonsensors.repository.MeasurementRepository;
+import com.carbonsensors.model.projection.SensorStatusValue;
+import com.carbonsensors.repository.SensorBulkRepository;
 import com.carbonsensors.repository.SensorRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -27,9 +40,13 @@ class SensorServiceTest {
   private static final Integer METRICS_CO2_DAYS = 30;
 
   @Mock
-  private MeasurementRepository measurementRepository;
+  private MeasurementAggregateService measurementAggregateService;
   @Mock
   private SensorRepository sensorRepository;
+  @Mock
+  private SensorBulkRepository sensorBulkRepository;
+
+  private SensorStatusCache sensorStatusCache;
 
   private SensorService sensorService;
 
@@ -39,8 +56,16 @@ class SensorServiceTest {
 
     ConfigurationProperties configurationProperties = new ConfigurationProperties();
     configurationProperties.setMetricsCo2Days(METRICS_CO2_DAYS);
-
-    sensorService = new SensorService(measurementRepository, sensorRepository, configurationProperties);
+    configurationProperties.setSensorStatusCacheMaxSize(10);
+    configurationProperties.setSensorStatusBulkMaxSize(3);
+    configurationProperties.setSensorStatusBulkChunkSize(2);
+    configurationProperties.setSensorProvisioningMaxSize(3);
+    configurationProperties.setSensorProvisioningBatchSize(2);
+
+    sensorStatusCache = new SensorStatusCache(configurationProperties);
+    sensorService = new SensorService(measurementAggregateService, sensorRepository, sensorBulkRepository,
+        configurationProperties,
+        sensorStatusCache, new OperationalMetrics(new SimpleMeterRegistry()));
   }
 
   @Test
@@ -57,6 +82,37 @@ class SensorServiceTest {
     verify(sensorRepository).save(any());
   }
 
+  @Test
+  void createSensors_whenCountIsGiven_thenInsertSensorsWithNewIds() {
+    List<UUID> result = sensorService.createSensors(3, null);
+
+    assertEquals(3, result.size());
+    assertEquals(3, new HashSet<>(result).size());
+    verify(sensorBulkRepository).insertIfAbsent(result, Status.OK, 2);
+  }
+
+  @Test
+  void createSensors_whenIdsAreGiven_thenInsertEachOfThemOnceInOrder() {
+    UUID otherSensorId = UUID.randomUUID();
+
+    List<UUID> result = sensorService.createSensors(null, Arrays.asList(otherSensorId, SENSOR_ID, otherSensorId));
+
+    assertEquals(Arrays.asList(otherSensorId, SENSOR_ID), result);
+    verify(sensorBulkRepository).insertIfAbsent(Arrays.asList(otherSensorId, SENSOR_ID), Status.OK, 2);
+  }
+
+  @Test
+  void createSensors_whenRequestIsInvalid_thenThrowException() {
+    assertThrows(IllegalArgumentException.class, () -> sensorService.createSensors(null, null));
+    assertThrows(IllegalArgumentException.class,
+        () -> sensorService.createSensors(1, Collections.singletonList(SENSOR_ID)));
+    assertThrows(IllegalArgumentException.class, () -> sensorService.createSensors(0, null));
+    assertThrows(IllegalArgumentException.class, () -> sensorService.createSensors(4, null));
+    assertThrows(IllegalArgumentException.class, () -> sensorService.createSensors(null, Arrays.asList(
+        UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID())));
+    verify(sensorBulkRepository, never()).insertIfAbsent(any(), any(), anyInt());
+  }
+
   @Test
   void findSensorById_whenSensorIdIsValid_thenReturnSensor() {
     Sensor sensor = Sensor.builder()
@@ -75,6 +131,100 @@ class SensorServiceTest {
     assertThrows(IllegalArgumentException.class, () -> sensorService.findSensorById(null));
   }
 
+  @Test
+  void findSensorStatusById_whenStatusIsNotCached_thenLoadAndCacheIt() {
+    Sensor sensor = Sensor.builder()
+        .id(SENSOR_ID)
+        .status(Status.WARM)
+        .build();
+    when(sensorRepository.findById(SENSOR_ID)).thenReturn(Optional.of(sensor));
+
+    assertEquals(Status.WARM, sensorService.findSensorStatusById(SENSOR_ID));
+    assertEquals(Status.WARM, sensorService.findSensorStatusById(SENSOR_ID));
+
+    verify(sensorRepository, times(1)).findById(SENSOR_ID);
+    SensorStatusCacheStatistics statistics = sensorService.findSensorStatusCacheStatistics();
+    assertEquals(1, statistics.getHitCount());
+    assertEquals(1, statistics.getMissCount());
+  }
+
+  @Test
+  void findSensorStatusById_whenStatusIsInvalidated_thenLoadItAgain() {
+    Sensor sensor = Sensor.builder()
+        .id(SENSOR_ID)
+        .status(Status.OK)
+        .build();
+    when(sensorRepository.findById(SENSOR_ID)).thenReturn(Optional.of(sensor));
+    sensorService.findSensorStatusById(SENSOR_ID);
+
+    sensor.setStatus(Status.ALERT);
+    sensorStatusCache.invalidateAfterCommit(SENSOR_ID);
+
+    assertEquals(Status.ALERT, sensorService.findSensorStatusById(SENSOR_ID));
+    verify(sensorRepository, times(2)).findById(SENSOR_ID);
+  }
+
+  @Test
+  void findSensorStatusById_whenSensorIdIsNull_thenThrowException() {
+    assertThrows(IllegalArgumentException.class, () -> sensorService.findSensorStatusById(null));
+  }
+
+  @Test
+  void findSensorStatusById_whenSensorIdIsInvalid_thenThrowExceptionAndCacheNothing() {
+    when(sensorRepository.findById(SENSOR_ID)).thenReturn(Optional.empty());
+
+    assertThrows(IllegalArgumentException.class, () -> sensorService.findSensorStatusById(SENSOR_ID));
+    assertEquals(0, sensorService.findSensorStatusCacheStatistics().getSize());
+  }
+
+  @Test
+  void findSensorStatusesByIds_whenSomeSensorsAreUnknown_thenReportThemIndividually() {
+    UUID unknownSensorId = UUID.randomUUID();
+    UUID otherSensorId = UUID.randomUUID();
+    when(sensorRepository.findStatusesByIds(any())).thenReturn(Arrays.asList(
+        new SensorStatusValue(SENSOR_ID, Status.OK), new SensorStatusValue(otherSensorId, Status.ALERT)));
+
+    SensorStatuses result =
+        sensorService.findSensorStatusesByIds(Arrays.asList(otherSensorId, unknownSensorId, SENSOR_ID));
+
+    assertEquals(Arrays.asList(otherSensorId, SENSOR_ID), new ArrayList<>(result.getStatuses().keySet()));
+    assertEquals(Status.ALERT, result.getStatuses().get(otherSensorId));
+    assertEquals(Status.OK, result.getStatuses().get(SENSOR_ID));
+    assertEquals(Collections.singletonList(unknownSensorId), result.getUnknown());
+    verify(sensorRepository, times(2)).findStatusesByIds(any());
+    verify(sensorRepository, never()).findById(any());
+  }
+
+  @Test
+  void findSensorStatusesByIds_whenStatusesAreCached_thenQueryOnlyTheMissingOnes() {
+    UUID otherSensorId = UUID.randomUUID();
+    Sensor sensor = Sensor.builder()
+        .id(SENSOR_ID)
+        .status(Status.WARM)
+        .build();
+    when(sensorRepository.findById(SENSOR_ID)).thenReturn(Optional.of(sensor));
+    sensorService.findSensorStatusById(SENSOR_ID);
+    when(sensorRepository.findStatusesByIds(Collections.singletonList(otherSensorId)))
+        .thenReturn(Collections.singletonList(new SensorStatusValue(otherSensorId, Status.OK)));
+
+    SensorStatuses result = sensorService.findSensorStatusesByIds(Arrays.asList(SENSOR_ID, otherSensorId, SENSOR_ID));
+
+    assertEquals(Status.WARM, result.getStatuses().get(SENSOR_ID));
+    assertEquals(Status.OK, result.getStatuses().get(otherSensorId));
+    assertTrue(result.getUnknown().isEmpty());
+    verify(sensorRepository).findStatusesByIds(Collections.singletonList(otherSensorId));
+  }
+
+  @Test
+  void findSensorStatusesByIds_whenIdsAreInvalid_thenThrowException() {
+    assertThrows(IllegalArgumentException.class, () -> sensorService.findSensorStatusesByIds(null));
+    assertThrows(IllegalArgumentException.class,
+        () -> sensorService.findSensorStatusesByIds(Arrays.asList(SENSOR_ID, null)));
+    assertThrows(IllegalArgumentException.class, () -> sensorService.findSensorStatusesByIds(Arrays.asList(
+        UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID())));
+    verify(sensorRepository, never()).findStatusesByIds(any());
+  }
+
   @Test
   void findSensorById_whenSensorIdIsInvalid_thenThrowException() {
     when(sensorRepository.findById(SENSOR_ID)).thenReturn(Optional.empty());
@@ -89,14 +239,14 @@ class SensorServiceTest {
 
   @Test
   void findMetricsBySensorId_whenSensorIdIsValid_thenReturnMetrics() {
-    SensorMetrics sensorMetrics = new SensorMetrics(1d, 1d);
-    when(measurementRepository.computeMetricsById(any(), any()))
-        .thenReturn(sensorMetrics);
+    when(measurementAggregateService.computeStatisticsSince(eq(SENSOR_ID), any()))
+        .thenReturn(new MeasurementStatistics(4L, 10d, 4d, 1d));
 
     SensorMetrics result = sensorService.findMetricsBySensorId(SENSOR_ID);
 
     assertNotNull(result);
-    assertEquals(sensorMetrics, result);
-    verify(measurementRepository).computeMetricsById(any(), any());
+    assertEquals(4d, result.getMaxLastNDays());
+    assertEquals(2.5d, result.getAverageLastNDays());
+    verify(measurementAggregateService).computeStatisticsSince(eq(SENSOR_ID), any());
   }
 }
\ No newline at end of file
@@ -0,0 +1,201 @@
+package com.carbonsensors.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import com.carbonsensors.config.ConfigurationProperties;
+import com.carbonsensors.model.Status;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class SensorStatusCacheTest {
+
+  private static final UUID SENSOR_ID = UUID.randomUUID();
+
+  private SensorStatusCache sensorStatusCache;
+
+  private AtomicInteger loads;
+
+  @BeforeEach
+  void setup() {
+    ConfigurationProperties configurationProperties = new ConfigurationProperties();
+    configurationProperties.setSensorStatusCacheMaxSize(10);
+
+    sensorStatusCache = new SensorStatusCache(configurationProperties);
+    loads = new AtomicInteger();
+  }
+
+  @AfterEach
+  void tearDown() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  void invalidateAfterCommit_whenNoTransactionIsActive_thenInvalidateRightAway() {
+    sensorStatusCache.get(SENSOR_ID, this::loadOk);
+
+    sensorStatusCache.invalidateAfterCommit(SENSOR_ID);
+    sensorStatusCache.get(SENSOR_ID, this::loadOk);
+
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  void invalidateAfterCommit_whenTransactionIsActive_thenInvalidateOnlyOnceCommitted() {
+    sensorStatusCache.get(SENSOR_ID, this::loadOk);
+    TransactionSynchronizationManager.initSynchronization();
+
+    sensorStatusCache.invalidateAfterCommit(SENSOR_ID);
+    sensorStatusCache.get(SENSOR_ID, this::loadOk);
+    assertEquals(1, loads.get());
+
+    TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+    sensorStatusCache.get(SENSOR_ID, this::loadOk);
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  void invalidateAfterCommit_whenTransactionIsRolledBack_thenKeepCachedStatus() {
+    sensorStatusCache.get(SENSOR_ID, this::loadOk);
+    TransactionSynchronizationManager.initSynchronization();
+
+    sensorStatusCache.invalidateAfterCommit(SENSOR_ID);
+    TransactionSynchronizationManager.getSynchronizations()
+        .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+    sensorStatusCache.get(SENSOR_ID, this::loadOk);
+
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  void statistics_whenStatusesAreReadTwice_thenCountHitsAndMisses() {
+    sensorStatusCache.get(SENSOR_ID, this::loadOk);
+    sensorStatusCache.get(SENSOR_ID, this::loadOk);
+    sensorStatusCache.get(UUID.randomUUID(), this::loadOk);
+
+    SensorStatusCacheStatistics statistics = sensorStatusCache.statistics();
+    assertEquals(2, statistics.getSize());
+    assertEquals(1, statistics.getHitCount());
+    assertEquals(2, statistics.getMissCount());
+    assertEquals(1d / 3, statistics.getHitRate(), 1e-9);
+  }
+
+  @Test
+  void get_whenInvalidatedWhileLoading_thenDoNotLockEntryNorCacheLoadedStatus() throws Exception {
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch loaded = new CountDownLatch(1);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<Status> status = executor.submit(() -> sensorStatusCache.get(SENSOR_ID, id -> {
+        loading.countDown();
+        await(loaded);
+        return Status.WARM;
+      }));
+      loading.await();
+
+      assertTimeoutPreemptively(Duration.ofSeconds(5), () -> sensorStatusCache.invalidateAfterCommit(SENSOR_ID));
+      loaded.countDown();
+
+      assertEquals(Status.WARM, status.get());
+      assertEquals(Status.OK, sensorStatusCache.get(SENSOR_ID, this::loadOk));
+      assertEquals(1, loads.get());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void get_whenLoaderFails_thenThrowItsExceptionAndDoNotCacheIt() {
+    IllegalArgumentException failure = new IllegalArgumentException("Sensor does not exist");
+
+    assertSame(failure, assertThrows(IllegalArgumentException.class, () -> sensorStatusCache.get(SENSOR_ID, id -> {
+      throw failure;
+    })));
+
+    assertEquals(Status.OK, sensorStatusCache.get(SENSOR_ID, this::loadOk));
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  void getAsync_whenSensorDoesNotExist_thenDoNotCacheIt() {
+    assertNull(sensorStatusCache.getAsync(SENSOR_ID, id -> CompletableFuture.completedFuture(null)).join());
+
+    assertEquals(Status.OK, sensorStatusCache.getAsync(SENSOR_ID, this::loadOkAsync).join());
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  void getAsync_whenInvalidatedWhileLoading_thenDoNotCacheLoadedStatus() {
+    CompletableFuture<Status> pendingLoad = new CompletableFuture<>();
+    CompletableFuture<Status> status = sensorStatusCache.getAsync(SENSOR_ID, id -> pendingLoad);
+
+    sensorStatusCache.invalidateAfterCommit(SENSOR_ID);
+    pendingLoad.complete(Status.WARM);
+
+    assertEquals(Status.WARM, status.join());
+    assertEquals(Status.OK, sensorStatusCache.getAsync(SENSOR_ID, this::loadOkAsync).join());
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  void getAll_whenSomeStatusesAreCached_thenLoadOnlyTheOthersAndSkipUnknownSensors() {
+    UUID unknownSensorId = UUID.randomUUID();
+    UUID otherSensorId = UUID.randomUUID();
+    sensorStatusCache.get(SENSOR_ID, this::loadOk);
+    List<Set<UUID>> loadedIds = new ArrayList<>();
+
+    Map<UUID, Status> statuses = sensorStatusCache.getAll(Arrays.asList(SENSOR_ID, otherSensorId, unknownSensorId),
+        ids -> {
+          loadedIds.add(ids);
+          return Collections.singletonMap(otherSensorId, Status.WARM);
+        });
+
+    assertEquals(2, statuses.size());
+    assertEquals(Status.OK, statuses.get(SENSOR_ID));
+    assertEquals(Status.WARM, statuses.get(otherSensorId));
+    assertEquals(Collections.singletonList(new HashSet<>(Arrays.asList(otherSensorId, unknownSensorId))), loadedIds);
+    assertEquals(2, sensorStatusCache.statistics().getSize());
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private CompletableFuture<Status> loadOkAsync(UUID sensorId) {
+    return CompletableFuture.completedFuture(loadOk(sensorId));
+  }
+
+  private Status loadOk(UUID sensorId) {
+    loads.incrementAndGet();
+    return Status.OK;
+  }
+}
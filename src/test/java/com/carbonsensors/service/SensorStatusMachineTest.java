@@ -0,0 +1,95 @@
+package com.carbonsensors.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.carbonsensors.config.ConfigurationProperties;
+import com.carbonsensors.model.Status;
+import com.carbonsensors.service.SensorStatusMachine.Transition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SensorStatusMachineTest {
+
+  private static final int CO2_THRESHOLD = 2000;
+  private static final double ABOVE = CO2_THRESHOLD + 100d;
+  private static final double BELOW = CO2_THRESHOLD - 100d;
+
+  private SensorStatusMachine sensorStatusMachine;
+
+  @BeforeEach
+  void setup() {
+    ConfigurationProperties configurationProperties = new ConfigurationProperties();
+    configurationProperties.setCo2LevelThreshold(CO2_THRESHOLD);
+    configurationProperties.setConsecutiveMeasurementsForAlert(3);
+    configurationProperties.setConsecutiveMeasurementsForOk(3);
+
+    sensorStatusMachine = new SensorStatusMachine(configurationProperties);
+  }
+
+  @Test
+  void next_whenLast3AreAboveThreshold_thenOpenAlert() {
+    assertEquals(Transition.OPEN_ALERT, sensorStatusMachine.next(Status.WARM, window(ABOVE, ABOVE, ABOVE)));
+  }
+
+  @Test
+  void next_whenLast3AreAboveThresholdAndSensorIsInAlert_thenExtendAlert() {
+    assertEquals(Transition.EXTEND_ALERT, sensorStatusMachine.next(Status.ALERT, window(ABOVE, ABOVE, ABOVE)));
+  }
+
+  @Test
+  void next_whenLast3AreBelowThresholdAndSensorIsInAlert_thenSetOk() {
+    assertEquals(Transition.SET_OK, sensorStatusMachine.next(Status.ALERT, window(BELOW, BELOW, BELOW)));
+  }
+
+  @Test
+  void next_whenLastIsAboveThresholdAndSensorIsNotInAlert_thenSetWarm() {
+    assertEquals(Transition.SET_WARM, sensorStatusMachine.next(Status.OK, window(BELOW, BELOW, ABOVE)));
+  }
+
+  @Test
+  void next_whenLastIsBelowThresholdAndSensorIsNotInAlert_thenSetOk() {
+    assertEquals(Transition.SET_OK, sensorStatusMachine.next(Status.WARM, window(ABOVE, BELOW)));
+  }
+
+  @Test
+  void next_whenSensorIsInAlertAndLastIsBelowThreshold_thenKeepStatus() {
+    assertEquals(Transition.NONE, sensorStatusMachine.next(Status.ALERT, window(ABOVE, ABOVE, BELOW)));
+  }
+
+  @Test
+  void next_whenWindowIsEmpty_thenKeepStatus() {
+    assertEquals(Transition.NONE, sensorStatusMachine.next(Status.OK, window()));
+  }
+
+  @Test
+  void next_whenPositionIsGiven_thenIgnoreNewerReadings() {
+    assertEquals(Transition.OPEN_ALERT, sensorStatusMachine.next(Status.WARM, window(ABOVE, ABOVE, ABOVE, BELOW), 1));
+  }
+
+  @Test
+  void replay_whenReadingsAreReplayed_thenEvaluateThemOneAfterTheOther() {
+    Transition[] transitions = sensorStatusMachine.replay(Status.OK, window(BELOW, ABOVE, ABOVE, ABOVE, BELOW), 3);
+
+    assertArrayEquals(new Transition[] {Transition.NONE, Transition.OPEN_ALERT, Transition.SET_WARM,
+        Transition.SET_WARM}, transitions);
+  }
+
+  @Test
+  void apply_whenTransitionKeepsStatus_thenReturnCurrentStatus() {
+    assertEquals(Status.WARM, Transition.NONE.apply(Status.WARM));
+    assertEquals(Status.ALERT, Transition.OPEN_ALERT.apply(Status.WARM));
+  }
+
+  /**
+   * @param co2Quantities readings from the oldest to the most recent
+   */
+  private MeasurementWindow window(double... co2Quantities) {
+    MeasurementWindow window =
+        new MeasurementWindow(Math.max(sensorStatusMachine.getWindowCapacity(), co2Quantities.length));
+    for (int i = 0; i < co2Quantities.length; i++) {
+      window.add(i, co2Quantities[i]);
+    }
+    return window;
+  }
+}
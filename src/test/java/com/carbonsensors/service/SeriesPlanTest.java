@@ -0,0 +1,183 @@
+package com.carbonsensors.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.carbonsensors.model.RollupResolution;
+import com.carbonsensors.model.projection.MeasurementStatistics;
+import com.carbonsensors.model.projection.RollupBucket;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+class SeriesPlanTest {
+
+  private static final Instant DAY_START = Instant.parse("2021-01-10T00:00:00Z");
+  private static final Instant HORIZON = DAY_START.minus(Duration.ofDays(90));
+  private static final int MAX_POINTS = 1500;
+
+  @Test
+  void of_whenResolutionIsAWholeNumberOfHours_thenReadHourRollup() {
+    SeriesPlan plan = SeriesPlan.of(DAY_START, DAY_START.plus(Duration.ofDays(2)), "PT6H", MAX_POINTS, HORIZON);
+
+    assertEquals(RollupResolution.HOUR, plan.getRollup());
+    assertEquals(Duration.ofHours(6), plan.getResolution());
+  }
+
+  @Test
+  void of_whenResolutionIsARollupName_thenReadThatRollup() {
+    assertEquals(RollupResolution.DAY,
+        SeriesPlan.of(DAY_START, DAY_START.plus(Duration.ofDays(30)), "day", MAX_POINTS, HORIZON).getRollup());
+    assertEquals(RollupResolution.MINUTE,
+        SeriesPlan.of(DAY_START, DAY_START.plus(Duration.ofHours(1)), "PT15M", MAX_POINTS, HORIZON).getRollup());
+  }
+
+  @Test
+  void of_whenResolutionIsMissing_thenUseFinestRollupWithinMaxPoints() {
+    assertEquals(Duration.ofMinutes(1),
+        SeriesPlan.of(DAY_START, DAY_START.plus(Duration.ofHours(12)), null, MAX_POINTS, HORIZON).getResolution());
+    assertEquals(Duration.ofHours(1),
+        SeriesPlan.of(DAY_START, DAY_START.plus(Duration.ofDays(7)), null, MAX_POINTS, HORIZON).getResolution());
+    assertEquals(Duration.ofDays(1),
+        SeriesPlan.of(DAY_START, DAY_START.plus(Duration.ofDays(365)), null, MAX_POINTS, HORIZON).getResolution());
+  }
+
+  @Test
+  void of_whenResolutionIsNotAWholeNumberOfMinutes_thenThrowIllegalArgumentException() {
+    assertThrows(IllegalArgumentException.class,
+        () -> SeriesPlan.of(DAY_START, DAY_START.plus(Duration.ofHours(1)), "PT90S", MAX_POINTS, HORIZON));
+    assertThrows(IllegalArgumentException.class,
+        () -> SeriesPlan.of(DAY_START, DAY_START.plus(Duration.ofHours(1)), "weekly", MAX_POINTS, HORIZON));
+  }
+
+  @Test
+  void of_whenSeriesHasTooManyPoints_thenThrowIllegalArgumentException() {
+    assertThrows(IllegalArgumentException.class,
+        () -> SeriesPlan.of(DAY_START, DAY_START.plus(Duration.ofDays(7)), "minute", MAX_POINTS, HORIZON));
+  }
+
+  @Test
+  void of_whenRangeIsEmpty_thenThrowIllegalArgumentException() {
+    assertThrows(IllegalArgumentException.class,
+        () -> SeriesPlan.of(DAY_START, DAY_START, "hour", MAX_POINTS, HORIZON));
+    assertThrows(IllegalArgumentException.class, () -> SeriesPlan.of(null, DAY_START, "hour", MAX_POINTS, HORIZON));
+  }
+
+  @Test
+  void getRawSpans_whenRangeIsNotAlignedOnRollup_thenReadOnlyPartialBucketsFromMeasurements() {
+    Instant from = DAY_START.plus(Duration.ofHours(1)).plus(Duration.ofMinutes(20));
+    Instant to = DAY_START.plus(Duration.ofHours(5)).plus(Duration.ofMinutes(10));
+
+    SeriesPlan plan = SeriesPlan.of(from, to, "hour", MAX_POINTS, HORIZON);
+
+    assertTrue(plan.hasWholeRollupBuckets());
+    assertEquals(DAY_START.plus(Duration.ofHours(2)), plan.getRollupFrom());
+    assertEquals(DAY_START.plus(Duration.ofHours(5)), plan.getRollupTo());
+    List<SeriesPlan.Span> spans = plan.getRawSpans();
+    assertEquals(2, spans.size());
+    assertEquals(from, spans.get(0).getFrom());
+    assertEquals(DAY_START.plus(Duration.ofHours(2)), spans.get(0).getTo());
+    assertEquals(DAY_START.plus(Duration.ofHours(5)), spans.get(1).getFrom());
+    assertEquals(to, spans.get(1).getTo());
+  }
+
+  @Test
+  void getRawSpans_whenRangeIsAlignedOnRollup_thenReadNothingFromMeasurements() {
+    SeriesPlan plan = SeriesPlan.of(DAY_START, DAY_START.plus(Duration.ofDays(3)), "day", MAX_POINTS, HORIZON);
+
+    assertTrue(plan.hasWholeRollupBuckets());
+    assertTrue(plan.getRawSpans().isEmpty());
+  }
+
+  @Test
+  void getRawSpans_whenRangeIsWithinABucketOfTheRollup_thenReadWholeRangeFromMeasurements() {
+    Instant from = DAY_START.plus(Duration.ofMinutes(10));
+    Instant to = DAY_START.plus(Duration.ofMinutes(40));
+
+    SeriesPlan plan = SeriesPlan.of(from, to, "hour", MAX_POINTS, HORIZON);
+
+    assertFalse(plan.hasWholeRollupBuckets());
+    assertEquals(1, plan.getRawSpans().size());
+    assertEquals(from, plan.getRawSpans().get(0).getFrom());
+    assertEquals(to, plan.getRawSpans().get(0).getTo());
+  }
+
+  @Test
+  void of_whenRangeIsNotAlignedOnMinuteBeforeHorizon_thenThrowIllegalArgumentException() {
+    Instant horizon = DAY_START.plus(Duration.ofHours(12));
+
+    assertThrows(IllegalArgumentException.class, () -> SeriesPlan.of(DAY_START.plusSeconds(30),
+        DAY_START.plus(Duration.ofDays(1)), "hour", MAX_POINTS, horizon));
+    assertThrows(IllegalArgumentException.class, () -> SeriesPlan.of(DAY_START,
+        DAY_START.plus(Duration.ofHours(3)).plusSeconds(30), "hour", MAX_POINTS, horizon));
+    SeriesPlan.of(DAY_START, DAY_START.plus(Duration.ofDays(1)).plusSeconds(30), "hour", MAX_POINTS, horizon);
+  }
+
+  @Test
+  void getExpiredSpans_whenPartialBucketIsBeforeHorizon_thenReadItFromMinuteRollup() {
+    Instant from = DAY_START.plus(Duration.ofHours(1)).plus(Duration.ofMinutes(20));
+    Instant to = DAY_START.plus(Duration.ofHours(5)).plus(Duration.ofMinutes(10)).plusSeconds(30);
+    Instant horizon = DAY_START.plus(Duration.ofHours(3));
+
+    SeriesPlan plan = SeriesPlan.of(from, to, "hour", MAX_POINTS, horizon);
+
+    List<SeriesPlan.Span> expired = plan.getExpiredSpans();
+    assertEquals(1, expired.size());
+    assertEquals(from, expired.get(0).getFrom());
+    assertEquals(DAY_START.plus(Duration.ofHours(2)), expired.get(0).getTo());
+    List<SeriesPlan.Span> raw = plan.getRawSpans();
+    assertEquals(1, raw.size());
+    assertEquals(DAY_START.plus(Duration.ofHours(5)), raw.get(0).getFrom());
+    assertEquals(to, raw.get(0).getTo());
+  }
+
+  @Test
+  void getExpiredSpans_whenPartialBucketCrossesHorizon_thenReadOnlyItsLastMinuteFromMeasurements() {
+    Instant from = DAY_START.plus(Duration.ofMinutes(10));
+    Instant to = DAY_START.plus(Duration.ofMinutes(40)).plusSeconds(30);
+    Instant horizon = DAY_START.plus(Duration.ofMinutes(20));
+
+    SeriesPlan plan = SeriesPlan.of(from, to, "hour", MAX_POINTS, horizon);
+
+    assertFalse(plan.hasWholeRollupBuckets());
+    assertEquals(1, plan.getExpiredSpans().size());
+    assertEquals(from, plan.getExpiredSpans().get(0).getFrom());
+    assertEquals(DAY_START.plus(Duration.ofMinutes(40)), plan.getExpiredSpans().get(0).getTo());
+    assertEquals(1, plan.getRawSpans().size());
+    assertEquals(DAY_START.plus(Duration.ofMinutes(40)), plan.getRawSpans().get(0).getFrom());
+    assertEquals(to, plan.getRawSpans().get(0).getTo());
+  }
+
+  @Test
+  void getExpiredSpans_whenRangeIsAfterHorizon_thenReadNothingFromMinuteRollup() {
+    SeriesPlan plan = SeriesPlan.of(DAY_START.plus(Duration.ofMinutes(10)), DAY_START.plus(Duration.ofHours(3)),
+        "hour", MAX_POINTS, HORIZON);
+
+    assertTrue(plan.getExpiredSpans().isEmpty());
+    assertEquals(1, plan.getRawSpans().size());
+  }
+
+  @Test
+  void toSeries_whenBucketsFallInTheSamePoint_thenMergeThemAndLeaveEmptyOnesOut() {
+    SeriesPlan plan = SeriesPlan.of(DAY_START.plus(Duration.ofMinutes(50)), DAY_START.plus(Duration.ofHours(6)), "PT2H",
+        MAX_POINTS, HORIZON);
+
+    MeasurementSeries series = plan.toSeries(Arrays.asList(
+        new RollupBucket(DAY_START.plus(Duration.ofMinutes(50)), new MeasurementStatistics(1L, 10d, 10d, 10d)),
+        new RollupBucket(DAY_START.plus(Duration.ofHours(1)), new MeasurementStatistics(2L, 50d, 30d, 20d)),
+        new RollupBucket(DAY_START.plus(Duration.ofHours(3)), MeasurementStatistics.empty()),
+        new RollupBucket(DAY_START.plus(Duration.ofHours(4)), new MeasurementStatistics(1L, 5d, 5d, 5d))));
+
+    assertEquals(RollupResolution.HOUR, series.getRollup());
+    assertEquals(2, series.getPoints().size());
+    assertEquals(DAY_START, series.getPoints().get(0).getStart());
+    assertEquals(3L, series.getPoints().get(0).getStatistics().getCount());
+    assertEquals(10d, series.getPoints().get(0).getStatistics().getMin());
+    assertEquals(DAY_START.plus(Duration.ofHours(4)), series.getPoints().get(1).getStart());
+  }
+}